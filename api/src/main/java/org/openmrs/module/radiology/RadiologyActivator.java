@@ -11,7 +11,10 @@ package org.openmrs.module.radiology;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.context.Context;
 import org.openmrs.module.BaseModuleActivator;
+import org.openmrs.module.radiology.report.RadiologyReportService;
+import org.openmrs.module.radiology.report.template.MrrtReportTemplateService;
 
 /**
  * This class contains the logic that is run every time this module is either started or shutdown
@@ -29,6 +32,27 @@ public class RadiologyActivator extends BaseModuleActivator {
     
     @Override
     public void started() {
+        try {
+            Context.getService(MrrtReportTemplateService.class)
+                    .reconcileMrrtReportTemplateFiles();
+        }
+        catch (Exception e) {
+            log.error("Failed to reconcile report template files", e);
+        }
+        try {
+            Context.getService(MrrtReportTemplateService.class)
+                    .rebuildMrrtReportTemplateSearchIndex();
+        }
+        catch (Exception e) {
+            log.error("Failed to build the report template search index", e);
+        }
+        try {
+            Context.getService(RadiologyReportService.class)
+                    .openRadiologyReportSearchIndex();
+        }
+        catch (Exception e) {
+            log.error("Failed to open the radiology report search index", e);
+        }
         log.info("Radiology Module successfully started");
     }
     
@@ -0,0 +1,130 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Statistics of one Hibernate second-level cache region holding radiology entities, collections or query results.
+ * <p>
+ * Hits, misses and puts are only counted while Hibernate statistics are enabled, the number of cached elements is
+ * always reported.
+ * </p>
+ */
+public class RadiologyCacheStatistics {
+    
+    
+    private final String region;
+    
+    private final long hitCount;
+    
+    private final long missCount;
+    
+    private final long putCount;
+    
+    private final long elementCountInMemory;
+    
+    /**
+     * Creates a new instance of {@link RadiologyCacheStatistics}.
+     *
+     * @param region the name of the cache region
+     * @param hitCount the number of lookups found in the region
+     * @param missCount the number of lookups not found in the region
+     * @param putCount the number of entries put into the region
+     * @param elementCountInMemory the number of entries currently held by the region
+     */
+    public RadiologyCacheStatistics(String region, long hitCount, long missCount, long putCount,
+            long elementCountInMemory) {
+        
+        this.region = region;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.elementCountInMemory = elementCountInMemory;
+    }
+    
+    /**
+     * Get the statistics of the cache region with given name from given session factory.
+     * <p>
+     * Regions are matched with or without the region prefix configured for the session factory. Regions which do not
+     * exist, because caching is disabled or a query region was not used yet, are reported with zero counts.
+     * </p>
+     *
+     * @param sessionFactory the session factory owning the cache region
+     * @param region the name of the cache region without region prefix
+     * @return the statistics of the cache region
+     * @throws IllegalArgumentException if given session factory is null
+     * @throws IllegalArgumentException if given region is null
+     * @should return the statistics of the region with given name
+     * @should return the statistics of the region with given name and any region prefix
+     * @should return zero counts if the region does not exist
+     * @should throw illegal argument exception if given session factory is null
+     * @should throw illegal argument exception if given region is null
+     */
+    public static RadiologyCacheStatistics of(SessionFactory sessionFactory, String region) {
+        
+        if (sessionFactory == null) {
+            throw new IllegalArgumentException("sessionFactory cannot be null");
+        }
+        if (region == null) {
+            throw new IllegalArgumentException("region cannot be null");
+        }
+        final Statistics statistics = sessionFactory.getStatistics();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            if (regionName.equals(region) || regionName.endsWith("." + region)) {
+                final SecondLevelCacheStatistics regionStatistics =
+                        statistics.getSecondLevelCacheStatistics(regionName);
+                if (regionStatistics != null) {
+                    return new RadiologyCacheStatistics(region, regionStatistics.getHitCount(),
+                            regionStatistics.getMissCount(), regionStatistics.getPutCount(),
+                            regionStatistics.getElementCountInMemory());
+                }
+            }
+        }
+        return new RadiologyCacheStatistics(region, 0, 0, 0, 0);
+    }
+    
+    /**
+     * @return the name of the cache region
+     */
+    public String getRegion() {
+        return region;
+    }
+    
+    /**
+     * @return the number of lookups found in the region
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+    
+    /**
+     * @return the number of lookups not found in the region
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+    
+    /**
+     * @return the number of entries put into the region
+     */
+    public long getPutCount() {
+        return putCount;
+    }
+    
+    /**
+     * @return the number of entries currently held by the region
+     */
+    public long getElementCountInMemory() {
+        return elementCountInMemory;
+    }
+}
@@ -93,12 +93,27 @@ public class RadiologyConstants {
      */
     public static final String GP_NEXT_ACCESSION_NUMBER_SEED = "radiology.nextAccessionNumberSeed";
     
+    /**
+     * {@code GlobalProperty} property for the number of accession number seeds reserved at once.
+     * A value of 1 reserves one seed per {@code RadiologyOrder}, bigger values reserve blocks of seeds which are then
+     * handed out from memory.
+     *
+     * @see org.openmrs.module.radiology.order.BlockAllocatingAccessionNumberGenerator
+     */
+    public static final String GP_ACCESSION_NUMBER_BLOCK_SIZE = "radiology.accessionNumberBlockSize";
+    
     /**
      * {@code GlobalProperty} property for the directory where report templates are stored.
      * Allowable values are absolute and relative paths.
      */
     public static final String GP_MRRT_REPORT_TEMPLATE_DIR = "radiology.reportTemplatesHome";
     
+    /**
+     * {@code GlobalProperty} property for the directory where the full text index of radiology reports is stored.
+     * Allowable values are absolute and relative paths.
+     */
+    public static final String GP_REPORT_INDEX_DIR = "radiology.reportIndexHome";
+    
     private RadiologyConstants() {
         // Utility class not meant to be instantiated.
     }
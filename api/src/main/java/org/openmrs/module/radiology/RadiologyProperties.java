@@ -12,31 +12,65 @@ package org.openmrs.module.radiology;
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Hibernate;
 import org.openmrs.CareSetting;
 import org.openmrs.ConceptClass;
 import org.openmrs.EncounterRole;
 import org.openmrs.EncounterType;
+import org.openmrs.GlobalProperty;
 import org.openmrs.OrderType;
 import org.openmrs.VisitType;
 import org.openmrs.api.AdministrationService;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.EncounterService;
+import org.openmrs.api.GlobalPropertyListener;
 import org.openmrs.api.OrderService;
 import org.openmrs.api.VisitService;
 import org.openmrs.util.OpenmrsUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Properties, mostly configured via GPs for this module.
+ * <p>
+ * Properties read on every order or report search are resolved once and cached until their GP is changed or deleted,
+ * which this class is notified of as {@link GlobalPropertyListener}. A value resolved while its GP is changed is not
+ * cached. Metadata like the radiology care setting is cached as the detached object it was resolved to, so that using
+ * it prepares no statement in later sessions, orders and encounters only reference it by its id. Changes to the
+ * metadata itself, including purging it, do not refresh the cache, {@link #clearCache()} does.
+ * </p>
  */
 @Component
-public class RadiologyProperties {
+public class RadiologyProperties implements GlobalPropertyListener {
     
     
+    private static final Set<String> CACHED_GLOBAL_PROPERTIES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(RadiologyConstants.GP_DICOM_UID_ORG_ROOT,
+                RadiologyConstants.GP_DICOM_WEB_VIEWER_ADDRESS, RadiologyConstants.GP_DICOM_WEB_VIEWER_PORT,
+                RadiologyConstants.GP_DICOM_WEB_VIEWER_BASE_URL, RadiologyConstants.GP_RADIOLOGY_CARE_SETTING,
+                RadiologyConstants.GP_RADIOLOGY_TEST_ORDER_TYPE, RadiologyConstants.GP_RADIOLOGY_ORDER_ENCOUNTER_TYPE,
+                RadiologyConstants.GP_RADIOLOGY_ORDERING_PROVIDER_ENCOUNTER_ROLE, RadiologyConstants.GP_RADIOLOGY_VISIT_TYPE,
+                RadiologyConstants.GP_RADIOLOGY_CONCEPT_CLASSES,
+                RadiologyConstants.GP_RADIOLOGY_ORDER_REASON_CONCEPT_CLASSES,
+                RadiologyConstants.GP_ACCESSION_NUMBER_BLOCK_SIZE, RadiologyConstants.GP_REPORT_INDEX_DIR)));
+    
+    private final ConcurrentMap<String, Object> cache = new ConcurrentHashMap<>();
+    
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    
     @Autowired
     @Qualifier("adminService")
     private AdministrationService administrationService;
@@ -62,7 +96,7 @@ public class RadiologyProperties {
      * @should throw illegal state exception if global property for dicom uid org root cannot be found
      */
     public String getDicomUIDOrgRoot() {
-        return getGlobalProperty(RadiologyConstants.GP_DICOM_UID_ORG_ROOT, true);
+        return getCachedGlobalProperty(RadiologyConstants.GP_DICOM_UID_ORG_ROOT);
     }
     
     /**
@@ -75,7 +109,7 @@ public class RadiologyProperties {
      *         be found
      */
     public String getDicomWebViewerAddress() {
-        return getGlobalProperty(RadiologyConstants.GP_DICOM_WEB_VIEWER_ADDRESS, true);
+        return getCachedGlobalProperty(RadiologyConstants.GP_DICOM_WEB_VIEWER_ADDRESS);
     }
     
     /**
@@ -88,7 +122,7 @@ public class RadiologyProperties {
      *         found
      */
     public String getDicomWebViewerPort() {
-        return getGlobalProperty(RadiologyConstants.GP_DICOM_WEB_VIEWER_PORT, true);
+        return getCachedGlobalProperty(RadiologyConstants.GP_DICOM_WEB_VIEWER_PORT);
     }
     
     /**
@@ -102,7 +136,7 @@ public class RadiologyProperties {
      *         be found
      */
     public String getDicomWebViewerBaseUrl() {
-        return getGlobalProperty(RadiologyConstants.GP_DICOM_WEB_VIEWER_BASE_URL, true);
+        return getCachedGlobalProperty(RadiologyConstants.GP_DICOM_WEB_VIEWER_BASE_URL);
     }
     
     /**
@@ -125,13 +159,15 @@ public class RadiologyProperties {
      * @should throw illegal state exception if radiology care setting cannot be found
      */
     public CareSetting getRadiologyCareSetting() {
-        final CareSetting result =
-                orderService.getCareSettingByUuid(getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_CARE_SETTING, true));
-        if (result == null) {
-            throw new IllegalStateException(
-                    "No existing care setting for uuid: " + RadiologyConstants.GP_RADIOLOGY_CARE_SETTING);
-        }
-        return result;
+        return getCached(RadiologyConstants.GP_RADIOLOGY_CARE_SETTING, () -> {
+            final CareSetting result = orderService
+                    .getCareSettingByUuid(getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_CARE_SETTING, true));
+            if (result == null) {
+                throw new IllegalStateException(
+                        "No existing care setting for uuid: " + RadiologyConstants.GP_RADIOLOGY_CARE_SETTING);
+            }
+            return result;
+        });
     }
     
     /**
@@ -142,7 +178,15 @@ public class RadiologyProperties {
      * @should throw illegal state exception for non existing radiology test order type
      */
     public OrderType getRadiologyTestOrderType() {
-        return orderService.getOrderTypeByUuid(getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_TEST_ORDER_TYPE, true));
+        return getCached(RadiologyConstants.GP_RADIOLOGY_TEST_ORDER_TYPE, () -> {
+            final OrderType result = orderService
+                    .getOrderTypeByUuid(getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_TEST_ORDER_TYPE, true));
+            if (result != null) {
+                // saving an order checks its concept class against these once the order type is detached
+                Hibernate.initialize(result.getConceptClasses());
+            }
+            return result;
+        });
     }
     
     /**
@@ -153,8 +197,9 @@ public class RadiologyProperties {
      * @should throw illegal state exception for non existing radiology encounter type
      */
     public EncounterType getRadiologyOrderEncounterType() {
-        return encounterService
-                .getEncounterTypeByUuid(getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_ORDER_ENCOUNTER_TYPE, true));
+        return getCached(RadiologyConstants.GP_RADIOLOGY_ORDER_ENCOUNTER_TYPE,
+            () -> encounterService
+                    .getEncounterTypeByUuid(getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_ORDER_ENCOUNTER_TYPE, true)));
     }
     
     /**
@@ -165,8 +210,9 @@ public class RadiologyProperties {
      * @should throw illegal state exception for non existing ordering provider encounter role
      */
     public EncounterRole getRadiologyOrderingProviderEncounterRole() {
-        return encounterService.getEncounterRoleByUuid(
-            getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_ORDERING_PROVIDER_ENCOUNTER_ROLE, true));
+        return getCached(RadiologyConstants.GP_RADIOLOGY_ORDERING_PROVIDER_ENCOUNTER_ROLE,
+            () -> encounterService.getEncounterRoleByUuid(
+                getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_ORDERING_PROVIDER_ENCOUNTER_ROLE, true)));
     }
     
     /**
@@ -175,9 +221,11 @@ public class RadiologyProperties {
      * @return visitType for radiology orders
      * @should return visit type for radiology orders
      * @should throw illegal state exception for non existing radiology visit type
+     * @should return the cached radiology visit type until the cache is cleared after it was purged
      */
     public VisitType getRadiologyVisitType() {
-        return visitService.getVisitTypeByUuid(getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_VISIT_TYPE, true));
+        return getCached(RadiologyConstants.GP_RADIOLOGY_VISIT_TYPE,
+            () -> visitService.getVisitTypeByUuid(getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_VISIT_TYPE, true)));
     }
     
     /**
@@ -200,6 +248,10 @@ public class RadiologyProperties {
      *         in global property radiology concept classes
      */
     public String getRadiologyConceptClassNames() {
+        return getCached(RadiologyConstants.GP_RADIOLOGY_CONCEPT_CLASSES, this::resolveRadiologyConceptClassNames);
+    }
+    
+    private String resolveRadiologyConceptClassNames() {
         
         String radiologyConceptClassUuidSetting = getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_CONCEPT_CLASSES, true);
         radiologyConceptClassUuidSetting = radiologyConceptClassUuidSetting.replace(" ", "");
@@ -244,6 +296,11 @@ public class RadiologyProperties {
      *         radiology order reason concept classes
      */
     public String getRadiologyOrderReasonConceptClassNames() {
+        return getCached(RadiologyConstants.GP_RADIOLOGY_ORDER_REASON_CONCEPT_CLASSES,
+            this::resolveRadiologyOrderReasonConceptClassNames);
+    }
+    
+    private String resolveRadiologyOrderReasonConceptClassNames() {
         
         String radiologyReasonConceptClassUuidSetting =
                 getGlobalProperty(RadiologyConstants.GP_RADIOLOGY_ORDER_REASON_CONCEPT_CLASSES, false);
@@ -276,6 +333,148 @@ public class RadiologyProperties {
         return result;
     }
     
+    /**
+     * Gets the number of accession number seeds which are reserved at once.
+     *
+     * @return the accession number block size or 1 if global property accessionNumberBlockSize is not configured
+     * @throws IllegalStateException if global property accessionNumberBlockSize is not a positive integer
+     * @should return 1 if global property accession number block size is not configured
+     * @should return accession number block size
+     * @should throw illegal state exception if global property accession number block size is not a positive integer
+     */
+    public int getAccessionNumberBlockSize() {
+        return getCached(RadiologyConstants.GP_ACCESSION_NUMBER_BLOCK_SIZE, this::resolveAccessionNumberBlockSize);
+    }
+    
+    private Integer resolveAccessionNumberBlockSize() {
+        
+        final String blockSizeSetting = getGlobalProperty(RadiologyConstants.GP_ACCESSION_NUMBER_BLOCK_SIZE, false);
+        if (StringUtils.isBlank(blockSizeSetting)) {
+            return 1;
+        }
+        
+        int result = 0;
+        try {
+            result = Integer.parseInt(blockSizeSetting.trim());
+        }
+        catch (NumberFormatException e) {
+            // handled below since result is still 0
+        }
+        if (result < 1) {
+            throw new IllegalStateException(
+                    "Property " + RadiologyConstants.GP_ACCESSION_NUMBER_BLOCK_SIZE + " needs to be a positive integer");
+        }
+        return result;
+    }
+    
+    /**
+     * Gets a cached value resolving and caching it if it is not cached.
+     * 
+     * @param globalPropertyName the name of the global property the value is resolved from
+     * @param resolver resolves the value, a value of null or an exception is not cached
+     * @return the cached value
+     * @should not cache a value resolved while the cached value was evicted
+     * @should prepare no statements for cached metadata in a new session
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getCached(String globalPropertyName, Supplier<T> resolver) {
+        
+        T result = (T) cache.get(globalPropertyName);
+        if (result == null) {
+            final AtomicLong generation = getGeneration(globalPropertyName);
+            final long resolvedGeneration = generation.get();
+            result = resolver.get();
+            if (result != null) {
+                cache.put(globalPropertyName, result);
+                // evict bumps the generation before removing, so a value resolved from a stale GP is removed here
+                if (generation.get() != resolvedGeneration) {
+                    cache.remove(globalPropertyName, result);
+                }
+            }
+        }
+        return result;
+    }
+    
+    private AtomicLong getGeneration(String globalPropertyName) {
+        return generations.computeIfAbsent(globalPropertyName, name -> new AtomicLong());
+    }
+    
+    /**
+     * Gets the cached value of a required global property.
+     * 
+     * @param globalPropertyName the name of the global property
+     * @return the cached value of the global property
+     * @throws IllegalStateException if global property cannot be found
+     */
+    private String getCachedGlobalProperty(String globalPropertyName) {
+        return getCached(globalPropertyName, () -> getGlobalProperty(globalPropertyName, true));
+    }
+    
+    /**
+     * Removes all cached values so they are resolved again on their next use.
+     * 
+     * @should resolve values again after the cache was cleared
+     */
+    public void clearCache() {
+        
+        for (AtomicLong generation : generations.values()) {
+            generation.incrementAndGet();
+        }
+        cache.clear();
+    }
+    
+    /**
+     * @see GlobalPropertyListener#supportsPropertyName(String)
+     * @should return true for global properties whose values are cached
+     * @should return false for global properties whose values are not cached
+     */
+    @Override
+    public boolean supportsPropertyName(String propertyName) {
+        return CACHED_GLOBAL_PROPERTIES.contains(propertyName);
+    }
+    
+    /**
+     * @see GlobalPropertyListener#globalPropertyChanged(GlobalProperty)
+     * @should resolve value of changed global property again
+     */
+    @Override
+    public void globalPropertyChanged(GlobalProperty newValue) {
+        evict(newValue.getProperty());
+    }
+    
+    /**
+     * @see GlobalPropertyListener#globalPropertyDeleted(String)
+     */
+    @Override
+    public void globalPropertyDeleted(String propertyName) {
+        evict(propertyName);
+    }
+    
+    /**
+     * Removes the cached value of given global property, again once the current transaction completes so that a value
+     * resolved from a change which is rolled back is not kept. Each removal bumps the generation of the global
+     * property so that a value which is being resolved meanwhile is not cached.
+     * 
+     * @param globalPropertyName the name of the global property
+     */
+    private void evict(String globalPropertyName) {
+        
+        final AtomicLong generation = getGeneration(globalPropertyName);
+        generation.incrementAndGet();
+        cache.remove(globalPropertyName);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                
+                
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    cache.remove(globalPropertyName);
+                }
+            });
+        }
+    }
+    
     /**
      * Gets a global property by its name.
      * 
@@ -319,4 +518,35 @@ public class RadiologyProperties {
         
         return templatesPath.toFile();
     }
+    
+    /**
+     * Gets folder to store the full text index of radiology reports, which is resolved and created once and cached
+     * until its GP changes.
+     * 
+     * @return report index folder
+     * @throws IllegalStateException if global property cannot be found
+     * @should create a directory under the openmrs application data directory if GP value is relative
+     * @should creates a directory at GP value if it is an absolute path
+     * @should throw illegal state exception if global property cannot be found
+     * @should return the folder of the changed global property
+     */
+    public File getReportIndexHome() {
+        return getCached(RadiologyConstants.GP_REPORT_INDEX_DIR, this::resolveReportIndexHome);
+    }
+    
+    private File resolveReportIndexHome() {
+        
+        Path indexPath = Paths.get(getGlobalProperty(RadiologyConstants.GP_REPORT_INDEX_DIR, true));
+        
+        if (!indexPath.isAbsolute()) {
+            indexPath = Paths.get(OpenmrsUtil.getApplicationDataDirectory(), indexPath.toString());
+        }
+        if (!indexPath.toFile()
+                .exists()) {
+            indexPath.toFile()
+                    .mkdirs();
+        }
+        
+        return indexPath.toFile();
+    }
 }
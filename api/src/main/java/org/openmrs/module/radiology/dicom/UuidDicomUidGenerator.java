@@ -9,10 +9,15 @@
  */
 package org.openmrs.module.radiology.dicom;
 
-import org.openmrs.module.radiology.util.DecimalUuid;
+import java.util.UUID;
 
 /**
  * Generates DICOM UIDs based on decimal representations of {@link java.util.UUID#randomUUID()}.
+ * <p>
+ * The decimal representation is the same as the one of {@link org.openmrs.module.radiology.util.DecimalUuid} but
+ * computed from the two longs of the UUID into a buffer reused per thread. A root is validated when it is first used
+ * and not again as long as the same root is used.
+ * </p>
  */
 public class UuidDicomUidGenerator implements DicomUidGenerator {
     
@@ -21,6 +26,22 @@ public class UuidDicomUidGenerator implements DicomUidGenerator {
     
     private static final char DICOM_UID_SEPARATOR = '.';
     
+    /**
+     * Maximum number of decimal digits of an unsigned 128 bit integer.
+     */
+    private static final int MAX_DECIMAL_UUID_LENGTH = 39;
+    
+    private static final long DECIMAL_CHUNK_DIVISOR = 1_000_000_000L;
+    
+    private static final int DECIMAL_CHUNK_LENGTH = 9;
+    
+    private static final long UNSIGNED_INT_MASK = 0xffffffffL;
+    
+    private static final ThreadLocal<char[]> BUFFER =
+            ThreadLocal.withInitial(() -> new char[MAX_ROOT_LENGTH + 1 + MAX_DECIMAL_UUID_LENGTH]);
+    
+    private volatile String validatedRoot;
+    
     /**
      * @see org.openmrs.module.radiology.dicom.DicomUidGenerator#getMaxRootLength()
      */
@@ -32,14 +53,40 @@ public class UuidDicomUidGenerator implements DicomUidGenerator {
     
     /**
      * @see org.openmrs.module.radiology.dicom.DicomUidGenerator#getNewDicomUid(String)
+     * @should throw an illegal argument exception if root is not a valid uid after a valid root was used
      */
     @Override
     public String getNewDicomUid(String root) {
         
+        validateRoot(root);
+        
+        final UUID uuid = UUID.randomUUID();
+        final char[] buffer = BUFFER.get();
+        final int separator =
+                toUnsignedDecimal(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), buffer, buffer.length) - 1;
+        buffer[separator] = DICOM_UID_SEPARATOR;
+        final int start = separator - root.length();
+        root.getChars(0, root.length(), buffer, start);
+        return new String(buffer, start, buffer.length - start);
+    }
+    
+    /**
+     * Validate given root unless it is the root validated last.
+     * 
+     * @param root the root to validate
+     * @throws NullPointerException if root is null
+     * @throws IllegalArgumentException if the root is not a valid UID or exceeds the maximum length
+     */
+    private void validateRoot(String root) {
+        
         if (root == null) {
             throw new NullPointerException("root is required");
         }
         
+        if (root.equals(validatedRoot)) {
+            return;
+        }
+        
         if (!DicomUidValidator.isValid(root)) {
             throw new IllegalArgumentException("root is an invalid DICOM UID");
         }
@@ -47,8 +94,55 @@ public class UuidDicomUidGenerator implements DicomUidGenerator {
         if (root.length() > MAX_ROOT_LENGTH) {
             throw new IllegalArgumentException("root length is > " + MAX_ROOT_LENGTH);
         }
+        validatedRoot = root;
+    }
+    
+    /**
+     * Write the unsigned decimal representation of the 128 bit integer made up of given longs into given buffer,
+     * ending right before given end.
+     * <p>
+     * The integer is split into four 32 bit limbs which are divided by 10^9 until the integer is zero, producing nine
+     * digits at a time.
+     * </p>
+     * 
+     * @param mostSignificantBits the most significant 64 bits of the integer
+     * @param leastSignificantBits the least significant 64 bits of the integer
+     * @param buffer the buffer to write to, needs to hold at least 39 characters before end
+     * @param end the index after the last digit to write
+     * @return the index of the first digit written
+     * @should write the same digits as decimal uuid
+     * @should write zero for a uuid of only zero bits
+     * @should write the maximum unsigned 128 bit integer for a uuid of only one bits
+     */
+    static int toUnsignedDecimal(long mostSignificantBits, long leastSignificantBits, char[] buffer, int end) {
+        
+        long limb3 = mostSignificantBits >>> 32;
+        long limb2 = mostSignificantBits & UNSIGNED_INT_MASK;
+        long limb1 = leastSignificantBits >>> 32;
+        long limb0 = leastSignificantBits & UNSIGNED_INT_MASK;
         
-        final String suffix = new DecimalUuid(java.util.UUID.randomUUID()).toString();
-        return root + DICOM_UID_SEPARATOR + suffix;
+        int position = end;
+        do {
+            long remainder = limb3;
+            limb3 = remainder / DECIMAL_CHUNK_DIVISOR;
+            remainder = ((remainder % DECIMAL_CHUNK_DIVISOR) << 32) | limb2;
+            limb2 = remainder / DECIMAL_CHUNK_DIVISOR;
+            remainder = ((remainder % DECIMAL_CHUNK_DIVISOR) << 32) | limb1;
+            limb1 = remainder / DECIMAL_CHUNK_DIVISOR;
+            remainder = ((remainder % DECIMAL_CHUNK_DIVISOR) << 32) | limb0;
+            limb0 = remainder / DECIMAL_CHUNK_DIVISOR;
+            int chunk = (int) (remainder % DECIMAL_CHUNK_DIVISOR);
+            
+            final boolean last = (limb3 | limb2 | limb1 | limb0) == 0;
+            for (int i = 0; i < DECIMAL_CHUNK_LENGTH && (!last || chunk != 0); i++) {
+                buffer[--position] = (char) ('0' + chunk % 10);
+                chunk /= 10;
+            }
+        } while ((limb3 | limb2 | limb1 | limb0) != 0);
+        
+        if (position == end) {
+            buffer[--position] = '0';
+        }
+        return position;
     }
 }
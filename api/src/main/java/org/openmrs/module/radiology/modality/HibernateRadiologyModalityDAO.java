@@ -12,6 +12,7 @@ package org.openmrs.module.radiology.modality;
 import org.hibernate.Criteria;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Restrictions;
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
 import org.openmrs.module.radiology.report.template.MrrtReportTemplate;
 
 import java.util.ArrayList;
@@ -27,6 +28,9 @@ import java.util.List;
 class HibernateRadiologyModalityDAO implements RadiologyModalityDAO {
     
     
+    // query results are invalidated by hibernate whenever a radiology modality is saved or deleted
+    static final String QUERY_CACHE_REGION = RadiologyModality.class.getName() + ".queries";
+    
     private SessionFactory sessionFactory;
     
     /**
@@ -65,6 +69,8 @@ class HibernateRadiologyModalityDAO implements RadiologyModalityDAO {
         return (RadiologyModality) sessionFactory.getCurrentSession()
                 .createCriteria(RadiologyModality.class)
                 .add(Restrictions.eq("uuid", uuid))
+                .setCacheable(true)
+                .setCacheRegion(QUERY_CACHE_REGION)
                 .uniqueResult();
     }
     
@@ -75,11 +81,25 @@ class HibernateRadiologyModalityDAO implements RadiologyModalityDAO {
     public List<RadiologyModality> getRadiologyModalities(boolean includeRetired) {
         
         final Criteria criteria = sessionFactory.getCurrentSession()
-                .createCriteria(RadiologyModality.class);
+                .createCriteria(RadiologyModality.class)
+                .setCacheable(true)
+                .setCacheRegion(QUERY_CACHE_REGION);
         if (!includeRetired) {
             criteria.add(Restrictions.eq("retired", false));
         }
         final List<RadiologyModality> result = (List<RadiologyModality>) criteria.list();
         return result == null ? new ArrayList<>() : result;
     }
+    
+    /**
+     * @see RadiologyModalityService#getRadiologyModalityCacheStatistics()
+     */
+    @Override
+    public List<RadiologyCacheStatistics> getRadiologyModalityCacheStatistics() {
+        
+        final List<RadiologyCacheStatistics> result = new ArrayList<>();
+        result.add(RadiologyCacheStatistics.of(sessionFactory, RadiologyModality.class.getName()));
+        result.add(RadiologyCacheStatistics.of(sessionFactory, QUERY_CACHE_REGION));
+        return result;
+    }
 }
@@ -11,6 +11,8 @@ package org.openmrs.module.radiology.modality;
 
 import java.util.List;
 
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
+
 /**
  * {@code RadiologyModality} related database methods.
  * 
@@ -39,4 +41,9 @@ interface RadiologyModalityDAO {
      * @see RadiologyModalityService#getRadiologyModalities(boolean)
      */
     List<RadiologyModality> getRadiologyModalities(boolean includeRetired);
+    
+    /**
+     * @see RadiologyModalityService#getRadiologyModalityCacheStatistics()
+     */
+    List<RadiologyCacheStatistics> getRadiologyModalityCacheStatistics();
 }
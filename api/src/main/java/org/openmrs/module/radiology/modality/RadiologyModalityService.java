@@ -12,6 +12,7 @@ package org.openmrs.module.radiology.modality;
 import org.openmrs.annotation.Authorized;
 import org.openmrs.api.APIException;
 import org.openmrs.api.OpenmrsService;
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
 import org.openmrs.module.radiology.RadiologyPrivileges;
 
 import java.util.List;
@@ -90,7 +91,18 @@ public interface RadiologyModalityService extends OpenmrsService {
      * @should return radiology modalities including retired ones if given true
      * @should return radiology modalities excluding retired ones if given false
      * @should return empty list if no match was found
+     * @should return radiology modalities saved or retired after an earlier call
      */
     @Authorized(RadiologyPrivileges.GET_RADIOLOGY_MODALITIES)
     public List<RadiologyModality> getRadiologyModalities(boolean includeRetired);
+    
+    /**
+     * Get the statistics of the second-level cache regions holding {@code RadiologyModality's} and the results of
+     * radiology modality queries.
+     *
+     * @return the statistics of the radiology modality and query cache regions
+     * @should return the statistics of the radiology modality and query cache regions
+     */
+    @Authorized(RadiologyPrivileges.GET_RADIOLOGY_MODALITIES)
+    public List<RadiologyCacheStatistics> getRadiologyModalityCacheStatistics();
 }
@@ -13,6 +13,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.impl.BaseOpenmrsService;
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
 import org.springframework.transaction.annotation.Transactional;
 import org.apache.commons.lang3.StringUtils;
 
@@ -92,4 +93,13 @@ class RadiologyModalityServiceImpl extends BaseOpenmrsService implements Radiolo
         
         return radiologyModalityDAO.getRadiologyModalities(includeRetired);
     }
+    
+    /**
+     * @see RadiologyModalityService#getRadiologyModalityCacheStatistics()
+     */
+    @Override
+    public List<RadiologyCacheStatistics> getRadiologyModalityCacheStatistics() {
+        
+        return radiologyModalityDAO.getRadiologyModalityCacheStatistics();
+    }
 }
@@ -0,0 +1,111 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Generates accession numbers from blocks of accession number seeds which are reserved at once (hi/lo style).
+ * <p>
+ * Only reserving a block touches the persistent accession number seed, the seeds within a block are handed out from
+ * memory. Seeds of a block which were not handed out before the block is dropped (for example on restart) are never
+ * used, accession numbers are therefore unique but not gap free.
+ * </p>
+ *
+ * @see org.openmrs.module.radiology.RadiologyProperties#getAccessionNumberBlockSize()
+ */
+class BlockAllocatingAccessionNumberGenerator implements AccessionNumberGenerator {
+    
+    
+    private final int blockSize;
+    
+    private final IntToLongFunction blockReserver;
+    
+    private volatile SeedBlock currentBlock = new SeedBlock(0, 0);
+    
+    /**
+     * Creates a new instance of {@link BlockAllocatingAccessionNumberGenerator}.
+     *
+     * @param blockSize the number of accession number seeds reserved at once
+     * @param blockReserver reserves the given number of seeds and returns the first seed of the reserved block
+     * @throws IllegalArgumentException if blockSize is smaller than 1
+     * @throws IllegalArgumentException if blockReserver is null
+     */
+    BlockAllocatingAccessionNumberGenerator(int blockSize, IntToLongFunction blockReserver) {
+        
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be greater than 0");
+        }
+        if (blockReserver == null) {
+            throw new IllegalArgumentException("blockReserver cannot be null");
+        }
+        this.blockSize = blockSize;
+        this.blockReserver = blockReserver;
+    }
+    
+    /**
+     * Get the number of accession number seeds reserved at once.
+     *
+     * @return the block size
+     */
+    int getBlockSize() {
+        return blockSize;
+    }
+    
+    /**
+     * @see AccessionNumberGenerator#getNewAccessionNumber()
+     * @should always return a unique accession number when called multiple times
+     * @should always return a unique accession number when called concurrently
+     * @should reserve a new block only once the current block is exhausted
+     * @should hand out the seeds of each reserved block without gaps when called concurrently
+     */
+    @Override
+    public String getNewAccessionNumber() {
+        
+        while (true) {
+            final SeedBlock block = currentBlock;
+            final long seed = block.next.getAndIncrement();
+            if (seed < block.end) {
+                return String.valueOf(seed);
+            }
+            reserveNewBlock(block);
+        }
+    }
+    
+    /**
+     * Reserves a new block unless another thread already replaced the exhausted block.
+     *
+     * @param exhaustedBlock the block which has no seeds left
+     */
+    private synchronized void reserveNewBlock(SeedBlock exhaustedBlock) {
+        
+        if (currentBlock == exhaustedBlock) {
+            final long firstSeed = blockReserver.applyAsLong(blockSize);
+            currentBlock = new SeedBlock(firstSeed, firstSeed + blockSize);
+        }
+    }
+    
+    /**
+     * Range of reserved accession number seeds [next, end).
+     */
+    private static final class SeedBlock {
+        
+        
+        private final AtomicLong next;
+        
+        private final long end;
+        
+        SeedBlock(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+}
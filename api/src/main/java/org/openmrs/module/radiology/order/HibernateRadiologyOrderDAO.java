@@ -9,19 +9,41 @@
  */
 package org.openmrs.module.radiology.order;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
 import org.hibernate.LockOptions;
+import org.hibernate.NullPrecedence;
+import org.hibernate.Query;
+import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.SessionFactory;
-import org.hibernate.criterion.Disjunction;
+import org.hibernate.StatelessSession;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.type.StandardBasicTypes;
 import org.openmrs.GlobalProperty;
-import org.openmrs.Order.Urgency;
 import org.openmrs.api.APIException;
+import org.openmrs.api.ConceptNameType;
+import org.openmrs.api.context.Context;
 import org.openmrs.module.radiology.RadiologyConstants;
+import org.openmrs.util.LocaleUtility;
 
 /**
  * Hibernate specific RadiologyOrder related functions. This class should not be used directly. All
@@ -33,6 +55,60 @@ import org.openmrs.module.radiology.RadiologyConstants;
 class HibernateRadiologyOrderDAO implements RadiologyOrderDAO {
     
     
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    
+    private static final String EXPORT_QUERY = "select o.uuid as order_uuid, o.order_number, o.accession_number,"
+            + " p.uuid as patient_uuid, o.urgency, o.date_activated, o.scheduled_date, o.date_stopped, o.voided,"
+            + " s.study_instance_uid, s.performed_status, r.uuid as report_uuid, r.report_status, r.report_date"
+            + " from radiology_order ro inner join orders o on o.order_id = ro.order_id"
+            + " inner join person p on p.person_id = o.patient_id"
+            + " left outer join radiology_study s on s.order_id = ro.order_id"
+            + " left outer join radiology_report r on r.order_id = ro.order_id and r.voided = :reportVoided";
+    
+    private static final String EXPORT_SINCE_RESTRICTION = " where o.date_created >= :since or o.date_stopped >= :since"
+            + " or o.date_voided >= :since or s.date_created >= :since or s.date_changed >= :since"
+            + " or r.date_created >= :since or r.date_changed >= :since";
+    
+    private static final String EXPORT_ORDER = " order by ro.order_id";
+    
+    // names are joined in the locale of the user falling back to the default locale, which a criteria cannot express
+    // since it joins an association path only once
+    private static final String WORKLIST_QUERY = "select o.orderId, o.uuid, o.accessionNumber, pt.uuid,"
+            + " ptName.givenName, ptName.middleName, ptName.familyName, ptIdentifier.identifier, cName.name,"
+            + " cDefaultName.name, o.urgency, o.scheduledDate, o.dateActivated, o.dateStopped, prName.givenName,"
+            + " prName.middleName, prName.familyName, pr.name, rcName.name, rcDefaultName.name, o.orderReasonNonCoded,"
+            + " o.instructions, s.performedStatus, (select max(r.status) from RadiologyReport r"
+            + " where r.radiologyOrder = o and r.voided = :isFalse)"
+            + " from RadiologyOrder o left join o.study s inner join o.patient pt"
+            + " left join pt.names ptName with ptName.preferred = :isTrue and ptName.voided = :isFalse"
+            + " left join pt.identifiers ptIdentifier with ptIdentifier.preferred = :isTrue"
+            + " and ptIdentifier.voided = :isFalse"
+            + " left join o.concept c"
+            + " left join c.names cName with cName.locale = :locale and cName.localePreferred = :isTrue"
+            + " and cName.voided = :isFalse"
+            + " left join c.names cDefaultName with cDefaultName.locale = :defaultLocale"
+            + " and cDefaultName.conceptNameType = :fullySpecified and cDefaultName.voided = :isFalse"
+            + " left join o.orderReason rc"
+            + " left join rc.names rcName with rcName.locale = :locale and rcName.localePreferred = :isTrue"
+            + " and rcName.voided = :isFalse"
+            + " left join rc.names rcDefaultName with rcDefaultName.locale = :defaultLocale"
+            + " and rcDefaultName.conceptNameType = :fullySpecified and rcDefaultName.voided = :isFalse"
+            + " left join o.orderer pr left join pr.person prPerson"
+            + " left join prPerson.names prName with prName.preferred = :isTrue and prName.voided = :isFalse";
+    
+    /**
+     * Keep only the first of several preferred names and identifiers so that each radiology order is one row.
+     */
+    private static final String[] WORKLIST_JOIN_RESTRICTIONS = {
+            "(ptName is null or ptName.personNameId = (select min(n.personNameId) from PersonName n"
+                    + " where n.person = pt and n.preferred = :isTrue and n.voided = :isFalse))",
+            "(ptIdentifier is null or ptIdentifier.patientIdentifierId = (select min(i.patientIdentifierId)"
+                    + " from PatientIdentifier i where i.patient = pt and i.preferred = :isTrue and i.voided = :isFalse))",
+            "(prName is null or prName.personNameId = (select min(n.personNameId) from PersonName n"
+                    + " where n.person = prPerson and n.preferred = :isTrue and n.voided = :isFalse))" };
+    
+    private static final String WORKLIST_ORDER = " order by o.accessionNumber asc nulls first, o.orderId asc";
+    
     private SessionFactory sessionFactory;
     
     /**
@@ -60,6 +136,20 @@ class HibernateRadiologyOrderDAO implements RadiologyOrderDAO {
     @Override
     public Long getNextAccessionNumberSeedSequenceValue() {
         
+        return getNextAccessionNumberSeedSequenceBlock(1);
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.order.RadiologyOrderService#getNextAccessionNumberSeedSequenceBlock(int)
+     * @throws APIException if global property radiology.nextAccessionNumberSeed is missing
+     * @throws APIException if global property radiology.nextAccessionNumberSeed value is empty or only contains whitespaces
+     * @throws APIException if global property radiology.nextAccessionNumberSeed value cannot be parsed to Long
+     * @should return the next accession number seed stored as global property radiology next accession number and increment
+     *         the global property value by given block size
+     */
+    @Override
+    public Long getNextAccessionNumberSeedSequenceBlock(int blockSize) {
+        
         final GlobalProperty globalProperty = (GlobalProperty) sessionFactory.getCurrentSession()
                 .get(GlobalProperty.class, RadiologyConstants.GP_NEXT_ACCESSION_NUMBER_SEED, LockOptions.UPGRADE);
         
@@ -83,7 +173,7 @@ class HibernateRadiologyOrderDAO implements RadiologyOrderDAO {
                     new Object[] { RadiologyConstants.GP_NEXT_ACCESSION_NUMBER_SEED });
         }
         
-        globalProperty.setPropertyValue(String.valueOf(globalPropertyValue + 1));
+        globalProperty.setPropertyValue(String.valueOf(globalPropertyValue + blockSize));
         
         sessionFactory.getCurrentSession()
                 .save(globalProperty);
@@ -119,6 +209,180 @@ class HibernateRadiologyOrderDAO implements RadiologyOrderDAO {
     @Override
     public List<RadiologyOrder> getRadiologyOrders(RadiologyOrderSearchCriteria searchCriteria) {
         
+        final Criteria crit = createRadiologyOrderCriteria(searchCriteria);
+        
+        for (String associationPath : searchCriteria.getFetchedAssociations()) {
+            crit.setFetchMode(associationPath, FetchMode.JOIN);
+        }
+        if (searchCriteria.getAfterOrderId() != null) {
+            crit.add(after(searchCriteria.getAfterAccessionNumber(), searchCriteria.getAfterOrderId()));
+        }
+        crit.addOrder(Order.asc("accessionNumber")
+                .nulls(NullPrecedence.FIRST));
+        crit.addOrder(Order.asc("orderId"));
+        if (searchCriteria.getStartIndex() != null) {
+            crit.setFirstResult(searchCriteria.getStartIndex());
+        }
+        if (searchCriteria.getLimit() != null) {
+            crit.setMaxResults(searchCriteria.getLimit());
+        }
+        return crit.list();
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.order.RadiologyOrderService#getRadiologyOrdersCount(RadiologyOrderSearchCriteria)
+     */
+    @Override
+    public Long getRadiologyOrdersCount(RadiologyOrderSearchCriteria searchCriteria) {
+        
+        final Number count = (Number) createRadiologyOrderCriteria(searchCriteria).setProjection(Projections.rowCount())
+                .uniqueResult();
+        return count.longValue();
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.order.RadiologyOrderService#getRadiologyOrderWorklist(RadiologyOrderSearchCriteria)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<RadiologyOrderWorklistItem> getRadiologyOrderWorklist(RadiologyOrderSearchCriteria searchCriteria) {
+        
+        final List<String> restrictions = new ArrayList<>(Arrays.asList(WORKLIST_JOIN_RESTRICTIONS));
+        final Map<String, Object> parameters = new HashMap<>();
+        if (searchCriteria.getPatient() != null) {
+            restrictions.add("o.patient = :patient");
+            parameters.put("patient", searchCriteria.getPatient());
+        }
+        if (!searchCriteria.getIncludeVoided()) {
+            restrictions.add("o.voided = :isFalse");
+        }
+        if (searchCriteria.getUrgency() != null) {
+            restrictions.add("o.urgency = :urgency");
+            parameters.put("urgency", searchCriteria.getUrgency());
+        }
+        if (searchCriteria.getFromEffectiveStartDate() != null) {
+            restrictions.add("o.effectiveStartDate >= :fromEffectiveStartDate");
+            parameters.put("fromEffectiveStartDate", searchCriteria.getFromEffectiveStartDate());
+        }
+        if (searchCriteria.getToEffectiveStartDate() != null) {
+            restrictions.add("o.effectiveStartDate <= :toEffectiveStartDate");
+            parameters.put("toEffectiveStartDate", searchCriteria.getToEffectiveStartDate());
+        }
+        if (StringUtils.isNotBlank(searchCriteria.getAccessionNumber())) {
+            restrictions.add("o.accessionNumber = :accessionNumber");
+            parameters.put("accessionNumber", searchCriteria.getAccessionNumber());
+        }
+        if (searchCriteria.getOrderer() != null) {
+            restrictions.add("o.orderer = :orderer");
+            parameters.put("orderer", searchCriteria.getOrderer());
+        }
+        if (searchCriteria.getAfterOrderId() != null) {
+            if (searchCriteria.getAfterAccessionNumber() == null) {
+                restrictions.add("(o.accessionNumber is not null or o.orderId > :afterOrderId)");
+            } else {
+                restrictions.add("(o.accessionNumber > :afterAccessionNumber"
+                        + " or (o.accessionNumber = :afterAccessionNumber and o.orderId > :afterOrderId))");
+                parameters.put("afterAccessionNumber", searchCriteria.getAfterAccessionNumber());
+            }
+            parameters.put("afterOrderId", searchCriteria.getAfterOrderId());
+        }
+        
+        final Query query = sessionFactory.getCurrentSession()
+                .createQuery(WORKLIST_QUERY + " where " + String.join(" and ", restrictions) + WORKLIST_ORDER);
+        query.setBoolean("isTrue", true);
+        query.setBoolean("isFalse", false);
+        query.setParameter("locale", Context.getLocale());
+        query.setParameter("defaultLocale", LocaleUtility.getDefaultLocale());
+        query.setParameter("fullySpecified", ConceptNameType.FULLY_SPECIFIED);
+        query.setProperties(parameters);
+        if (searchCriteria.getStartIndex() != null) {
+            query.setFirstResult(searchCriteria.getStartIndex());
+        }
+        if (searchCriteria.getLimit() != null) {
+            query.setMaxResults(searchCriteria.getLimit());
+        }
+        query.setReadOnly(true);
+        
+        final List<Object[]> rows = query.list();
+        final List<RadiologyOrderWorklistItem> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new RadiologyOrderWorklistItem((Integer) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    toPersonName((String) row[4], (String) row[5], (String) row[6]), (String) row[7],
+                    firstNonNull((String) row[8], (String) row[9]), toConstantName(row[10]), (Date) row[11],
+                    (Date) row[12], (Date) row[13],
+                    firstNonNull(toPersonName((String) row[14], (String) row[15], (String) row[16]), (String) row[17]),
+                    firstNonNull((String) row[18], (String) row[19]), (String) row[20], (String) row[21],
+                    toConstantName(row[22]), toConstantName(row[23])));
+        }
+        return result;
+    }
+    
+    /**
+     * Join the given parts of a person name.
+     * 
+     * @param givenName the given name
+     * @param middleName the middle name
+     * @param familyName the family name
+     * @return the non blank parts of the name separated by a space, null if all parts are blank
+     */
+    private static String toPersonName(String givenName, String middleName, String familyName) {
+        
+        final String result = Stream.of(givenName, middleName, familyName)
+                .filter(StringUtils::isNotBlank)
+                .collect(Collectors.joining(" "));
+        return result.isEmpty() ? null : result;
+    }
+    
+    /**
+     * Get the first of given strings which is not null.
+     * 
+     * @param first the preferred string
+     * @param second the fallback string
+     * @return the first string if not null, the second string otherwise
+     */
+    private static String firstNonNull(String first, String second) {
+        
+        return first == null ? second : first;
+    }
+    
+    /**
+     * Get the name of given enum constant.
+     * 
+     * @param constant the enum constant
+     * @return the name of given enum constant, null if given null
+     */
+    private static String toConstantName(Object constant) {
+        
+        return constant == null ? null : ((Enum<?>) constant).name();
+    }
+    
+    /**
+     * Create a restriction to the radiology orders sorted after the one with given accession number and order id, in the
+     * order of increasing accession number (null first) and order id.
+     * 
+     * @param accessionNumber the accession number of the last radiology order seen
+     * @param orderId the order id of the last radiology order seen
+     * @return the restriction to the radiology orders sorted after given accession number and order id
+     */
+    private Criterion after(String accessionNumber, Integer orderId) {
+        
+        if (accessionNumber == null) {
+            return Restrictions.or(Restrictions.isNotNull("accessionNumber"),
+                Restrictions.and(Restrictions.isNull("accessionNumber"), Restrictions.gt("orderId", orderId)));
+        }
+        return Restrictions.or(Restrictions.gt("accessionNumber", accessionNumber),
+            Restrictions.and(Restrictions.eq("accessionNumber", accessionNumber), Restrictions.gt("orderId", orderId)));
+    }
+    
+    /**
+     * Create a criteria restricting radiology orders to the ones matching given search criteria without ordering,
+     * paging or continuation.
+     * 
+     * @param searchCriteria the search criteria
+     * @return the criteria matching given search criteria
+     */
+    private Criteria createRadiologyOrderCriteria(RadiologyOrderSearchCriteria searchCriteria) {
+        
         final Criteria crit = sessionFactory.getCurrentSession()
                 .createCriteria(RadiologyOrder.class);
         
@@ -134,25 +398,11 @@ class HibernateRadiologyOrderDAO implements RadiologyOrderDAO {
             crit.add(Restrictions.eq("urgency", searchCriteria.getUrgency()));
         }
         if (searchCriteria.getFromEffectiveStartDate() != null) {
-            final Disjunction disjunction = Restrictions.disjunction();
-            disjunction.add(Restrictions.conjunction()
-                    .add(Restrictions.eq("urgency", Urgency.ON_SCHEDULED_DATE))
-                    .add(Restrictions.ge("scheduledDate", searchCriteria.getFromEffectiveStartDate())));
-            disjunction.add(Restrictions.conjunction()
-                    .add(Restrictions.not(Restrictions.eq("urgency", Urgency.ON_SCHEDULED_DATE)))
-                    .add(Restrictions.ge("dateActivated", searchCriteria.getFromEffectiveStartDate())));
-            crit.add(disjunction);
+            crit.add(Restrictions.ge("effectiveStartDate", searchCriteria.getFromEffectiveStartDate()));
         }
         
         if (searchCriteria.getToEffectiveStartDate() != null) {
-            final Disjunction disjunction = Restrictions.disjunction();
-            disjunction.add(Restrictions.conjunction()
-                    .add(Restrictions.eq("urgency", Urgency.ON_SCHEDULED_DATE))
-                    .add(Restrictions.le("scheduledDate", searchCriteria.getToEffectiveStartDate())));
-            disjunction.add(Restrictions.conjunction()
-                    .add(Restrictions.not(Restrictions.eq("urgency", Urgency.ON_SCHEDULED_DATE)))
-                    .add(Restrictions.le("dateActivated", searchCriteria.getToEffectiveStartDate())));
-            crit.add(disjunction);
+            crit.add(Restrictions.le("effectiveStartDate", searchCriteria.getToEffectiveStartDate()));
         }
         
         if (StringUtils.isNotBlank(searchCriteria.getAccessionNumber())) {
@@ -162,8 +412,65 @@ class HibernateRadiologyOrderDAO implements RadiologyOrderDAO {
         if (searchCriteria.getOrderer() != null) {
             crit.add(Restrictions.eq("orderer", searchCriteria.getOrderer()));
         }
+        return crit;
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.order.RadiologyOrderService#exportRadiologyOrders(Date, RadiologyOrderExportWriter)
+     */
+    @Override
+    public long exportRadiologyOrders(Date since, RadiologyOrderExportWriter radiologyOrderExportWriter)
+            throws IOException {
         
-        crit.addOrder(Order.asc("accessionNumber"));
-        return crit.list();
+        // runs on the connection of the current transaction so it sees its data, without building up a persistence
+        // context while scrolling
+        final StatelessSession statelessSession = sessionFactory.openStatelessSession(
+            ((SessionImplementor) sessionFactory.getCurrentSession()).connection());
+        try {
+            final SQLQuery query = statelessSession
+                    .createSQLQuery(EXPORT_QUERY + (since == null ? "" : EXPORT_SINCE_RESTRICTION) + EXPORT_ORDER);
+            query.addScalar("order_uuid", StandardBasicTypes.STRING)
+                    .addScalar("order_number", StandardBasicTypes.STRING)
+                    .addScalar("accession_number", StandardBasicTypes.STRING)
+                    .addScalar("patient_uuid", StandardBasicTypes.STRING)
+                    .addScalar("urgency", StandardBasicTypes.STRING)
+                    .addScalar("date_activated", StandardBasicTypes.TIMESTAMP)
+                    .addScalar("scheduled_date", StandardBasicTypes.TIMESTAMP)
+                    .addScalar("date_stopped", StandardBasicTypes.TIMESTAMP)
+                    .addScalar("voided", StandardBasicTypes.BOOLEAN)
+                    .addScalar("study_instance_uid", StandardBasicTypes.STRING)
+                    .addScalar("performed_status", StandardBasicTypes.STRING)
+                    .addScalar("report_uuid", StandardBasicTypes.STRING)
+                    .addScalar("report_status", StandardBasicTypes.STRING)
+                    .addScalar("report_date", StandardBasicTypes.TIMESTAMP);
+            query.setBoolean("reportVoided", false);
+            if (since != null) {
+                query.setTimestamp("since", since);
+            }
+            query.setReadOnly(true);
+            // MySQL Connector/J only streams rows instead of reading the whole result into memory given this fetch size
+            query.setFetchSize(
+                ((SessionFactoryImplementor) sessionFactory).getDialect() instanceof MySQLDialect ? Integer.MIN_VALUE
+                        : EXPORT_FETCH_SIZE);
+            
+            long exported = 0;
+            final ScrollableResults rows = query.scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                while (rows.next()) {
+                    radiologyOrderExportWriter.write(new RadiologyOrderExportEntry(rows.getString(0), rows.getString(1),
+                            rows.getString(2), rows.getString(3), rows.getString(4), (Date) rows.get(5), (Date) rows.get(6),
+                            (Date) rows.get(7), rows.getBoolean(8), rows.getString(9), rows.getString(10), rows.getString(11),
+                            rows.getString(12), (Date) rows.get(13)));
+                    exported++;
+                }
+            }
+            finally {
+                rows.close();
+            }
+            return exported;
+        }
+        finally {
+            statelessSession.close();
+        }
     }
 }
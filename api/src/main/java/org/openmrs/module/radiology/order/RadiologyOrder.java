@@ -9,6 +9,8 @@
  */
 package org.openmrs.module.radiology.order;
 
+import java.util.Date;
+
 import org.openmrs.TestOrder;
 import org.openmrs.module.radiology.study.RadiologyStudy;
 
@@ -40,6 +42,47 @@ public class RadiologyOrder extends TestOrder {
         this.study = radiologyStudy;
     }
     
+    /**
+     * Ignores the effective start date loaded from the database.
+     * <p>
+     * The effective start date is stored only so radiology orders can be searched by it through an index. It is
+     * always derived from the urgency, scheduled date and date activated by {@link #getEffectiveStartDate()}, which
+     * Hibernate reads on every flush so the stored value follows changes of these properties.
+     * </p>
+     * 
+     * @param effectiveStartDate the effective start date loaded from the database
+     */
+    @SuppressWarnings("unused")
+    private void setEffectiveStartDate(Date effectiveStartDate) {
+        // derived by getEffectiveStartDate()
+    }
+    
+    /**
+     * Get the accession number stored with the radiology order.
+     * <p>
+     * The accession number is stored a second time only so that a unique constraint rejects a radiology order with
+     * the accession number of another radiology order, even if both are placed concurrently on different nodes. The
+     * accession numbers of other orders are not constrained.
+     * </p>
+     * 
+     * @return the accession number
+     */
+    @SuppressWarnings("unused")
+    private String getRadiologyAccessionNumber() {
+        return getAccessionNumber();
+    }
+    
+    /**
+     * Ignores the accession number stored with the radiology order, it is always derived by
+     * {@link #getRadiologyAccessionNumber()}.
+     * 
+     * @param radiologyAccessionNumber the accession number loaded from the database
+     */
+    @SuppressWarnings("unused")
+    private void setRadiologyAccessionNumber(String radiologyAccessionNumber) {
+        // derived by getRadiologyAccessionNumber()
+    }
+    
     /**
      * Returns true if study is in progress and false otherwise.
      * 
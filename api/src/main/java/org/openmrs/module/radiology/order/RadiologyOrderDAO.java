@@ -9,6 +9,8 @@
  */
 package org.openmrs.module.radiology.order;
 
+import java.io.IOException;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -25,6 +27,11 @@ interface RadiologyOrderDAO {
      */
     public Long getNextAccessionNumberSeedSequenceValue();
     
+    /**
+     * @see org.openmrs.module.radiology.order.RadiologyOrderService#getNextAccessionNumberSeedSequenceBlock(int)
+     */
+    public Long getNextAccessionNumberSeedSequenceBlock(int blockSize);
+    
     /**
      * @see org.openmrs.module.radiology.order.RadiologyOrderService#getRadiologyOrder(Integer)
      */
@@ -39,4 +46,19 @@ interface RadiologyOrderDAO {
      * @see org.openmrs.module.radiology.order.RadiologyOrderService#getRadiologyOrders(RadiologyOrderSearchCriteria)
      */
     List<RadiologyOrder> getRadiologyOrders(RadiologyOrderSearchCriteria searchCriteria);
+    
+    /**
+     * @see org.openmrs.module.radiology.order.RadiologyOrderService#getRadiologyOrdersCount(RadiologyOrderSearchCriteria)
+     */
+    Long getRadiologyOrdersCount(RadiologyOrderSearchCriteria searchCriteria);
+    
+    /**
+     * @see org.openmrs.module.radiology.order.RadiologyOrderService#getRadiologyOrderWorklist(RadiologyOrderSearchCriteria)
+     */
+    List<RadiologyOrderWorklistItem> getRadiologyOrderWorklist(RadiologyOrderSearchCriteria searchCriteria);
+    
+    /**
+     * @see org.openmrs.module.radiology.order.RadiologyOrderService#exportRadiologyOrders(Date, RadiologyOrderExportWriter)
+     */
+    long exportRadiologyOrders(Date since, RadiologyOrderExportWriter radiologyOrderExportWriter) throws IOException;
 }
@@ -0,0 +1,183 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order;
+
+import java.util.Date;
+
+/**
+ * Flat read only view of a {@link RadiologyOrder} together with its study and its active report, as handed out by
+ * {@link RadiologyOrderService#exportRadiologyOrders(Date, RadiologyOrderExportWriter)}.
+ */
+public class RadiologyOrderExportEntry {
+    
+    
+    private final String orderUuid;
+    
+    private final String orderNumber;
+    
+    private final String accessionNumber;
+    
+    private final String patientUuid;
+    
+    private final String urgency;
+    
+    private final Date dateActivated;
+    
+    private final Date scheduledDate;
+    
+    private final Date dateStopped;
+    
+    private final Boolean voided;
+    
+    private final String studyInstanceUid;
+    
+    private final String performedStatus;
+    
+    private final String reportUuid;
+    
+    private final String reportStatus;
+    
+    private final Date reportDate;
+    
+    /**
+     * Creates a new instance of {@link RadiologyOrderExportEntry}.
+     */
+    public RadiologyOrderExportEntry(String orderUuid, String orderNumber, String accessionNumber, String patientUuid,
+            String urgency, Date dateActivated, Date scheduledDate, Date dateStopped, Boolean voided,
+            String studyInstanceUid, String performedStatus, String reportUuid, String reportStatus, Date reportDate) {
+        
+        this.orderUuid = orderUuid;
+        this.orderNumber = orderNumber;
+        this.accessionNumber = accessionNumber;
+        this.patientUuid = patientUuid;
+        this.urgency = urgency;
+        this.dateActivated = dateActivated;
+        this.scheduledDate = scheduledDate;
+        this.dateStopped = dateStopped;
+        this.voided = voided;
+        this.studyInstanceUid = studyInstanceUid;
+        this.performedStatus = performedStatus;
+        this.reportUuid = reportUuid;
+        this.reportStatus = reportStatus;
+        this.reportDate = reportDate;
+    }
+    
+    /**
+     * @return the uuid of the radiology order
+     */
+    public String getOrderUuid() {
+        
+        return orderUuid;
+    }
+    
+    /**
+     * @return the order number of the radiology order
+     */
+    public String getOrderNumber() {
+        
+        return orderNumber;
+    }
+    
+    /**
+     * @return the accession number of the radiology order
+     */
+    public String getAccessionNumber() {
+        
+        return accessionNumber;
+    }
+    
+    /**
+     * @return the uuid of the patient of the radiology order
+     */
+    public String getPatientUuid() {
+        
+        return patientUuid;
+    }
+    
+    /**
+     * @return the urgency of the radiology order
+     */
+    public String getUrgency() {
+        
+        return urgency;
+    }
+    
+    /**
+     * @return the date the radiology order was activated
+     */
+    public Date getDateActivated() {
+        
+        return dateActivated;
+    }
+    
+    /**
+     * @return the date the radiology order is scheduled for, null if it is not scheduled
+     */
+    public Date getScheduledDate() {
+        
+        return scheduledDate;
+    }
+    
+    /**
+     * @return the date the radiology order was stopped, null if it was not stopped
+     */
+    public Date getDateStopped() {
+        
+        return dateStopped;
+    }
+    
+    /**
+     * @return the {@code Boolean} specifying whether or not the radiology order is voided
+     */
+    public Boolean getVoided() {
+        
+        return voided;
+    }
+    
+    /**
+     * @return the study instance uid of the study of the radiology order, null if the order has no study
+     */
+    public String getStudyInstanceUid() {
+        
+        return studyInstanceUid;
+    }
+    
+    /**
+     * @return the performed status of the study of the radiology order, null if not performed yet
+     */
+    public String getPerformedStatus() {
+        
+        return performedStatus;
+    }
+    
+    /**
+     * @return the uuid of the active radiology report of the radiology order, null if the order has no active report
+     */
+    public String getReportUuid() {
+        
+        return reportUuid;
+    }
+    
+    /**
+     * @return the status of the active radiology report of the radiology order, null if the order has no active report
+     */
+    public String getReportStatus() {
+        
+        return reportStatus;
+    }
+    
+    /**
+     * @return the report date of the active radiology report of the radiology order, null if it is not completed
+     */
+    public Date getReportDate() {
+        
+        return reportDate;
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order;
+
+import java.io.IOException;
+
+/**
+ * Receives the {@link RadiologyOrderExportEntry}'s of an export one at a time while they are read from the database.
+ *
+ * @see RadiologyOrderService#exportRadiologyOrders(java.util.Date, RadiologyOrderExportWriter)
+ */
+public interface RadiologyOrderExportWriter {
+    
+    
+    /**
+     * Write given export entry. Implementations must not keep a reference to given entry, so that an export runs in
+     * constant memory.
+     *
+     * @param radiologyOrderExportEntry the export entry to write
+     * @throws IOException if the export entry cannot be written
+     */
+    public void write(RadiologyOrderExportEntry radiologyOrderExportEntry) throws IOException;
+}
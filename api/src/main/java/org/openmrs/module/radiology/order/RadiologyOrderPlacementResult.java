@@ -0,0 +1,81 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order;
+
+/**
+ * Outcome of placing one {@code RadiologyOrder} of a batch.
+ *
+ * @see RadiologyOrderService#placeRadiologyOrders(java.util.List)
+ */
+public class RadiologyOrderPlacementResult {
+    
+    
+    /**
+     * Status of a radiology order of a batch.
+     */
+    public enum Status {
+        
+        /**
+         * The radiology order and its study were saved.
+         */
+        PLACED,
+        
+        /**
+         * The radiology order cannot be placed, it is null, already saved or has no study.
+         */
+        INVALID,
+        
+        /**
+         * The radiology order could not be saved, none of the radiology orders saved in the same transaction were
+         * placed.
+         */
+        FAILED
+    }
+    
+    private final RadiologyOrder radiologyOrder;
+    
+    private final Status status;
+    
+    private final String message;
+    
+    /**
+     * Creates a new instance of {@link RadiologyOrderPlacementResult}.
+     *
+     * @param radiologyOrder the radiology order of the batch
+     * @param status the status of the radiology order
+     * @param message the reason the radiology order was not placed, null if it was placed
+     */
+    RadiologyOrderPlacementResult(RadiologyOrder radiologyOrder, Status status, String message) {
+        this.radiologyOrder = radiologyOrder;
+        this.status = status;
+        this.message = message;
+    }
+    
+    /**
+     * @return the radiology order of the batch
+     */
+    public RadiologyOrder getRadiologyOrder() {
+        return radiologyOrder;
+    }
+    
+    /**
+     * @return the status of the radiology order
+     */
+    public Status getStatus() {
+        return status;
+    }
+    
+    /**
+     * @return the reason the radiology order was not placed, null if it was placed
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -9,7 +9,10 @@
  */
 package org.openmrs.module.radiology.order;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.openmrs.Order.Urgency;
 import org.openmrs.Patient;
@@ -23,7 +26,8 @@ import org.openmrs.Provider;
  * <li>Set the various search criteria parameters through the respective methods of the static builder class
  * ({@link Builder#withPatient(Patient)}, {@link Builder#includeVoided()}, {@link Builder#withUrgency(Urgency)}, 
  * {@link Builder#fromEffectiveStartDate(Date)}, {@link Builder#toEffectiveStartDate(Date)},
- * {@link Builder#withAccessionNumber(String)} and {@link Builder#withOrderer(Provider)}).</li>
+ * {@link Builder#withAccessionNumber(String)}, {@link Builder#withOrderer(Provider)}, {@link Builder#withStartIndex(Integer)},
+ * {@link Builder#withLimit(Integer)}, {@link Builder#after(String, Integer)} and {@link Builder#fetch(String...)}).</li>
  * <li>Build the {@link RadiolologyOrderSearchCriteria} instance with the {@link Builder#build()} method.</li>
  * <li>Get the search parameters through the getter methods (such as {@link #getPatient()} or {@link #getUrgency()}).</li>
  * </ol>
@@ -45,6 +49,16 @@ public class RadiologyOrderSearchCriteria {
     
     private final Provider orderer;
     
+    private final Integer startIndex;
+    
+    private final Integer limit;
+    
+    private final String afterAccessionNumber;
+    
+    private final Integer afterOrderId;
+    
+    private final Set<String> fetchedAssociations;
+    
     /**
      * @return the order patient
      */
@@ -101,6 +115,48 @@ public class RadiologyOrderSearchCriteria {
         return orderer;
     }
     
+    /**
+     * @return the index of the first radiology order to return, null to start with the first
+     */
+    public Integer getStartIndex() {
+        
+        return startIndex;
+    }
+    
+    /**
+     * @return the maximum number of radiology orders to return, null for no limit
+     */
+    public Integer getLimit() {
+        
+        return limit;
+    }
+    
+    /**
+     * @return the accession number of the radiology order after which to continue, null if the continuation radiology
+     *         order has no accession number
+     */
+    public String getAfterAccessionNumber() {
+        
+        return afterAccessionNumber;
+    }
+    
+    /**
+     * @return the order id of the radiology order after which to continue, null to start with the first
+     */
+    public Integer getAfterOrderId() {
+        
+        return afterOrderId;
+    }
+    
+    /**
+     * @return the paths of the associations fetched together with the radiology orders, empty if associations are
+     *         loaded as mapped
+     */
+    public Set<String> getFetchedAssociations() {
+        
+        return fetchedAssociations;
+    }
+    
     public static class Builder {
         
         
@@ -118,6 +174,16 @@ public class RadiologyOrderSearchCriteria {
         
         private Provider orderer;
         
+        private Integer startIndex;
+        
+        private Integer limit;
+        
+        private String afterAccessionNumber;
+        
+        private Integer afterOrderId;
+        
+        private final Set<String> fetchedAssociations = new LinkedHashSet<>();
+        
         /**
          * @param patient the order patient
          * @return this builder instance
@@ -189,6 +255,56 @@ public class RadiologyOrderSearchCriteria {
             return this;
         }
         
+        /**
+         * @param startIndex the index of the first radiology order to return
+         * @return this builder instance
+         */
+        public Builder withStartIndex(Integer startIndex) {
+            
+            this.startIndex = startIndex;
+            return this;
+        }
+        
+        /**
+         * @param limit the maximum number of radiology orders to return
+         * @return this builder instance
+         */
+        public Builder withLimit(Integer limit) {
+            
+            this.limit = limit;
+            return this;
+        }
+        
+        /**
+         * Continues after the radiology order with given accession number and order id in the order of increasing
+         * accession number and order id. Unlike the start index, the position is looked up with the index on these
+         * columns so every page costs the same.
+         * 
+         * @param accessionNumber the accession number of the last radiology order seen
+         * @param orderId the order id of the last radiology order seen
+         * @return this builder instance
+         */
+        public Builder after(String accessionNumber, Integer orderId) {
+            
+            this.afterAccessionNumber = accessionNumber;
+            this.afterOrderId = orderId;
+            return this;
+        }
+        
+        /**
+         * Fetches given associations of the radiology orders in the same query as the radiology orders, instead of
+         * loading them with one select per radiology order. Only single valued associations, like {@code study} or
+         * {@code orderer.person}, can be fetched without breaking paging.
+         * 
+         * @param associationPaths the paths of the associations to fetch starting at the radiology order
+         * @return this builder instance
+         */
+        public Builder fetch(String... associationPaths) {
+            
+            Collections.addAll(this.fetchedAssociations, associationPaths);
+            return this;
+        }
+        
         /**
          * Create an {@link RadiologyOrderSearchCriteria} with the properties of this builder instance.
          * 
@@ -200,6 +316,9 @@ public class RadiologyOrderSearchCriteria {
          * @should create a new radiology order search criteria instance with to effective start date if to effective start date is set
          * @should create a new radiology order search criteria instance with accession number if accession number is set
          * @should create a new radiology order search criteria instance with orderer if orderer is set
+         * @should create a new radiology order search criteria instance with start index and limit if start index and limit are set
+         * @should create a new radiology order search criteria instance with after accession number and order id if after is set
+         * @should create a new radiology order search criteria instance with fetched associations if fetch is set
          */
         public RadiologyOrderSearchCriteria build() {
             
@@ -216,5 +335,10 @@ public class RadiologyOrderSearchCriteria {
         this.toEffectiveStartDate = builder.toEffectiveStartDate;
         this.accessionNumber = builder.accessionNumber;
         this.orderer = builder.orderer;
+        this.startIndex = builder.startIndex;
+        this.limit = builder.limit;
+        this.afterAccessionNumber = builder.afterAccessionNumber;
+        this.afterOrderId = builder.afterOrderId;
+        this.fetchedAssociations = Collections.unmodifiableSet(new LinkedHashSet<>(builder.fetchedAssociations));
     }
 }
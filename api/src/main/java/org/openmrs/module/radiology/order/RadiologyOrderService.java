@@ -9,6 +9,8 @@
  */
 package org.openmrs.module.radiology.order;
 
+import java.io.IOException;
+import java.util.Date;
 import java.util.List;
 
 import org.openmrs.Order;
@@ -35,9 +37,28 @@ public interface RadiologyOrderService extends OpenmrsService {
      */
     public Long getNextAccessionNumberSeedSequenceValue();
     
+    /**
+     * Reserves a block of {@code blockSize} consecutive accession number seeds.
+     * 
+     * @param blockSize the number of accession number seeds to reserve
+     * @return the first accession number seed of the reserved block
+     * @throws IllegalArgumentException if blockSize is smaller than 1
+     * @throws APIException
+     * @should return the first accession number seed of the reserved block
+     * @should throw illegal argument exception if given block size is smaller than one
+     */
+    public Long getNextAccessionNumberSeedSequenceBlock(int blockSize);
+    
     /**
      * Saves a new {@code RadiologyOrder} and its {@code RadiologyStudy} to the
      * database.
+     * <p>
+     * Only radiology orders of the same patient are placed one at a time, radiology orders of different patients are
+     * placed concurrently. If called within a transaction the patient is not locked, since the lock would have to be
+     * held until that transaction completes and callers placing radiology orders for several patients within one
+     * transaction could deadlock each other. A radiology order reusing the accession number of another radiology order
+     * is rejected by a unique constraint in any case.
+     * </p>
      *
      * @param radiologyOrder the radiology order to be created
      * @return the created radiology order
@@ -47,13 +68,40 @@ public interface RadiologyOrderService extends OpenmrsService {
      * @should create new radiology order and study from given radiology order
      * @should create radiology order encounter
      * @should set the radiology order accession number
+     * @should store the effective start date of the radiology order
      * @should throw illegal argument exception given null
      * @should throw illegal argument exception if given radiology order has no study
      * @should throw api exception on saving an existing radiology order
+     * @should place radiology orders for many patients concurrently
+     * @should reject a radiology order with the accession number of another radiology order
      */
     @Authorized(RadiologyPrivileges.ADD_RADIOLOGY_ORDERS)
     public RadiologyOrder placeRadiologyOrder(RadiologyOrder radiologyOrder);
     
+    /**
+     * Saves many new {@code RadiologyOrder}'s and their {@code RadiologyStudy}'s to the database, like for scheduled
+     * imaging campaigns.
+     * <p>
+     * One block of consecutive accession numbers is reserved for all radiology orders. Radiology orders of the same
+     * patient and orderer share one encounter. Radiology orders are saved in transactions of a few dozen orders, never
+     * splitting the orders of one encounter. If saving one radiology order fails, the other radiology orders of its
+     * transaction are saved again one per transaction, each in an encounter of its own, so that only the radiology
+     * orders which cannot be saved fail. If called within a transaction, all radiology orders are saved in that
+     * transaction instead without locking their patients and a failure is thrown.
+     * </p>
+     *
+     * @param radiologyOrders the radiology orders to be created
+     * @return the result of each given radiology order in the order given
+     * @throws IllegalArgumentException if radiologyOrders is null
+     * @should place all valid radiology orders with consecutive accession numbers
+     * @should create one radiology order encounter per patient and orderer
+     * @should report invalid radiology orders without placing them
+     * @should place the other radiology orders of a transaction in which one radiology order fails
+     * @should throw illegal argument exception given null
+     */
+    @Authorized(RadiologyPrivileges.ADD_RADIOLOGY_ORDERS)
+    public List<RadiologyOrderPlacementResult> placeRadiologyOrders(List<RadiologyOrder> radiologyOrders);
+    
     /**
      * Discontinues an existing {@code RadiologyOrder}.
      *
@@ -128,8 +176,63 @@ public interface RadiologyOrderService extends OpenmrsService {
      * @should return all radiology orders for given accession number if accession number is specified
      * @should return all radiology orders for given orderer
      * @should return all radiology orders for given urgency and orderer
+     * @should return the page of radiology orders defined by start index and limit
+     * @should return the radiology orders after given accession number and order id if after is set
+     * @should fetch the associations of the fetch plan with the same number of statements for any page size
      * @should throw illegal argument exception if given null
      */
     @Authorized(RadiologyPrivileges.GET_RADIOLOGY_ORDERS)
     public List<RadiologyOrder> getRadiologyOrders(RadiologyOrderSearchCriteria radiologyOrderSearchCriteria);
+    
+    /**
+     * Get the number of {@code RadiologyOrder's} matching given criteria ignoring its start index and limit.
+     *
+     * @param radiologyOrderSearchCriteria the object containing search parameters
+     * @return the number of radiology orders matching given criteria
+     * @throws IllegalArgumentException if given null
+     * @should return the number of radiology orders matching given criteria ignoring start index and limit
+     * @should throw illegal argument exception if given null
+     */
+    @Authorized(RadiologyPrivileges.GET_RADIOLOGY_ORDERS)
+    public Long getRadiologyOrdersCount(RadiologyOrderSearchCriteria radiologyOrderSearchCriteria);
+    
+    /**
+     * Get the worklist items of all {@code RadiologyOrder's} matching given criteria, in the order and page of
+     * {@link #getRadiologyOrders(RadiologyOrderSearchCriteria)}.
+     * <p>
+     * Worklist items are read in one query without loading the radiology orders, so the fetched associations of given
+     * criteria are ignored.
+     * </p>
+     *
+     * @param radiologyOrderSearchCriteria the object containing search parameters
+     * @return the worklist items of the radiology orders matching given criteria
+     * @throws IllegalArgumentException if given null
+     * @should return the worklist items of the radiology orders matching given criteria
+     * @should return the patient procedure and orderer names and the study and report status
+     * @should return one worklist item per radiology order if the patient has several preferred names
+     * @should return the page of worklist items defined by start index and limit
+     * @should throw illegal argument exception if given null
+     */
+    @Authorized(RadiologyPrivileges.GET_RADIOLOGY_ORDERS)
+    public List<RadiologyOrderWorklistItem>
+            getRadiologyOrderWorklist(RadiologyOrderSearchCriteria radiologyOrderSearchCriteria);
+    
+    /**
+     * Export all {@code RadiologyOrder's} together with their study and active report ordered by order id, handing them
+     * to given writer one at a time while they are read from the database so that exports run in constant memory.
+     *
+     * @param since if not null only export radiology orders which were created, stopped or voided or whose study or
+     *        report was created or changed at or after this date
+     * @param radiologyOrderExportWriter the writer receiving the export entries
+     * @return the number of exported radiology orders
+     * @throws IOException if the writer fails to write an export entry
+     * @throws IllegalArgumentException if given radiology order export writer is null
+     * @should export all radiology orders with their study and active report
+     * @should only export radiology orders created or changed at or after since if since is given
+     * @should throw illegal argument exception if given radiology order export writer is null
+     */
+    @Authorized(value = { RadiologyPrivileges.GET_RADIOLOGY_ORDERS, RadiologyPrivileges.GET_RADIOLOGY_REPORTS },
+            requireAll = true)
+    public long exportRadiologyOrders(Date since, RadiologyOrderExportWriter radiologyOrderExportWriter)
+            throws IOException;
 }
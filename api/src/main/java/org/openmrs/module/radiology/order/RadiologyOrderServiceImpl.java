@@ -9,8 +9,19 @@
  */
 package org.openmrs.module.radiology.order;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import org.openmrs.Encounter;
 import org.openmrs.Order;
@@ -24,13 +35,34 @@ import org.openmrs.api.context.Context;
 import org.openmrs.api.impl.BaseOpenmrsService;
 import org.openmrs.module.radiology.RadiologyProperties;
 import org.openmrs.module.radiology.study.RadiologyStudyService;
+import org.openmrs.module.radiology.util.StripedLock;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Transactional(readOnly = true)
 class RadiologyOrderServiceImpl extends BaseOpenmrsService implements RadiologyOrderService, AccessionNumberGenerator {
     
     
+    private static final Log log = LogFactory.getLog(RadiologyOrderServiceImpl.class);
+    
+    private static final int PATIENT_LOCK_STRIPES = 64;
+    
+    /**
+     * Number of radiology orders {@link #placeRadiologyOrders(List)} saves in one transaction.
+     */
+    private static final int PLACE_BATCH_SIZE = 50;
+    
+    /**
+     * Serializes placing radiology orders for the same patient, since these share the patients encounters and active
+     * orders. Orders of different patients are placed in parallel.
+     */
+    private final StripedLock patientLocks = new StripedLock(PATIENT_LOCK_STRIPES);
+    
     private RadiologyOrderDAO radiologyOrderDAO;
     
     private RadiologyStudyService radiologyStudyService;
@@ -41,6 +73,10 @@ class RadiologyOrderServiceImpl extends BaseOpenmrsService implements RadiologyO
     
     private RadiologyProperties radiologyProperties;
     
+    private PlatformTransactionManager transactionManager;
+    
+    private volatile BlockAllocatingAccessionNumberGenerator blockAllocatingAccessionNumberGenerator;
+    
     public void setRadiologyOrderDAO(RadiologyOrderDAO radiologyOrderDAO) {
         this.radiologyOrderDAO = radiologyOrderDAO;
     }
@@ -61,12 +97,16 @@ class RadiologyOrderServiceImpl extends BaseOpenmrsService implements RadiologyO
         this.radiologyProperties = radiologyProperties;
     }
     
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+    
     /**
      * @see RadiologyOrderService#placeRadiologyOrder(RadiologyOrder)
      */
     @Override
-    @Transactional
-    public synchronized RadiologyOrder placeRadiologyOrder(RadiologyOrder radiologyOrder) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public RadiologyOrder placeRadiologyOrder(final RadiologyOrder radiologyOrder) {
         
         if (radiologyOrder == null) {
             throw new IllegalArgumentException("radiologyOrder cannot be null");
@@ -80,19 +120,216 @@ class RadiologyOrderServiceImpl extends BaseOpenmrsService implements RadiologyO
             throw new IllegalArgumentException("radiologyOrder.study cannot be null");
         }
         
+        final Patient patient = radiologyOrder.getPatient();
+        final Integer patientId = patient == null ? null : patient.getPatientId();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // A lock released before the existing transaction commits would not serialize anything, while holding it
+            // until then would let callers placing orders for several patients in one transaction acquire patient locks
+            // in their own order and deadlock each other. Conflicts are rejected by the database constraints instead.
+            return saveRadiologyOrder(radiologyOrder);
+        }
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            patientLocks.lockUntilTransactionCompletion(patientId);
+            return saveRadiologyOrder(radiologyOrder);
+        });
+    }
+    
+    /**
+     * Save given radiology order with a new accession number in a new radiology order encounter.
+     * 
+     * @param radiologyOrder the radiology order to save
+     * @return the saved radiology order
+     */
+    private RadiologyOrder saveRadiologyOrder(RadiologyOrder radiologyOrder) {
+        
         radiologyOrder.setAccessionNumber(getNewAccessionNumber());
         
         final Encounter encounter =
                 saveRadiologyOrderEncounter(radiologyOrder.getPatient(), radiologyOrder.getOrderer(), new Date());
         encounter.addOrder(radiologyOrder);
         
+        final RadiologyOrder result = (RadiologyOrder) orderService.saveOrder(radiologyOrder, newRadiologyOrderContext());
+        this.radiologyStudyService.saveRadiologyStudy(result.getStudy());
+        return result;
+    }
+    
+    /**
+     * @see RadiologyOrderService#placeRadiologyOrders(List)
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<RadiologyOrderPlacementResult> placeRadiologyOrders(List<RadiologyOrder> radiologyOrders) {
+        
+        if (radiologyOrders == null) {
+            throw new IllegalArgumentException("radiologyOrders cannot be null");
+        }
+        
+        final RadiologyOrderPlacementResult[] results = new RadiologyOrderPlacementResult[radiologyOrders.size()];
+        final List<Integer> validOrders = new ArrayList<>();
+        for (int i = 0; i < radiologyOrders.size(); i++) {
+            final String invalidReason = getInvalidReason(radiologyOrders.get(i));
+            if (invalidReason == null) {
+                validOrders.add(i);
+            } else {
+                results[i] = new RadiologyOrderPlacementResult(radiologyOrders.get(i),
+                        RadiologyOrderPlacementResult.Status.INVALID, invalidReason);
+            }
+        }
+        if (validOrders.isEmpty()) {
+            return Arrays.asList(results);
+        }
+        
+        long accessionNumberSeed = Context.getService(RadiologyOrderService.class)
+                .getNextAccessionNumberSeedSequenceBlock(validOrders.size());
+        final Map<List<Object>, List<Integer>> encounterGroups = new LinkedHashMap<>();
+        for (Integer index : validOrders) {
+            final RadiologyOrder radiologyOrder = radiologyOrders.get(index);
+            radiologyOrder.setAccessionNumber(Long.toString(accessionNumberSeed++));
+            final List<Object> encounterKey = Arrays.<Object> asList(radiologyOrder.getPatient(), radiologyOrder.getOrderer());
+            encounterGroups.computeIfAbsent(encounterKey, key -> new ArrayList<>())
+                    .add(index);
+        }
+        
+        // Within an existing transaction all orders are saved in that transaction, so they are placed as one batch.
+        final boolean participating = TransactionSynchronizationManager.isActualTransactionActive();
+        final Date encounterDateTime = new Date();
+        final List<List<Integer>> batch = new ArrayList<>();
+        int batchSize = 0;
+        for (List<Integer> encounterGroup : encounterGroups.values()) {
+            if (!participating && batchSize > 0 && batchSize + encounterGroup.size() > PLACE_BATCH_SIZE) {
+                placeRadiologyOrderBatch(radiologyOrders, batch, encounterDateTime, participating, results);
+                batch.clear();
+                batchSize = 0;
+            }
+            batch.add(encounterGroup);
+            batchSize += encounterGroup.size();
+        }
+        placeRadiologyOrderBatch(radiologyOrders, batch, encounterDateTime, participating, results);
+        return Arrays.asList(results);
+    }
+    
+    /**
+     * Get the reason why given radiology order cannot be placed.
+     * 
+     * @param radiologyOrder the radiology order to check
+     * @return the reason given radiology order cannot be placed or null if it can be placed
+     */
+    private String getInvalidReason(RadiologyOrder radiologyOrder) {
+        
+        if (radiologyOrder == null) {
+            return "radiologyOrder cannot be null";
+        }
+        if (radiologyOrder.getOrderId() != null) {
+            return "Order.cannot.edit.existing";
+        }
+        if (radiologyOrder.getStudy() == null) {
+            return "radiologyOrder.study cannot be null";
+        }
+        return null;
+    }
+    
+    /**
+     * Save a batch of radiology orders in one transaction, each group of radiology orders sharing one encounter.
+     * <p>
+     * If the transaction of a batch which is not saved in an existing transaction fails, each radiology order of the
+     * batch is saved again in a transaction of its own, so that only the radiology orders which cannot be saved fail.
+     * </p>
+     * 
+     * @param radiologyOrders the radiology orders to place
+     * @param batch the indices of the radiology orders of the batch grouped by encounter
+     * @param encounterDateTime the date of the radiology order encounters
+     * @param participating true if the batch is saved in an existing transaction
+     * @param results the results to set the result of each radiology order of the batch in
+     */
+    private void placeRadiologyOrderBatch(final List<RadiologyOrder> radiologyOrders, final List<List<Integer>> batch,
+            final Date encounterDateTime, final boolean participating, final RadiologyOrderPlacementResult[] results) {
+        
+        final Set<Integer> patientIds = new HashSet<>();
+        for (List<Integer> encounterGroup : batch) {
+            final Patient patient = radiologyOrders.get(encounterGroup.get(0))
+                    .getPatient();
+            patientIds.add(patient == null ? null : patient.getPatientId());
+        }
+        try {
+            new TransactionTemplate(transactionManager).execute(new TransactionCallbackWithoutResult() {
+                
+                
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    if (!participating) {
+                        patientLocks.lockAllUntilTransactionCompletion(patientIds);
+                    }
+                    final OrderContext orderContext = newRadiologyOrderContext();
+                    for (List<Integer> encounterGroup : batch) {
+                        final RadiologyOrder first = radiologyOrders.get(encounterGroup.get(0));
+                        final Encounter encounter =
+                                saveRadiologyOrderEncounter(first.getPatient(), first.getOrderer(), encounterDateTime);
+                        for (Integer index : encounterGroup) {
+                            final RadiologyOrder radiologyOrder = radiologyOrders.get(index);
+                            encounter.addOrder(radiologyOrder);
+                            final RadiologyOrder result =
+                                    (RadiologyOrder) orderService.saveOrder(radiologyOrder, orderContext);
+                            radiologyStudyService.saveRadiologyStudy(result.getStudy());
+                            results[index] = new RadiologyOrderPlacementResult(result,
+                                    RadiologyOrderPlacementResult.Status.PLACED, null);
+                        }
+                    }
+                }
+            });
+        }
+        catch (RuntimeException e) {
+            if (participating) {
+                throw e;
+            }
+            if (batch.size() == 1 && batch.get(0)
+                    .size() == 1) {
+                final Integer index = batch.get(0)
+                        .get(0);
+                log.error("Failed to place radiology order", e);
+                resetRadiologyOrder(radiologyOrders.get(index));
+                results[index] = new RadiologyOrderPlacementResult(radiologyOrders.get(index),
+                        RadiologyOrderPlacementResult.Status.FAILED, e.getMessage());
+                return;
+            }
+            log.warn("Failed to place batch of radiology orders, placing them one at a time", e);
+            for (List<Integer> encounterGroup : batch) {
+                for (Integer index : encounterGroup) {
+                    resetRadiologyOrder(radiologyOrders.get(index));
+                    placeRadiologyOrderBatch(radiologyOrders, Collections.singletonList(Collections.singletonList(index)),
+                        encounterDateTime, false, results);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Reset what saving given radiology order assigned in a rolled back transaction, so that it can be saved again.
+     * <p>
+     * The accession number is kept since it was reserved for the radiology order. The order number is generated again
+     * for a radiology order without id.
+     * </p>
+     * 
+     * @param radiologyOrder the radiology order to reset
+     */
+    private void resetRadiologyOrder(RadiologyOrder radiologyOrder) {
+        
+        radiologyOrder.setOrderId(null);
+        radiologyOrder.setEncounter(null);
+        radiologyOrder.getStudy()
+                .setStudyId(null);
+    }
+    
+    /**
+     * Create the order context radiology orders are saved with.
+     * 
+     * @return the order context with the radiology care setting and order type
+     */
+    private OrderContext newRadiologyOrderContext() {
+        
         final OrderContext orderContext = new OrderContext();
         orderContext.setCareSetting(radiologyProperties.getRadiologyCareSetting());
         orderContext.setOrderType(radiologyProperties.getRadiologyTestOrderType());
-        
-        final RadiologyOrder result = (RadiologyOrder) orderService.saveOrder(radiologyOrder, orderContext);
-        this.radiologyStudyService.saveRadiologyStudy(result.getStudy());
-        return result;
+        return orderContext;
     }
     
     /**
@@ -178,21 +415,61 @@ class RadiologyOrderServiceImpl extends BaseOpenmrsService implements RadiologyO
      */
     @Override
     public String getNewAccessionNumber() {
+        
+        final int blockSize = radiologyProperties.getAccessionNumberBlockSize();
+        if (blockSize > 1) {
+            return getBlockAllocatingAccessionNumberGenerator(blockSize).getNewAccessionNumber();
+        }
         return Context.getService(RadiologyOrderService.class)
                 .getNextAccessionNumberSeedSequenceValue()
                 .toString();
     }
     
+    /**
+     * Get the block allocating accession number generator for given block size.
+     * <p>
+     * A new generator is created if the block size changed. Concurrent callers might create a generator each, which is
+     * safe since every generator reserves its own blocks; only the seeds left in the dropped block are skipped.
+     * </p>
+     * 
+     * @param blockSize the number of accession number seeds reserved at once
+     * @return the block allocating accession number generator
+     */
+    private BlockAllocatingAccessionNumberGenerator getBlockAllocatingAccessionNumberGenerator(int blockSize) {
+        
+        BlockAllocatingAccessionNumberGenerator result = blockAllocatingAccessionNumberGenerator;
+        if (result == null || result.getBlockSize() != blockSize) {
+            result = new BlockAllocatingAccessionNumberGenerator(blockSize,
+                    size -> Context.getService(RadiologyOrderService.class)
+                            .getNextAccessionNumberSeedSequenceBlock(size));
+            blockAllocatingAccessionNumberGenerator = result;
+        }
+        return result;
+    }
+    
     /**
      * @see RadiologyOrderService#getNextAccessionNumberSeedSequenceValue()
      */
     @Override
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public synchronized Long getNextAccessionNumberSeedSequenceValue() {
+    public Long getNextAccessionNumberSeedSequenceValue() {
         
         return radiologyOrderDAO.getNextAccessionNumberSeedSequenceValue();
     }
     
+    /**
+     * @see RadiologyOrderService#getNextAccessionNumberSeedSequenceBlock(int)
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Long getNextAccessionNumberSeedSequenceBlock(int blockSize) {
+        
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be greater than 0");
+        }
+        return radiologyOrderDAO.getNextAccessionNumberSeedSequenceBlock(blockSize);
+    }
+    
     /**
      * @see RadiologyOrderService#getRadiologyOrders(RadiologyOrderSearchCriteria)
      */
@@ -204,4 +481,42 @@ class RadiologyOrderServiceImpl extends BaseOpenmrsService implements RadiologyO
         }
         return radiologyOrderDAO.getRadiologyOrders(radiologyOrderSearchCriteria);
     }
+    
+    /**
+     * @see RadiologyOrderService#getRadiologyOrdersCount(RadiologyOrderSearchCriteria)
+     */
+    @Override
+    public Long getRadiologyOrdersCount(RadiologyOrderSearchCriteria radiologyOrderSearchCriteria) {
+        
+        if (radiologyOrderSearchCriteria == null) {
+            throw new IllegalArgumentException("radiologyOrderSearchCriteria cannot be null");
+        }
+        return radiologyOrderDAO.getRadiologyOrdersCount(radiologyOrderSearchCriteria);
+    }
+    
+    /**
+     * @see RadiologyOrderService#getRadiologyOrderWorklist(RadiologyOrderSearchCriteria)
+     */
+    @Override
+    public List<RadiologyOrderWorklistItem>
+            getRadiologyOrderWorklist(RadiologyOrderSearchCriteria radiologyOrderSearchCriteria) {
+        
+        if (radiologyOrderSearchCriteria == null) {
+            throw new IllegalArgumentException("radiologyOrderSearchCriteria cannot be null");
+        }
+        return radiologyOrderDAO.getRadiologyOrderWorklist(radiologyOrderSearchCriteria);
+    }
+    
+    /**
+     * @see RadiologyOrderService#exportRadiologyOrders(Date, RadiologyOrderExportWriter)
+     */
+    @Override
+    public long exportRadiologyOrders(Date since, RadiologyOrderExportWriter radiologyOrderExportWriter)
+            throws IOException {
+        
+        if (radiologyOrderExportWriter == null) {
+            throw new IllegalArgumentException("radiologyOrderExportWriter cannot be null");
+        }
+        return radiologyOrderDAO.exportRadiologyOrders(since, radiologyOrderExportWriter);
+    }
 }
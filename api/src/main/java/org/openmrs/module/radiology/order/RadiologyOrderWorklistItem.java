@@ -0,0 +1,221 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order;
+
+import java.util.Date;
+
+/**
+ * Flat read only view of a {@link RadiologyOrder} with the names of its patient, procedure and orderer and the status of
+ * its study and active report, as listed by the radiology dashboards.
+ * <p>
+ * Worklist items are read by {@link RadiologyOrderService#getRadiologyOrderWorklist(RadiologyOrderSearchCriteria)} in one
+ * query without loading the radiology orders and their associations.
+ * </p>
+ */
+public class RadiologyOrderWorklistItem {
+    
+    
+    private final Integer orderId;
+    
+    private final String uuid;
+    
+    private final String accessionNumber;
+    
+    private final String patientUuid;
+    
+    private final String patientName;
+    
+    private final String patientIdentifier;
+    
+    private final String procedure;
+    
+    private final String urgency;
+    
+    private final Date scheduledDate;
+    
+    private final Date dateActivated;
+    
+    private final Date dateStopped;
+    
+    private final String orderer;
+    
+    private final String orderReason;
+    
+    private final String orderReasonNonCoded;
+    
+    private final String instructions;
+    
+    private final String performedStatus;
+    
+    private final String reportStatus;
+    
+    /**
+     * Creates a new instance of {@link RadiologyOrderWorklistItem}.
+     */
+    public RadiologyOrderWorklistItem(Integer orderId, String uuid, String accessionNumber, String patientUuid,
+            String patientName, String patientIdentifier, String procedure, String urgency, Date scheduledDate,
+            Date dateActivated, Date dateStopped, String orderer, String orderReason, String orderReasonNonCoded,
+            String instructions, String performedStatus, String reportStatus) {
+        
+        this.orderId = orderId;
+        this.uuid = uuid;
+        this.accessionNumber = accessionNumber;
+        this.patientUuid = patientUuid;
+        this.patientName = patientName;
+        this.patientIdentifier = patientIdentifier;
+        this.procedure = procedure;
+        this.urgency = urgency;
+        this.scheduledDate = scheduledDate;
+        this.dateActivated = dateActivated;
+        this.dateStopped = dateStopped;
+        this.orderer = orderer;
+        this.orderReason = orderReason;
+        this.orderReasonNonCoded = orderReasonNonCoded;
+        this.instructions = instructions;
+        this.performedStatus = performedStatus;
+        this.reportStatus = reportStatus;
+    }
+    
+    /**
+     * @return the order id of the radiology order
+     */
+    public Integer getOrderId() {
+        
+        return orderId;
+    }
+    
+    /**
+     * @return the uuid of the radiology order
+     */
+    public String getUuid() {
+        
+        return uuid;
+    }
+    
+    /**
+     * @return the accession number of the radiology order
+     */
+    public String getAccessionNumber() {
+        
+        return accessionNumber;
+    }
+    
+    /**
+     * @return the uuid of the patient of the radiology order
+     */
+    public String getPatientUuid() {
+        
+        return patientUuid;
+    }
+    
+    /**
+     * @return the preferred name of the patient of the radiology order
+     */
+    public String getPatientName() {
+        
+        return patientName;
+    }
+    
+    /**
+     * @return the preferred identifier of the patient of the radiology order
+     */
+    public String getPatientIdentifier() {
+        
+        return patientIdentifier;
+    }
+    
+    /**
+     * @return the name of the imaging procedure of the radiology order in the locale of the user, null if it has no name
+     */
+    public String getProcedure() {
+        
+        return procedure;
+    }
+    
+    /**
+     * @return the urgency of the radiology order
+     */
+    public String getUrgency() {
+        
+        return urgency;
+    }
+    
+    /**
+     * @return the date the radiology order is scheduled for, null if it is not scheduled
+     */
+    public Date getScheduledDate() {
+        
+        return scheduledDate;
+    }
+    
+    /**
+     * @return the date the radiology order was activated
+     */
+    public Date getDateActivated() {
+        
+        return dateActivated;
+    }
+    
+    /**
+     * @return the date the radiology order was stopped, null if it was not stopped
+     */
+    public Date getDateStopped() {
+        
+        return dateStopped;
+    }
+    
+    /**
+     * @return the name of the provider who ordered the radiology order
+     */
+    public String getOrderer() {
+        
+        return orderer;
+    }
+    
+    /**
+     * @return the name of the coded reason of the radiology order, null if it has none
+     */
+    public String getOrderReason() {
+        
+        return orderReason;
+    }
+    
+    /**
+     * @return the non coded reason of the radiology order, null if it has none
+     */
+    public String getOrderReasonNonCoded() {
+        
+        return orderReasonNonCoded;
+    }
+    
+    /**
+     * @return the instructions of the radiology order, null if it has none
+     */
+    public String getInstructions() {
+        
+        return instructions;
+    }
+    
+    /**
+     * @return the performed status of the study of the radiology order, null if not performed yet
+     */
+    public String getPerformedStatus() {
+        
+        return performedStatus;
+    }
+    
+    /**
+     * @return the status of the active radiology report of the radiology order, null if the order has no active report
+     */
+    public String getReportStatus() {
+        
+        return reportStatus;
+    }
+}
@@ -9,12 +9,41 @@
  */
 package org.openmrs.module.radiology.report;
 
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
+import org.hibernate.NullPrecedence;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.ProjectionList;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.type.EntityType;
+import org.openmrs.Provider;
+import org.openmrs.User;
+import org.openmrs.api.APIException;
 import org.openmrs.module.radiology.order.RadiologyOrder;
 
 /**
@@ -27,6 +56,11 @@ import org.openmrs.module.radiology.order.RadiologyOrder;
 class HibernateRadiologyReportDAO implements RadiologyReportDAO {
     
     
+    private static final int COMPLETED_REPORT_BODIES_FETCH_SIZE = 100;
+    
+    private static final String COMPLETED_REPORT_BODIES_QUERY = "select r.reportId, r.date, r.body from RadiologyReport r"
+            + " where r.status = :status and r.voided = false order by r.reportId";
+    
     private SessionFactory sessionFactory;
     
     /**
@@ -68,33 +102,65 @@ class HibernateRadiologyReportDAO implements RadiologyReportDAO {
         return radiologyReport;
     }
     
+    /**
+     * @see org.openmrs.module.radiology.report.RadiologyReportDAO#createRadiologyReport(RadiologyReport)
+     */
+    @Override
+    public RadiologyReport createRadiologyReport(RadiologyReport radiologyReport) {
+        
+        final Session session = sessionFactory.getCurrentSession();
+        try {
+            session.save(radiologyReport);
+            session.flush();
+        }
+        catch (ConstraintViolationException e) {
+            throw new APIException("radiology.RadiologyReport.cannot.create.already.claimed", e);
+        }
+        return radiologyReport;
+    }
+    
     /**
      * @see org.openmrs.module.radiology.report.RadiologyReportService#hasRadiologyOrderCompletedRadiologyReport(RadiologyOrder)
      *      (RadiologyReport)
      */
-    @SuppressWarnings("unchecked")
     @Override
     public boolean hasRadiologyOrderCompletedRadiologyReport(RadiologyOrder radiologyOrder) {
-        final List<RadiologyReport> radiologyReports = sessionFactory.getCurrentSession()
+        final Number count = (Number) sessionFactory.getCurrentSession()
                 .createCriteria(RadiologyReport.class)
                 .add(Restrictions.eq("radiologyOrder", radiologyOrder))
                 .add(Restrictions.eq("status", RadiologyReportStatus.COMPLETED))
-                .list();
-        return radiologyReports.size() == 1;
+                .setProjection(Projections.rowCount())
+                .uniqueResult();
+        return count.longValue() > 0;
     }
     
     /**
      * @see org.openmrs.module.radiology.report.RadiologyReportService#hasRadiologyOrderClaimedRadiologyReport(RadiologyOrder)
      */
-    @SuppressWarnings("unchecked")
+    @Override
     public boolean hasRadiologyOrderClaimedRadiologyReport(RadiologyOrder radiologyOrder) {
-        final List<RadiologyReport> radiologyReports = sessionFactory.getCurrentSession()
+        final Number count = (Number) sessionFactory.getCurrentSession()
                 .createCriteria(RadiologyReport.class)
                 .add(Restrictions.eq("radiologyOrder", radiologyOrder))
                 .add(Restrictions.eq("status", RadiologyReportStatus.DRAFT))
                 .add(Restrictions.eq("voided", false))
-                .list();
-        return radiologyReports.size() == 1;
+                .setProjection(Projections.rowCount())
+                .uniqueResult();
+        return count.longValue() > 0;
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.RadiologyReportDAO#getActiveRadiologyReportStatusByRadiologyOrder(RadiologyOrder)
+     */
+    @Override
+    public RadiologyReportStatus getActiveRadiologyReportStatusByRadiologyOrder(RadiologyOrder radiologyOrder) {
+        return (RadiologyReportStatus) sessionFactory.getCurrentSession()
+                .createCriteria(RadiologyReport.class)
+                .add(Restrictions.eq("radiologyOrder", radiologyOrder))
+                .add(Restrictions.eq("voided", false))
+                .setProjection(Projections.property("status"))
+                .setMaxResults(1)
+                .uniqueResult();
     }
     
     /**
@@ -106,20 +172,233 @@ class HibernateRadiologyReportDAO implements RadiologyReportDAO {
                 .createCriteria(RadiologyReport.class)
                 .add(Restrictions.eq("radiologyOrder", radiologyOrder))
                 .add(Restrictions.eq("voided", false))
-                .list()
-                .get(0);
+                .setMaxResults(1)
+                .uniqueResult();
     }
     
     /**
      * @see org.openmrs.module.radiology.report.RadiologyReportService#getRadiologyReports(RadiologyReportSearchCriteria)
      */
-    @SuppressWarnings("unchecked")
     @Override
     public List<RadiologyReport> getRadiologyReports(RadiologyReportSearchCriteria searchCriteria) {
         
+        return getRadiologyReports(searchCriteria, null);
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.RadiologyReportDAO#getRadiologyReports(RadiologyReportSearchCriteria,
+     *      Collection)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<RadiologyReport> getRadiologyReports(RadiologyReportSearchCriteria searchCriteria,
+            Collection<Integer> reportIds) {
+        
+        final Criteria crit = createRadiologyReportCriteria(searchCriteria, reportIds);
+        
+        // given report ids are already the page after the continuation
+        if (reportIds == null && searchCriteria.getAfterReportId() != null) {
+            crit.add(after(searchCriteria.getAfterDate(), searchCriteria.getAfterReportId()));
+        }
+        crit.addOrder(Order.asc("date")
+                .nulls(NullPrecedence.FIRST));
+        crit.addOrder(Order.asc("reportId"));
+        if (reportIds == null && searchCriteria.getStartIndex() != null) {
+            crit.setFirstResult(searchCriteria.getStartIndex());
+        }
+        if (reportIds == null && searchCriteria.getLimit() != null) {
+            crit.setMaxResults(searchCriteria.getLimit());
+        }
+        if (!searchCriteria.getExcludeBody()) {
+            for (String associationPath : searchCriteria.getFetchedAssociations()) {
+                crit.setFetchMode(associationPath, FetchMode.JOIN);
+            }
+            return crit.list();
+        }
+        
+        crit.setProjection(createRadiologyReportWithoutBodyProjection());
+        final List<Object[]> rows = crit.list();
+        final List<RadiologyReport> result = new ArrayList<RadiologyReport>(rows.size());
+        for (Object[] row : rows) {
+            result.add(toRadiologyReportWithoutBody(row));
+        }
+        fetchAssociations(result, searchCriteria.getFetchedAssociations());
+        return result;
+    }
+    
+    /**
+     * Load given associations of radiology reports built from projected rows with one query per association.
+     * <p>
+     * Fetch modes do not apply to projections, so the associations of radiology reports without body are proxies. Loading
+     * the associated entities of all given radiology reports at once into the session initializes these proxies without
+     * one select per radiology report.
+     * </p>
+     * 
+     * @param radiologyReports the radiology reports whose associations are loaded
+     * @param associationPaths the paths of the associations to load starting at the radiology report
+     */
+    private void fetchAssociations(List<RadiologyReport> radiologyReports, Set<String> associationPaths) {
+        
+        final Map<String, Set<String>> nestedPathsByAssociation = new LinkedHashMap<>();
+        for (String associationPath : associationPaths) {
+            final int separatorIndex = associationPath.indexOf('.');
+            final String association =
+                    separatorIndex < 0 ? associationPath : associationPath.substring(0, separatorIndex);
+            final Set<String> nestedPaths =
+                    nestedPathsByAssociation.computeIfAbsent(association, key -> new LinkedHashSet<>());
+            if (separatorIndex >= 0) {
+                nestedPaths.add(associationPath.substring(separatorIndex + 1));
+            }
+        }
+        
+        final Session session = sessionFactory.getCurrentSession();
+        final ClassMetadata radiologyReportMetadata = sessionFactory.getClassMetadata(RadiologyReport.class);
+        for (Map.Entry<String, Set<String>> entry : nestedPathsByAssociation.entrySet()) {
+            final Set<Serializable> ids = new HashSet<>();
+            for (RadiologyReport radiologyReport : radiologyReports) {
+                final Object associated = radiologyReportMetadata.getPropertyValue(radiologyReport, entry.getKey());
+                if (associated != null) {
+                    ids.add(session.getIdentifier(associated));
+                }
+            }
+            if (ids.isEmpty()) {
+                continue;
+            }
+            final String entityName = ((EntityType) radiologyReportMetadata.getPropertyType(entry.getKey()))
+                    .getAssociatedEntityName();
+            final Criteria crit = session.createCriteria(entityName)
+                    .add(Restrictions.in(sessionFactory.getClassMetadata(entityName)
+                            .getIdentifierPropertyName(),
+                        ids));
+            for (String nestedPath : entry.getValue()) {
+                crit.setFetchMode(nestedPath, FetchMode.JOIN);
+            }
+            crit.list();
+        }
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.RadiologyReportService#getRadiologyReportsCount(RadiologyReportSearchCriteria)
+     */
+    @Override
+    public Long getRadiologyReportsCount(RadiologyReportSearchCriteria searchCriteria) {
+        
+        return getRadiologyReportsCount(searchCriteria, null);
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.RadiologyReportDAO#getRadiologyReportsCount(RadiologyReportSearchCriteria,
+     *      Collection)
+     */
+    @Override
+    public Long getRadiologyReportsCount(RadiologyReportSearchCriteria searchCriteria, Collection<Integer> reportIds) {
+        
+        final Number count = (Number) createRadiologyReportCriteria(searchCriteria, reportIds)
+                .setProjection(Projections.rowCount())
+                .uniqueResult();
+        return count.longValue();
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.RadiologyReportDAO#getStoredRadiologyReportDate(Integer)
+     */
+    @Override
+    public Date getStoredRadiologyReportDate(Integer reportId) {
+        
+        // a query instead of the session so that the report date is read back from the database after flushing
+        return (Date) sessionFactory.getCurrentSession()
+                .createQuery("select r.date from RadiologyReport r where r.reportId = :reportId")
+                .setParameter("reportId", reportId)
+                .uniqueResult();
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.RadiologyReportDAO#getCompletedRadiologyReportBodies(RadiologyReportBodyConsumer)
+     */
+    @Override
+    public long getCompletedRadiologyReportBodies(RadiologyReportBodyConsumer radiologyReportBodyConsumer)
+            throws IOException {
+        
+        // runs on the connection of the current transaction so it sees its data, without building up a persistence
+        // context while scrolling
+        final StatelessSession statelessSession = sessionFactory.openStatelessSession(
+            ((SessionImplementor) sessionFactory.getCurrentSession()).connection());
+        try {
+            final Query query = statelessSession.createQuery(COMPLETED_REPORT_BODIES_QUERY);
+            query.setParameter("status", RadiologyReportStatus.COMPLETED);
+            query.setReadOnly(true);
+            // MySQL Connector/J only streams rows instead of reading the whole result into memory given this fetch size
+            query.setFetchSize(
+                ((SessionFactoryImplementor) sessionFactory).getDialect() instanceof MySQLDialect ? Integer.MIN_VALUE
+                        : COMPLETED_REPORT_BODIES_FETCH_SIZE);
+            
+            long read = 0;
+            final ScrollableResults rows = query.scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                while (rows.next()) {
+                    radiologyReportBodyConsumer.accept(rows.getInteger(0), rows.getDate(1), rows.getString(2));
+                    read++;
+                }
+            }
+            finally {
+                rows.close();
+            }
+            return read;
+        }
+        finally {
+            statelessSession.close();
+        }
+    }
+    
+    /**
+     * Create a restriction to the radiology reports sorted after the one with given report date and report id, in the
+     * order of increasing report date (null first) and report id.
+     * 
+     * @param date the report date of the last radiology report seen
+     * @param reportId the report id of the last radiology report seen
+     * @return the restriction to the radiology reports sorted after given report date and report id
+     */
+    private Criterion after(Date date, Integer reportId) {
+        
+        if (date == null) {
+            return Restrictions.or(Restrictions.isNotNull("date"),
+                Restrictions.and(Restrictions.isNull("date"), Restrictions.gt("reportId", reportId)));
+        }
+        return Restrictions.or(Restrictions.gt("date", date),
+            Restrictions.and(Restrictions.eq("date", date), Restrictions.gt("reportId", reportId)));
+    }
+    
+    /**
+     * Create a restriction to the radiology reports with one of given report ids.
+     * 
+     * @param reportIds the report ids
+     * @return the restriction to the radiology reports with one of given report ids
+     */
+    private Criterion reportIdIn(Collection<Integer> reportIds) {
+        
+        if (reportIds.isEmpty()) {
+            return Restrictions.sqlRestriction("1 = 0");
+        }
+        return Restrictions.in("reportId", reportIds);
+    }
+    
+    /**
+     * Create a criteria restricting radiology reports to the ones matching given search criteria without ordering,
+     * paging or continuation.
+     * 
+     * @param searchCriteria the search criteria
+     * @param reportIds the report ids to restrict the radiology reports to, null for no restriction
+     * @return the criteria matching given search criteria
+     */
+    private Criteria createRadiologyReportCriteria(RadiologyReportSearchCriteria searchCriteria,
+            Collection<Integer> reportIds) {
+        
         final Criteria crit = sessionFactory.getCurrentSession()
                 .createCriteria(RadiologyReport.class);
         
+        if (reportIds != null) {
+            crit.add(reportIdIn(reportIds));
+        }
         if (!searchCriteria.getIncludeVoided()) {
             crit.add(Restrictions.eq("voided", false));
         }
@@ -135,8 +414,60 @@ class HibernateRadiologyReportDAO implements RadiologyReportDAO {
         if (searchCriteria.getStatus() != null) {
             crit.add(Restrictions.eq("status", searchCriteria.getStatus()));
         }
+        return crit;
+    }
+    
+    /**
+     * Create a projection of all radiology report properties but the body. The order of the properties is the one
+     * expected by {@link #toRadiologyReportWithoutBody(Object[])}.
+     * 
+     * @return the projection of all radiology report properties but the body
+     */
+    private ProjectionList createRadiologyReportWithoutBodyProjection() {
         
-        crit.addOrder(Order.asc("date"));
-        return crit.list();
+        return Projections.projectionList()
+                .add(Projections.property("reportId"))
+                .add(Projections.property("uuid"))
+                .add(Projections.property("radiologyOrder"))
+                .add(Projections.property("status"))
+                .add(Projections.property("date"))
+                .add(Projections.property("principalResultsInterpreter"))
+                .add(Projections.property("creator"))
+                .add(Projections.property("dateCreated"))
+                .add(Projections.property("changedBy"))
+                .add(Projections.property("dateChanged"))
+                .add(Projections.property("voided"))
+                .add(Projections.property("dateVoided"))
+                .add(Projections.property("voidedBy"))
+                .add(Projections.property("voidReason"));
+    }
+    
+    /**
+     * Build a radiology report without body from a row of {@link #createRadiologyReportWithoutBodyProjection()}.
+     * <p>
+     * The radiology report is not attached to the session and is meant to be read only, it must not be saved.
+     * </p>
+     * 
+     * @param row the row of projected radiology report properties
+     * @return the radiology report without body
+     */
+    private RadiologyReport toRadiologyReportWithoutBody(Object[] row) {
+        
+        final RadiologyReport radiologyReport = new RadiologyReport();
+        radiologyReport.setId((Integer) row[0]);
+        radiologyReport.setUuid((String) row[1]);
+        radiologyReport.setRadiologyOrder((RadiologyOrder) row[2]);
+        radiologyReport.setStatus((RadiologyReportStatus) row[3]);
+        radiologyReport.setDate((Date) row[4]);
+        radiologyReport.setPrincipalResultsInterpreter((Provider) row[5]);
+        radiologyReport.setCreator((User) row[6]);
+        radiologyReport.setDateCreated((Date) row[7]);
+        radiologyReport.setChangedBy((User) row[8]);
+        radiologyReport.setDateChanged((Date) row[9]);
+        radiologyReport.setVoided((Boolean) row[10]);
+        radiologyReport.setDateVoided((Date) row[11]);
+        radiologyReport.setVoidedBy((User) row[12]);
+        radiologyReport.setVoidReason((String) row[13]);
+        return radiologyReport;
     }
 }
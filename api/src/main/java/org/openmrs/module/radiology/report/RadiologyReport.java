@@ -34,11 +34,13 @@ public class RadiologyReport extends BaseOpenmrsData {
     
     private String body;
     
+    private Integer version;
+    
     /**
      * Creates a new instance of {@link RadiologyReport}.
      */
-    private RadiologyReport() {
-        // needed by hibernate to instantiate a bean
+    RadiologyReport() {
+        // needed by hibernate to instantiate a bean and by the dao to build reports without body
     }
     
     /**
@@ -192,4 +194,44 @@ public class RadiologyReport extends BaseOpenmrsData {
     public void setBody(String body) {
         this.body = body;
     }
+    
+    /**
+     * Get version of RadiologyReport used for optimistic locking.
+     * 
+     * @return version of RadiologyReport
+     */
+    public Integer getVersion() {
+        return version;
+    }
+    
+    /**
+     * Set version of RadiologyReport used for optimistic locking.
+     * 
+     * @param version version of RadiologyReport
+     */
+    private void setVersion(Integer version) {
+        this.version = version;
+    }
+    
+    /**
+     * Get the order id of the RadiologyOrder this RadiologyReport is the active report of. It is stored in a unique
+     * column so that the database rejects a second active RadiologyReport for the same RadiologyOrder.
+     * 
+     * @return the order id of the RadiologyOrder if this RadiologyReport is not voided, null otherwise
+     * @should return the order id of the radiology order if not voided
+     * @should return null if voided
+     */
+    Integer getActiveOrderId() {
+        return radiologyOrder == null || Boolean.TRUE.equals(getVoided()) ? null : radiologyOrder.getOrderId();
+    }
+    
+    /**
+     * Set the order id of the active RadiologyReport, which is ignored since it is derived from the RadiologyOrder and
+     * voided.
+     * 
+     * @param activeOrderId the order id loaded from the database
+     */
+    private void setActiveOrderId(Integer activeOrderId) {
+        // derived from radiologyOrder and voided
+    }
 }
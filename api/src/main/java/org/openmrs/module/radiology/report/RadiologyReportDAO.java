@@ -9,8 +9,12 @@
  */
 package org.openmrs.module.radiology.report;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
+import org.openmrs.api.APIException;
 import org.openmrs.module.radiology.order.RadiologyOrder;
 
 /**
@@ -27,6 +31,20 @@ interface RadiologyReportDAO {
      */
     RadiologyReport saveRadiologyReport(RadiologyReport radiologyReport);
     
+    /**
+     * Save a new {@code RadiologyReport} and write it to the database right away, so that the database rejects it if
+     * its {@code RadiologyOrder} already has a radiology report which is not voided, even if that report was claimed
+     * concurrently by another node.
+     * 
+     * @param radiologyReport the new radiology report to save
+     * @return the saved radiology report
+     * @throws APIException if the radiology order of given radiology report has a radiology report which is not voided
+     * @should save given radiology report
+     * @should save given radiology report if the other radiology reports of its radiology order are voided
+     * @should throw api exception if the radiology order of given radiology report already has an active report
+     */
+    RadiologyReport createRadiologyReport(RadiologyReport radiologyReport);
+    
     /**
      * @see org.openmrs.module.radiology.report.RadiologyReportService#getRadiologyReport(Integer)
      */
@@ -47,6 +65,19 @@ interface RadiologyReportDAO {
      */
     boolean hasRadiologyOrderCompletedRadiologyReport(RadiologyOrder radiologyOrder);
     
+    /**
+     * Get the status of the active (non-voided) {@code RadiologyReport} of given {@code RadiologyOrder} without loading
+     * the radiology report.
+     * 
+     * @param radiologyOrder the radiology order for which the active report status should be returned
+     * @return the status of the active radiology report of given radiology order or null if there is none
+     * @should return draft if given radiology order has a claimed radiology report
+     * @should return completed if given radiology order has a completed radiology report
+     * @should return null if given radiology order is only associated with a voided report
+     * @should return null if given radiology order has no radiology report
+     */
+    RadiologyReportStatus getActiveRadiologyReportStatusByRadiologyOrder(RadiologyOrder radiologyOrder);
+    
     /**
      * @see org.openmrs.module.radiology.report.RadiologyReportService#getActiveRadiologyReportByRadiologyOrder(RadiologyOrder)
      */
@@ -56,4 +87,73 @@ interface RadiologyReportDAO {
      * @see org.openmrs.module.radiology.report.RadiologyReportService#getRadiologyReports(RadiologyReportSearchCriteria)
      */
     List<RadiologyReport> getRadiologyReports(RadiologyReportSearchCriteria searchCriteria);
+    
+    /**
+     * @see org.openmrs.module.radiology.report.RadiologyReportService#getRadiologyReportsCount(RadiologyReportSearchCriteria)
+     */
+    Long getRadiologyReportsCount(RadiologyReportSearchCriteria searchCriteria);
+    
+    /**
+     * Get all {@code RadiologyReport's} matching given criteria whose report id is one of given report ids, in the order
+     * of {@link #getRadiologyReports(RadiologyReportSearchCriteria)}. Given report ids are the page to return, so the
+     * start index, limit and continuation of given criteria are ignored.
+     * 
+     * @param searchCriteria the search criteria
+     * @param reportIds the report ids to restrict the radiology reports to
+     * @return the radiology reports matching given criteria and report ids
+     * @should return the radiology reports matching given criteria and report ids
+     * @should ignore the start index limit and continuation of given criteria
+     */
+    List<RadiologyReport> getRadiologyReports(RadiologyReportSearchCriteria searchCriteria, Collection<Integer> reportIds);
+    
+    /**
+     * Get the number of {@code RadiologyReport's} matching given criteria whose report id is one of given report ids
+     * ignoring the start index and limit of given criteria.
+     * 
+     * @param searchCriteria the search criteria
+     * @param reportIds the report ids to restrict the radiology reports to
+     * @return the number of radiology reports matching given criteria and report ids
+     * @should return the number of radiology reports matching given criteria and report ids
+     */
+    Long getRadiologyReportsCount(RadiologyReportSearchCriteria searchCriteria, Collection<Integer> reportIds);
+    
+    /**
+     * Get the report date of a {@code RadiologyReport} as stored in the database, which may be less precise than the
+     * report date the radiology report was saved with depending on the column type.
+     * 
+     * @param reportId the report id of the radiology report
+     * @return the report date of the radiology report as stored in the database, null if there is no such radiology
+     *         report or it has no report date
+     * @should return the report date of the radiology report as stored in the database
+     */
+    Date getStoredRadiologyReportDate(Integer reportId);
+    
+    /**
+     * Hand the report id, report date and body of all completed non-voided {@code RadiologyReport's} ordered by report
+     * id to given consumer one at a time while they are read from the database, so that all reports are read in
+     * constant memory.
+     * 
+     * @param radiologyReportBodyConsumer the consumer receiving the report ids and bodies
+     * @return the number of radiology reports read
+     * @throws IOException if the consumer fails to consume a report body
+     * @should hand the report id and body of all completed radiology reports to given consumer
+     */
+    long getCompletedRadiologyReportBodies(RadiologyReportBodyConsumer radiologyReportBodyConsumer) throws IOException;
+    
+    /**
+     * Receives the report ids and bodies of {@link RadiologyReportDAO#getCompletedRadiologyReportBodies}.
+     */
+    interface RadiologyReportBodyConsumer {
+        
+        
+        /**
+         * Consume the body of a radiology report.
+         * 
+         * @param reportId the report id of the radiology report
+         * @param date the report date of the radiology report
+         * @param body the body of the radiology report
+         * @throws IOException if the body cannot be consumed
+         */
+        void accept(Integer reportId, Date date, String body) throws IOException;
+    }
 }
@@ -9,7 +9,10 @@
  */
 package org.openmrs.module.radiology.report;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.openmrs.Provider;
 
@@ -20,7 +23,9 @@ import org.openmrs.Provider;
  * <ol>
  * <li>Set the various search criteria parameters through the respective methods of the static builder class
  * ({@link Builder#fromDate(Date)}, {@link Builder#toDate(Date)}, {@link Builder#withPrincipalResultsInterpreter(Provider)}, 
- * {@link Builder#includeVoided()} and {@link Builder#withStatus(RadiologyReportStatus)}).</li>
+ * {@link Builder#includeVoided()}, {@link Builder#withStatus(RadiologyReportStatus)}, {@link Builder#withStartIndex(Integer)},
+ * {@link Builder#withLimit(Integer)}, {@link Builder#after(Date, Integer)}, {@link Builder#excludeBody()},
+ * {@link Builder#withQuery(String)} and {@link Builder#fetch(String...)}).</li>
  * <li>Build the {@link RadiolologyReportSearchCriteria} instance with the {@link Builder#build()} method.</li>
  * <li>Get the search parameters through the getter methods (such as {@link #getFromDate()} or {@link #getStatus()}).</li>
  * </ol>
@@ -38,6 +43,20 @@ public class RadiologyReportSearchCriteria {
     
     private final RadiologyReportStatus status;
     
+    private final Integer startIndex;
+    
+    private final Integer limit;
+    
+    private final Date afterDate;
+    
+    private final Integer afterReportId;
+    
+    private final Boolean excludeBody;
+    
+    private final String query;
+    
+    private final Set<String> fetchedAssociations;
+    
     /**
      * @return the minimum date (inclusive) the report date
      */
@@ -78,6 +97,64 @@ public class RadiologyReportSearchCriteria {
         return status;
     }
     
+    /**
+     * @return the index of the first radiology report to return, null to start with the first
+     */
+    public Integer getStartIndex() {
+        
+        return startIndex;
+    }
+    
+    /**
+     * @return the maximum number of radiology reports to return, null for no limit
+     */
+    public Integer getLimit() {
+        
+        return limit;
+    }
+    
+    /**
+     * @return the report date of the radiology report after which to continue, null if the continuation radiology
+     *         report has no report date
+     */
+    public Date getAfterDate() {
+        
+        return afterDate;
+    }
+    
+    /**
+     * @return the report id of the radiology report after which to continue, null to start with the first
+     */
+    public Integer getAfterReportId() {
+        
+        return afterReportId;
+    }
+    
+    /**
+     * @return the {@code Boolean} specifying whether or not to leave out the body of the radiology reports
+     */
+    public Boolean getExcludeBody() {
+        
+        return excludeBody;
+    }
+    
+    /**
+     * @return the words the body of the radiology reports must contain, null to not search the body
+     */
+    public String getQuery() {
+        
+        return query;
+    }
+    
+    /**
+     * @return the paths of the associations fetched together with the radiology reports, empty if associations are
+     *         loaded as mapped
+     */
+    public Set<String> getFetchedAssociations() {
+        
+        return fetchedAssociations;
+    }
+    
     public static class Builder {
         
         
@@ -91,6 +168,20 @@ public class RadiologyReportSearchCriteria {
         
         private RadiologyReportStatus status;
         
+        private Integer startIndex;
+        
+        private Integer limit;
+        
+        private Date afterDate;
+        
+        private Integer afterReportId;
+        
+        private Boolean excludeBody = false;
+        
+        private String query;
+        
+        private final Set<String> fetchedAssociations = new LinkedHashSet<>();
+        
         /**
          * @param fromDate the minimum date (inclusive) the report date
          * @return this builder instance
@@ -144,6 +235,80 @@ public class RadiologyReportSearchCriteria {
             return this;
         }
         
+        /**
+         * @param startIndex the index of the first radiology report to return
+         * @return this builder instance
+         */
+        public Builder withStartIndex(Integer startIndex) {
+            
+            this.startIndex = startIndex;
+            return this;
+        }
+        
+        /**
+         * @param limit the maximum number of radiology reports to return
+         * @return this builder instance
+         */
+        public Builder withLimit(Integer limit) {
+            
+            this.limit = limit;
+            return this;
+        }
+        
+        /**
+         * Continues after the radiology report with given report date and report id in the order of increasing report
+         * date and report id. Unlike the start index, the position is looked up with the index on these columns so every
+         * page costs the same.
+         * 
+         * @param date the report date of the last radiology report seen
+         * @param reportId the report id of the last radiology report seen
+         * @return this builder instance
+         */
+        public Builder after(Date date, Integer reportId) {
+            
+            this.afterDate = date;
+            this.afterReportId = reportId;
+            return this;
+        }
+        
+        /**
+         * Leaves out the body of the radiology reports, for list views which do not show it.
+         * 
+         * @return this builder instance
+         */
+        public Builder excludeBody() {
+            
+            this.excludeBody = true;
+            return this;
+        }
+        
+        /**
+         * Restricts the radiology reports to completed ones whose body contains all words of given query, either exactly
+         * or as the beginning of a longer word.
+         * 
+         * @param query the words to search the body of the radiology reports for
+         * @return this builder instance
+         */
+        public Builder withQuery(String query) {
+            
+            this.query = query;
+            return this;
+        }
+        
+        /**
+         * Fetches given associations of the radiology reports in the same query as the radiology reports, instead of
+         * loading them with one select per radiology report. Only single valued associations, like
+         * {@code radiologyOrder} or {@code principalResultsInterpreter.person}, can be fetched without breaking paging.
+         * 
+         * @param associationPaths the paths of the associations to fetch starting at the radiology report
+         * @return this builder instance
+         */
+        public Builder fetch(String... associationPaths) {
+            
+            Collections.addAll(this.fetchedAssociations, associationPaths);
+            return this;
+        }
+        
         /**
          * Create an {@link RadiologyReportSearchCriteria} with the properties of this builder instance.
          * 
@@ -152,6 +317,11 @@ public class RadiologyReportSearchCriteria {
          * @should create a new radiology report search criteria instance with principal results interpreter specified if principal results interpreter is set
          * @should create a new radiology report search criteria instance with include voided set to true if voided reports should be included
          * @should create a new radiology report search criteria instance with report status specified if status is set to claimed or completed
+         * @should create a new radiology report search criteria instance with start index and limit if start index and limit are set
+         * @should create a new radiology report search criteria instance with after date and report id if after is set
+         * @should create a new radiology report search criteria instance with exclude body set to true if body should be excluded
+         * @should create a new radiology report search criteria instance with fetched associations if fetch is set
+         * @should create a new radiology report search criteria instance with query if query is set
          */
         public RadiologyReportSearchCriteria build() {
             
@@ -166,5 +336,12 @@ public class RadiologyReportSearchCriteria {
         this.principalResultsInterpreter = builder.principalResultsInterpreter;
         this.includeVoided = builder.inludeVoided;
         this.status = builder.status;
+        this.startIndex = builder.startIndex;
+        this.limit = builder.limit;
+        this.afterDate = builder.afterDate;
+        this.afterReportId = builder.afterReportId;
+        this.excludeBody = builder.excludeBody;
+        this.query = builder.query;
+        this.fetchedAssociations = Collections.unmodifiableSet(new LinkedHashSet<>(builder.fetchedAssociations));
     }
 }
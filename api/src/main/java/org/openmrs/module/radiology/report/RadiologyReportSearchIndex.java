@@ -0,0 +1,1469 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jsoup.Jsoup;
+import org.openmrs.module.radiology.RadiologyProperties;
+import org.openmrs.module.radiology.util.Words;
+
+/**
+ * Full text index of the bodies of completed {@code RadiologyReport's} stored in the {@value #INDEX_DIRECTORY_NAME}
+ * directory of the report index home directory.
+ * <p>
+ * The body of a report is stripped of its HTML and split into lower case words, each mapping to the ids of the reports
+ * containing it. The index also keeps the report date of each report, so that it returns the reports matching a query
+ * a page at a time in the order of report date and report id, like the database orders radiology reports. Completed
+ * reports can neither be changed nor voided, so reports are only ever added to the index.
+ * </p>
+ * <p>
+ * A report added is appended to a journal which is forced to disk before {@link #add(Integer, Date, String)} returns,
+ * and kept in memory until {@value #FLUSH_THRESHOLD} reports were added. These are then written to a new segment file of
+ * the reports with their report date and the sorted words with their postings, and the journal is emptied. Segment
+ * files are written to a temporary file, forced to disk and renamed, and are never modified afterwards. The words of a
+ * segment are held in memory while its reports and postings are read by mapping the file into memory in chunks of 1 GB,
+ * so that a segment may grow beyond the 2 GB one mapped buffer can address. Segments fall into size tiers growing by a
+ * factor of {@value #MERGE_FACTOR}, and once a tier holds {@value #MERGE_FACTOR} segments they are merged into one
+ * segment of the next tier, so that each report is only rewritten a logarithmic number of times as the index grows.
+ * Reports in the journal are read back into memory when the index is opened, so no report added is lost by a crash, and
+ * since a report found twice is still one result a crash between writing a segment and emptying the journal does no
+ * harm either.
+ * </p>
+ * <p>
+ * Searches run concurrently with each other and with writes. Reports are journaled and segments are written and merged
+ * while searches go on, searches only wait for the short moments in which the reports held in memory or the list of
+ * segments change.
+ * </p>
+ * <p>
+ * The index is rebuilt from all completed reports in a temporary directory next to the index, which replaces the index
+ * directory by renaming once it holds all reports. Until then searches use the previous index, and a rebuild which
+ * fails or is interrupted by a crash leaves the previous index in place, or an empty index if the crash falls between
+ * renaming the previous and the rebuilt index directory. Reports added while the index is rebuilt are added to the
+ * rebuilt index as well.
+ * </p>
+ * <p>
+ * The index is opened from the report index home directory on first use and opened again if that directory changes.
+ * </p>
+ */
+class RadiologyReportSearchIndex {
+    
+    
+    private static final Log log = LogFactory.getLog(RadiologyReportSearchIndex.class);
+    
+    static final int FLUSH_THRESHOLD = 1000;
+    
+    static final int MERGE_FACTOR = 10;
+    
+    static final int SNIPPET_LENGTH = 200;
+    
+    private static final int SNIPPET_LEADING_LENGTH = 60;
+    
+    private static final String SNIPPET_ELLIPSIS = "...";
+    
+    static final String INDEX_DIRECTORY_NAME = "index";
+    
+    private static final String REBUILT_DIRECTORY_NAME = ".rebuilt";
+    
+    private static final String REPLACED_DIRECTORY_NAME = ".replaced";
+    
+    private static final String JOURNAL_FILE_NAME = "journal";
+    
+    private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("segment-(\\d{12})\\.seg");
+    
+    private static final String SEGMENT_FILE_NAME_FORMAT = "segment-%012d.seg";
+    
+    private static final String TEMPORARY_FILE_PREFIX = ".segment-";
+    
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    
+    private static final int SEGMENT_MAGIC = 0x52525349;
+    
+    private static final int SEGMENT_VERSION = 2;
+    
+    private static final int SEGMENT_HEADER_LENGTH = 8;
+    
+    private static final int SEGMENT_FOOTER_LENGTH = 12;
+    
+    private static final int SEGMENT_REPORT_LENGTH = 12;
+    
+    /**
+     * Size of the chunks a segment file is mapped into memory with, a multiple of 4 so that no int of the file spans
+     * two chunks.
+     */
+    private static final long MAPPED_CHUNK_SIZE = 1L << 30;
+    
+    private static final int JOURNAL_RECORD_HEADER_LENGTH = 16;
+    
+    private static final int JOURNAL_RECORD_CHECKSUM_LENGTH = 4;
+    
+    /**
+     * Report date of reports without report date, sorting them first like the database does.
+     */
+    private static final long NO_DATE = Long.MIN_VALUE;
+    
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    
+    /**
+     * Serializes the writers of the index, held while journaling reports and writing or merging segments.
+     */
+    private final Lock writerLock = new ReentrantLock();
+    
+    /**
+     * Serializes rebuilds of the index, held for a whole rebuild.
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    
+    /**
+     * Guards the reports held in memory and the list of segments, read locked by searches and write locked by writers
+     * while they change these.
+     */
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+    
+    private final List<Segment> segments = new ArrayList<>();
+    
+    private final TreeMap<String, SortedSet<Integer>> buffer = new TreeMap<>();
+    
+    private final Map<Integer, Long> bufferedDates = new HashMap<>();
+    
+    private RadiologyProperties radiologyProperties;
+    
+    /**
+     * The directory a rebuilt index is written to, null for the index in the report index home directory.
+     */
+    private final Path rebuiltDirectory;
+    
+    /**
+     * The directory of the open index, null if the index is not open.
+     */
+    private volatile Path directory;
+    
+    private FileChannel journal;
+    
+    private long nextGeneration;
+    
+    /**
+     * The reports added while the index is rebuilt, to be added to the rebuilt index as well. Null if the index is not
+     * rebuilt. Guarded by the writer lock.
+     */
+    private List<JournalRecord> addedWhileRebuilding;
+    
+    RadiologyReportSearchIndex() {
+        this(null);
+    }
+    
+    private RadiologyReportSearchIndex(Path rebuiltDirectory) {
+        this.rebuiltDirectory = rebuiltDirectory;
+    }
+    
+    public void setRadiologyProperties(RadiologyProperties radiologyProperties) {
+        this.radiologyProperties = radiologyProperties;
+    }
+    
+    /**
+     * Get the directory the index is stored in.
+     *
+     * @return the absolute path of the report index home directory
+     */
+    Path getHome() {
+        
+        return radiologyProperties.getReportIndexHome()
+                .toPath()
+                .toAbsolutePath()
+                .normalize();
+    }
+    
+    /**
+     * Get the directory the index files are stored in.
+     *
+     * @return the index directory of the report index home directory, or the directory a rebuilt index is written to
+     */
+    private Path getDirectory() {
+        
+        return rebuiltDirectory != null ? rebuiltDirectory : getHome().resolve(INDEX_DIRECTORY_NAME);
+    }
+    
+    /**
+     * Add the body of a completed report to the index, durably once this method returns.
+     *
+     * @param reportId the id of the completed report
+     * @param date the report date of the completed report as stored in the database
+     * @param body the html body of the completed report
+     * @throws IOException if the index cannot be read or written
+     * @throws IllegalArgumentException if given report id is null
+     * @should make the report searchable by the words of its body without html
+     * @should keep added reports after the index is opened again
+     * @should write a segment once the flush threshold is reached
+     * @should throw illegal argument exception if given report id is null
+     */
+    void add(Integer reportId, Date date, String body) throws IOException {
+        
+        if (reportId == null) {
+            throw new IllegalArgumentException("reportId cannot be null");
+        }
+        final JournalRecord record = new JournalRecord(reportId, toLong(date), Words.tokenize(toText(body)));
+        writerLock.lock();
+        try {
+            open();
+            journal(record);
+            if (addedWhileRebuilding != null) {
+                addedWhileRebuilding.add(record);
+            }
+        }
+        finally {
+            writerLock.unlock();
+        }
+    }
+    
+    /**
+     * Add the body of a completed report to the index without journaling it, as when building the index from the
+     * database. The report is only durable once {@link #flush()} returned.
+     *
+     * @param reportId the id of the completed report
+     * @param date the report date of the completed report as stored in the database
+     * @param body the html body of the completed report
+     * @throws IOException if the index cannot be read or written
+     * @throws IllegalArgumentException if given report id is null
+     * @should make the report searchable once flushed
+     * @should throw illegal argument exception if given report id is null
+     */
+    void addWithoutJournal(Integer reportId, Date date, String body) throws IOException {
+        
+        if (reportId == null) {
+            throw new IllegalArgumentException("reportId cannot be null");
+        }
+        final Set<String> words = Words.tokenize(toText(body));
+        writerLock.lock();
+        try {
+            open();
+            buffer(reportId, toLong(date), words);
+            if (bufferedDates.size() >= FLUSH_THRESHOLD) {
+                flushBuffer();
+            }
+        }
+        finally {
+            writerLock.unlock();
+        }
+    }
+    
+    /**
+     * Write the reports held in memory to a new segment and empty the journal, merging segments of similar size if
+     * there are {@value #MERGE_FACTOR} of them.
+     *
+     * @throws IOException if the index cannot be read or written
+     * @should merge the segments of a size tier once it holds the merge factor of segments
+     * @should not merge segments of different size tiers
+     */
+    void flush() throws IOException {
+        
+        writerLock.lock();
+        try {
+            open();
+            flushBuffer();
+        }
+        finally {
+            writerLock.unlock();
+        }
+    }
+    
+    /**
+     * Replace the reports of the index with the reports handed over by given source. The reports are written to a
+     * temporary directory which replaces the index directory once the source handed over all reports, so that searches
+     * use the previous index meanwhile and a rebuild which fails leaves the previous index in place. Reports added
+     * while the index is rebuilt are added to the rebuilt index as well.
+     *
+     * @param reportSource hands over the reports to index
+     * @return the number of reports handed over by given source
+     * @throws IOException if the source fails or the rebuilt index cannot be written
+     * @should replace the reports of the index with the reports of given source
+     * @should keep the previous index until all reports of given source are added
+     * @should keep the previous index if given source fails
+     * @should add reports added while rebuilding to the rebuilt index
+     */
+    long rebuild(ReportSource reportSource) throws IOException {
+        
+        rebuildLock.lock();
+        try {
+            final Path home = getHome();
+            deleteLeftovers(home);
+            final Path rebuilt = Files.createDirectory(home.resolve(REBUILT_DIRECTORY_NAME));
+            writerLock.lock();
+            try {
+                addedWhileRebuilding = new ArrayList<>();
+            }
+            finally {
+                writerLock.unlock();
+            }
+            try {
+                final RadiologyReportSearchIndex rebuiltIndex = new RadiologyReportSearchIndex(rebuilt);
+                final long result;
+                try {
+                    result = reportSource.getReports(rebuiltIndex::addWithoutJournal);
+                    rebuiltIndex.flush();
+                }
+                finally {
+                    rebuiltIndex.close();
+                }
+                writerLock.lock();
+                try {
+                    closeFiles();
+                    final Path current = home.resolve(INDEX_DIRECTORY_NAME);
+                    final Path replaced = home.resolve(REPLACED_DIRECTORY_NAME);
+                    final boolean replacing = Files.exists(current);
+                    if (replacing) {
+                        Files.move(current, replaced, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                    // a crash right here leaves an empty index, which the module rebuilds when it is started next
+                    try {
+                        Files.move(rebuilt, current, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                    catch (IOException e) {
+                        if (replacing) {
+                            Files.move(replaced, current, StandardCopyOption.ATOMIC_MOVE);
+                        }
+                        throw e;
+                    }
+                    open();
+                    for (JournalRecord record : addedWhileRebuilding) {
+                        journal(record);
+                    }
+                }
+                finally {
+                    writerLock.unlock();
+                }
+                return result;
+            }
+            finally {
+                writerLock.lock();
+                try {
+                    addedWhileRebuilding = null;
+                }
+                finally {
+                    writerLock.unlock();
+                }
+                deleteLeftovers(home);
+            }
+        }
+        finally {
+            rebuildLock.unlock();
+        }
+    }
+    
+    /**
+     * Get a page of the reports whose body contains all words of given query, either exactly or as the beginning of a
+     * longer word, in the order of report date (reports without report date first) and report id.
+     *
+     * @param query the words to search for
+     * @param fromDate the minimum report date (inclusive), null for no minimum
+     * @param toDate the maximum report date (inclusive), null for no maximum
+     * @param after the hit after which to continue, null to start with the first
+     * @param limit the maximum number of hits to return
+     * @return at most limit hits after given hit in the order of report date and report id
+     * @throws IOException if the index cannot be read
+     * @throws IllegalArgumentException if given query is null or limit is not positive
+     * @should return the reports containing all words of given query
+     * @should return the reports containing words starting with the words of given query
+     * @should return the reports of all segments and the journal
+     * @should return the reports in the order of report date and report id
+     * @should return the reports with report date between given from and to date
+     * @should return at most limit reports after given hit
+     * @should return an empty list if given query contains no words
+     * @should throw illegal argument exception if given null
+     * @should throw illegal argument exception if given limit is not positive
+     */
+    List<SearchHit> search(String query, Date fromDate, Date toDate, SearchHit after, int limit) throws IOException {
+        
+        if (query == null) {
+            throw new IllegalArgumentException("query cannot be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        final TreeSet<SearchHit> page = new TreeSet<>();
+        collect(query, fromDate, toDate, (reportId, date) -> {
+            final SearchHit hit = new SearchHit(reportId, date);
+            if ((after == null || hit.compareTo(after) > 0)
+                    && (page.size() < limit || hit.compareTo(page.last()) < 0) && page.add(hit)
+                    && page.size() > limit) {
+                page.pollLast();
+            }
+        });
+        return new ArrayList<>(page);
+    }
+    
+    /**
+     * Get the number of reports whose body contains all words of given query, either exactly or as the beginning of a
+     * longer word.
+     *
+     * @param query the words to search for
+     * @param fromDate the minimum report date (inclusive), null for no minimum
+     * @param toDate the maximum report date (inclusive), null for no maximum
+     * @return the number of matching reports
+     * @throws IOException if the index cannot be read
+     * @throws IllegalArgumentException if given query is null
+     * @should return the number of reports containing all words of given query
+     * @should count a report found in a segment and the journal once
+     * @should throw illegal argument exception if given null
+     */
+    long count(String query, Date fromDate, Date toDate) throws IOException {
+        
+        if (query == null) {
+            throw new IllegalArgumentException("query cannot be null");
+        }
+        final BitSet counted = new BitSet();
+        collect(query, fromDate, toDate, (reportId, date) -> counted.set(reportId));
+        return counted.cardinality();
+    }
+    
+    /**
+     * @return true if no report was added to the index
+     * @throws IOException if the index cannot be read
+     */
+    boolean isEmpty() throws IOException {
+        
+        openIfHomeChanged();
+        stateLock.readLock()
+                .lock();
+        try {
+            return segments.isEmpty() && bufferedDates.isEmpty();
+        }
+        finally {
+            stateLock.readLock()
+                    .unlock();
+        }
+    }
+    
+    /**
+     * @return the number of segment files of the index
+     * @throws IOException if the index cannot be read
+     */
+    int getSegmentCount() throws IOException {
+        
+        openIfHomeChanged();
+        stateLock.readLock()
+                .lock();
+        try {
+            return segments.size();
+        }
+        finally {
+            stateLock.readLock()
+                    .unlock();
+        }
+    }
+    
+    /**
+     * Remove all reports from the index deleting its files.
+     *
+     * @throws IOException if the files of the index cannot be deleted
+     * @should remove all reports and delete the files of the index
+     */
+    void clear() throws IOException {
+        
+        writerLock.lock();
+        try {
+            final Path current = getDirectory();
+            closeFiles();
+            if (Files.isDirectory(current)) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(current)) {
+                    for (Path file : files) {
+                        if (isIndexFile(file)) {
+                            Files.delete(file);
+                        }
+                    }
+                }
+            }
+        }
+        finally {
+            writerLock.unlock();
+        }
+    }
+    
+    /**
+     * Close the files of the index discarding reports held in memory which were not journaled. The index is opened
+     * again on next use.
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    void close() throws IOException {
+        
+        writerLock.lock();
+        try {
+            closeFiles();
+        }
+        finally {
+            writerLock.unlock();
+        }
+    }
+    
+    /**
+     * Get an excerpt of given html body around the first word matching a word of given query.
+     *
+     * @param body the html body of a report
+     * @param query the words searched for
+     * @return at most {@value #SNIPPET_LENGTH} characters of the text of given body, marked with an ellipsis where text
+     *         was left out, or the beginning of the text if no word matches
+     * @should return the text around the first word matching the query
+     * @should return the beginning of the text if no word matches the query
+     * @should return the whole text if it is short
+     */
+    static String getSnippet(String body, String query) {
+        
+        final String text = toText(body);
+        if (text.length() <= SNIPPET_LENGTH) {
+            return text;
+        }
+        final Set<String> queryWords = Words.tokenize(query);
+        int matchStart = -1;
+        final Matcher word = WORD.matcher(text);
+        while (matchStart < 0 && word.find()) {
+            final String candidate = word.group()
+                    .toLowerCase(Locale.ROOT);
+            for (String queryWord : queryWords) {
+                if (candidate.startsWith(queryWord)) {
+                    matchStart = word.start();
+                    break;
+                }
+            }
+        }
+        int start = 0;
+        if (matchStart > SNIPPET_LEADING_LENGTH) {
+            start = matchStart - SNIPPET_LEADING_LENGTH;
+            final int space = text.indexOf(' ', start);
+            start = space < 0 || space >= matchStart ? start : space + 1;
+        }
+        int end = Math.min(text.length(), start + SNIPPET_LENGTH - 2 * SNIPPET_ELLIPSIS.length());
+        if (end < text.length()) {
+            final int space = text.lastIndexOf(' ', end);
+            end = space > Math.max(start, matchStart) ? space : end;
+        }
+        return (start > 0 ? SNIPPET_ELLIPSIS : "") + text.substring(start, end)
+                .trim() + (end < text.length() ? SNIPPET_ELLIPSIS : "");
+    }
+    
+    /**
+     * Get the text of given html body.
+     *
+     * @param body the html body of a report
+     * @return the text of given body with whitespace normalized, an empty string if given null
+     */
+    static String toText(String body) {
+        
+        return body == null ? "" : Jsoup.parse(body)
+                .text();
+    }
+    
+    /**
+     * Hand the reports whose body contains all words of given query and whose report date is within given dates to
+     * given consumer, while holding the read lock so that writers cannot change the index meanwhile. A report may be
+     * handed over more than once.
+     *
+     * @param query the words to search for
+     * @param fromDate the minimum report date (inclusive), null for no minimum
+     * @param toDate the maximum report date (inclusive), null for no maximum
+     * @param consumer the consumer of the matching reports
+     * @throws IOException if the index cannot be opened
+     */
+    private void collect(String query, Date fromDate, Date toDate, HitConsumer consumer) throws IOException {
+        
+        final Set<String> queryWords = Words.tokenize(query);
+        if (queryWords.isEmpty()) {
+            return;
+        }
+        final HitConsumer withinDates = (reportId, date) -> {
+            if ((fromDate == null || (date != NO_DATE && date >= fromDate.getTime()))
+                    && (toDate == null || (date != NO_DATE && date <= toDate.getTime()))) {
+                consumer.accept(reportId, date);
+            }
+        };
+        openIfHomeChanged();
+        stateLock.readLock()
+                .lock();
+        try {
+            // all words of a report are in the same segment or in memory, so the words are matched within each
+            final BitSet buffered = match(queryWords, (queryWord, matches) -> {
+                for (SortedSet<Integer> reportIds : buffer.subMap(queryWord, true, queryWord + Character.MAX_VALUE, true)
+                        .values()) {
+                    for (Integer reportId : reportIds) {
+                        matches.set(reportId);
+                    }
+                }
+            });
+            for (int reportId = buffered.nextSetBit(0); reportId >= 0; reportId = buffered.nextSetBit(reportId + 1)) {
+                withinDates.accept(reportId, bufferedDates.get(reportId));
+            }
+            for (Segment segment : segments) {
+                segment.collect(match(queryWords, segment::addPostings), withinDates);
+            }
+        }
+        finally {
+            stateLock.readLock()
+                    .unlock();
+        }
+    }
+    
+    /**
+     * Get the reports containing all given words.
+     *
+     * @param queryWords the words to search for
+     * @param postings adds the reports containing words starting with a word to given set
+     * @return the reports containing words starting with each of given words
+     */
+    private static BitSet match(Set<String> queryWords, PostingsReader postings) {
+        
+        BitSet result = null;
+        for (String queryWord : queryWords) {
+            final BitSet matches = new BitSet();
+            postings.addPostings(queryWord, matches);
+            if (result == null) {
+                result = matches;
+            } else {
+                result.and(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+    
+    private void openIfHomeChanged() throws IOException {
+        
+        if (!getDirectory().equals(directory)) {
+            writerLock.lock();
+            try {
+                open();
+            }
+            finally {
+                writerLock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Open the index in its directory unless it is open already, loading its segments and reading back the reports in
+     * its journal. Called holding the writer lock.
+     *
+     * @throws IOException if the index cannot be read
+     */
+    private void open() throws IOException {
+        
+        final Path current = getDirectory();
+        if (current.equals(directory)) {
+            return;
+        }
+        closeFiles();
+        if (rebuiltDirectory == null && !rebuildLock.isHeldByCurrentThread() && rebuildLock.tryLock()) {
+            try {
+                deleteLeftovers(current.getParent());
+            }
+            finally {
+                rebuildLock.unlock();
+            }
+        }
+        stateLock.writeLock()
+                .lock();
+        try {
+            Files.createDirectories(current);
+            final TreeMap<Long, Path> segmentFiles = new TreeMap<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(current)) {
+                for (Path file : files) {
+                    final Matcher segmentFileName = SEGMENT_FILE_NAME.matcher(file.getFileName()
+                            .toString());
+                    if (segmentFileName.matches()) {
+                        segmentFiles.put(Long.valueOf(segmentFileName.group(1)), file);
+                    } else if (isTemporaryFile(file)) {
+                        Files.delete(file);
+                    }
+                }
+            }
+            for (Path segmentFile : segmentFiles.values()) {
+                segments.add(Segment.open(segmentFile));
+            }
+            nextGeneration = segmentFiles.isEmpty() ? 1 : segmentFiles.lastKey() + 1;
+            journal = FileChannel.open(current.resolve(JOURNAL_FILE_NAME), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            replayJournal();
+            directory = current;
+        }
+        catch (IOException | RuntimeException e) {
+            closeFiles();
+            throw e;
+        }
+        finally {
+            stateLock.writeLock()
+                    .unlock();
+        }
+    }
+    
+    /**
+     * Forget the segments and reports held in memory and close the journal. Called holding the writer lock.
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    private void closeFiles() throws IOException {
+        
+        stateLock.writeLock()
+                .lock();
+        try {
+            segments.clear();
+            buffer.clear();
+            bufferedDates.clear();
+            directory = null;
+            if (journal != null) {
+                try {
+                    journal.close();
+                }
+                finally {
+                    journal = null;
+                }
+            }
+        }
+        finally {
+            stateLock.writeLock()
+                    .unlock();
+        }
+    }
+    
+    /**
+     * Read the reports of the journal back into memory. A record which was only partly written when the application
+     * stopped is cut off, so that the next record is appended right after the last complete one.
+     *
+     * @throws IOException if the journal cannot be read or truncated
+     */
+    private void replayJournal() throws IOException {
+        
+        final ByteBuffer records = ByteBuffer.allocate((int) journal.size());
+        while (records.hasRemaining() && journal.read(records, records.position()) >= 0) {
+            // read until the buffer is full
+        }
+        records.flip();
+        int complete = 0;
+        while (records.remaining() >= JOURNAL_RECORD_HEADER_LENGTH + JOURNAL_RECORD_CHECKSUM_LENGTH) {
+            final int reportId = records.getInt();
+            final long date = records.getLong();
+            final int length = records.getInt();
+            if (length < 0 || records.remaining() < length + JOURNAL_RECORD_CHECKSUM_LENGTH) {
+                break;
+            }
+            final byte[] encodedWords = new byte[length];
+            records.get(encodedWords);
+            if (records.getInt() != checksum(records.array(), complete, JOURNAL_RECORD_HEADER_LENGTH + length)) {
+                break;
+            }
+            final String words = new String(encodedWords, StandardCharsets.UTF_8);
+            buffer(reportId, date, words.isEmpty() ? Collections.<String> emptySet()
+                    : new TreeSet<>(Arrays.asList(words.split(" "))));
+            complete = records.position();
+        }
+        if (complete < journal.size()) {
+            log.warn("Cutting off incomplete record at the end of the radiology report search index journal");
+            journal.truncate(complete);
+        }
+        journal.position(complete);
+    }
+    
+    /**
+     * Append given record to the journal, forcing it to disk, and hold its report in memory. Called holding the writer
+     * lock.
+     *
+     * @param record the record of the report to add
+     * @throws IOException if the journal cannot be written or a segment cannot be written
+     */
+    private void journal(JournalRecord record) throws IOException {
+        
+        final ByteBuffer bytes = record.toByteBuffer();
+        while (bytes.hasRemaining()) {
+            journal.write(bytes);
+        }
+        journal.force(false);
+        buffer(record.reportId, record.date, record.words);
+        if (bufferedDates.size() >= FLUSH_THRESHOLD) {
+            flushBuffer();
+        }
+    }
+    
+    /**
+     * Hold the words of a report in memory until they are written to a segment. Called holding the writer lock.
+     *
+     * @param reportId the id of the report
+     * @param date the report date of the report
+     * @param words the words of the body of the report
+     */
+    private void buffer(Integer reportId, long date, Set<String> words) {
+        
+        stateLock.writeLock()
+                .lock();
+        try {
+            for (String word : words) {
+                buffer.computeIfAbsent(word, key -> new TreeSet<>())
+                        .add(reportId);
+            }
+            bufferedDates.put(reportId, date);
+        }
+        finally {
+            stateLock.writeLock()
+                    .unlock();
+        }
+    }
+    
+    /**
+     * Write the reports held in memory to a new segment, empty the journal and merge full size tiers. Only writers
+     * change the reports held in memory, so they are read without the read lock. Called holding the writer lock.
+     *
+     * @throws IOException if the segment cannot be written or the journal cannot be emptied
+     */
+    private void flushBuffer() throws IOException {
+        
+        if (bufferedDates.isEmpty()) {
+            return;
+        }
+        final Segment segment;
+        final SegmentWriter segmentWriter = new SegmentWriter(directory);
+        try {
+            for (Map.Entry<Integer, Long> report : new TreeMap<>(bufferedDates).entrySet()) {
+                segmentWriter.addReport(report.getKey(), report.getValue());
+            }
+            for (Map.Entry<String, SortedSet<Integer>> posting : buffer.entrySet()) {
+                segmentWriter.addPostings(posting.getKey(), posting.getValue()
+                        .stream()
+                        .mapToInt(Integer::intValue)
+                        .toArray());
+            }
+            segment = Segment.open(segmentWriter.finish(nextSegmentPath()));
+        }
+        finally {
+            segmentWriter.discard();
+        }
+        stateLock.writeLock()
+                .lock();
+        try {
+            segments.add(segment);
+            buffer.clear();
+            bufferedDates.clear();
+        }
+        finally {
+            stateLock.writeLock()
+                    .unlock();
+        }
+        journal.truncate(0);
+        journal.force(true);
+        
+        List<Segment> fullTier;
+        while ((fullTier = getFullTier()) != null) {
+            merge(fullTier);
+        }
+    }
+    
+    /**
+     * Get {@value #MERGE_FACTOR} segments of the same size tier, a segment of n reports being in tier
+     * floor(log(n) / log({@value #MERGE_FACTOR})).
+     *
+     * @return the segments of the first tier holding {@value #MERGE_FACTOR} segments, null if there is none
+     */
+    private List<Segment> getFullTier() {
+        
+        final Map<Integer, List<Segment>> tiers = new TreeMap<>();
+        for (Segment segment : segments) {
+            int tier = 0;
+            for (long size = MERGE_FACTOR; size <= segment.reportCount; size *= MERGE_FACTOR) {
+                tier++;
+            }
+            final List<Segment> sameTier = tiers.computeIfAbsent(tier, key -> new ArrayList<>());
+            sameTier.add(segment);
+            if (sameTier.size() == MERGE_FACTOR) {
+                return sameTier;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Merge given segments into one new segment and delete the merged segment files. Searches go on while the new
+     * segment is written. Called holding the writer lock.
+     *
+     * @param mergedSegments the segments to merge
+     * @throws IOException if a segment cannot be read or the merged segment cannot be written
+     */
+    private void merge(List<Segment> mergedSegments) throws IOException {
+        
+        final Segment merged;
+        final SegmentWriter segmentWriter = new SegmentWriter(directory);
+        try {
+            final int[] reportIndexes = new int[mergedSegments.size()];
+            while (true) {
+                int reportId = Integer.MAX_VALUE;
+                long date = NO_DATE;
+                boolean found = false;
+                for (int i = 0; i < reportIndexes.length; i++) {
+                    final Segment segment = mergedSegments.get(i);
+                    if (reportIndexes[i] < segment.reportCount
+                            && (!found || segment.getReportId(reportIndexes[i]) < reportId)) {
+                        reportId = segment.getReportId(reportIndexes[i]);
+                        date = segment.getDate(reportIndexes[i]);
+                        found = true;
+                    }
+                }
+                if (!found) {
+                    break;
+                }
+                segmentWriter.addReport(reportId, date);
+                for (int i = 0; i < reportIndexes.length; i++) {
+                    if (reportIndexes[i] < mergedSegments.get(i).reportCount
+                            && mergedSegments.get(i)
+                                    .getReportId(reportIndexes[i]) == reportId) {
+                        reportIndexes[i]++;
+                    }
+                }
+            }
+            
+            final PriorityQueue<SegmentCursor> cursors = new PriorityQueue<>();
+            for (Segment segment : mergedSegments) {
+                if (segment.terms.length > 0) {
+                    cursors.add(new SegmentCursor(segment));
+                }
+            }
+            while (!cursors.isEmpty()) {
+                final SegmentCursor first = cursors.poll();
+                final String term = first.getTerm();
+                int[] postings = first.getPostings();
+                advance(first, cursors);
+                while (!cursors.isEmpty() && cursors.peek()
+                        .getTerm()
+                        .equals(term)) {
+                    final SegmentCursor next = cursors.poll();
+                    postings = union(postings, next.getPostings());
+                    advance(next, cursors);
+                }
+                segmentWriter.addPostings(term, postings);
+            }
+            merged = Segment.open(segmentWriter.finish(nextSegmentPath()));
+        }
+        finally {
+            segmentWriter.discard();
+        }
+        stateLock.writeLock()
+                .lock();
+        try {
+            segments.removeAll(mergedSegments);
+            segments.add(merged);
+        }
+        finally {
+            stateLock.writeLock()
+                    .unlock();
+        }
+        for (Segment segment : mergedSegments) {
+            try {
+                Files.delete(segment.path);
+            }
+            catch (IOException e) {
+                // a segment left behind holds reports of the merged segment, which are found once either way
+                log.warn("Failed to delete merged radiology report search index segment " + segment.path, e);
+            }
+        }
+    }
+    
+    private static void advance(SegmentCursor cursor, PriorityQueue<SegmentCursor> cursors) {
+        
+        if (cursor.next()) {
+            cursors.add(cursor);
+        }
+    }
+    
+    private Path nextSegmentPath() {
+        
+        return directory.resolve(String.format(SEGMENT_FILE_NAME_FORMAT, nextGeneration++));
+    }
+    
+    /**
+     * Delete the directories a rebuild left behind in given report index home directory, the index it replaced or the
+     * index it did not finish. Called holding the rebuild lock.
+     *
+     * @param home the report index home directory
+     */
+    private static void deleteLeftovers(Path home) {
+        
+        for (String leftover : Arrays.asList(REBUILT_DIRECTORY_NAME, REPLACED_DIRECTORY_NAME)) {
+            final Path leftoverDirectory = home.resolve(leftover);
+            if (Files.isDirectory(leftoverDirectory)) {
+                try {
+                    try (DirectoryStream<Path> files = Files.newDirectoryStream(leftoverDirectory)) {
+                        for (Path file : files) {
+                            Files.delete(file);
+                        }
+                    }
+                    Files.delete(leftoverDirectory);
+                }
+                catch (IOException e) {
+                    // the next rebuild or opening of the index tries again
+                    log.warn("Failed to delete radiology report search index directory " + leftoverDirectory, e);
+                }
+            }
+        }
+    }
+    
+    private static boolean isIndexFile(Path file) {
+        
+        final String fileName = file.getFileName()
+                .toString();
+        return fileName.equals(JOURNAL_FILE_NAME) || SEGMENT_FILE_NAME.matcher(fileName)
+                .matches() || isTemporaryFile(file);
+    }
+    
+    private static boolean isTemporaryFile(Path file) {
+        
+        final String fileName = file.getFileName()
+                .toString();
+        return fileName.startsWith(TEMPORARY_FILE_PREFIX) && fileName.endsWith(TEMPORARY_FILE_SUFFIX);
+    }
+    
+    private static long toLong(Date date) {
+        
+        return date == null ? NO_DATE : date.getTime();
+    }
+    
+    private static int checksum(byte[] bytes, int offset, int length) {
+        
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * Merge two ascending arrays of report ids into one without duplicates.
+     */
+    private static int[] union(int[] left, int[] right) {
+        
+        final int[] result = new int[left.length + right.length];
+        int l = 0;
+        int r = 0;
+        int size = 0;
+        while (l < left.length || r < right.length) {
+            final int next;
+            if (r == right.length || (l < left.length && left[l] < right[r])) {
+                next = left[l++];
+            } else if (l == left.length || right[r] < left[l]) {
+                next = right[r++];
+            } else {
+                next = left[l++];
+                r++;
+            }
+            result[size++] = next;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+    
+    /**
+     * A report matching a query, ordered by report date (reports without report date first) and report id.
+     */
+    static final class SearchHit implements Comparable<SearchHit> {
+        
+        
+        private final int reportId;
+        
+        private final long date;
+        
+        /**
+         * @param reportId the id of the report
+         * @param date the report date of the report, null if the report has no report date
+         */
+        SearchHit(Integer reportId, Date date) {
+            this(reportId.intValue(), toLong(date));
+        }
+        
+        private SearchHit(int reportId, long date) {
+            this.reportId = reportId;
+            this.date = date;
+        }
+        
+        Integer getReportId() {
+            return reportId;
+        }
+        
+        Date getDate() {
+            return date == NO_DATE ? null : new Date(date);
+        }
+        
+        @Override
+        public int compareTo(SearchHit other) {
+            
+            final int byDate = Long.compare(date, other.date);
+            return byDate != 0 ? byDate : Integer.compare(reportId, other.reportId);
+        }
+    }
+    
+    /**
+     * Hands the reports to rebuild the index from to a consumer.
+     */
+    interface ReportSource {
+        
+        
+        /**
+         * Hand all reports to index to given consumer.
+         *
+         * @param consumer the consumer receiving the report id, report date and body of each report
+         * @return the number of reports handed over
+         * @throws IOException if the reports cannot be read or consumed
+         */
+        long getReports(RadiologyReportDAO.RadiologyReportBodyConsumer consumer) throws IOException;
+    }
+    
+    /**
+     * A report added to the index, as appended to the journal.
+     */
+    private static final class JournalRecord {
+        
+        
+        private final int reportId;
+        
+        private final long date;
+        
+        private final Set<String> words;
+        
+        JournalRecord(int reportId, long date, Set<String> words) {
+            this.reportId = reportId;
+            this.date = date;
+            this.words = words;
+        }
+        
+        /**
+         * @return the report id, report date, length and bytes of the space separated words followed by a checksum
+         */
+        ByteBuffer toByteBuffer() {
+            
+            final byte[] encodedWords = String.join(" ", words)
+                    .getBytes(StandardCharsets.UTF_8);
+            final ByteBuffer result = ByteBuffer
+                    .allocate(JOURNAL_RECORD_HEADER_LENGTH + encodedWords.length + JOURNAL_RECORD_CHECKSUM_LENGTH);
+            result.putInt(reportId)
+                    .putLong(date)
+                    .putInt(encodedWords.length)
+                    .put(encodedWords)
+                    .putInt(checksum(result.array(), 0, JOURNAL_RECORD_HEADER_LENGTH + encodedWords.length));
+            result.flip();
+            return result;
+        }
+    }
+    
+    /**
+     * Receives the reports matching a query.
+     */
+    private interface HitConsumer {
+        
+        
+        void accept(int reportId, long date);
+    }
+    
+    /**
+     * Adds the reports containing words starting with given prefix to given set.
+     */
+    private interface PostingsReader {
+        
+        
+        void addPostings(String prefix, BitSet reportIds);
+    }
+    
+    /**
+     * Immutable segment file: a header, the ascending report ids each with the high and low int of its report date,
+     * the ascending report ids of each word, and the dictionary of the sorted words with the offset and number of their
+     * report ids, followed by the number of reports and the offset of the dictionary.
+     */
+    private static final class Segment {
+        
+        
+        private final Path path;
+        
+        private final ByteBuffer[] chunks;
+        
+        private final int reportCount;
+        
+        private final String[] terms;
+        
+        private final long[] offsets;
+        
+        private final int[] counts;
+        
+        private Segment(Path path, ByteBuffer[] chunks, int reportCount, String[] terms, long[] offsets, int[] counts) {
+            this.path = path;
+            this.chunks = chunks;
+            this.reportCount = reportCount;
+            this.terms = terms;
+            this.offsets = offsets;
+            this.counts = counts;
+        }
+        
+        static Segment open(Path path) throws IOException {
+            
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                final long size = channel.size();
+                final ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_LENGTH);
+                final ByteBuffer footer = ByteBuffer.allocate(SEGMENT_FOOTER_LENGTH);
+                if (size < SEGMENT_HEADER_LENGTH + SEGMENT_FOOTER_LENGTH || !readFully(channel, header, 0)
+                        || header.getInt(0) != SEGMENT_MAGIC || header.getInt(4) != SEGMENT_VERSION
+                        || !readFully(channel, footer, size - SEGMENT_FOOTER_LENGTH)) {
+                    throw new IOException("Not a radiology report search index segment: " + path);
+                }
+                final int reportCount = footer.getInt(0);
+                final long dictionaryOffset = footer.getLong(4);
+                
+                final ByteBuffer[] chunks = new ByteBuffer[(int) ((size + MAPPED_CHUNK_SIZE - 1) / MAPPED_CHUNK_SIZE)];
+                for (int i = 0; i < chunks.length; i++) {
+                    final long position = i * MAPPED_CHUNK_SIZE;
+                    final long length = Math.min(MAPPED_CHUNK_SIZE, size - position);
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                }
+                
+                channel.position(dictionaryOffset);
+                final DataInputStream dictionary =
+                        new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+                final int termCount = dictionary.readInt();
+                final String[] terms = new String[termCount];
+                final long[] offsets = new long[termCount];
+                final int[] counts = new int[termCount];
+                for (int i = 0; i < termCount; i++) {
+                    final byte[] term = new byte[dictionary.readInt()];
+                    dictionary.readFully(term);
+                    terms[i] = new String(term, StandardCharsets.UTF_8);
+                    offsets[i] = dictionary.readLong();
+                    counts[i] = dictionary.readInt();
+                }
+                return new Segment(path, chunks, reportCount, terms, offsets, counts);
+            }
+            catch (EOFException e) {
+                throw new IOException("Truncated radiology report search index segment: " + path, e);
+            }
+        }
+        
+        private static boolean readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+            
+            while (target.hasRemaining()) {
+                if (channel.read(target, position + target.position()) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private int getInt(long position) {
+            return chunks[(int) (position / MAPPED_CHUNK_SIZE)].getInt((int) (position % MAPPED_CHUNK_SIZE));
+        }
+        
+        int getReportId(int reportIndex) {
+            return getInt(SEGMENT_HEADER_LENGTH + (long) reportIndex * SEGMENT_REPORT_LENGTH);
+        }
+        
+        long getDate(int reportIndex) {
+            
+            final long position = SEGMENT_HEADER_LENGTH + (long) reportIndex * SEGMENT_REPORT_LENGTH;
+            return ((long) getInt(position + 4) << 32) | (getInt(position + 8) & 0xFFFFFFFFL);
+        }
+        
+        int[] getPostings(int termIndex) {
+            
+            final int[] result = new int[counts[termIndex]];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = getInt(offsets[termIndex] + 4L * i);
+            }
+            return result;
+        }
+        
+        void addPostings(String prefix, BitSet reportIds) {
+            
+            final int found = Arrays.binarySearch(terms, prefix);
+            for (int i = found < 0 ? -found - 1 : found; i < terms.length && terms[i].startsWith(prefix); i++) {
+                for (int reportId : getPostings(i)) {
+                    reportIds.set(reportId);
+                }
+            }
+        }
+        
+        /**
+         * Hand given reports of this segment with their report date to given consumer.
+         *
+         * @param reportIds the reports of this segment
+         * @param consumer the consumer of the reports
+         */
+        void collect(BitSet reportIds, HitConsumer consumer) {
+            
+            int low = 0;
+            for (int reportId = reportIds.nextSetBit(0); reportId >= 0; reportId = reportIds.nextSetBit(reportId + 1)) {
+                // report ids come in ascending order, so the search continues where the last one was found
+                int high = reportCount - 1;
+                while (low <= high) {
+                    final int middle = (low + high) >>> 1;
+                    final int middleReportId = getReportId(middle);
+                    if (middleReportId < reportId) {
+                        low = middle + 1;
+                    } else if (middleReportId > reportId) {
+                        high = middle - 1;
+                    } else {
+                        consumer.accept(reportId, getDate(middle));
+                        low = middle + 1;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Position in the sorted words of a segment while merging segments.
+     */
+    private static final class SegmentCursor implements Comparable<SegmentCursor> {
+        
+        
+        private final Segment segment;
+        
+        private int termIndex;
+        
+        SegmentCursor(Segment segment) {
+            this.segment = segment;
+        }
+        
+        String getTerm() {
+            return segment.terms[termIndex];
+        }
+        
+        int[] getPostings() {
+            return segment.getPostings(termIndex);
+        }
+        
+        boolean next() {
+            return ++termIndex < segment.terms.length;
+        }
+        
+        @Override
+        public int compareTo(SegmentCursor other) {
+            return getTerm().compareTo(other.getTerm());
+        }
+    }
+    
+    /**
+     * Writes a segment to a temporary file which is renamed once complete, taking the reports in ascending order of
+     * report id first and then the words in ascending order. Offsets are tracked as longs so segments may exceed 2 GB.
+     */
+    private static final class SegmentWriter {
+        
+        
+        private final Path temporary;
+        
+        private final FileChannel channel;
+        
+        private final DataOutputStream out;
+        
+        private final List<byte[]> terms = new ArrayList<>();
+        
+        private final List<long[]> offsetsAndCounts = new ArrayList<>();
+        
+        private long position;
+        
+        private int reportCount;
+        
+        SegmentWriter(Path home) throws IOException {
+            
+            temporary = Files.createTempFile(home, TEMPORARY_FILE_PREFIX, TEMPORARY_FILE_SUFFIX);
+            channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+            out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            writeInt(SEGMENT_MAGIC);
+            writeInt(SEGMENT_VERSION);
+        }
+        
+        void addReport(int reportId, long date) throws IOException {
+            
+            writeInt(reportId);
+            writeInt((int) (date >>> 32));
+            writeInt((int) date);
+            reportCount++;
+        }
+        
+        void addPostings(String term, int[] postings) throws IOException {
+            
+            terms.add(term.getBytes(StandardCharsets.UTF_8));
+            offsetsAndCounts.add(new long[] { position, postings.length });
+            for (int reportId : postings) {
+                writeInt(reportId);
+            }
+        }
+        
+        Path finish(Path target) throws IOException {
+            
+            final long dictionaryOffset = position;
+            out.writeInt(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                out.writeInt(terms.get(i).length);
+                out.write(terms.get(i));
+                out.writeLong(offsetsAndCounts.get(i)[0]);
+                out.writeInt((int) offsetsAndCounts.get(i)[1]);
+            }
+            out.writeInt(reportCount);
+            out.writeLong(dictionaryOffset);
+            out.flush();
+            channel.force(true);
+            out.close();
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return target;
+        }
+        
+        void discard() throws IOException {
+            
+            if (channel.isOpen()) {
+                out.close();
+            }
+            Files.deleteIfExists(temporary);
+        }
+        
+        private void writeInt(int value) throws IOException {
+            
+            out.writeInt(value);
+            position += 4;
+        }
+    }
+}
@@ -9,6 +9,7 @@
  */
 package org.openmrs.module.radiology.report;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.openmrs.annotation.Authorized;
@@ -32,6 +33,10 @@ import org.openmrs.module.radiology.order.RadiologyOrder;
  * <li>Optionally, void the {@code RadiologyReport} via {@link #voidRadiologyReport(RadiologyReport, String)}.</li>
  * <li>Finally, complete the {@code RadiologyReport} via {@link #saveRadiologyReport(RadiologyReport)}.</li>
  * </ol>
+ * Creating, drafting and completing {@code RadiologyReport}'s of the same {@code RadiologyOrder} happens one at a time,
+ * while {@code RadiologyReport}'s of different {@code RadiologyOrder}'s are written concurrently. Concurrent updates of
+ * the same {@code RadiologyReport} are detected through its version. A second {@code RadiologyReport} which is not
+ * voided is rejected by the database even if it is claimed concurrently on another node.
  *
  * @see org.openmrs.module.radiology.report.RadiologyReport
  */
@@ -52,6 +57,7 @@ public interface RadiologyReportService extends OpenmrsService {
      * @should throw api exception if given radiology order is not completed
      * @should throw api exception if given order has a claimed radiology report
      * @should throw api exception if given order has a completed radiology report
+     * @should let only one of concurrent claims on the same radiology order succeed
      */
     @Authorized(RadiologyPrivileges.ADD_RADIOLOGY_REPORTS)
     public RadiologyReport createRadiologyReport(RadiologyOrder radiologyOrder);
@@ -99,6 +105,9 @@ public interface RadiologyReportService extends OpenmrsService {
     
     /**
      * Saves an existing {@code RadiologyReport} and and sets its status to completed.
+     * <p>
+     * The body of the completed radiology report is added to the full text index once the transaction commits.
+     * </p>
      *
      * @param radiologyReport the radiology report to be saved and completed
      * @return the saved radiology report
@@ -116,6 +125,7 @@ public interface RadiologyReportService extends OpenmrsService {
      * @should throw api exception if radiology report is completed
      * @should throw api exception if radiology report is voided
      * @should throw api exception if radiology report is not valid
+     * @should add the completed radiology report to the search index once the transaction commits
      */
     @Authorized(RadiologyPrivileges.EDIT_RADIOLOGY_REPORTS)
     public RadiologyReport saveRadiologyReport(RadiologyReport radiologyReport);
@@ -189,10 +199,16 @@ public interface RadiologyReportService extends OpenmrsService {
     /**
      * Get all {@code RadiologyReport's} matching a variety of (nullable) criteria.
      * Each extra value for a parameter that is provided acts as an "and" and will reduce the number of results returned
+     * <p>
+     * A query is looked up in the full text index of the bodies of completed radiology reports. The index returns the
+     * matching radiology reports a page at a time in the order of report date and report id, so that only the report ids
+     * of the requested page are looked up in the database.
+     * </p>
      *
      * @param radiologyReportSearchCriteria the object containing search parameters
      * @return the radiology reports matching given criteria ordered by increasing report date
      * @throws IllegalArgumentException if given null
+     * @throws APIException if the full text index cannot be read
      * @should return all radiology reports (including voided) matching the search query if include voided is set
      * @should return all radiology reports within given date range if date to and date from are specified
      * @should return all radiology reports with report date after or equal to from date if only date from is specified
@@ -203,8 +219,77 @@ public interface RadiologyReportService extends OpenmrsService {
      * @should return empty search result if no report exists for principal results interpreter
      * @should return all radiology reports with given status
      * @should return empty search result if no report exists for given status
+     * @should return the page of radiology reports defined by start index and limit
+     * @should return the radiology reports after given report date and report id if after is set
+     * @should return radiology reports without body if exclude body is set
+     * @should return the completed radiology reports whose body contains all words of the query if query is set
+     * @should return empty list if no radiology report body contains all words of the query
+     * @should return the page of radiology reports matching the query defined by start index and limit
+     * @should return the radiology reports matching the query after given report date and report id if after is set
+     * @should return the radiology reports matching the query for given principal results interpreter
+     * @should look up only the report ids of the requested page in the database if query is set
+     * @should look up the report ids following the page if the database left out some of them
      * @should throw illegal argument exception if given null
      */
     @Authorized(RadiologyPrivileges.GET_RADIOLOGY_REPORTS)
     public List<RadiologyReport> getRadiologyReports(RadiologyReportSearchCriteria radiologyReportSearchCriteria);
+    
+    /**
+     * Get the number of {@code RadiologyReport's} matching given criteria ignoring its start index and limit.
+     *
+     * @param radiologyReportSearchCriteria the object containing search parameters
+     * @return the number of radiology reports matching given criteria
+     * @throws IllegalArgumentException if given null
+     * @throws APIException if the full text index cannot be read
+     * @should return the number of radiology reports matching given criteria ignoring start index and limit
+     * @should return the number of completed radiology reports whose body contains all words of the query
+     * @should count the radiology reports matching the query for given principal results interpreter
+     * @should throw illegal argument exception if given null
+     */
+    @Authorized(RadiologyPrivileges.GET_RADIOLOGY_REPORTS)
+    public Long getRadiologyReportsCount(RadiologyReportSearchCriteria radiologyReportSearchCriteria);
+    
+    /**
+     * Get an excerpt of the text of the body of given {@code RadiologyReport} around the first word matching a word of
+     * given query, to show with the radiology reports found by a query.
+     *
+     * @param radiologyReport the radiology report
+     * @param query the words searched for
+     * @return at most 200 characters of the body of given radiology report without html
+     * @throws IllegalArgumentException if given radiology report is null
+     * @throws IllegalArgumentException if given query is null
+     * @should return the text of the body around the first word matching given query
+     * @should throw illegal argument exception if given radiology report is null
+     * @should throw illegal argument exception if given query is null
+     */
+    @Authorized(RadiologyPrivileges.GET_RADIOLOGY_REPORTS)
+    public String getRadiologyReportSnippet(RadiologyReport radiologyReport, String query);
+    
+    /**
+     * Open the full text index searched by {@link #getRadiologyReports(RadiologyReportSearchCriteria)} given a query,
+     * building it from all completed {@code RadiologyReport's} if the report index home directory holds no index yet.
+     * <p>
+     * This is run when the module is started. Completed radiology reports update the index themselves.
+     * </p>
+     *
+     * @throws IOException if the index cannot be read or written
+     * @should build the index from all completed radiology reports if there is no index
+     * @should keep an existing index
+     */
+    public void openRadiologyReportSearchIndex() throws IOException;
+    
+    /**
+     * Rebuild the full text index searched by {@link #getRadiologyReports(RadiologyReportSearchCriteria)} given a query
+     * from all completed {@code RadiologyReport's}, like after the index was lost or the database restored.
+     * <p>
+     * Searches use the previous index until the rebuilt index holds all completed radiology reports, and a rebuild
+     * which fails leaves the previous index in place.
+     * </p>
+     *
+     * @return the number of indexed radiology reports
+     * @throws IOException if the index cannot be written
+     * @should index the body of all completed radiology reports
+     * @should remove reports indexed before
+     */
+    public long rebuildRadiologyReportSearchIndex() throws IOException;
 }
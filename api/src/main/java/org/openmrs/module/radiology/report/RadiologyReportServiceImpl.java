@@ -9,6 +9,8 @@
  */
 package org.openmrs.module.radiology.report;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -18,7 +20,11 @@ import org.apache.commons.logging.LogFactory;
 import org.openmrs.api.APIException;
 import org.openmrs.api.impl.BaseOpenmrsService;
 import org.openmrs.module.radiology.order.RadiologyOrder;
+import org.openmrs.module.radiology.report.RadiologyReportSearchIndex.SearchHit;
+import org.openmrs.module.radiology.util.StripedLock;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Transactional(readOnly = true)
 class RadiologyReportServiceImpl extends BaseOpenmrsService implements RadiologyReportService {
@@ -26,18 +32,37 @@ class RadiologyReportServiceImpl extends BaseOpenmrsService implements Radiology
     
     private static final Log log = LogFactory.getLog(RadiologyReportServiceImpl.class);
     
+    private static final int RADIOLOGY_ORDER_LOCK_STRIPES = 64;
+    
+    /**
+     * Maximum number of report ids found in the search index which are looked up in the database at once.
+     */
+    static final int SEARCH_BATCH_SIZE = 500;
+    
+    /**
+     * Serializes claiming, drafting and completing radiology reports of the same radiology order. Reports of different
+     * radiology orders are written in parallel.
+     */
+    private final StripedLock radiologyOrderLocks = new StripedLock(RADIOLOGY_ORDER_LOCK_STRIPES);
+    
     private RadiologyReportDAO radiologyReportDAO;
     
+    private RadiologyReportSearchIndex radiologyReportSearchIndex;
+    
     public void setRadiologyReportDAO(RadiologyReportDAO radiologyReportDAO) {
         this.radiologyReportDAO = radiologyReportDAO;
     }
     
+    public void setRadiologyReportSearchIndex(RadiologyReportSearchIndex radiologyReportSearchIndex) {
+        this.radiologyReportSearchIndex = radiologyReportSearchIndex;
+    }
+    
     /**
      * @see RadiologyReportService#createRadiologyReport(RadiologyOrder)
      */
     @Override
     @Transactional
-    public synchronized RadiologyReport createRadiologyReport(RadiologyOrder radiologyOrder) {
+    public RadiologyReport createRadiologyReport(RadiologyOrder radiologyOrder) {
         
         if (radiologyOrder == null) {
             throw new IllegalArgumentException("radiologyOrder cannot be null");
@@ -45,14 +70,17 @@ class RadiologyReportServiceImpl extends BaseOpenmrsService implements Radiology
         if (radiologyOrder.isNotCompleted()) {
             throw new APIException("radiology.RadiologyReport.cannot.create.for.not.completed.order");
         }
-        if (radiologyReportDAO.hasRadiologyOrderClaimedRadiologyReport(radiologyOrder)) {
+        radiologyOrderLocks.lockUntilTransactionCompletion(radiologyOrder.getOrderId());
+        final RadiologyReportStatus activeRadiologyReportStatus =
+                radiologyReportDAO.getActiveRadiologyReportStatusByRadiologyOrder(radiologyOrder);
+        if (activeRadiologyReportStatus == RadiologyReportStatus.DRAFT) {
             throw new APIException("radiology.RadiologyReport.cannot.create.already.claimed");
         }
-        if (radiologyReportDAO.hasRadiologyOrderCompletedRadiologyReport(radiologyOrder)) {
+        if (activeRadiologyReportStatus == RadiologyReportStatus.COMPLETED) {
             throw new APIException("radiology.RadiologyReport.cannot.create.already.completed");
         }
         final RadiologyReport radiologyReport = new RadiologyReport(radiologyOrder);
-        return radiologyReportDAO.saveRadiologyReport(radiologyReport);
+        return radiologyReportDAO.createRadiologyReport(radiologyReport);
     }
     
     /**
@@ -60,7 +88,7 @@ class RadiologyReportServiceImpl extends BaseOpenmrsService implements Radiology
      */
     @Override
     @Transactional
-    public synchronized RadiologyReport saveRadiologyReportDraft(RadiologyReport radiologyReport) {
+    public RadiologyReport saveRadiologyReportDraft(RadiologyReport radiologyReport) {
         
         if (radiologyReport == null) {
             throw new IllegalArgumentException("radiologyReport cannot be null");
@@ -74,12 +102,24 @@ class RadiologyReportServiceImpl extends BaseOpenmrsService implements Radiology
         if (radiologyReport.getVoided()) {
             throw new APIException("radiology.RadiologyReport.cannot.saveDraft.already.voided");
         }
+        lockRadiologyOrderOf(radiologyReport);
         if (radiologyReportDAO.hasRadiologyOrderCompletedRadiologyReport(radiologyReport.getRadiologyOrder())) {
             throw new APIException("radiology.RadiologyReport.cannot.saveDraft.already.reported");
         }
         return radiologyReportDAO.saveRadiologyReport(radiologyReport);
     }
     
+    /**
+     * Lock the radiology order of given radiology report until the current transaction completes.
+     * 
+     * @param radiologyReport the radiology report whose radiology order to lock
+     */
+    private void lockRadiologyOrderOf(RadiologyReport radiologyReport) {
+        
+        final RadiologyOrder radiologyOrder = radiologyReport.getRadiologyOrder();
+        radiologyOrderLocks.lockUntilTransactionCompletion(radiologyOrder == null ? null : radiologyOrder.getOrderId());
+    }
+    
     /**
      * @see RadiologyReportService#voidRadiologyReport(RadiologyReport, String)
      */
@@ -107,7 +147,7 @@ class RadiologyReportServiceImpl extends BaseOpenmrsService implements Radiology
      */
     @Override
     @Transactional
-    public synchronized RadiologyReport saveRadiologyReport(RadiologyReport radiologyReport) {
+    public RadiologyReport saveRadiologyReport(RadiologyReport radiologyReport) {
         
         if (radiologyReport == null) {
             throw new IllegalArgumentException("radiologyReport cannot be null");
@@ -124,9 +164,49 @@ class RadiologyReportServiceImpl extends BaseOpenmrsService implements Radiology
         if (radiologyReport.getVoided()) {
             throw new APIException("radiology.RadiologyReport.cannot.complete.voided");
         }
+        lockRadiologyOrderOf(radiologyReport);
         radiologyReport.setDate(new Date());
         radiologyReport.setStatus(RadiologyReportStatus.COMPLETED);
-        return radiologyReportDAO.saveRadiologyReport(radiologyReport);
+        final RadiologyReport result = radiologyReportDAO.saveRadiologyReport(radiologyReport);
+        addToSearchIndexAfterCommit(result);
+        return result;
+    }
+    
+    /**
+     * Add given completed radiology report to the search index once the current transaction commits, so that the index
+     * never holds the body of a radiology report whose completion was rolled back.
+     * 
+     * @param radiologyReport the completed radiology report
+     */
+    private void addToSearchIndexAfterCommit(RadiologyReport radiologyReport) {
+        
+        final Integer reportId = radiologyReport.getReportId();
+        final String body = radiologyReport.getBody();
+        // the index orders by the report date the database sorts by, which may be less precise than the one saved
+        final Date date = radiologyReportDAO.getStoredRadiologyReportDate(reportId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addToSearchIndex(reportId, date, body);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            
+            
+            @Override
+            public void afterCommit() {
+                addToSearchIndex(reportId, date, body);
+            }
+        });
+    }
+    
+    private void addToSearchIndex(Integer reportId, Date date, String body) {
+        
+        try {
+            radiologyReportSearchIndex.add(reportId, date, body);
+        }
+        catch (IOException | RuntimeException e) {
+            // the radiology report is completed nonetheless and found again once the index is rebuilt
+            log.error("Failed to add radiology report " + reportId + " to the search index", e);
+        }
     }
     
     /**
@@ -186,13 +266,7 @@ class RadiologyReportServiceImpl extends BaseOpenmrsService implements Radiology
         if (radiologyOrder == null) {
             throw new IllegalArgumentException("radiologyOrder cannot be null");
         }
-        if (hasRadiologyOrderCompletedRadiologyReport(radiologyOrder)) {
-            return radiologyReportDAO.getActiveRadiologyReportByRadiologyOrder(radiologyOrder);
-        }
-        if (hasRadiologyOrderClaimedRadiologyReport(radiologyOrder)) {
-            return radiologyReportDAO.getActiveRadiologyReportByRadiologyOrder(radiologyOrder);
-        }
-        return null;
+        return radiologyReportDAO.getActiveRadiologyReportByRadiologyOrder(radiologyOrder);
     }
     
     /**
@@ -204,6 +278,160 @@ class RadiologyReportServiceImpl extends BaseOpenmrsService implements Radiology
         if (radiologyReportSearchCriteria == null) {
             throw new IllegalArgumentException("radiologyReportSearchCriteria cannot be null");
         }
-        return radiologyReportDAO.getRadiologyReports(radiologyReportSearchCriteria);
+        if (radiologyReportSearchCriteria.getQuery() == null) {
+            return radiologyReportDAO.getRadiologyReports(radiologyReportSearchCriteria);
+        }
+        final List<RadiologyReport> result = new ArrayList<>();
+        if (!canMatchIndexedRadiologyReports(radiologyReportSearchCriteria)) {
+            return result;
+        }
+        // the index returns the page of matching report ids in the order of the database, the database then applies the
+        // criteria the index does not know about. More report ids are looked up only if it left some of them out.
+        final Integer limit = radiologyReportSearchCriteria.getLimit();
+        int skip = radiologyReportSearchCriteria.getStartIndex() == null ? 0 : radiologyReportSearchCriteria.getStartIndex();
+        SearchHit after = radiologyReportSearchCriteria.getAfterReportId() == null ? null
+                : new SearchHit(radiologyReportSearchCriteria.getAfterReportId(),
+                        radiologyReportSearchCriteria.getAfterDate());
+        while (limit == null || result.size() < limit) {
+            final int batchSize =
+                    limit == null ? SEARCH_BATCH_SIZE : Math.min(SEARCH_BATCH_SIZE, skip + limit - result.size());
+            final List<SearchHit> hits = searchIndex(radiologyReportSearchCriteria, after, batchSize);
+            if (hits.isEmpty()) {
+                break;
+            }
+            for (RadiologyReport radiologyReport : radiologyReportDAO.getRadiologyReports(radiologyReportSearchCriteria,
+                getReportIds(hits))) {
+                if (skip > 0) {
+                    skip--;
+                } else if (limit == null || result.size() < limit) {
+                    result.add(radiologyReport);
+                }
+            }
+            if (hits.size() < batchSize) {
+                break;
+            }
+            after = hits.get(hits.size() - 1);
+        }
+        return result;
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReportsCount(RadiologyReportSearchCriteria)
+     */
+    @Override
+    public Long getRadiologyReportsCount(RadiologyReportSearchCriteria radiologyReportSearchCriteria) {
+        
+        if (radiologyReportSearchCriteria == null) {
+            throw new IllegalArgumentException("radiologyReportSearchCriteria cannot be null");
+        }
+        if (radiologyReportSearchCriteria.getQuery() == null) {
+            return radiologyReportDAO.getRadiologyReportsCount(radiologyReportSearchCriteria);
+        }
+        if (!canMatchIndexedRadiologyReports(radiologyReportSearchCriteria)) {
+            return 0L;
+        }
+        if (radiologyReportSearchCriteria.getPrincipalResultsInterpreter() == null) {
+            try {
+                return radiologyReportSearchIndex.count(radiologyReportSearchCriteria.getQuery(),
+                    radiologyReportSearchCriteria.getFromDate(), radiologyReportSearchCriteria.getToDate());
+            }
+            catch (IOException e) {
+                throw new APIException("Failed to search the radiology report search index", e);
+            }
+        }
+        // the index does not know the principal results interpreter, so the database counts the matches batch by batch
+        long count = 0;
+        SearchHit after = null;
+        while (true) {
+            final List<SearchHit> hits = searchIndex(radiologyReportSearchCriteria, after, SEARCH_BATCH_SIZE);
+            if (hits.isEmpty()) {
+                break;
+            }
+            count += radiologyReportDAO.getRadiologyReportsCount(radiologyReportSearchCriteria, getReportIds(hits));
+            if (hits.size() < SEARCH_BATCH_SIZE) {
+                break;
+            }
+            after = hits.get(hits.size() - 1);
+        }
+        return count;
+    }
+    
+    /**
+     * Only completed radiology reports are indexed, and these cannot be voided.
+     * 
+     * @param radiologyReportSearchCriteria the search criteria
+     * @return false if given criteria exclude completed radiology reports
+     */
+    private static boolean canMatchIndexedRadiologyReports(RadiologyReportSearchCriteria radiologyReportSearchCriteria) {
+        
+        return radiologyReportSearchCriteria.getStatus() == null
+                || radiologyReportSearchCriteria.getStatus() == RadiologyReportStatus.COMPLETED;
+    }
+    
+    /**
+     * Get a page of the completed radiology reports whose body contains all words of the query of given criteria.
+     * 
+     * @param radiologyReportSearchCriteria the search criteria whose query and report dates to search for
+     * @param after the hit after which to continue, null to start with the first
+     * @param limit the maximum number of hits to return
+     * @return the hits in the order of report date and report id
+     * @throws APIException if the search index cannot be read
+     */
+    private List<SearchHit> searchIndex(RadiologyReportSearchCriteria radiologyReportSearchCriteria, SearchHit after,
+            int limit) {
+        
+        try {
+            return radiologyReportSearchIndex.search(radiologyReportSearchCriteria.getQuery(),
+                radiologyReportSearchCriteria.getFromDate(), radiologyReportSearchCriteria.getToDate(), after, limit);
+        }
+        catch (IOException e) {
+            throw new APIException("Failed to search the radiology report search index", e);
+        }
+    }
+    
+    private static List<Integer> getReportIds(List<SearchHit> hits) {
+        
+        final List<Integer> result = new ArrayList<>(hits.size());
+        for (SearchHit hit : hits) {
+            result.add(hit.getReportId());
+        }
+        return result;
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReportSnippet(RadiologyReport, String)
+     */
+    @Override
+    public String getRadiologyReportSnippet(RadiologyReport radiologyReport, String query) {
+        
+        if (radiologyReport == null) {
+            throw new IllegalArgumentException("radiologyReport cannot be null");
+        }
+        if (query == null) {
+            throw new IllegalArgumentException("query cannot be null");
+        }
+        return RadiologyReportSearchIndex.getSnippet(radiologyReport.getBody(), query);
+    }
+    
+    /**
+     * @see RadiologyReportService#openRadiologyReportSearchIndex()
+     */
+    @Override
+    public void openRadiologyReportSearchIndex() throws IOException {
+        
+        if (radiologyReportSearchIndex.isEmpty()) {
+            rebuildRadiologyReportSearchIndex();
+        }
+    }
+    
+    /**
+     * @see RadiologyReportService#rebuildRadiologyReportSearchIndex()
+     */
+    @Override
+    public long rebuildRadiologyReportSearchIndex() throws IOException {
+        
+        final long indexed = radiologyReportSearchIndex.rebuild(radiologyReportDAO::getCompletedRadiologyReportBodies);
+        log.info("Indexed " + indexed + " completed radiology reports");
+        return indexed;
     }
 }
@@ -0,0 +1,92 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.openmrs.ConceptReferenceTerm;
+import org.openmrs.ConceptSource;
+
+/**
+ * Resolves the coded terms of an {@code MrrtReportTemplate} to {@code ConceptReferenceTerm}'s.
+ * <p>
+ * Concept sources are looked up by name ignoring case in a map built once, and the codes collected for each concept
+ * source are resolved in one query per concept source instead of one query per code.
+ * </p>
+ */
+class ConceptReferenceTermResolver {
+    
+    
+    private final MrrtReportTemplateDAO mrrtReportTemplateDAO;
+    
+    private final Map<String, ConceptSource> conceptSourcesByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    
+    private final Map<ConceptSource, Set<String>> codesByConceptSource = new LinkedHashMap<>();
+    
+    /**
+     * Creates a new instance of {@link ConceptReferenceTermResolver}.
+     *
+     * @param conceptSources the concept sources terms can be resolved in, of concept sources with names only differing
+     *        in case the first one is used
+     * @param mrrtReportTemplateDAO the dao to query concept reference terms with
+     */
+    ConceptReferenceTermResolver(List<ConceptSource> conceptSources, MrrtReportTemplateDAO mrrtReportTemplateDAO) {
+        
+        this.mrrtReportTemplateDAO = mrrtReportTemplateDAO;
+        for (ConceptSource conceptSource : conceptSources) {
+            conceptSourcesByName.putIfAbsent(conceptSource.getName(), conceptSource);
+        }
+    }
+    
+    /**
+     * Add a coded term to be resolved.
+     *
+     * @param scheme the name of the concept source of the term
+     * @param code the code of the term
+     * @should ignore case when searching for a matching concept source
+     * @should skip terms of concept sources which do not exist
+     */
+    void addTerm(String scheme, String code) {
+        
+        final ConceptSource conceptSource = conceptSourcesByName.get(scheme);
+        if (conceptSource == null) {
+            return;
+        }
+        Set<String> codes = codesByConceptSource.get(conceptSource);
+        if (codes == null) {
+            codes = new LinkedHashSet<>();
+            codesByConceptSource.put(conceptSource, codes);
+        }
+        codes.add(code);
+    }
+    
+    /**
+     * Resolve the added terms to the matching concept reference terms.
+     *
+     * @return the concept reference terms matching the added terms, terms without matching concept reference term
+     *         are skipped
+     * @should return the concept reference terms matching the added terms
+     * @should return an empty set if no terms were added
+     */
+    Set<ConceptReferenceTerm> resolve() {
+        
+        final Set<ConceptReferenceTerm> result = new HashSet<>();
+        for (Map.Entry<ConceptSource, Set<String>> entry : codesByConceptSource.entrySet()) {
+            result.addAll(mrrtReportTemplateDAO.getConceptReferenceTerms(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+}
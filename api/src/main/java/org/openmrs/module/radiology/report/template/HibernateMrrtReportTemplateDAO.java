@@ -10,13 +10,18 @@
 package org.openmrs.module.radiology.report.template;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.hibernate.Criteria;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.openmrs.ConceptReferenceTerm;
+import org.openmrs.ConceptSource;
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
 
 /**
  * Hibernate specific MrrtReportTemplate related functions. This class should not be used directly. All
@@ -28,6 +33,13 @@ import org.hibernate.criterion.Restrictions;
 class HibernateMrrtReportTemplateDAO implements MrrtReportTemplateDAO {
     
     
+    private static final int MAX_CODES_PER_QUERY = 500;
+    
+    private static final int MAX_TEMPLATE_IDS_PER_QUERY = 500;
+    
+    // query results are invalidated by hibernate whenever a template is saved or deleted
+    static final String QUERY_CACHE_REGION = MrrtReportTemplate.class.getName() + ".queries";
+    
     private SessionFactory sessionFactory;
     
     /**
@@ -75,23 +87,37 @@ class HibernateMrrtReportTemplateDAO implements MrrtReportTemplateDAO {
     @Override
     public List<MrrtReportTemplate> getMrrtReportTemplates(MrrtReportTemplateSearchCriteria searchCriteria) {
         
-        final Criteria crit = sessionFactory.getCurrentSession()
-                .createCriteria(MrrtReportTemplate.class);
+        final Criteria crit = createMrrtReportTemplateCriteria();
         crit.addOrder(Order.asc("dcTermsTitle"));
         
-        if (searchCriteria.getTitle() != null) {
-            crit.add(Restrictions.ilike("dcTermsTitle", searchCriteria.getTitle() + "%", MatchMode.ANYWHERE));
-        }
-        if (searchCriteria.getPublisher() != null) {
-            crit.add(Restrictions.ilike("dcTermsPublisher", searchCriteria.getPublisher() + "%", MatchMode.ANYWHERE));
-        }
-        if (searchCriteria.getLicense() != null) {
-            crit.add(Restrictions.ilike("dcTermsLicense", searchCriteria.getLicense() + "%", MatchMode.ANYWHERE));
-        }
+        addSearchCriteriaRestrictions(crit, searchCriteria);
         final List<MrrtReportTemplate> result = (List<MrrtReportTemplate>) crit.list();
         return result == null ? new ArrayList<>() : result;
     }
     
+    /**
+     * @see MrrtReportTemplateDAO#getMrrtReportTemplates(MrrtReportTemplateSearchCriteria, Collection)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<MrrtReportTemplate> getMrrtReportTemplates(MrrtReportTemplateSearchCriteria searchCriteria,
+            Collection<Integer> templateIds) {
+        
+        final List<Integer> templateIdList = new ArrayList<>(templateIds);
+        final List<MrrtReportTemplate> result = new ArrayList<>();
+        for (int from = 0; from < templateIdList.size(); from += MAX_TEMPLATE_IDS_PER_QUERY) {
+            final List<Integer> batch =
+                    templateIdList.subList(from, Math.min(from + MAX_TEMPLATE_IDS_PER_QUERY, templateIdList.size()));
+            // not cached since the ids are different for almost every query
+            final Criteria criteria = sessionFactory.getCurrentSession()
+                    .createCriteria(MrrtReportTemplate.class);
+            addSearchCriteriaRestrictions(criteria, searchCriteria);
+            criteria.add(Restrictions.in("templateId", batch));
+            result.addAll((List<MrrtReportTemplate>) criteria.list());
+        }
+        return result;
+    }
+    
     /**
      * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateService#saveMrrtReportTemplate(MrrtReportTemplate)
      */
@@ -112,12 +138,78 @@ class HibernateMrrtReportTemplateDAO implements MrrtReportTemplateDAO {
     }
     
     /**
-     * A utility method creating a criteria for MrrtReportTemplate
+     * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateDAO#getMrrtReportTemplateCountByPath(String)
+     */
+    @Override
+    public long getMrrtReportTemplateCountByPath(String path) {
+        final Criteria criteria = createMrrtReportTemplateCriteria();
+        criteria.add(Restrictions.eq("path", path));
+        criteria.setProjection(Projections.rowCount());
+        return (Long) criteria.uniqueResult();
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateDAO#getConceptReferenceTerms(ConceptSource, Collection)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<ConceptReferenceTerm> getConceptReferenceTerms(ConceptSource conceptSource, Collection<String> codes) {
+        
+        final List<String> codeList = new ArrayList<>(codes);
+        final List<ConceptReferenceTerm> result = new ArrayList<>();
+        for (int from = 0; from < codeList.size(); from += MAX_CODES_PER_QUERY) {
+            final List<String> batch =
+                    codeList.subList(from, Math.min(from + MAX_CODES_PER_QUERY, codeList.size()));
+            final Criteria criteria = sessionFactory.getCurrentSession()
+                    .createCriteria(ConceptReferenceTerm.class);
+            criteria.add(Restrictions.eq("conceptSource", conceptSource));
+            criteria.add(Restrictions.in("code", batch));
+            result.addAll((List<ConceptReferenceTerm>) criteria.list());
+        }
+        return result;
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateService#getMrrtReportTemplateCacheStatistics()
+     */
+    @Override
+    public List<RadiologyCacheStatistics> getMrrtReportTemplateCacheStatistics() {
+        
+        final List<RadiologyCacheStatistics> result = new ArrayList<>();
+        result.add(RadiologyCacheStatistics.of(sessionFactory, MrrtReportTemplate.class.getName()));
+        result.add(RadiologyCacheStatistics.of(sessionFactory, MrrtReportTemplate.class.getName() + ".terms"));
+        result.add(RadiologyCacheStatistics.of(sessionFactory, QUERY_CACHE_REGION));
+        return result;
+    }
+    
+    /**
+     * Restrict given criteria to the templates matching the title, publisher and license of given search criteria.
+     *
+     * @param criteria the criteria for MrrtReportTemplate
+     * @param searchCriteria the search criteria to restrict by
+     */
+    private void addSearchCriteriaRestrictions(Criteria criteria, MrrtReportTemplateSearchCriteria searchCriteria) {
+        
+        if (searchCriteria.getTitle() != null) {
+            criteria.add(Restrictions.ilike("dcTermsTitle", searchCriteria.getTitle() + "%", MatchMode.ANYWHERE));
+        }
+        if (searchCriteria.getPublisher() != null) {
+            criteria.add(Restrictions.ilike("dcTermsPublisher", searchCriteria.getPublisher() + "%", MatchMode.ANYWHERE));
+        }
+        if (searchCriteria.getLicense() != null) {
+            criteria.add(Restrictions.ilike("dcTermsLicense", searchCriteria.getLicense() + "%", MatchMode.ANYWHERE));
+        }
+    }
+    
+    /**
+     * A utility method creating a criteria for MrrtReportTemplate whose results are cached in the query cache
      *
      * @return criteria for MrrtReportTemplate
      */
     private Criteria createMrrtReportTemplateCriteria() {
         return sessionFactory.getCurrentSession()
-                .createCriteria(MrrtReportTemplate.class);
+                .createCriteria(MrrtReportTemplate.class)
+                .setCacheable(true)
+                .setCacheRegion(QUERY_CACHE_REGION);
     }
 }
@@ -9,8 +9,13 @@
  */
 package org.openmrs.module.radiology.report.template;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.openmrs.ConceptReferenceTerm;
+import org.openmrs.ConceptSource;
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
+
 /**
  * {@code MrrTReportTemplate} related database methods.
  * 
@@ -40,6 +45,16 @@ interface MrrtReportTemplateDAO {
      */
     public List<MrrtReportTemplate> getMrrtReportTemplates(MrrtReportTemplateSearchCriteria searchCriteria);
     
+    /**
+     * Get the {@code MrrtReportTemplate}'s with given ids matching the title, publisher and license of given criteria.
+     * 
+     * @param searchCriteria the criteria the templates have to match, its query is ignored
+     * @param templateIds the ids of the templates
+     * @return the templates with given ids matching given criteria in no particular order
+     */
+    public List<MrrtReportTemplate> getMrrtReportTemplates(MrrtReportTemplateSearchCriteria searchCriteria,
+            Collection<Integer> templateIds);
+    
     /**
      * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateService#saveMrrtReportTemplate(MrrtReportTemplate)
      */
@@ -49,4 +64,26 @@ interface MrrtReportTemplateDAO {
      * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateService#purgeMrrtReportTemplate(MrrtReportTemplate)
      */
     public void purgeMrrtReportTemplate(MrrtReportTemplate template);
+    
+    /**
+     * Get the number of {@code MrrtReportTemplate}'s whose template file is stored at given path.
+     * 
+     * @param path the path of the template file
+     * @return the number of templates with given path
+     */
+    public long getMrrtReportTemplateCountByPath(String path);
+    
+    /**
+     * Get the concept reference terms of given concept source matching any of given codes.
+     * 
+     * @param conceptSource the concept source of the concept reference terms
+     * @param codes the codes of the concept reference terms
+     * @return the concept reference terms of given concept source with any of given codes
+     */
+    public List<ConceptReferenceTerm> getConceptReferenceTerms(ConceptSource conceptSource, Collection<String> codes);
+    
+    /**
+     * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateService#getMrrtReportTemplateCacheStatistics()
+     */
+    public List<RadiologyCacheStatistics> getMrrtReportTemplateCacheStatistics();
 }
@@ -11,6 +11,8 @@ package org.openmrs.module.radiology.report.template;
 
 import java.io.IOException;
 
+import org.w3c.dom.Document;
+
 /**
  * A parser that is responsible for parsing mrrt report templates and extract metadata.
  */
@@ -29,4 +31,13 @@ public interface MrrtReportTemplateFileParser {
      * @should ignore case when searching for a matching concept source
      */
     public MrrtReportTemplate parse(String mrrtTemplate) throws IOException;
+    
+    /**
+     * Extract metadata of an mrrt template which was already parsed and validated into a {@code MrrtReportTemplate}.
+     * 
+     * @param mrrtTemplate the mrrt template as returned by {@link MrrtReportTemplateValidator#parseAndValidate(String)}
+     * @return the mrrt report template
+     * @should return an mrrt template object for given document
+     */
+    public MrrtReportTemplate parse(Document mrrtTemplate);
 }
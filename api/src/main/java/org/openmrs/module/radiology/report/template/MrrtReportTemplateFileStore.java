@@ -0,0 +1,205 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.openmrs.module.radiology.RadiologyProperties;
+
+/**
+ * Stores the files of {@code MrrtReportTemplate}'s in the report template home directory, content addressed by the hex
+ * encoded SHA-256 of their content.
+ * <p>
+ * Files with identical content are stored once. A file is first written to a temporary file in the report template home
+ * directory, forced to disk and then renamed to its content hash, so a stored file is either complete or not there at
+ * all. Since files are never modified once stored, they are read by mapping them into memory.
+ * </p>
+ */
+class MrrtReportTemplateFileStore {
+    
+    
+    private static final String HASH_ALGORITHM = "SHA-256";
+    
+    private static final Pattern STORED_FILE_NAME = Pattern.compile("[0-9a-f]{64}");
+    
+    private static final String TEMPORARY_FILE_PREFIX = ".mrrt-";
+    
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    
+    private RadiologyProperties radiologyProperties;
+    
+    public void setRadiologyProperties(RadiologyProperties radiologyProperties) {
+        this.radiologyProperties = radiologyProperties;
+    }
+    
+    /**
+     * Get the directory files are stored in.
+     *
+     * @return the absolute path of the report template home directory
+     */
+    Path getHome() {
+        
+        return radiologyProperties.getReportTemplateHome()
+                .toPath()
+                .toAbsolutePath()
+                .normalize();
+    }
+    
+    /**
+     * Store given content unless a file with identical content is already stored.
+     *
+     * @param content the content to store
+     * @return the path of the stored file
+     * @throws IOException if the file cannot be written
+     * @should store content in file named by the hex encoded sha-256 of the content
+     * @should store identical content once
+     * @should not leave a temporary file behind
+     */
+    Path store(byte[] content) throws IOException {
+        
+        final Path home = getHome();
+        final Path target = home.resolve(hash(content));
+        if (Files.isRegularFile(target) && Files.size(target) == content.length) {
+            return target;
+        }
+        final Path temporary = Files.createTempFile(home, TEMPORARY_FILE_PREFIX, TEMPORARY_FILE_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                final ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+        return target;
+    }
+    
+    /**
+     * Read the content of given file without copying it onto the heap.
+     *
+     * @param path the path of the file
+     * @return a read-only buffer mapping the content of the file
+     * @throws IOException if the file cannot be read
+     * @should return the content of given file
+     */
+    ByteBuffer read(Path path) throws IOException {
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+    
+    /**
+     * Check if given path is a file of this store.
+     *
+     * @param path the path to check
+     * @return true if given path is named by a content hash and located in the report template home directory
+     * @should return true for path of stored file
+     * @should return false for path not named by a content hash or outside of the report template home
+     */
+    boolean isStored(Path path) {
+        
+        final Path normalized = path.toAbsolutePath()
+                .normalize();
+        return getHome().equals(normalized.getParent()) && STORED_FILE_NAME.matcher(normalized.getFileName()
+                .toString())
+                .matches();
+    }
+    
+    /**
+     * Get all stored files.
+     *
+     * @return the paths of all files in the report template home directory named by a content hash
+     * @throws IOException if the report template home directory cannot be listed
+     * @should return only files named by a content hash
+     */
+    List<Path> getStoredFiles() throws IOException {
+        
+        final List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(getHome())) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file) && isStored(file)) {
+                    result.add(file);
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Delete temporary files left behind by writes which did not complete.
+     *
+     * @return the number of deleted files
+     * @throws IOException if the report template home directory cannot be listed or a file cannot be deleted
+     * @should delete temporary files and keep stored files
+     */
+    int deleteTemporaryFiles() throws IOException {
+        
+        int deleted = 0;
+        try (DirectoryStream<Path> files =
+                Files.newDirectoryStream(getHome(), TEMPORARY_FILE_PREFIX + "*" + TEMPORARY_FILE_SUFFIX)) {
+            for (Path file : files) {
+                if (Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+    
+    /**
+     * Get the hex encoded SHA-256 of given content.
+     *
+     * @param content the content to hash
+     * @return the lower case hex encoded SHA-256 of given content
+     */
+    static String hash(byte[] content) {
+        
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not supported", e);
+        }
+        final byte[] hash = digest.digest(content);
+        final char[] result = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            result[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+            result[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xf];
+        }
+        return new String(result);
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used cache of the HTML body of {@code MrrtReportTemplate} files.
+ * <p>
+ * Entries are keyed by template id and remember the last modified time and length of the file they were extracted
+ * from, so a file changed on disk is never served from the cache. The cache is bounded by the total number of
+ * characters of the cached bodies, evicting the least recently used bodies first.
+ * </p>
+ */
+public class MrrtReportTemplateHtmlBodyCache {
+    
+    
+    public static final long DEFAULT_MAXIMUM_SIZE = 4L * 1024 * 1024;
+    
+    private final long maximumSize;
+    
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true);
+    
+    private long size;
+    
+    private long hitCount;
+    
+    private long missCount;
+    
+    private long evictionCount;
+    
+    /**
+     * Create a {@code MrrtReportTemplateHtmlBodyCache} holding up to {@link #DEFAULT_MAXIMUM_SIZE} characters.
+     */
+    public MrrtReportTemplateHtmlBodyCache() {
+        
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+    
+    /**
+     * Create a {@code MrrtReportTemplateHtmlBodyCache} holding up to given number of characters.
+     *
+     * @param maximumSize the maximum number of characters of all cached html bodies
+     * @throws IllegalArgumentException if maximumSize is smaller than 0
+     * @should throw illegal argument exception if given maximum size is smaller than zero
+     */
+    public MrrtReportTemplateHtmlBodyCache(long maximumSize) {
+        
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize cannot be negative");
+        }
+        this.maximumSize = maximumSize;
+    }
+    
+    /**
+     * Get the cached html body of the template with given id if it was extracted from the same version of the file.
+     *
+     * @param templateId the id of the template
+     * @param lastModified the last modified time of the template file
+     * @param length the length of the template file
+     * @return the cached html body or null if not cached or cached for another version of the file
+     * @should return html body put for same template id last modified and length
+     * @should return null if template file was modified since html body was put
+     * @should count hits and misses
+     */
+    public synchronized String get(Integer templateId, long lastModified, long length) {
+        
+        final Entry entry = entries.get(templateId);
+        if (entry == null || entry.lastModified != lastModified || entry.length != length) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.htmlBody;
+    }
+    
+    /**
+     * Cache the html body extracted from given version of the file of the template with given id, evicting the least
+     * recently used html bodies until the cache fits its maximum size.
+     *
+     * @param templateId the id of the template
+     * @param lastModified the last modified time of the template file
+     * @param length the length of the template file
+     * @param htmlBody the html body extracted from the template file
+     * @should evict least recently used html bodies if maximum size is exceeded
+     * @should not cache html body larger than maximum size
+     */
+    public synchronized void put(Integer templateId, long lastModified, long length, String htmlBody) {
+        
+        if (htmlBody.length() > maximumSize) {
+            invalidate(templateId);
+            return;
+        }
+        final Entry previous = entries.put(templateId, new Entry(lastModified, length, htmlBody));
+        if (previous != null) {
+            size -= previous.htmlBody.length();
+        }
+        size += htmlBody.length();
+        final Iterator<Map.Entry<Integer, Entry>> iterator = entries.entrySet()
+                .iterator();
+        while (size > maximumSize) {
+            size -= iterator.next()
+                    .getValue().htmlBody.length();
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+    
+    /**
+     * Remove the html body of the template with given id from the cache.
+     *
+     * @param templateId the id of the template
+     * @should remove html body of given template id
+     */
+    public synchronized void invalidate(Integer templateId) {
+        
+        final Entry removed = entries.remove(templateId);
+        if (removed != null) {
+            size -= removed.htmlBody.length();
+        }
+    }
+    
+    /**
+     * Remove all html bodies from the cache.
+     */
+    public synchronized void invalidateAll() {
+        
+        entries.clear();
+        size = 0;
+    }
+    
+    /**
+     * @return the number of html bodies currently cached
+     */
+    public synchronized int getEntryCount() {
+        
+        return entries.size();
+    }
+    
+    /**
+     * @return the number of characters of all html bodies currently cached
+     */
+    public synchronized long getSize() {
+        
+        return size;
+    }
+    
+    /**
+     * @return the maximum number of characters of all cached html bodies
+     */
+    public long getMaximumSize() {
+        
+        return maximumSize;
+    }
+    
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public synchronized long getHitCount() {
+        
+        return hitCount;
+    }
+    
+    /**
+     * @return the number of lookups not answered from the cache
+     */
+    public synchronized long getMissCount() {
+        
+        return missCount;
+    }
+    
+    /**
+     * @return the number of html bodies evicted to keep the cache within its maximum size
+     */
+    public synchronized long getEvictionCount() {
+        
+        return evictionCount;
+    }
+    
+    private static final class Entry {
+        
+        
+        private final long lastModified;
+        
+        private final long length;
+        
+        private final String htmlBody;
+        
+        private Entry(long lastModified, long length, String htmlBody) {
+            
+            this.lastModified = lastModified;
+            this.length = length;
+            this.htmlBody = htmlBody;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of importing one file of an archive of {@code MrrtReportTemplate}'s.
+ *
+ * @see MrrtReportTemplateService#importMrrtReportTemplates(java.io.InputStream)
+ */
+public class MrrtReportTemplateImportResult {
+    
+    
+    /**
+     * Status of an imported file.
+     */
+    public enum Status {
+        
+        /**
+         * The file was imported as new template.
+         */
+        IMPORTED,
+        
+        /**
+         * The file is not a valid MRRT report template.
+         */
+        INVALID,
+        
+        /**
+         * A template with the same dcterms identifier already exists or occurs earlier in the archive.
+         */
+        DUPLICATE,
+        
+        /**
+         * The file is a valid template but could not be stored.
+         */
+        FAILED
+    }
+    
+    private final String fileName;
+    
+    private final Status status;
+    
+    private final MrrtReportTemplate template;
+    
+    private final String message;
+    
+    private final List<ValidationError> validationErrors;
+    
+    /**
+     * Creates a new instance of {@link MrrtReportTemplateImportResult}.
+     *
+     * @param fileName the name of the file in the archive
+     * @param status the status of the file
+     * @param template the template parsed from the file, null if the file is not a valid template
+     * @param message the reason the file was not imported, null if it was imported
+     * @param validationErrors the errors found validating the file
+     */
+    MrrtReportTemplateImportResult(String fileName, Status status, MrrtReportTemplate template, String message,
+        List<ValidationError> validationErrors) {
+        this.fileName = fileName;
+        this.status = status;
+        this.template = template;
+        this.message = message;
+        this.validationErrors = validationErrors == null ? Collections.<ValidationError> emptyList() : validationErrors;
+    }
+    
+    /**
+     * @return the name of the file in the archive
+     */
+    public String getFileName() {
+        return fileName;
+    }
+    
+    /**
+     * @return the status of the file
+     */
+    public Status getStatus() {
+        return status;
+    }
+    
+    /**
+     * @return the template parsed from the file, null if the file is not a valid template
+     */
+    public MrrtReportTemplate getTemplate() {
+        return template;
+    }
+    
+    /**
+     * @return the reason the file was not imported, null if it was imported
+     */
+    public String getMessage() {
+        return message;
+    }
+    
+    /**
+     * @return the errors found validating the file, empty if there are none
+     */
+    public List<ValidationError> getValidationErrors() {
+        return validationErrors;
+    }
+}
@@ -21,6 +21,8 @@ public class MrrtReportTemplateSearchCriteria {
     
     private final String license;
     
+    private final String query;
+    
     /**
      * @return the title of the mrrt report template
      */
@@ -44,6 +46,14 @@ public class MrrtReportTemplateSearchCriteria {
         return license;
     }
     
+    /**
+     * @return the words searched for in the title, description, publisher, creator, license and concept reference
+     *         terms of the mrrt report template
+     */
+    public String getQuery() {
+        return query;
+    }
+    
     public static class Builder {
         
         
@@ -53,6 +63,8 @@ public class MrrtReportTemplateSearchCriteria {
         
         private String license;
         
+        private String query;
+        
         /**
          * @param title the title of the mrrt report template
          * @return this builder instance
@@ -82,6 +94,16 @@ public class MrrtReportTemplateSearchCriteria {
             return this;
         }
         
+        /**
+         * @param query the words searched for in the title, description, publisher, creator, license and concept
+         *        reference terms of the mrrt report template
+         * @return this builder instance
+         */
+        public Builder withQuery(String query) {
+            this.query = query;
+            return this;
+        }
+        
         /**
          * Creates an {@code MrrtReportTemplateSearchCriteria} with properties of this builder instance.
          * 
@@ -89,6 +111,7 @@ public class MrrtReportTemplateSearchCriteria {
          * @should create an mrrt report template search criteria instance with title if title is set
          * @should create an mrrt report template search criteria instance with publisher if publisher is set
          * @should create an mrrt report template search criteria instance with license if license is set
+         * @should create an mrrt report template search criteria instance with query if query is set
          */
         public MrrtReportTemplateSearchCriteria build() {
             return new MrrtReportTemplateSearchCriteria(this);
@@ -100,5 +123,6 @@ public class MrrtReportTemplateSearchCriteria {
         this.title = builder.title;
         this.publisher = builder.publisher;
         this.license = builder.license;
+        this.query = builder.query;
     }
 }
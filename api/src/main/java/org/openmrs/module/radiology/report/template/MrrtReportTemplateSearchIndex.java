@@ -0,0 +1,246 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.openmrs.ConceptReferenceTerm;
+import org.openmrs.module.radiology.util.Words;
+
+/**
+ * In memory inverted index of the words of {@code MrrtReportTemplate's} used to search templates by free text.
+ * <p>
+ * The title, description, publisher, creator and license of a template as well as the code and name of its concept
+ * reference terms are split into lower case words. Each word maps to the templates containing it, weighted by the
+ * fields it occurs in so that a word in the title ranks higher than a word in the license. A search matches the
+ * templates containing every word of the query, either exactly or as the beginning of a longer word, ranking exact
+ * matches above prefix matches.
+ * </p>
+ * <p>
+ * The index starts out empty and is filled by {@link #rebuild(Collection)}, until then templates added or removed are
+ * ignored.
+ * </p>
+ */
+public class MrrtReportTemplateSearchIndex {
+    
+    
+    static final int TITLE_WEIGHT = 4;
+    
+    static final int TERM_WEIGHT = 3;
+    
+    static final int DESCRIPTION_WEIGHT = 2;
+    
+    static final int OTHER_WEIGHT = 1;
+    
+    private static final int EXACT_MATCH_FACTOR = 2;
+    
+    private final TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    
+    private final Map<Integer, Set<String>> wordsByTemplate = new HashMap<>();
+    
+    private boolean built;
+    
+    /**
+     * @return true if the index was built and not cleared since
+     */
+    public synchronized boolean isBuilt() {
+        
+        return built;
+    }
+    
+    /**
+     * Replace the content of the index by the words of given templates.
+     *
+     * @param templates all templates to search
+     * @throws IllegalArgumentException if given null
+     * @should index given templates and mark the index as built
+     * @should remove templates indexed before
+     * @should throw illegal argument exception if given null
+     */
+    public synchronized void rebuild(Collection<MrrtReportTemplate> templates) {
+        
+        if (templates == null) {
+            throw new IllegalArgumentException("templates cannot be null");
+        }
+        postings.clear();
+        wordsByTemplate.clear();
+        for (MrrtReportTemplate template : templates) {
+            index(template);
+        }
+        built = true;
+    }
+    
+    /**
+     * Add given template to the index, replacing the words it was indexed with before.
+     *
+     * @param template the saved template
+     * @throws IllegalArgumentException if given null
+     * @should replace the words of a template indexed before
+     * @should ignore given template if the index was not built
+     * @should throw illegal argument exception if given null
+     */
+    public synchronized void add(MrrtReportTemplate template) {
+        
+        if (template == null) {
+            throw new IllegalArgumentException("template cannot be null");
+        }
+        if (built) {
+            remove(template.getTemplateId());
+            index(template);
+        }
+    }
+    
+    /**
+     * Remove the template with given id from the index.
+     *
+     * @param templateId the id of the template
+     * @should remove the template with given id
+     */
+    public synchronized void remove(Integer templateId) {
+        
+        final Set<String> words = wordsByTemplate.remove(templateId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            final Map<Integer, Integer> weights = postings.get(word);
+            weights.remove(templateId);
+            if (weights.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+    }
+    
+    /**
+     * Remove all templates from the index and mark it as not built.
+     */
+    public synchronized void clear() {
+        
+        postings.clear();
+        wordsByTemplate.clear();
+        built = false;
+    }
+    
+    /**
+     * Get the ids of the templates containing all words of given query, most relevant first.
+     * <p>
+     * A word of the query matches the words of a template equal to or starting with it. The relevance of a template is
+     * the sum of the weights of its best match for each word of the query, where an exact match counts twice. Templates
+     * of equal relevance are ordered by id.
+     * </p>
+     *
+     * @param query the words to search for
+     * @return the ids of the matching templates ordered by relevance
+     * @throws IllegalArgumentException if given null
+     * @should return the templates containing all words of given query
+     * @should return the templates containing words starting with the words of given query
+     * @should rank exact matches and matches in the title first
+     * @should match the code and name of concept reference terms
+     * @should return an empty list if given query contains no words
+     * @should throw illegal argument exception if given null
+     */
+    public synchronized List<Integer> search(String query) {
+        
+        if (query == null) {
+            throw new IllegalArgumentException("query cannot be null");
+        }
+        Map<Integer, Integer> scores = null;
+        for (String queryWord : Words.tokenize(query)) {
+            final Map<Integer, Integer> wordScores = new HashMap<>();
+            for (Map.Entry<String, Map<Integer, Integer>> posting : postings
+                    .subMap(queryWord, true, queryWord + Character.MAX_VALUE, true)
+                    .entrySet()) {
+                final int factor = posting.getKey()
+                        .equals(queryWord) ? EXACT_MATCH_FACTOR : 1;
+                for (Map.Entry<Integer, Integer> weight : posting.getValue()
+                        .entrySet()) {
+                    wordScores.merge(weight.getKey(), weight.getValue() * factor, Math::max);
+                }
+            }
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                scores.keySet()
+                        .retainAll(wordScores.keySet());
+                for (Map.Entry<Integer, Integer> score : scores.entrySet()) {
+                    score.setValue(score.getValue() + wordScores.get(score.getKey()));
+                }
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        if (scores == null) {
+            return new ArrayList<>();
+        }
+        final Map<Integer, Integer> result = scores;
+        final List<Integer> templateIds = new ArrayList<>(result.keySet());
+        templateIds.sort((left, right) -> {
+            final int byScore = Integer.compare(result.get(right), result.get(left));
+            return byScore != 0 ? byScore : Integer.compare(left, right);
+        });
+        return templateIds;
+    }
+    
+    /**
+     * @return the number of indexed templates
+     */
+    public synchronized int getTemplateCount() {
+        
+        return wordsByTemplate.size();
+    }
+    
+    /**
+     * @return the number of distinct indexed words
+     */
+    public synchronized int getWordCount() {
+        
+        return postings.size();
+    }
+    
+    private void index(MrrtReportTemplate template) {
+        
+        final Map<String, Integer> weights = new HashMap<>();
+        addField(weights, template.getDcTermsTitle(), TITLE_WEIGHT);
+        addField(weights, template.getDcTermsDescription(), DESCRIPTION_WEIGHT);
+        addField(weights, template.getDcTermsPublisher(), OTHER_WEIGHT);
+        addField(weights, template.getDcTermsCreator(), OTHER_WEIGHT);
+        addField(weights, template.getDcTermsLicense(), OTHER_WEIGHT);
+        if (template.getTerms() != null) {
+            final Set<String> termWords = new HashSet<>();
+            for (ConceptReferenceTerm term : template.getTerms()) {
+                termWords.addAll(Words.tokenize(term.getCode()));
+                termWords.addAll(Words.tokenize(term.getName()));
+            }
+            for (String word : termWords) {
+                weights.merge(word, TERM_WEIGHT, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            postings.computeIfAbsent(weight.getKey(), word -> new HashMap<>())
+                    .put(template.getTemplateId(), weight.getValue());
+        }
+        wordsByTemplate.put(template.getTemplateId(), new HashSet<>(weights.keySet()));
+    }
+    
+    private static void addField(Map<String, Integer> weights, String field, int weight) {
+        
+        for (String word : Words.tokenize(field)) {
+            weights.merge(word, weight, Integer::sum);
+        }
+    }
+}
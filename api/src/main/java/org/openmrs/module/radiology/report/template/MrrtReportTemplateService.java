@@ -10,11 +10,13 @@
 package org.openmrs.module.radiology.report.template;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import org.openmrs.annotation.Authorized;
 import org.openmrs.api.APIException;
 import org.openmrs.api.OpenmrsService;
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
 import org.openmrs.module.radiology.RadiologyPrivileges;
 
 /**
@@ -49,26 +51,89 @@ public interface MrrtReportTemplateService extends OpenmrsService {
      * 
      * @param mrrtTemplate the mrrt template to be imported
      * @return the saved mrrt template
-     * @throws IOException if one is thrown during parsing, validation or if FileUtils.writeStringToFile throws one
+     * @throws IOException if one is thrown during parsing, validation or storing the template file
      * @throws APIException if importing an invalid template
      * @should create mrrt report template in the database and on the file system
+     * @should store the template file named by the sha-256 of its content
      * @should not create an mrrt report template in the database and store the template as file if given template is invalid
      */
     @Authorized(RadiologyPrivileges.ADD_RADIOLOGY_REPORT_TEMPLATES)
     public MrrtReportTemplate importMrrtReportTemplate(String mrrtTemplate) throws IOException;
     
+    /**
+     * Import all {@code MrrtReportTemplate}'s of a ZIP archive into the system.
+     * <p>
+     * The templates are validated in parallel and stored in batches, each batch in its own transaction unless called
+     * within a transaction. A template which is invalid, has the dcterms identifier of a template in the system or of
+     * a template earlier in the archive is skipped without affecting the other templates. If storing a batch fails
+     * the templates of that batch are reported as failed while the other batches are still committed. If called within
+     * a transaction, a failure is thrown instead since that transaction cannot be committed anymore.
+     * </p>
+     * 
+     * @param archive the ZIP archive containing one mrrt template per file
+     * @return the result of each file of the archive in archive order
+     * @throws IOException if the archive cannot be read
+     * @throws IllegalArgumentException if given null
+     * @should import all valid templates of given archive
+     * @should report invalid templates without importing them
+     * @should report templates with a dcterms identifier occurring earlier in the archive as duplicate
+     * @should report templates with a dcterms identifier of an existing template as duplicate
+     * @should throw the failure of a batch if called within a transaction
+     * @should throw illegal argument exception if given null
+     */
+    @Authorized(RadiologyPrivileges.ADD_RADIOLOGY_REPORT_TEMPLATES)
+    public List<MrrtReportTemplateImportResult> importMrrtReportTemplates(InputStream archive) throws IOException;
+    
     /**
      * Delete an {@code MrrtReportTemplate} from the database.
+     * <p>
+     * Its template file is deleted once the transaction commits unless another template refers to it by then.
+     * </p>
      *
      * @param template the mrrt report template that is been deleted
      * @throws IllegalArgumentException if given null
-     * @should delete report template from database and also delete template file from the system
+     * @should delete report template from database and keep its file until the transaction commits
+     * @should delete the template file once the transaction commits
      * @should throw illegal argument exception if given null
      * @should catch file not found exception when the file been deleted is missing
+     * @should remove the cached body content of the template
+     * @should not delete template file still referenced by another template
      */
     @Authorized(RadiologyPrivileges.DELETE_RADIOLOGY_REPORT_TEMPLATES)
     public void purgeMrrtReportTemplate(MrrtReportTemplate template);
     
+    /**
+     * Reconcile the template files referenced by {@code MrrtReportTemplate}'s with the template files on the
+     * filesystem.
+     * <p>
+     * Template files are stored in the report template home directory named by the SHA-256 of their content. Files of
+     * templates imported before are moved into the store and the templates updated accordingly. Stored files no
+     * template refers to and temporary files left behind by interrupted imports are deleted. Templates whose file is
+     * missing are logged and kept.
+     * </p>
+     * <p>
+     * This is run when the module is started and must not run concurrently with an import.
+     * </p>
+     *
+     * @throws IOException if the report template home directory cannot be listed or a file cannot be moved or deleted
+     * @should move template files not in the store into the store
+     * @should delete stored files not referenced by any template
+     * @should keep templates whose file is missing
+     */
+    public void reconcileMrrtReportTemplateFiles() throws IOException;
+    
+    /**
+     * Rebuild the in memory index searched by {@link #getMrrtReportTemplates(MrrtReportTemplateSearchCriteria)} given a
+     * query from all {@code MrrtReportTemplate's}.
+     * <p>
+     * This is run when the module is started. Saved, imported and purged templates update the index themselves once
+     * their transaction commits.
+     * </p>
+     *
+     * @should index all mrrt report templates
+     */
+    public void rebuildMrrtReportTemplateSearchIndex();
+    
     /**
      * Get an {@code MrrtReportTemplate} with a given id.
      * 
@@ -111,6 +176,11 @@ public interface MrrtReportTemplateService extends OpenmrsService {
     /**
      * Get all {@code MrrtReportTemplate's} matching a variety of (nullable) criteria.
      * Returns results ordered by dcTermsTitle. 
+     * <p>
+     * If a query is given, templates are searched in an in memory index of the words of their title, description,
+     * publisher, creator, license and concept reference terms instead and returned most relevant first. A template
+     * matches if it contains every word of the query or a word starting with it.
+     * </p>
      * 
      * @param mrrtReportTemplateSearchCriteria the object containing search parameters
      * @return the mrrt report templates matching the given criteria
@@ -122,6 +192,13 @@ public interface MrrtReportTemplateService extends OpenmrsService {
      * @should return an empty list if no match for publisher was found
      * @should return all mrrt report templates that match given license anywhere in dcterms license insensitive to case
      * @should return an empty list if no match for license was found
+     * @should not return a template purged after an earlier call
+     * @should return mrrt report templates matching all words of given query most relevant first
+     * @should return mrrt report templates containing words starting with the words of given query
+     * @should return mrrt report templates whose concept reference terms match given query
+     * @should return mrrt report templates matching given query and the other criteria
+     * @should return mrrt report templates saved after the search index was built once committed
+     * @should not return mrrt report templates purged after the search index was built
      */
     @Authorized(RadiologyPrivileges.GET_RADIOLOGY_REPORT_TEMPLATES)
     public List<MrrtReportTemplate>
@@ -129,13 +206,28 @@ public interface MrrtReportTemplateService extends OpenmrsService {
     
     /**
      * Get the HTML body content of {@code MrrtReportTemplate's} file.
+     * <p>
+     * The body content of saved templates is cached until the template file is modified or the template is purged.
+     * </p>
      * 
      * @param mrrtReportTemplate the mrrt report template for which we want to get its html body content
      * @return the body content of the mrrt report template file
      * @throws IOException if one is thrown while reading the file
      * @should return the body content of the mrrt report template file
+     * @should return the cached body content if the template file was not modified
+     * @should return the body content of the modified template file if the template file was modified
      * @should throw illegal argument exception if given null
      */
     @Authorized(RadiologyPrivileges.VIEW_RADIOLOGY_REPORT_TEMPLATES)
     public String getMrrtReportTemplateHtmlBody(MrrtReportTemplate mrrtReportTemplate) throws IOException;
+    
+    /**
+     * Get the statistics of the second-level cache regions holding {@code MrrtReportTemplate's}, their concept reference
+     * terms and the results of mrrt report template queries.
+     * 
+     * @return the statistics of the template, terms and query cache regions
+     * @should return the statistics of the template, terms and query cache regions
+     */
+    @Authorized(RadiologyPrivileges.GET_RADIOLOGY_REPORT_TEMPLATES)
+    public List<RadiologyCacheStatistics> getMrrtReportTemplateCacheStatistics();
 }
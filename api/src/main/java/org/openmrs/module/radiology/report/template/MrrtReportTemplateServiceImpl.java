@@ -11,21 +11,46 @@ package org.openmrs.module.radiology.report.template;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.openmrs.api.APIException;
 import org.openmrs.api.impl.BaseOpenmrsService;
-import org.openmrs.module.radiology.RadiologyProperties;
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.w3c.dom.Document;
 
 @Transactional(readOnly = true)
 class MrrtReportTemplateServiceImpl extends BaseOpenmrsService implements MrrtReportTemplateService {
@@ -33,12 +58,24 @@ class MrrtReportTemplateServiceImpl extends BaseOpenmrsService implements MrrtRe
     
     private static final Log log = LogFactory.getLog(MrrtReportTemplateServiceImpl.class);
     
+    private static final int IMPORT_BATCH_SIZE = 50;
+    
+    private static final int MAX_IMPORT_THREADS = 4;
+    
     private MrrtReportTemplateFileParser parser;
     
-    private RadiologyProperties radiologyProperties;
+    private MrrtReportTemplateValidator validator;
+    
+    private PlatformTransactionManager transactionManager;
     
     private MrrtReportTemplateDAO mrrtReportTemplateDAO;
     
+    private MrrtReportTemplateHtmlBodyCache mrrtReportTemplateHtmlBodyCache;
+    
+    private MrrtReportTemplateFileStore mrrtReportTemplateFileStore;
+    
+    private MrrtReportTemplateSearchIndex mrrtReportTemplateSearchIndex;
+    
     public void setMrrtReportTemplateDAO(MrrtReportTemplateDAO mrrtReportTemplateDAO) {
         this.mrrtReportTemplateDAO = mrrtReportTemplateDAO;
     }
@@ -47,8 +84,24 @@ class MrrtReportTemplateServiceImpl extends BaseOpenmrsService implements MrrtRe
         this.parser = parser;
     }
     
-    public void setRadiologyProperties(RadiologyProperties radiologyProperties) {
-        this.radiologyProperties = radiologyProperties;
+    public void setValidator(MrrtReportTemplateValidator validator) {
+        this.validator = validator;
+    }
+    
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+    
+    public void setMrrtReportTemplateHtmlBodyCache(MrrtReportTemplateHtmlBodyCache mrrtReportTemplateHtmlBodyCache) {
+        this.mrrtReportTemplateHtmlBodyCache = mrrtReportTemplateHtmlBodyCache;
+    }
+    
+    public void setMrrtReportTemplateFileStore(MrrtReportTemplateFileStore mrrtReportTemplateFileStore) {
+        this.mrrtReportTemplateFileStore = mrrtReportTemplateFileStore;
+    }
+    
+    public void setMrrtReportTemplateSearchIndex(MrrtReportTemplateSearchIndex mrrtReportTemplateSearchIndex) {
+        this.mrrtReportTemplateSearchIndex = mrrtReportTemplateSearchIndex;
     }
     
     /**
@@ -60,12 +113,238 @@ class MrrtReportTemplateServiceImpl extends BaseOpenmrsService implements MrrtRe
         
         final MrrtReportTemplate template = parser.parse(mrrtTemplate);
         
-        final File destination = new File(radiologyProperties.getReportTemplateHome(), java.util.UUID.randomUUID()
-                .toString());
-        FileUtils.writeStringToFile(destination, mrrtTemplate);
+        final Path destination = mrrtReportTemplateFileStore.store(mrrtTemplate.getBytes(StandardCharsets.UTF_8));
+        
+        template.setPath(destination.toString());
+        final MrrtReportTemplate saved = saveMrrtReportTemplate(template);
+        mrrtReportTemplateHtmlBodyCache.invalidate(saved.getTemplateId());
+        return saved;
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#importMrrtReportTemplates(InputStream)
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<MrrtReportTemplateImportResult> importMrrtReportTemplates(InputStream archive) throws IOException {
+        
+        if (archive == null) {
+            throw new IllegalArgumentException("archive cannot be null");
+        }
+        final int threadCount = Math.min(Runtime.getRuntime()
+                .availableProcessors(), MAX_IMPORT_THREADS);
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(threadCount), new ThreadPoolExecutor.CallerRunsPolicy());
+        final MrrtReportTemplateArchiveImport archiveImport =
+                new MrrtReportTemplateArchiveImport(TransactionSynchronizationManager.isActualTransactionActive());
+        try {
+            final ZipInputStream zipInputStream = new ZipInputStream(archive, StandardCharsets.UTF_8);
+            ZipEntry zipEntry;
+            while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+                if (zipEntry.isDirectory()) {
+                    continue;
+                }
+                final String fileName = zipEntry.getName();
+                final String mrrtTemplate = IOUtils.toString(zipInputStream, StandardCharsets.UTF_8);
+                archiveImport.add(executor.submit(() -> validateArchiveEntry(fileName, mrrtTemplate)));
+            }
+            archiveImport.complete();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return archiveImport.getResults();
+    }
+    
+    /**
+     * Parse and validate a template of an archive, which is safe to run in parallel since it does not touch the
+     * database.
+     */
+    private ValidatedArchiveEntry validateArchiveEntry(String fileName, String mrrtTemplate) throws IOException {
+        
+        try {
+            return new ValidatedArchiveEntry(fileName, mrrtTemplate, validator.parseAndValidate(mrrtTemplate), null);
+        }
+        catch (MrrtReportTemplateValidationException e) {
+            return new ValidatedArchiveEntry(fileName, mrrtTemplate, null,
+                    new MrrtReportTemplateImportResult(fileName, MrrtReportTemplateImportResult.Status.INVALID, null,
+                            e.getMessage(), e.getValidationResult()
+                                    .getErrors()));
+        }
+        catch (APIException e) {
+            return new ValidatedArchiveEntry(fileName, mrrtTemplate, null, new MrrtReportTemplateImportResult(fileName,
+                    MrrtReportTemplateImportResult.Status.INVALID, null, e.getMessage(), null));
+        }
+    }
+    
+    /**
+     * State of one {@link #importMrrtReportTemplates(InputStream)} call.
+     * <p>
+     * Validated entries are taken in archive order, checked for duplicate dcterms identifiers in memory and stored in
+     * batches of {@code IMPORT_BATCH_SIZE} templates, each batch in its own transaction unless the import already
+     * runs in one. Only a bounded number of entries is pending validation at any time.
+     * </p>
+     * <p>
+     * A batch failing in a transaction of its own is reported as failed. A batch failing within the transaction the
+     * import runs in is thrown since that transaction is marked for rollback and cannot commit the other batches.
+     * </p>
+     */
+    private class MrrtReportTemplateArchiveImport {
+        
+        
+        private final boolean participating;
+        
+        private final Deque<Future<ValidatedArchiveEntry>> pending = new ArrayDeque<>();
+        
+        private final List<MrrtReportTemplateImportResult> results = new ArrayList<>();
+        
+        private final Set<String> identifiers = new HashSet<>();
+        
+        private final List<Integer> batch = new ArrayList<>();
+        
+        private final List<ValidatedArchiveEntry> batchEntries = new ArrayList<>();
+        
+        MrrtReportTemplateArchiveImport(boolean participating) {
+            this.participating = participating;
+        }
+        
+        void add(Future<ValidatedArchiveEntry> validation) throws IOException {
+            
+            pending.add(validation);
+            while (pending.size() > IMPORT_BATCH_SIZE) {
+                take(pending.poll());
+            }
+        }
+        
+        void complete() throws IOException {
+            
+            while (!pending.isEmpty()) {
+                take(pending.poll());
+            }
+            storeBatch();
+        }
+        
+        List<MrrtReportTemplateImportResult> getResults() {
+            
+            return results;
+        }
+        
+        private void take(Future<ValidatedArchiveEntry> validation) throws IOException {
+            
+            final ValidatedArchiveEntry entry;
+            try {
+                entry = validation.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread()
+                        .interrupt();
+                throw new APIException("radiology.MrrtReportTemplate.import.interrupted", null, e);
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new APIException(e.getCause());
+            }
+            if (entry.result != null) {
+                results.add(entry.result);
+                return;
+            }
+            batch.add(results.size());
+            batchEntries.add(entry);
+            results.add(null);
+            if (batch.size() >= IMPORT_BATCH_SIZE) {
+                storeBatch();
+            }
+        }
+        
+        private void storeBatch() {
+            
+            if (batch.isEmpty()) {
+                return;
+            }
+            final List<Path> written = new ArrayList<>();
+            try {
+                new TransactionTemplate(transactionManager).execute(new TransactionCallbackWithoutResult() {
+                    
+                    
+                    @Override
+                    protected void doInTransactionWithoutResult(TransactionStatus status) {
+                        for (int i = 0; i < batch.size(); i++) {
+                            final MrrtReportTemplateImportResult result = store(batchEntries.get(i), written);
+                            results.set(batch.get(i), result);
+                            if (result.getStatus() == MrrtReportTemplateImportResult.Status.IMPORTED) {
+                                runAfterCommit(() -> mrrtReportTemplateSearchIndex.add(result.getTemplate()));
+                            }
+                        }
+                    }
+                });
+            }
+            catch (RuntimeException e) {
+                for (Path file : written) {
+                    FileUtils.deleteQuietly(file.toFile());
+                }
+                if (participating) {
+                    throw e;
+                }
+                log.error("Failed to store batch of report templates", e);
+                for (int i = 0; i < batch.size(); i++) {
+                    final ValidatedArchiveEntry entry = batchEntries.get(i);
+                    results.set(batch.get(i), new MrrtReportTemplateImportResult(entry.fileName,
+                            MrrtReportTemplateImportResult.Status.FAILED, null, e.getMessage(), null));
+                }
+            }
+            finally {
+                batch.clear();
+                batchEntries.clear();
+            }
+        }
+        
+        private MrrtReportTemplateImportResult store(ValidatedArchiveEntry entry, List<Path> written) {
+            
+            final MrrtReportTemplate template = parser.parse(entry.document);
+            final String identifier = template.getDcTermsIdentifier();
+            if (!identifiers.add(identifier)
+                    || mrrtReportTemplateDAO.getMrrtReportTemplateByIdentifier(identifier) != null) {
+                return new MrrtReportTemplateImportResult(entry.fileName, MrrtReportTemplateImportResult.Status.DUPLICATE,
+                        template, "Template already exist in the system.", null);
+            }
+            final Path destination;
+            try {
+                destination = mrrtReportTemplateFileStore.store(entry.mrrtTemplate.getBytes(StandardCharsets.UTF_8));
+            }
+            catch (IOException e) {
+                throw new APIException("Failed to store template file of " + entry.fileName, e);
+            }
+            written.add(destination);
+            template.setPath(destination.toString());
+            mrrtReportTemplateDAO.saveMrrtReportTemplate(template);
+            return new MrrtReportTemplateImportResult(entry.fileName, MrrtReportTemplateImportResult.Status.IMPORTED,
+                    template, null, null);
+        }
+    }
+    
+    /**
+     * Template of an archive after validation, holding either the parsed document or the result of an invalid template.
+     */
+    private static final class ValidatedArchiveEntry {
+        
+        
+        private final String fileName;
         
-        template.setPath(destination.getAbsolutePath());
-        return saveMrrtReportTemplate(template);
+        private final String mrrtTemplate;
+        
+        private final Document document;
+        
+        private final MrrtReportTemplateImportResult result;
+        
+        private ValidatedArchiveEntry(String fileName, String mrrtTemplate, Document document,
+            MrrtReportTemplateImportResult result) {
+            this.fileName = fileName;
+            this.mrrtTemplate = mrrtTemplate;
+            this.document = document;
+            this.result = result;
+        }
     }
     
     /**
@@ -81,7 +360,31 @@ class MrrtReportTemplateServiceImpl extends BaseOpenmrsService implements MrrtRe
         if (existing != null) {
             throw new APIException("Template already exist in the system.");
         }
-        return mrrtReportTemplateDAO.saveMrrtReportTemplate(template);
+        final MrrtReportTemplate saved = mrrtReportTemplateDAO.saveMrrtReportTemplate(template);
+        runAfterCommit(() -> mrrtReportTemplateSearchIndex.add(saved));
+        return saved;
+    }
+    
+    /**
+     * Run given work once the current transaction commits, so that neither the search index nor the template files
+     * are changed for a template whose saving or purging was rolled back.
+     * 
+     * @param work the work to run after commit
+     */
+    private void runAfterCommit(Runnable work) {
+        
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            work.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            
+            
+            @Override
+            public void afterCommit() {
+                work.run();
+            }
+        });
     }
     
     /**
@@ -94,18 +397,124 @@ class MrrtReportTemplateServiceImpl extends BaseOpenmrsService implements MrrtRe
             throw new IllegalArgumentException("template cannot be null");
         }
         mrrtReportTemplateDAO.purgeMrrtReportTemplate(template);
-        Path templatePath = Paths.get(template.getPath());
+        mrrtReportTemplateHtmlBodyCache.invalidate(template.getTemplateId());
+        final Integer templateId = template.getTemplateId();
+        final String path = template.getPath();
+        runAfterCommit(() -> {
+            mrrtReportTemplateSearchIndex.remove(templateId);
+            deleteUnreferencedTemplateFile(path);
+        });
+    }
+    
+    /**
+     * Delete the template file at given path unless a template refers to it, which is checked in a transaction of its
+     * own since it runs after the purging transaction committed. Template files which cannot be deleted are deleted by
+     * {@link #reconcileMrrtReportTemplateFiles()}.
+     * 
+     * @param path the path of the template file of a purged template
+     */
+    private void deleteUnreferencedTemplateFile(String path) {
+        
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+        final Long templateCount =
+                transactionTemplate.execute(status -> mrrtReportTemplateDAO.getMrrtReportTemplateCountByPath(path));
+        if (templateCount != null && templateCount > 0) {
+            return;
+        }
         try {
-            Files.delete(templatePath);
+            Files.delete(Paths.get(path));
         }
         catch (NoSuchFileException noSuchFileException) {
-            log.debug("Tried to delete " + template.getPath() + " , but wasnt found.");
+            log.debug("Tried to delete " + path + " , but wasnt found.");
         }
         catch (IOException ioException) {
-            throw new APIException("radiology.MrrtReportTemplate.delete.error.fs", null, ioException);
+            log.error("Failed to delete template file " + path + " of a purged template", ioException);
         }
     }
     
+    /**
+     * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateService#reconcileMrrtReportTemplateFiles()
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void reconcileMrrtReportTemplateFiles() throws IOException {
+        
+        final Set<Path> referenced = new HashSet<>();
+        final List<Path> migrated = new ArrayList<>();
+        new TransactionTemplate(transactionManager).execute(new TransactionCallbackWithoutResult() {
+            
+            
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                try {
+                    for (MrrtReportTemplate template : mrrtReportTemplateDAO
+                            .getMrrtReportTemplates(new MrrtReportTemplateSearchCriteria.Builder().build())) {
+                        reconcileMrrtReportTemplateFile(template, referenced, migrated);
+                    }
+                }
+                catch (IOException e) {
+                    throw new APIException("Failed to move report template files into the store", e);
+                }
+            }
+        });
+        
+        final Path home = mrrtReportTemplateFileStore.getHome();
+        for (Path file : migrated) {
+            if (home.equals(file.getParent()) && !referenced.contains(file)) {
+                Files.deleteIfExists(file);
+            }
+        }
+        int orphans = 0;
+        for (Path file : mrrtReportTemplateFileStore.getStoredFiles()) {
+            if (!referenced.contains(file)) {
+                Files.deleteIfExists(file);
+                orphans++;
+            }
+        }
+        final int temporaryFiles = mrrtReportTemplateFileStore.deleteTemporaryFiles();
+        log.info("Reconciled report template files: " + migrated.size() + " moved into the store, " + orphans
+                + " unreferenced and " + temporaryFiles + " temporary files deleted");
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateService#rebuildMrrtReportTemplateSearchIndex()
+     */
+    @Override
+    public void rebuildMrrtReportTemplateSearchIndex() {
+        
+        final List<MrrtReportTemplate> templates =
+                mrrtReportTemplateDAO.getMrrtReportTemplates(new MrrtReportTemplateSearchCriteria.Builder().build());
+        mrrtReportTemplateSearchIndex.rebuild(templates);
+        log.info("Indexed " + mrrtReportTemplateSearchIndex.getTemplateCount() + " report templates with "
+                + mrrtReportTemplateSearchIndex.getWordCount() + " distinct words");
+    }
+    
+    /**
+     * Move the file of given template into the store unless it is already stored or missing.
+     */
+    private void reconcileMrrtReportTemplateFile(MrrtReportTemplate template, Set<Path> referenced, List<Path> migrated)
+            throws IOException {
+        
+        final Path path = Paths.get(template.getPath())
+                .toAbsolutePath()
+                .normalize();
+        if (!Files.isRegularFile(path)) {
+            log.warn("File " + path + " of report template " + template.getUuid() + " is missing");
+            return;
+        }
+        if (mrrtReportTemplateFileStore.isStored(path)) {
+            referenced.add(path);
+            return;
+        }
+        final Path stored = mrrtReportTemplateFileStore.store(Files.readAllBytes(path));
+        template.setPath(stored.toString());
+        referenced.add(stored);
+        migrated.add(path);
+        mrrtReportTemplateHtmlBodyCache.invalidate(template.getTemplateId());
+    }
+    
     /**
      * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateService#getMrrtReportTemplate(Integer)
      */
@@ -148,9 +557,37 @@ class MrrtReportTemplateServiceImpl extends BaseOpenmrsService implements MrrtRe
         if (mrrtReportTemplateSearchCriteria == null) {
             throw new IllegalArgumentException("mrrtReportTemplateSearchCriteria cannot be null");
         }
+        if (mrrtReportTemplateSearchCriteria.getQuery() != null) {
+            return searchMrrtReportTemplates(mrrtReportTemplateSearchCriteria);
+        }
         return mrrtReportTemplateDAO.getMrrtReportTemplates(mrrtReportTemplateSearchCriteria);
     }
     
+    /**
+     * Get the templates matching the query of given criteria from the search index, most relevant first, filtered by
+     * the other criteria.
+     */
+    private List<MrrtReportTemplate> searchMrrtReportTemplates(MrrtReportTemplateSearchCriteria searchCriteria) {
+        
+        if (!mrrtReportTemplateSearchIndex.isBuilt()) {
+            rebuildMrrtReportTemplateSearchIndex();
+        }
+        final List<Integer> templateIds = mrrtReportTemplateSearchIndex.search(searchCriteria.getQuery());
+        final Map<Integer, MrrtReportTemplate> templates = new HashMap<>();
+        for (MrrtReportTemplate template : mrrtReportTemplateDAO.getMrrtReportTemplates(searchCriteria, templateIds)) {
+            templates.put(template.getTemplateId(), template);
+        }
+        final List<MrrtReportTemplate> result = new ArrayList<>(templates.size());
+        for (Integer templateId : templateIds) {
+            // templates not matching the other criteria or purged since the index was searched are left out
+            final MrrtReportTemplate template = templates.get(templateId);
+            if (template != null) {
+                result.add(template);
+            }
+        }
+        return result;
+    }
+    
     /**
      * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateService#getMrrtReportTemplateHtmlBody(MrrtReportTemplate)
      */
@@ -160,9 +597,35 @@ class MrrtReportTemplateServiceImpl extends BaseOpenmrsService implements MrrtRe
             throw new IllegalArgumentException("mrrtReportTemplate cannot be null");
         }
         final File templateFile = new File(mrrtReportTemplate.getPath());
-        final Document doc = Jsoup.parse(templateFile, null);
+        final Integer templateId = mrrtReportTemplate.getTemplateId();
+        if (templateId == null) {
+            return parseHtmlBody(templateFile);
+        }
+        final long lastModified = templateFile.lastModified();
+        final long length = templateFile.length();
+        String htmlBody = mrrtReportTemplateHtmlBodyCache.get(templateId, lastModified, length);
+        if (htmlBody == null) {
+            htmlBody = parseHtmlBody(templateFile);
+            mrrtReportTemplateHtmlBodyCache.put(templateId, lastModified, length, htmlBody);
+        }
+        return htmlBody;
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateService#getMrrtReportTemplateCacheStatistics()
+     */
+    @Override
+    public List<RadiologyCacheStatistics> getMrrtReportTemplateCacheStatistics() {
+        
+        return mrrtReportTemplateDAO.getMrrtReportTemplateCacheStatistics();
+    }
+    
+    private String parseHtmlBody(File templateFile) throws IOException {
         
-        return doc.select("body")
+        final String html = StandardCharsets.UTF_8.decode(mrrtReportTemplateFileStore.read(templateFile.toPath()))
+                .toString();
+        return Jsoup.parse(html)
+                .select("body")
                 .html();
     }
 }
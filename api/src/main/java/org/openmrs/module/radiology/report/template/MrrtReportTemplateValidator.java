@@ -10,6 +10,7 @@
 package org.openmrs.module.radiology.report.template;
 
 import org.openmrs.api.APIException;
+import org.w3c.dom.Document;
 
 import java.io.IOException;
 
@@ -28,6 +29,7 @@ public interface MrrtReportTemplateValidator {
      * @throws IOException
      * @throws APIException if the mrrt template fails validation
      * @should pass if template template follows mrrt standards
+     * @should pass if valid templates are validated concurrently
      * @should throw api exception if template does not have an html element
      * @should throw api exception if template has more than one html element
      * @should throw api exception if html element does not have a head element
@@ -52,4 +54,20 @@ public interface MrrtReportTemplateValidator {
      * @should catch all violation errors and throw an mrrt report template exception
      */
     public void validate(String mrrtTemplate) throws IOException;
+    
+    /**
+     * Parse an mrrt template into an XML document and validate it according to the IHE standard.
+     * <p>
+     * Callers which need the content of the template after validating it read it from the returned document instead
+     * of parsing the template again.
+     * </p>
+     *
+     * @param mrrtTemplate the mrrt report template to be parsed and validated
+     * @return the parsed mrrt report template
+     * @throws IOException
+     * @throws APIException if the mrrt template is not well formed or fails validation
+     * @should return the parsed document if template follows mrrt standards
+     * @should throw api exception if template is not well formed
+     */
+    public Document parseAndValidate(String mrrtTemplate) throws IOException;
 }
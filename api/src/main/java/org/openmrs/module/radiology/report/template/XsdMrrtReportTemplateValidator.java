@@ -9,24 +9,34 @@
  */
 package org.openmrs.module.radiology.report.template;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URL;
 
 import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Attributes;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Tag;
 import org.jsoup.select.Elements;
 import org.openmrs.api.APIException;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
@@ -40,8 +50,15 @@ public class XsdMrrtReportTemplateValidator implements MrrtReportTemplateValidat
     
     private static final String MRRT_REPORT_TEMPLATE_SCHEMA_FILE = "MrrtReportTemplateSchema.xsd";
     
+    private static final String LOAD_EXTERNAL_DTD_FEATURE =
+            "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+    
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = newDocumentBuilderFactory();
+    
     MetaTagsValidationEngine metaTagsValidationEngine;
     
+    private volatile Schema schema;
+    
     public MetaTagsValidationEngine getMetaTagsValidationEngine() {
         return metaTagsValidationEngine;
     }
@@ -56,16 +73,20 @@ public class XsdMrrtReportTemplateValidator implements MrrtReportTemplateValidat
     @Override
     public void validate(String mrrtTemplate) throws IOException {
         
-        final Document document = Jsoup.parse(mrrtTemplate, "");
-        final Elements metatags = document.getElementsByTag("meta");
-        ValidationResult validationResult = metaTagsValidationEngine.run(metatags);
+        parseAndValidate(mrrtTemplate);
+    }
+    
+    /**
+     * @see MrrtReportTemplateValidator#parseAndValidate(String)
+     */
+    @Override
+    public Document parseAndValidate(String mrrtTemplate) throws IOException {
         
-        final SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        final Schema schema;
-        final Validator validator;
-        try (InputStream in = IOUtils.toInputStream(mrrtTemplate)) {
-            schema = factory.newSchema(getSchemaFile());
-            validator = schema.newValidator();
+        try {
+            final Document document = parse(mrrtTemplate);
+            final ValidationResult validationResult = metaTagsValidationEngine.run(getMetaTags(document));
+            
+            final Validator validator = getSchema().newValidator();
             validator.setErrorHandler(new ErrorHandler() {
                 
                 
@@ -87,8 +108,9 @@ public class XsdMrrtReportTemplateValidator implements MrrtReportTemplateValidat
                     validationResult.addError(exception.getMessage(), "");
                 }
             });
-            validator.validate(new StreamSource(in));
+            validator.validate(new DOMSource(document));
             validationResult.assertOk();
+            return document;
         }
         catch (SAXException e) {
             log.error(e.getMessage(), e);
@@ -96,9 +118,115 @@ public class XsdMrrtReportTemplateValidator implements MrrtReportTemplateValidat
         }
     }
     
-    private File getSchemaFile() {
-        return new File(getClass().getClassLoader()
-                .getResource(MRRT_REPORT_TEMPLATE_SCHEMA_FILE)
-                .getFile());
+    /**
+     * Parse given mrrt template into an XML document, the one model all validations and the extraction of the
+     * template metadata run against.
+     */
+    private Document parse(String mrrtTemplate) throws SAXException, IOException {
+        
+        final DocumentBuilder documentBuilder;
+        try {
+            synchronized (DOCUMENT_BUILDER_FACTORY) {
+                documentBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            }
+        }
+        catch (ParserConfigurationException e) {
+            throw new APIException("radiology.report.template.validation.error", null, e);
+        }
+        documentBuilder.setErrorHandler(new ErrorHandler() {
+            
+            
+            @Override
+            public void warning(SAXParseException exception) throws SAXException {
+                log.debug(exception.getMessage(), exception);
+            }
+            
+            @Override
+            public void error(SAXParseException exception) throws SAXException {
+                throw exception;
+            }
+            
+            @Override
+            public void fatalError(SAXParseException exception) throws SAXException {
+                throw exception;
+            }
+        });
+        return documentBuilder.parse(new InputSource(new StringReader(mrrtTemplate)));
+    }
+    
+    /**
+     * Get the meta elements of given document as the elements the {@code MetaTagsValidationEngine} runs on.
+     */
+    private Elements getMetaTags(Document document) {
+        
+        final NodeList metaNodes = document.getElementsByTagName("meta");
+        final Elements result = new Elements(metaNodes.getLength());
+        for (int i = 0; i < metaNodes.getLength(); i++) {
+            final NamedNodeMap metaAttributes = metaNodes.item(i)
+                    .getAttributes();
+            final Attributes attributes = new Attributes();
+            for (int j = 0; j < metaAttributes.getLength(); j++) {
+                final Node metaAttribute = metaAttributes.item(j);
+                attributes.put(metaAttribute.getNodeName(), metaAttribute.getNodeValue());
+            }
+            result.add(new Element(Tag.valueOf("meta"), "", attributes));
+        }
+        return result;
+    }
+    
+    /**
+     * Get the MRRT report template schema, compiling it on first use.
+     * <p>
+     * Compiling the schema is the most expensive part of validating a template. A compiled {@code Schema} is
+     * immutable and thread safe, so it is compiled once and shared while every validation creates its own
+     * {@code Validator}.
+     * </p>
+     *
+     * @return the compiled MRRT report template schema
+     * @throws SAXException if the schema cannot be compiled
+     * @throws IOException if the schema cannot be read
+     * @should return the same schema on every call
+     */
+    Schema getSchema() throws SAXException, IOException {
+        
+        Schema result = schema;
+        if (result == null) {
+            synchronized (this) {
+                result = schema;
+                if (result == null) {
+                    result = compileSchema();
+                    schema = result;
+                }
+            }
+        }
+        return result;
+    }
+    
+    private Schema compileSchema() throws SAXException, IOException {
+        
+        final URL schemaUrl = getClass().getClassLoader()
+                .getResource(MRRT_REPORT_TEMPLATE_SCHEMA_FILE);
+        if (schemaUrl == null) {
+            throw new IOException(MRRT_REPORT_TEMPLATE_SCHEMA_FILE + " not found on the classpath");
+        }
+        final SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        try (InputStream in = schemaUrl.openStream()) {
+            return factory.newSchema(new StreamSource(in, schemaUrl.toExternalForm()));
+        }
+    }
+    
+    private static DocumentBuilderFactory newDocumentBuilderFactory() {
+        
+        final DocumentBuilderFactory result = DocumentBuilderFactory.newInstance();
+        result.setNamespaceAware(true);
+        result.setExpandEntityReferences(false);
+        try {
+            result.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            result.setFeature(LOAD_EXTERNAL_DTD_FEATURE, false);
+        }
+        catch (ParserConfigurationException e) {
+            log.warn("Could not disable loading of external DTDs for mrrt report templates", e);
+        }
+        return result;
     }
 }
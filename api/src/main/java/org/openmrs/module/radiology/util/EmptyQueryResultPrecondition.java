@@ -0,0 +1,76 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomPreconditionErrorException;
+import liquibase.exception.CustomPreconditionFailedException;
+import liquibase.precondition.CustomPrecondition;
+
+/**
+ * Liquibase precondition which fails if a query returns rows, listing the first column of the rows it returned.
+ * <p>
+ * Used before adding a constraint which existing rows could violate, so that the administrator learns which rows to
+ * correct instead of only that the constraint could not be added.
+ * </p>
+ */
+public class EmptyQueryResultPrecondition implements CustomPrecondition {
+    
+    
+    private static final int MAX_LISTED_VALUES = 100;
+    
+    private String sql;
+    
+    private String message;
+    
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    /**
+     * @see CustomPrecondition#check(Database)
+     * @should pass if the query returns no rows
+     * @should fail listing the first column of the rows the query returned
+     */
+    @Override
+    public void check(Database database) throws CustomPreconditionFailedException, CustomPreconditionErrorException {
+        
+        final List<String> values = new ArrayList<>();
+        boolean more = false;
+        final Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                if (values.size() == MAX_LISTED_VALUES) {
+                    more = true;
+                    break;
+                }
+                values.add(resultSet.getString(1));
+            }
+        }
+        catch (SQLException e) {
+            throw new CustomPreconditionErrorException("Failed to run " + sql, e);
+        }
+        if (!values.isEmpty()) {
+            throw new CustomPreconditionFailedException(message + ": " + String.join(", ", values) + (more ? ", ..." : ""));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.util;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Fixed number of locks (stripes) shared by keys with the same hash.
+ * <p>
+ * Serializes work on equal keys (like a patient or an order id) while work on different keys mostly runs in parallel,
+ * without keeping a lock per key. Keys mapping to the same stripe share a lock, so callers must not hold a stripe
+ * while acquiring another one, unless all of them are acquired at once through
+ * {@link #lockAllUntilTransactionCompletion(Collection)} which acquires stripes in a fixed order.
+ * </p>
+ */
+public class StripedLock {
+    
+    
+    private final Lock[] stripes;
+    
+    /**
+     * Create a {@code StripedLock} with given number of stripes.
+     *
+     * @param stripeCount the number of locks
+     * @throws IllegalArgumentException if stripeCount is smaller than 1
+     * @should throw illegal argument exception if given stripe count is smaller than one
+     */
+    public StripedLock(int stripeCount) {
+        
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount must be greater than 0");
+        }
+        stripes = new Lock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+    
+    /**
+     * Get the lock guarding given key.
+     *
+     * @param key the key to get the lock for, null keys share one lock
+     * @return the lock guarding given key
+     * @should return the same lock for equal keys
+     * @should return a lock for null
+     */
+    public Lock get(Object key) {
+        
+        return stripes[indexOf(key)];
+    }
+    
+    /**
+     * Get the index of the stripe guarding given key.
+     *
+     * @param key the key to get the stripe index for, null keys share one stripe
+     * @return the index of the stripe guarding given key
+     */
+    private int indexOf(Object key) {
+        
+        if (key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return (hash & Integer.MAX_VALUE) % stripes.length;
+    }
+    
+    /**
+     * Acquire the lock guarding given key and hold it until the current transaction has been committed or rolled back.
+     * <p>
+     * Releasing the lock at the end of the method instead would let a waiting thread in before the changes made
+     * under the lock are visible to it.
+     * </p>
+     * 
+     * @param key the key to lock
+     * @throws IllegalStateException if no transaction synchronization is active
+     * @should hold the lock until the current transaction completes
+     * @should throw illegal state exception if no transaction synchronization is active
+     */
+    public void lockUntilTransactionCompletion(Object key) {
+        
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("lockUntilTransactionCompletion requires an active transaction");
+        }
+        final Lock lock = get(key);
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            
+            
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+    
+    /**
+     * Acquire the locks guarding given keys and hold them until the current transaction has been committed or rolled
+     * back.
+     * <p>
+     * Each stripe is acquired once and stripes are acquired in ascending order, so callers locking overlapping sets of
+     * keys cannot deadlock each other.
+     * </p>
+     *
+     * @param keys the keys to lock
+     * @throws IllegalStateException if no transaction synchronization is active
+     * @should hold the locks of all given keys until the current transaction completes
+     * @should throw illegal state exception if no transaction synchronization is active
+     */
+    public void lockAllUntilTransactionCompletion(Collection<?> keys) {
+        
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("lockAllUntilTransactionCompletion requires an active transaction");
+        }
+        final TreeSet<Integer> indices = new TreeSet<>();
+        for (Object key : keys) {
+            indices.add(indexOf(key));
+        }
+        final Lock[] locks = new Lock[indices.size()];
+        int acquired = 0;
+        for (Integer index : indices) {
+            stripes[index].lock();
+            locks[acquired++] = stripes[index];
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            
+            
+            @Override
+            public void afterCompletion(int status) {
+                for (int i = locks.length - 1; i >= 0; i--) {
+                    locks[i].unlock();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Get the number of stripes.
+     *
+     * @return the number of locks
+     */
+    public int size() {
+        return stripes.length;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.util;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class splitting text into the words searched for by the full text indexes of this module.
+ */
+public class Words {
+    
+    
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    
+    private Words() {
+        // Utility class not meant to be instantiated.
+    }
+    
+    /**
+     * Split given text into its distinct lower case words.
+     *
+     * @param text the text to split
+     * @return the distinct words of given text in the order they occur, empty if given null
+     * @should return the distinct lower case words of given text in the order they occur
+     * @should return an empty set if given null
+     */
+    public static Set<String> tokenize(String text) {
+        
+        final Set<String> result = new LinkedHashSet<>();
+        if (text == null) {
+            return result;
+        }
+        for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+}
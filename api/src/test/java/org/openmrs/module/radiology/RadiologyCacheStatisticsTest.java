@@ -0,0 +1,129 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests {@link RadiologyCacheStatistics}.
+ */
+public class RadiologyCacheStatisticsTest {
+    
+    
+    private static final String REGION = "org.openmrs.module.radiology.modality.RadiologyModality";
+    
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+    
+    SessionFactory sessionFactory = mock(SessionFactory.class);
+    
+    Statistics statistics = mock(Statistics.class);
+    
+    SecondLevelCacheStatistics regionStatistics = mock(SecondLevelCacheStatistics.class);
+    
+    @Before
+    public void setUp() {
+        
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        when(regionStatistics.getHitCount()).thenReturn(5L);
+        when(regionStatistics.getMissCount()).thenReturn(2L);
+        when(regionStatistics.getPutCount()).thenReturn(3L);
+        when(regionStatistics.getElementCountInMemory()).thenReturn(4L);
+    }
+    
+    /**
+     * @see RadiologyCacheStatistics#of(SessionFactory,String)
+     * @verifies return the statistics of the region with given name
+     */
+    @Test
+    public void of_shouldReturnTheStatisticsOfTheRegionWithGivenName() throws Exception {
+        
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] { "other", REGION });
+        when(statistics.getSecondLevelCacheStatistics(REGION)).thenReturn(regionStatistics);
+        
+        RadiologyCacheStatistics cacheStatistics = RadiologyCacheStatistics.of(sessionFactory, REGION);
+        
+        assertThat(cacheStatistics.getRegion(), is(REGION));
+        assertThat(cacheStatistics.getHitCount(), is(5L));
+        assertThat(cacheStatistics.getMissCount(), is(2L));
+        assertThat(cacheStatistics.getPutCount(), is(3L));
+        assertThat(cacheStatistics.getElementCountInMemory(), is(4L));
+    }
+    
+    /**
+     * @see RadiologyCacheStatistics#of(SessionFactory,String)
+     * @verifies return the statistics of the region with given name and any region prefix
+     */
+    @Test
+    public void of_shouldReturnTheStatisticsOfTheRegionWithGivenNameAndAnyRegionPrefix() throws Exception {
+        
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] { "openmrs." + REGION });
+        when(statistics.getSecondLevelCacheStatistics("openmrs." + REGION)).thenReturn(regionStatistics);
+        
+        RadiologyCacheStatistics cacheStatistics = RadiologyCacheStatistics.of(sessionFactory, REGION);
+        
+        assertThat(cacheStatistics.getRegion(), is(REGION));
+        assertThat(cacheStatistics.getHitCount(), is(5L));
+        assertThat(cacheStatistics.getElementCountInMemory(), is(4L));
+    }
+    
+    /**
+     * @see RadiologyCacheStatistics#of(SessionFactory,String)
+     * @verifies return zero counts if the region does not exist
+     */
+    @Test
+    public void of_shouldReturnZeroCountsIfTheRegionDoesNotExist() throws Exception {
+        
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] { REGION + ".queries" });
+        
+        RadiologyCacheStatistics cacheStatistics = RadiologyCacheStatistics.of(sessionFactory, REGION);
+        
+        assertThat(cacheStatistics.getRegion(), is(REGION));
+        assertThat(cacheStatistics.getHitCount(), is(0L));
+        assertThat(cacheStatistics.getMissCount(), is(0L));
+        assertThat(cacheStatistics.getPutCount(), is(0L));
+        assertThat(cacheStatistics.getElementCountInMemory(), is(0L));
+    }
+    
+    /**
+     * @see RadiologyCacheStatistics#of(SessionFactory,String)
+     * @verifies throw illegal argument exception if given session factory is null
+     */
+    @Test
+    public void of_shouldThrowIllegalArgumentExceptionIfGivenSessionFactoryIsNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("sessionFactory cannot be null");
+        RadiologyCacheStatistics.of(null, REGION);
+    }
+    
+    /**
+     * @see RadiologyCacheStatistics#of(SessionFactory,String)
+     * @verifies throw illegal argument exception if given region is null
+     */
+    @Test
+    public void of_shouldThrowIllegalArgumentExceptionIfGivenRegionIsNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("region cannot be null");
+        RadiologyCacheStatistics.of(sessionFactory, null);
+    }
+}
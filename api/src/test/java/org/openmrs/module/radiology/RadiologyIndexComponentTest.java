@@ -0,0 +1,311 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.AdditionalAnswers;
+import org.openmrs.module.radiology.order.RadiologyOrder;
+import org.openmrs.module.radiology.report.RadiologyReportSearchCriteria;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Tests that the indexes created by the liquibase changelog serve the queries of the radiology DAOs.
+ * <p>
+ * The schema of the test database is generated from the hibernate mappings, so the indexes of the changelog are
+ * created from its {@code createIndex} changes before checking the query plans of the H2 test database. Where the
+ * DAO builds its query with criteria, the plan of the SQL hibernate generates for it is checked.
+ * </p>
+ */
+public class RadiologyIndexComponentTest extends BaseModuleContextSensitiveTest {
+    
+    
+    private static final String LIQUIBASE_CHANGELOG = "liquibase.xml";
+    
+    private static final String TABLE_SCAN = "tablescan";
+    
+    private static final String RADIOLOGY_REPORT_DAO = "org.openmrs.module.radiology.report.HibernateRadiologyReportDAO";
+    
+    @Autowired
+    private SessionFactory sessionFactory;
+    
+    private final List<String> createdIndexes = new ArrayList<>();
+    
+    @Before
+    public void setUp() throws Exception {
+        
+        final NodeList createIndexes;
+        try (InputStream changelog = getClass().getClassLoader()
+                .getResourceAsStream(LIQUIBASE_CHANGELOG)) {
+            createIndexes = DocumentBuilderFactory.newInstance()
+                    .newDocumentBuilder()
+                    .parse(changelog)
+                    .getElementsByTagName("createIndex");
+        }
+        final Connection connection = getConnection();
+        for (int i = 0; i < createIndexes.getLength(); i++) {
+            final Element createIndex = (Element) createIndexes.item(i);
+            final String indexName = createIndex.getAttribute("indexName");
+            final String tableName = createIndex.getAttribute("tableName");
+            if (hasIndex(connection, tableName, indexName)) {
+                continue;
+            }
+            final NodeList columns = createIndex.getElementsByTagName("column");
+            final StringBuilder sql = new StringBuilder("CREATE ");
+            if (Boolean.parseBoolean(createIndex.getAttribute("unique"))) {
+                sql.append("UNIQUE ");
+            }
+            sql.append("INDEX ")
+                    .append(indexName)
+                    .append(" ON ")
+                    .append(tableName)
+                    .append(" (");
+            for (int j = 0; j < columns.getLength(); j++) {
+                if (j > 0) {
+                    sql.append(", ");
+                }
+                sql.append(((Element) columns.item(j)).getAttribute("name"));
+            }
+            sql.append(")");
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql.toString());
+            }
+            createdIndexes.add(indexName);
+        }
+    }
+    
+    @After
+    public void tearDown() throws Exception {
+        
+        try (Statement statement = getConnection().createStatement()) {
+            for (String indexName : createdIndexes) {
+                statement.execute("DROP INDEX IF EXISTS " + indexName);
+            }
+        }
+        createdIndexes.clear();
+    }
+    
+    /**
+     * Check if given table has an index with given name.
+     *
+     * @param connection the connection to the test database
+     * @param tableName the name of the table
+     * @param indexName the name of the index
+     * @return true if the table has an index with given name
+     */
+    private static boolean hasIndex(Connection connection, String tableName, String indexName) throws Exception {
+        
+        try (ResultSet indexes = connection.getMetaData()
+                .getIndexInfo(null, null, tableName.toUpperCase(Locale.ENGLISH), false, false)) {
+            while (indexes.next()) {
+                if (indexName.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Get the query plan of given query.
+     *
+     * @param query the query to explain
+     * @param parameters the values of the parameters of the query
+     * @return the query plan of the H2 test database in lower case
+     */
+    private String explain(String query, Object... parameters) throws Exception {
+        
+        try (PreparedStatement statement = getConnection().prepareStatement("EXPLAIN " + query)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1)
+                        .toLowerCase(Locale.ENGLISH);
+            }
+        }
+    }
+    
+    /**
+     * Get the SQL hibernate generates for a query of the radiology report DAO.
+     * <p>
+     * The DAO is package private, so it is created and called through reflection. It queries through a session sharing
+     * the connection of the test, whose interceptor records the SQL of every statement the session prepares.
+     * </p>
+     *
+     * @param methodName the name of the DAO method
+     * @param parameterType the type of the only parameter of the DAO method
+     * @param argument the argument to call the DAO method with
+     * @return the SQL of the statements prepared by the DAO method in the order they were prepared
+     */
+    private List<String> getRadiologyReportDAOSql(String methodName, Class<?> parameterType, Object argument)
+            throws Exception {
+        
+        final List<String> statements = new ArrayList<>();
+        final Session session = sessionFactory.withOptions()
+                .connection(getConnection())
+                .interceptor(new EmptyInterceptor() {
+                    
+                    
+                    @Override
+                    public String onPrepareStatement(String sql) {
+                        statements.add(sql);
+                        return sql;
+                    }
+                })
+                .openSession();
+        try {
+            final SessionFactory recordingSessionFactory =
+                    mock(SessionFactory.class, AdditionalAnswers.delegatesTo(sessionFactory));
+            doReturn(session).when(recordingSessionFactory)
+                    .getCurrentSession();
+            
+            final Class<?> daoClass = Class.forName(RADIOLOGY_REPORT_DAO);
+            final Constructor<?> constructor = daoClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            final Object dao = constructor.newInstance();
+            final Method setSessionFactory = daoClass.getDeclaredMethod("setSessionFactory", SessionFactory.class);
+            setSessionFactory.setAccessible(true);
+            setSessionFactory.invoke(dao, recordingSessionFactory);
+            final Method method = daoClass.getDeclaredMethod(methodName, parameterType);
+            method.setAccessible(true);
+            method.invoke(dao, argument);
+        }
+        finally {
+            session.close();
+        }
+        return statements;
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.order.RadiologyOrderDAO#getRadiologyOrders(RadiologyOrderSearchCriteria)
+     * @verifies find radiology orders in an effective start date range through the effective start date index
+     */
+    @Test
+    public void getRadiologyOrders_shouldFindRadiologyOrdersInAnEffectiveStartDateRangeThroughTheEffectiveStartDateIndex()
+            throws Exception {
+        
+        String plan = explain("SELECT order_id FROM radiology_order WHERE effective_start_date >= '2016-05-28'"
+                + " AND effective_start_date <= '2016-06-28'");
+        
+        assertThat(plan, containsString("radiology_order_effective_start_date_index"));
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.RadiologyReportDAO#getActiveRadiologyReportStatusByRadiologyOrder(RadiologyOrder)
+     * @verifies look up the status through the order id voided status index
+     */
+    @Test
+    public void getActiveRadiologyReportStatusByRadiologyOrder_shouldLookUpTheStatusThroughTheOrderIdVoidedStatusIndex()
+            throws Exception {
+        
+        RadiologyOrder radiologyOrder = new RadiologyOrder();
+        radiologyOrder.setOrderId(1);
+        
+        List<String> statements = getRadiologyReportDAOSql("getActiveRadiologyReportStatusByRadiologyOrder",
+            RadiologyOrder.class, radiologyOrder);
+        
+        assertThat(statements.size(), is(1));
+        // the order and voided restrictions and the limit of one result
+        String plan = explain(statements.get(0), 1, false, 1);
+        assertThat(plan, containsString("radiology_report_order_id_voided_status_index"));
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.RadiologyReportDAO#getRadiologyReports(RadiologyReportSearchCriteria)
+     * @verifies find radiology reports in a date range through the report date index
+     */
+    @Test
+    public void getRadiologyReports_shouldFindRadiologyReportsInADateRangeThroughTheReportDateIndex() throws Exception {
+        
+        Timestamp fromDate = Timestamp.valueOf("2016-05-28 00:00:00");
+        Timestamp toDate = Timestamp.valueOf("2016-06-28 00:00:00");
+        RadiologyReportSearchCriteria radiologyReportSearchCriteria = new RadiologyReportSearchCriteria.Builder()
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .build();
+        
+        List<String> statements = getRadiologyReportDAOSql("getRadiologyReports", RadiologyReportSearchCriteria.class,
+            radiologyReportSearchCriteria);
+        
+        assertThat(statements.size(), is(1));
+        // the voided restriction and the date range
+        String plan = explain(statements.get(0), false, fromDate, toDate);
+        assertThat(plan, containsString("radiology_report_report_date_report_id_index"));
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateDAO#getMrrtReportTemplateByIdentifier(String)
+     * @verifies find the report template with given identifier through an index
+     */
+    @Test
+    public void getMrrtReportTemplateByIdentifier_shouldFindTheReportTemplateWithGivenIdentifierThroughAnIndex()
+            throws Exception {
+        
+        String plan = explain(
+            "SELECT template_id FROM radiology_report_template WHERE dcterms_identifier = '1.3.6.1.4.1.21367.13.199.1015'");
+        
+        assertThat(plan, not(containsString(TABLE_SCAN)));
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateDAO#getMrrtReportTemplates(MrrtReportTemplateSearchCriteria)
+     * @verifies list report templates in title order through the title index
+     */
+    @Test
+    public void getMrrtReportTemplates_shouldListReportTemplatesInTitleOrderThroughTheTitleIndex() throws Exception {
+        
+        String plan = explain("SELECT template_id FROM radiology_report_template ORDER BY dcterms_title");
+        
+        assertThat(plan, containsString("radiology_report_template_dcterms_title_template_id_index"));
+    }
+    
+    /**
+     * @see org.openmrs.module.radiology.report.template.MrrtReportTemplateDAO#getMrrtReportTemplateCountByPath(String)
+     * @verifies count report templates with given path through the path index
+     */
+    @Test
+    public void getMrrtReportTemplateCountByPath_shouldCountReportTemplatesWithGivenPathThroughThePathIndex()
+            throws Exception {
+        
+        String plan = explain("SELECT COUNT(*) FROM radiology_report_template WHERE path = '/mrrt_templates/0123'");
+        
+        assertThat(plan, containsString("radiology_report_template_path_index"));
+    }
+}
@@ -19,7 +19,10 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Supplier;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -36,6 +39,7 @@ import org.openmrs.api.ConceptService;
 import org.openmrs.api.EncounterService;
 import org.openmrs.api.OrderService;
 import org.openmrs.api.VisitService;
+import org.openmrs.api.context.Context;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
 import org.openmrs.util.OpenmrsUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -66,6 +70,10 @@ public class RadiologyPropertiesComponentTest extends BaseModuleContextSensitive
     @Autowired
     private VisitService visitService;
     
+    @Autowired
+    @Qualifier("sessionFactory")
+    private SessionFactory sessionFactory;
+    
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
     
@@ -80,6 +88,7 @@ public class RadiologyPropertiesComponentTest extends BaseModuleContextSensitive
         getGlobalPropertyMethod = RadiologyProperties.class.getDeclaredMethod("getGlobalProperty",
             new Class[] { String.class, boolean.class });
         getGlobalPropertyMethod.setAccessible(true);
+        radiologyProperties.clearCache();
     }
     
     /**
@@ -407,6 +416,33 @@ public class RadiologyPropertiesComponentTest extends BaseModuleContextSensitive
         radiologyProperties.getRadiologyVisitType();
     }
     
+    /**
+     * @see RadiologyProperties#getRadiologyVisitType()
+     * @verifies return the cached radiology visit type until the cache is cleared after it was purged
+     */
+    @Test
+    public void getRadiologyVisitType_shouldReturnTheCachedRadiologyVisitTypeUntilTheCacheIsClearedAfterItWasPurged()
+            throws Exception {
+        
+        String radiologyVisitTypeUuid = "fe898a34-1ade-11e1-9c71-00248140a5eb";
+        administrationService
+                .saveGlobalProperty(new GlobalProperty(RadiologyConstants.GP_RADIOLOGY_VISIT_TYPE, radiologyVisitTypeUuid));
+        VisitType visitType = new VisitType();
+        visitType.setName("Radiology Visit");
+        visitType.setUuid(radiologyVisitTypeUuid);
+        visitService.saveVisitType(visitType);
+        assertNotNull(radiologyProperties.getRadiologyVisitType());
+        
+        visitService.purgeVisitType(visitType);
+        Context.flushSession();
+        
+        assertThat(radiologyProperties.getRadiologyVisitType()
+                .getUuid(),
+            is(radiologyVisitTypeUuid));
+        radiologyProperties.clearCache();
+        assertThat(radiologyProperties.getRadiologyVisitType(), is(nullValue()));
+    }
+    
     /**
      * @see RadiologyProperties#getRadiologyConceptClassNames()
      * @verifies return comma separated list of concept class names configured via concept class
@@ -697,4 +733,251 @@ public class RadiologyPropertiesComponentTest extends BaseModuleContextSensitive
         expectedException.expect(IllegalStateException.class);
         radiologyProperties.getReportTemplateHome();
     }
+    
+    /**
+     * @see RadiologyProperties#getReportIndexHome()
+     * @verifies create a directory under the openmrs application data directory if GP value is relative
+     */
+    @Test
+    public void getReportIndexHome_shouldCreateADirectoryUnderTheOpenmrsApplicationDataDirectoryIfGPValueIsRelative()
+            throws Exception {
+        File openmrsApplicationDataDirectory = temporaryFolder.newFolder("openmrs_home");
+        OpenmrsUtil.setApplicationDataDirectory(openmrsApplicationDataDirectory.getAbsolutePath());
+        administrationService.setGlobalProperty(RadiologyConstants.GP_REPORT_INDEX_DIR, "report_index");
+        File indexHome = radiologyProperties.getReportIndexHome();
+        
+        assertNotNull(indexHome);
+        assertThat(indexHome.exists(), is(true));
+        assertThat(indexHome.getName(), is("report_index"));
+        assertThat(indexHome.getParentFile()
+                .getName(),
+            is(openmrsApplicationDataDirectory.getName()));
+    }
+    
+    /**
+     * @see RadiologyProperties#getReportIndexHome()
+     * @verifies create a directory at GP value if it is an absolute path
+     */
+    @Test
+    public void getReportIndexHome_shouldCreateADirectoryAtGPValueIfItIsAnAbsolutePath() throws Exception {
+        File indexFolder = new File(temporaryFolder.getRoot(), "report_index");
+        administrationService.setGlobalProperty(RadiologyConstants.GP_REPORT_INDEX_DIR, indexFolder.getAbsolutePath());
+        File indexHome = radiologyProperties.getReportIndexHome();
+        
+        assertNotNull(indexHome);
+        assertThat(indexHome.exists(), is(true));
+        assertThat(indexHome.getName(), is(indexFolder.getName()));
+        assertThat(indexHome.isAbsolute(), is(true));
+    }
+    
+    /**
+     * @see RadiologyProperties#getReportIndexHome()
+     * @verifies throw illegal state exception if global property cannot be found
+     */
+    @Test
+    public void getReportIndexHome_shouldThrowIllegalStateExceptionIfGlobalPropertyCannotBeFound() throws Exception {
+        expectedException.expect(IllegalStateException.class);
+        radiologyProperties.getReportIndexHome();
+    }
+    
+    /**
+     * @see RadiologyProperties#getReportIndexHome()
+     * @verifies return the folder of the changed global property
+     */
+    @Test
+    public void getReportIndexHome_shouldReturnTheFolderOfTheChangedGlobalProperty() throws Exception {
+        
+        File indexFolder = new File(temporaryFolder.getRoot(), "report_index");
+        administrationService.setGlobalProperty(RadiologyConstants.GP_REPORT_INDEX_DIR, indexFolder.getAbsolutePath());
+        assertThat(radiologyProperties.getReportIndexHome(), is(indexFolder));
+        
+        File otherIndexFolder = new File(temporaryFolder.getRoot(), "other_report_index");
+        administrationService.setGlobalProperty(RadiologyConstants.GP_REPORT_INDEX_DIR,
+            otherIndexFolder.getAbsolutePath());
+        
+        assertThat(radiologyProperties.getReportIndexHome(), is(otherIndexFolder));
+        assertThat(otherIndexFolder.exists(), is(true));
+    }
+    
+    /**
+     * @see RadiologyProperties#getAccessionNumberBlockSize()
+     * @verifies return 1 if global property accession number block size is not configured
+     */
+    @Test
+    public void getAccessionNumberBlockSize_shouldReturn1IfGlobalPropertyAccessionNumberBlockSizeIsNotConfigured()
+            throws Exception {
+        
+        assertThat(radiologyProperties.getAccessionNumberBlockSize(), is(1));
+    }
+    
+    /**
+     * @see RadiologyProperties#getAccessionNumberBlockSize()
+     * @verifies return accession number block size
+     */
+    @Test
+    public void getAccessionNumberBlockSize_shouldReturnAccessionNumberBlockSize() throws Exception {
+        
+        administrationService.saveGlobalProperty(new GlobalProperty(RadiologyConstants.GP_ACCESSION_NUMBER_BLOCK_SIZE, "50"));
+        
+        assertThat(radiologyProperties.getAccessionNumberBlockSize(), is(50));
+    }
+    
+    /**
+     * @see RadiologyProperties#getAccessionNumberBlockSize()
+     * @verifies throw illegal state exception if global property accession number block size is not a positive integer
+     */
+    @Test
+    public void
+            getAccessionNumberBlockSize_shouldThrowIllegalStateExceptionIfGlobalPropertyAccessionNumberBlockSizeIsNotAPositiveInteger()
+                    throws Exception {
+        
+        administrationService.saveGlobalProperty(new GlobalProperty(RadiologyConstants.GP_ACCESSION_NUMBER_BLOCK_SIZE, "0"));
+        
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage(
+            "Property " + RadiologyConstants.GP_ACCESSION_NUMBER_BLOCK_SIZE + " needs to be a positive integer");
+        radiologyProperties.getAccessionNumberBlockSize();
+    }
+    
+    /**
+     * @see RadiologyProperties#getCached(String,Supplier)
+     * @verifies not cache a value resolved while the cached value was evicted
+     */
+    @Test
+    public void getCached_shouldNotCacheAValueResolvedWhileTheCachedValueWasEvicted() throws Exception {
+        
+        Method getCachedMethod = RadiologyProperties.class.getDeclaredMethod("getCached", String.class, Supplier.class);
+        getCachedMethod.setAccessible(true);
+        
+        Supplier<String> staleResolver = () -> {
+            // the global property is changed by another thread after its old value was read
+            radiologyProperties.globalPropertyChanged(new GlobalProperty(RadiologyConstants.GP_DICOM_UID_ORG_ROOT, "2.25"));
+            return "1.2.826.0.1.3680043.8.2186";
+        };
+        assertThat(getCachedMethod.invoke(radiologyProperties, RadiologyConstants.GP_DICOM_UID_ORG_ROOT, staleResolver),
+            is("1.2.826.0.1.3680043.8.2186"));
+        
+        Supplier<String> resolver = () -> "2.25";
+        assertThat(getCachedMethod.invoke(radiologyProperties, RadiologyConstants.GP_DICOM_UID_ORG_ROOT, resolver),
+            is("2.25"));
+    }
+    
+    /**
+     * @see RadiologyProperties#getCached(String,Supplier)
+     * @verifies prepare no statements for cached metadata in a new session
+     */
+    @Test
+    public void getCached_shouldPrepareNoStatementsForCachedMetadataInANewSession() throws Exception {
+        
+        administrationService.saveGlobalProperty(
+            new GlobalProperty(RadiologyConstants.GP_RADIOLOGY_CARE_SETTING, "6f0c9a92-6f24-11e3-af88-005056821db0"));
+        administrationService.saveGlobalProperty(
+            new GlobalProperty(RadiologyConstants.GP_RADIOLOGY_TEST_ORDER_TYPE, "dbdb9a9b-56ea-11e5-a47f-08002719a237"));
+        OrderType radiologyOrderType = new OrderType("Radiology Order", "Order type for radiology exams",
+                "org.openmrs.module.radiology.order.RadiologyOrder");
+        radiologyOrderType.setUuid("dbdb9a9b-56ea-11e5-a47f-08002719a237");
+        orderService.saveOrderType(radiologyOrderType);
+        administrationService.saveGlobalProperty(new GlobalProperty(RadiologyConstants.GP_RADIOLOGY_ORDER_ENCOUNTER_TYPE,
+                "19db8c0d-3520-48f2-babd-77f2d450e5c7"));
+        EncounterType encounterType = new EncounterType("Radiology Order Encounter", "Ordering radiology exams");
+        encounterType.setUuid("19db8c0d-3520-48f2-babd-77f2d450e5c7");
+        encounterService.saveEncounterType(encounterType);
+        administrationService.saveGlobalProperty(new GlobalProperty(
+                RadiologyConstants.GP_RADIOLOGY_ORDERING_PROVIDER_ENCOUNTER_ROLE, "13fc9b4a-49ed-429c-9dde-ca005b387a3d"));
+        EncounterRole encounterRole = new EncounterRole();
+        encounterRole.setName("Radiology Ordering Provider Encounter Role");
+        encounterRole.setUuid("13fc9b4a-49ed-429c-9dde-ca005b387a3d");
+        encounterService.saveEncounterRole(encounterRole);
+        
+        Statistics statistics = sessionFactory.getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            // the metadata placing a radiology order looks up
+            radiologyProperties.getRadiologyCareSetting();
+            radiologyProperties.getRadiologyTestOrderType();
+            radiologyProperties.getRadiologyOrderEncounterType();
+            radiologyProperties.getRadiologyOrderingProviderEncounterRole();
+            Context.flushSession();
+            Context.clearSession();
+            statistics.clear();
+            
+            assertThat(radiologyProperties.getRadiologyCareSetting()
+                    .getUuid(),
+                is("6f0c9a92-6f24-11e3-af88-005056821db0"));
+            assertThat(radiologyProperties.getRadiologyTestOrderType()
+                    .getUuid(),
+                is("dbdb9a9b-56ea-11e5-a47f-08002719a237"));
+            assertThat(radiologyProperties.getRadiologyOrderEncounterType()
+                    .getUuid(),
+                is("19db8c0d-3520-48f2-babd-77f2d450e5c7"));
+            assertThat(radiologyProperties.getRadiologyOrderingProviderEncounterRole()
+                    .getUuid(),
+                is("13fc9b4a-49ed-429c-9dde-ca005b387a3d"));
+            assertThat(statistics.getPrepareStatementCount(), is(0L));
+        }
+        finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+    
+    /**
+     * @see RadiologyProperties#clearCache()
+     * @verifies resolve values again after the cache was cleared
+     */
+    @Test
+    public void clearCache_shouldResolveValuesAgainAfterTheCacheWasCleared() throws Exception {
+        
+        administrationService.saveGlobalProperty(new GlobalProperty(RadiologyConstants.GP_DICOM_UID_ORG_ROOT, "2.25"));
+        assertThat(radiologyProperties.getDicomUIDOrgRoot(), is("2.25"));
+        GlobalProperty globalProperty =
+                administrationService.getGlobalPropertyObject(RadiologyConstants.GP_DICOM_UID_ORG_ROOT);
+        globalProperty.setPropertyValue("1.2.826.0.1.3680043.8.2186");
+        Context.flushSession();
+        assertThat(radiologyProperties.getDicomUIDOrgRoot(), is("2.25"));
+        
+        radiologyProperties.clearCache();
+        
+        assertThat(radiologyProperties.getDicomUIDOrgRoot(), is("1.2.826.0.1.3680043.8.2186"));
+    }
+    
+    /**
+     * @see RadiologyProperties#supportsPropertyName(String)
+     * @verifies return true for global properties whose values are cached
+     */
+    @Test
+    public void supportsPropertyName_shouldReturnTrueForGlobalPropertiesWhoseValuesAreCached() throws Exception {
+        
+        assertThat(radiologyProperties.supportsPropertyName(RadiologyConstants.GP_RADIOLOGY_CARE_SETTING), is(true));
+        assertThat(radiologyProperties.supportsPropertyName(RadiologyConstants.GP_RADIOLOGY_CONCEPT_CLASSES), is(true));
+        assertThat(radiologyProperties.supportsPropertyName(RadiologyConstants.GP_ACCESSION_NUMBER_BLOCK_SIZE), is(true));
+        assertThat(radiologyProperties.supportsPropertyName(RadiologyConstants.GP_REPORT_INDEX_DIR), is(true));
+    }
+    
+    /**
+     * @see RadiologyProperties#supportsPropertyName(String)
+     * @verifies return false for global properties whose values are not cached
+     */
+    @Test
+    public void supportsPropertyName_shouldReturnFalseForGlobalPropertiesWhoseValuesAreNotCached() throws Exception {
+        
+        assertThat(radiologyProperties.supportsPropertyName(RadiologyConstants.GP_NEXT_ACCESSION_NUMBER_SEED), is(false));
+        assertThat(radiologyProperties.supportsPropertyName(RadiologyConstants.GP_MRRT_REPORT_TEMPLATE_DIR), is(false));
+        assertThat(radiologyProperties.supportsPropertyName("locale.allowed.list"), is(false));
+    }
+    
+    /**
+     * @see RadiologyProperties#globalPropertyChanged(GlobalProperty)
+     * @verifies resolve value of changed global property again
+     */
+    @Test
+    public void globalPropertyChanged_shouldResolveValueOfChangedGlobalPropertyAgain() throws Exception {
+        
+        administrationService.saveGlobalProperty(new GlobalProperty(RadiologyConstants.GP_ACCESSION_NUMBER_BLOCK_SIZE, "10"));
+        assertThat(radiologyProperties.getAccessionNumberBlockSize(), is(10));
+        
+        administrationService.saveGlobalProperty(new GlobalProperty(RadiologyConstants.GP_ACCESSION_NUMBER_BLOCK_SIZE, "20"));
+        
+        assertThat(radiologyProperties.getAccessionNumberBlockSize(), is(20));
+    }
 }
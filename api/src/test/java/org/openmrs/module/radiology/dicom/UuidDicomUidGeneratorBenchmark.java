@@ -0,0 +1,96 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.dicom;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+import com.sun.management.ThreadMXBean;
+
+import org.openmrs.module.radiology.util.DecimalUuid;
+
+/**
+ * Measures latency and allocation of generating a DICOM UID with {@link UuidDicomUidGenerator#getNewDicomUid(String)}
+ * versus the former generator which validated the root on every call and formatted the UUID with
+ * {@link DecimalUuid}.
+ * <p>
+ * Generating the random UUID itself is measured as well, since both generators pay for it.
+ * </p>
+ * <p>
+ * Not part of the test run since wall-clock timings depend on the machine, run its main method by hand instead.
+ * </p>
+ */
+public class UuidDicomUidGeneratorBenchmark {
+    
+    
+    private static final String ROOT = "1.2.826.0.1.3680043.8";
+    
+    private static final int WARMUP_UIDS = 200_000;
+    
+    private static final int UIDS = 1_000_000;
+    
+    /**
+     * Receives the generated UIDs so that generating them cannot be optimized away.
+     */
+    private static int sink;
+    
+    /**
+     * Generates a DICOM UID for a root.
+     */
+    private interface Generator {
+        
+        
+        String generate(String root);
+    }
+    
+    public static void main(String[] args) {
+        
+        final UuidDicomUidGenerator uuidDicomUidGenerator = new UuidDicomUidGenerator();
+        measure("random uuid only", root -> UUID.randomUUID()
+                .toString());
+        measure("decimal uuid", UuidDicomUidGeneratorBenchmark::getNewDicomUidWithDecimalUuid);
+        measure("uuid dicom uid generator", uuidDicomUidGenerator::getNewDicomUid);
+    }
+    
+    /**
+     * Generates {@code UIDS} UIDs with given generator and prints the average latency and allocation of one.
+     */
+    private static void measure(String name, Generator generator) {
+        
+        for (int i = 0; i < WARMUP_UIDS; i++) {
+            sink += generator.generate(ROOT)
+                    .length();
+        }
+        final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread()
+                .getId();
+        final long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < UIDS; i++) {
+            sink += generator.generate(ROOT)
+                    .length();
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        final long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - startBytes;
+        System.out.println(String.format("%s: %.0f ns/uid, %.0f bytes allocated/uid", name, (double) elapsedNanos / UIDS,
+            (double) allocatedBytes / UIDS));
+    }
+    
+    /**
+     * Generates a UID like the former {@code UuidDicomUidGenerator} did.
+     */
+    private static String getNewDicomUidWithDecimalUuid(String root) {
+        
+        if (!DicomUidValidator.isValid(root)) {
+            throw new IllegalArgumentException("root is an invalid DICOM UID");
+        }
+        return root + '.' + new DecimalUuid(UUID.randomUUID()).toString();
+    }
+}
@@ -17,12 +17,15 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.openmrs.module.radiology.util.DecimalUuid;
 
 /**
  * Tests {@see UuidDicomUidGenerator}.
@@ -175,4 +178,62 @@ public class UuidDicomUidGeneratorTest {
         expectedException.expectMessage("root length is > " + dicomUidGenerator.getMaxRootLength());
         dicomUidGenerator.getNewDicomUid(root);
     }
+    
+    /**
+     * @see UuidDicomUidGenerator#getNewDicomUid(String)
+     * @verifies throw an illegal argument exception if root is not a valid uid after a valid root was used
+     */
+    @Test
+    public void getNewDicomUid_shouldThrowAnIllegalArgumentExceptionIfRootIsNotAValidUidAfterAValidRootWasUsed()
+            throws Exception {
+        
+        dicomUidGenerator.getNewDicomUid("1.2.5.6.7.1220");
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("root is an invalid DICOM UID");
+        dicomUidGenerator.getNewDicomUid("1.2.5.6.7.01220");
+    }
+    
+    /**
+     * @see UuidDicomUidGenerator#toUnsignedDecimal(long,long,char[],int)
+     * @verifies write the same digits as decimal uuid
+     */
+    @Test
+    public void toUnsignedDecimal_shouldWriteTheSameDigitsAsDecimalUuid() throws Exception {
+        
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            UUID uuid = i % 2 == 0 ? UUID.randomUUID() : new UUID(0L, random.nextLong() >>> random.nextInt(64));
+            
+            assertThat(toUnsignedDecimal(uuid), is(new DecimalUuid(uuid).toString()));
+        }
+    }
+    
+    /**
+     * @see UuidDicomUidGenerator#toUnsignedDecimal(long,long,char[],int)
+     * @verifies write zero for a uuid of only zero bits
+     */
+    @Test
+    public void toUnsignedDecimal_shouldWriteZeroForAUuidOfOnlyZeroBits() throws Exception {
+        
+        assertThat(toUnsignedDecimal(new UUID(0L, 0L)), is("0"));
+    }
+    
+    /**
+     * @see UuidDicomUidGenerator#toUnsignedDecimal(long,long,char[],int)
+     * @verifies write the maximum unsigned 128 bit integer for a uuid of only one bits
+     */
+    @Test
+    public void toUnsignedDecimal_shouldWriteTheMaximumUnsigned128BitIntegerForAUuidOfOnlyOneBits() throws Exception {
+        
+        assertThat(toUnsignedDecimal(new UUID(-1L, -1L)), is("340282366920938463463374607431768211455"));
+    }
+    
+    private String toUnsignedDecimal(UUID uuid) {
+        
+        char[] buffer = new char[39];
+        int start = UuidDicomUidGenerator.toUnsignedDecimal(uuid.getMostSignificantBits(),
+            uuid.getLeastSignificantBits(), buffer, buffer.length);
+        return new String(buffer, start, buffer.length - start);
+    }
 }
@@ -14,10 +14,13 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.openmrs.api.APIException;
+import org.hibernate.SessionFactory;
 import org.openmrs.api.context.Context;
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
 import org.openmrs.test.SkipBaseSetup;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 import java.util.List;
 
@@ -51,11 +54,18 @@ public class RadiologyModalityServiceComponentTest extends BaseModuleContextSens
     @Autowired
     private RadiologyModalityService radiologyModalityService;
     
+    @Autowired
+    @Qualifier("sessionFactory")
+    private SessionFactory sessionFactory;
+    
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
     
     @Before
     public void setUp() throws Exception {
+        // datasets are inserted without hibernate which can therefore not invalidate cached query results
+        sessionFactory.getCache()
+                .evictQueryRegions();
         executeDataSet(TEST_DATASET);
     }
     
@@ -286,4 +296,48 @@ public class RadiologyModalityServiceComponentTest extends BaseModuleContextSens
         List<RadiologyModality> radiologyModalities = radiologyModalityService.getRadiologyModalities(true);
         assertTrue(radiologyModalities.isEmpty());
     }
+    
+    /**
+     * @verifies return radiology modalities saved or retired after an earlier call
+     * @see RadiologyModalityService#getRadiologyModalities(boolean)
+     */
+    @Test
+    public void getRadiologyModalities_shouldReturnRadiologyModalitiesSavedOrRetiredAfterAnEarlierCall() throws Exception {
+        
+        assertThat(radiologyModalityService.getRadiologyModalities(false)
+                .size(), is(TOTAL_MODALITIES_NON_RETIRED));
+        
+        RadiologyModality radiologyModality = new RadiologyModality();
+        radiologyModality.setAeTitle("MR2");
+        radiologyModality.setName("Second MR scanner");
+        radiologyModalityService.saveRadiologyModality(radiologyModality);
+        assertThat(radiologyModalityService.getRadiologyModalities(false)
+                .size(), is(TOTAL_MODALITIES_NON_RETIRED + 1));
+        
+        radiologyModalityService.retireRadiologyModality(
+            radiologyModalityService.getRadiologyModalityByUuid(EXISTING_RADIOLOGY_MODALITY_UUID), "for fun");
+        List<RadiologyModality> radiologyModalities = radiologyModalityService.getRadiologyModalities(false);
+        assertThat(radiologyModalities.size(), is(TOTAL_MODALITIES_NON_RETIRED));
+        for (RadiologyModality nonRetired : radiologyModalities) {
+            assertThat(nonRetired.getRetired(), is(false));
+        }
+    }
+    
+    /**
+     * @verifies return the statistics of the radiology modality and query cache regions
+     * @see RadiologyModalityService#getRadiologyModalityCacheStatistics()
+     */
+    @Test
+    public void getRadiologyModalityCacheStatistics_shouldReturnTheStatisticsOfTheRadiologyModalityAndQueryCacheRegions()
+            throws Exception {
+        
+        radiologyModalityService.getRadiologyModalities(true);
+        
+        List<RadiologyCacheStatistics> cacheStatistics = radiologyModalityService.getRadiologyModalityCacheStatistics();
+        assertThat(cacheStatistics.size(), is(2));
+        assertThat(cacheStatistics.get(0)
+                .getRegion(), is(RadiologyModality.class.getName()));
+        assertThat(cacheStatistics.get(1)
+                .getRegion(), is(RadiologyModality.class.getName() + ".queries"));
+    }
 }
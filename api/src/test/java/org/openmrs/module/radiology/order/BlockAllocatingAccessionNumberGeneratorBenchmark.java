@@ -0,0 +1,107 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Measures how placing orders scales with the number of threads once accession number seeds are reserved in blocks,
+ * while reserving one seed per order serializes all orders on the seed lock.
+ * <p>
+ * Not part of the test run since wall-clock timings depend on the machine, run its main method by hand instead.
+ * </p>
+ */
+public class BlockAllocatingAccessionNumberGeneratorBenchmark {
+    
+    
+    private static final int ORDER_COUNT = 400;
+    
+    private static final long LOCK_MILLIS = 2;
+    
+    private static final long WORK_MILLIS = 2;
+    
+    /**
+     * Simulates the accession number seed global property which is locked while a block is reserved.
+     */
+    private static class SeedStore implements IntToLongFunction {
+        
+        
+        private long nextSeed = 1;
+        
+        @Override
+        public synchronized long applyAsLong(int blockSize) {
+            sleep(LOCK_MILLIS);
+            final long result = nextSeed;
+            nextSeed += blockSize;
+            return result;
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        
+        System.out.println(String.format("orders/second with one seed per lock: 1 thread %.0f, 8 threads %.0f",
+            measureOrdersPerSecond(1, 1), measureOrdersPerSecond(1, 8)));
+        System.out.println(String.format("orders/second with 100 seeds per lock: 1 thread %.0f, 8 threads %.0f",
+            measureOrdersPerSecond(100, 1), measureOrdersPerSecond(100, 8)));
+    }
+    
+    /**
+     * Places simulated orders on given number of threads, each order gets an accession number and then spends some time
+     * outside of the generator like saving its encounter and study would.
+     *
+     * @return the number of orders placed per second
+     */
+    private static double measureOrdersPerSecond(int blockSize, int threadCount) throws Exception {
+        
+        final AccessionNumberGenerator generator =
+                new BlockAllocatingAccessionNumberGenerator(blockSize, new SeedStore());
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger remaining = new AtomicInteger(ORDER_COUNT);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            futures.add(executorService.submit(() -> {
+                start.await();
+                while (remaining.getAndDecrement() > 0) {
+                    generator.getNewAccessionNumber();
+                    sleep(WORK_MILLIS);
+                }
+                return null;
+            }));
+        }
+        final long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+        return ORDER_COUNT / (elapsedNanos / 1e9);
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToLongFunction;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests {@link BlockAllocatingAccessionNumberGenerator}.
+ */
+public class BlockAllocatingAccessionNumberGeneratorTest {
+    
+    
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+    
+    /**
+     * Simulates the accession number seed global property which is locked while a block is reserved.
+     */
+    private static class SeedStore implements IntToLongFunction {
+        
+        
+        private final AtomicInteger reservations = new AtomicInteger();
+        
+        private long nextSeed = 1;
+        
+        @Override
+        public synchronized long applyAsLong(int blockSize) {
+            reservations.incrementAndGet();
+            final long result = nextSeed;
+            nextSeed += blockSize;
+            return result;
+        }
+    }
+    
+    /**
+     * Places given number of simulated orders on given number of threads, each order gets an accession number.
+     *
+     * @return set of accession numbers handed out
+     */
+    private Set<String> placeOrders(final AccessionNumberGenerator generator, int threadCount, final int orderCount,
+            Set<String> accessionNumbers) throws Exception {
+        
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger remaining = new AtomicInteger(orderCount);
+        final List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            futures.add(executorService.submit(new Callable<Integer>() {
+                
+                
+                @Override
+                public Integer call() throws Exception {
+                    start.await();
+                    int generated = 0;
+                    while (remaining.getAndDecrement() > 0) {
+                        accessionNumbers.add(generator.getNewAccessionNumber());
+                        generated++;
+                    }
+                    return generated;
+                }
+            }));
+        }
+        start.countDown();
+        int generated = 0;
+        for (Future<Integer> future : futures) {
+            generated += future.get();
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+        assertThat(generated, is(orderCount));
+        return accessionNumbers;
+    }
+    
+    /**
+     * @see BlockAllocatingAccessionNumberGenerator#getNewAccessionNumber()
+     * @verifies always return a unique accession number when called multiple times
+     */
+    @Test
+    public void getNewAccessionNumber_shouldAlwaysReturnAUniqueAccessionNumberWhenCalledMultipleTimes() throws Exception {
+        
+        BlockAllocatingAccessionNumberGenerator generator = new BlockAllocatingAccessionNumberGenerator(7, new SeedStore());
+        
+        int N = 100;
+        Set<String> uniqueAccessionNumbers = new HashSet<>(N);
+        for (int i = 0; i < N; i++) {
+            uniqueAccessionNumbers.add(generator.getNewAccessionNumber());
+        }
+        
+        // since we used a set we should have the size as N indicating that there were no duplicates
+        assertThat(uniqueAccessionNumbers.size(), is(N));
+    }
+    
+    /**
+     * @see BlockAllocatingAccessionNumberGenerator#getNewAccessionNumber()
+     * @verifies always return a unique accession number when called concurrently
+     */
+    @Test
+    public void getNewAccessionNumber_shouldAlwaysReturnAUniqueAccessionNumberWhenCalledConcurrently() throws Exception {
+        
+        BlockAllocatingAccessionNumberGenerator generator = new BlockAllocatingAccessionNumberGenerator(10, new SeedStore());
+        
+        int N = 20000;
+        Set<String> uniqueAccessionNumbers =
+                placeOrders(generator, 16, N, ConcurrentHashMap.<String> newKeySet());
+        
+        // since we used a set we should have the size as N indicating that there were no duplicates
+        assertThat(uniqueAccessionNumbers.size(), is(N));
+    }
+    
+    /**
+     * @see BlockAllocatingAccessionNumberGenerator#getNewAccessionNumber()
+     * @verifies reserve a new block only once the current block is exhausted
+     */
+    @Test
+    public void getNewAccessionNumber_shouldReserveANewBlockOnlyOnceTheCurrentBlockIsExhausted() throws Exception {
+        
+        SeedStore seedStore = new SeedStore();
+        BlockAllocatingAccessionNumberGenerator generator = new BlockAllocatingAccessionNumberGenerator(50, seedStore);
+        
+        placeOrders(generator, 8, 1000, ConcurrentHashMap.<String> newKeySet());
+        
+        assertThat(seedStore.reservations.get(), is(20));
+        assertThat(generator.getNewAccessionNumber(), is("1001"));
+        assertThat(seedStore.reservations.get(), is(21));
+    }
+    
+    /**
+     * @see BlockAllocatingAccessionNumberGenerator#getNewAccessionNumber()
+     * @verifies hand out the seeds of each reserved block without gaps when called concurrently
+     */
+    @Test
+    public void getNewAccessionNumber_shouldHandOutTheSeedsOfEachReservedBlockWithoutGapsWhenCalledConcurrently()
+            throws Exception {
+        
+        SeedStore seedStore = new SeedStore();
+        BlockAllocatingAccessionNumberGenerator generator = new BlockAllocatingAccessionNumberGenerator(25, seedStore);
+        
+        Set<String> accessionNumbers = placeOrders(generator, 8, 500, ConcurrentHashMap.<String> newKeySet());
+        
+        List<Long> seeds = new ArrayList<>();
+        for (String accessionNumber : accessionNumbers) {
+            seeds.add(Long.valueOf(accessionNumber));
+        }
+        Collections.sort(seeds);
+        for (int i = 0; i < seeds.size(); i++) {
+            assertThat(seeds.get(i), is(i + 1L));
+        }
+        assertThat(seedStore.reservations.get(), is(20));
+    }
+    
+    /**
+     * @see BlockAllocatingAccessionNumberGenerator#BlockAllocatingAccessionNumberGenerator(int, IntToLongFunction)
+     */
+    @Test
+    public void BlockAllocatingAccessionNumberGenerator_shouldThrowIllegalArgumentExceptionIfBlockSizeIsSmallerThanOne()
+            throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("blockSize must be greater than 0");
+        new BlockAllocatingAccessionNumberGenerator(0, new SeedStore());
+    }
+}
@@ -146,4 +146,25 @@ public class HibernateRadiologyOrderDAOComponentTest extends BaseModuleContextSe
             hibernateRadiologyOrderDAO.getNextAccessionNumberSeedSequenceValue();
         }
     }
+    
+    /**
+     * @see HibernateRadiologyOrderDAO#getNextAccessionNumberSeedSequenceBlock(int)
+     * @verifies return the next accession number seed stored as global property radiology next accession number and
+     *           increment the global property value by given block size
+     */
+    @Test
+    public void
+            getNextAccessionNumberSeedSequenceBlock_shouldReturnTheNextAccessionNumberSeedStoredAsGlobalPropertyRadiologyNextAccessionNumberAndIncrementTheGlobalPropertyValueByGivenBlockSize()
+                    throws Exception {
+        
+        GlobalProperty nextAccessionNumberGlobalProperty =
+                new GlobalProperty(RadiologyConstants.GP_NEXT_ACCESSION_NUMBER_SEED);
+        nextAccessionNumberGlobalProperty.setPropertyValue("1");
+        administrationService.saveGlobalProperty(nextAccessionNumberGlobalProperty);
+        
+        assertThat(hibernateRadiologyOrderDAO.getNextAccessionNumberSeedSequenceBlock(50), is(1L));
+        assertThat(hibernateRadiologyOrderDAO.getNextAccessionNumberSeedSequenceBlock(50), is(51L));
+        assertThat(hibernateRadiologyOrderDAO.getNextAccessionNumberSeedSequenceValue(), is(101L));
+        assertThat(administrationService.getGlobalProperty(RadiologyConstants.GP_NEXT_ACCESSION_NUMBER_SEED), is("102"));
+    }
 }
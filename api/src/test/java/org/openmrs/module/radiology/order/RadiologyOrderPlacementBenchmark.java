@@ -0,0 +1,138 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import org.openmrs.module.radiology.util.StripedLock;
+
+/**
+ * Measures how placing radiology orders for many patients scales with the number of threads once orders are only
+ * serialized per patient, while the former {@code synchronized} service placed all orders of the server one at a time.
+ * <p>
+ * Not part of the test run since wall-clock timings depend on the machine, run its main method by hand instead.
+ * </p>
+ */
+public class RadiologyOrderPlacementBenchmark {
+    
+    
+    private static final int ORDER_COUNT = 400;
+    
+    private static final int PATIENT_COUNT = 100;
+    
+    private static final int PATIENT_LOCK_STRIPES = 64;
+    
+    /**
+     * Time spent creating the encounter, saving the order and saving the study of one order.
+     */
+    private static final long PLACE_MILLIS = 4;
+    
+    /**
+     * Places a simulated radiology order for a patient.
+     */
+    private interface OrderPlacement {
+        
+        
+        void place(int patientId);
+    }
+    
+    /**
+     * Places orders like the former service whose placing method was {@code synchronized}.
+     */
+    private static class SynchronizedOrderPlacement implements OrderPlacement {
+        
+        
+        @Override
+        public synchronized void place(int patientId) {
+            sleep(PLACE_MILLIS);
+        }
+    }
+    
+    /**
+     * Places orders holding only the lock of the patients stripe.
+     */
+    private static class StripedOrderPlacement implements OrderPlacement {
+        
+        
+        private final StripedLock patientLocks = new StripedLock(PATIENT_LOCK_STRIPES);
+        
+        @Override
+        public void place(int patientId) {
+            final Lock patientLock = patientLocks.get(patientId);
+            patientLock.lock();
+            try {
+                sleep(PLACE_MILLIS);
+            }
+            finally {
+                patientLock.unlock();
+            }
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        
+        System.out.println(String.format("orders/second synchronized: 1 thread %.0f, 16 threads %.0f",
+            measureOrdersPerSecond(new SynchronizedOrderPlacement(), 1),
+            measureOrdersPerSecond(new SynchronizedOrderPlacement(), 16)));
+        System.out.println(String.format("orders/second striped per patient: 1 thread %.0f, 16 threads %.0f",
+            measureOrdersPerSecond(new StripedOrderPlacement(), 1),
+            measureOrdersPerSecond(new StripedOrderPlacement(), 16)));
+    }
+    
+    /**
+     * Places simulated orders for {@code PATIENT_COUNT} patients in turn on given number of threads.
+     *
+     * @return the number of orders placed per second
+     */
+    private static double measureOrdersPerSecond(OrderPlacement orderPlacement, int threadCount) throws Exception {
+        
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger remaining = new AtomicInteger(ORDER_COUNT);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            futures.add(executorService.submit(() -> {
+                start.await();
+                int order;
+                while ((order = remaining.getAndDecrement()) > 0) {
+                    orderPlacement.place(order % PATIENT_COUNT);
+                }
+                return null;
+            }));
+        }
+        final long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+        return ORDER_COUNT / (elapsedNanos / 1e9);
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+        }
+    }
+}
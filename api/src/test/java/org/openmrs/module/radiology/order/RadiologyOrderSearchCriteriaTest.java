@@ -9,6 +9,8 @@
  */
 package org.openmrs.module.radiology.order;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -179,4 +181,61 @@ public class RadiologyOrderSearchCriteriaTest {
         assertNull(radiologyOrderSearchCriteria.getToEffectiveStartDate());
         assertNull(radiologyOrderSearchCriteria.getAccessionNumber());
     }
+    
+    /**
+     * @see RadiologyOrderSearchCriteria.Builder#build()
+     * @verifies create a new radiology order search criteria instance with start index and limit if start index and
+     *           limit are set
+     */
+    @Test
+    public void build_createANewRadiologyOrderSearchCriteriaInstanceWithStartIndexAndLimitIfStartIndexAndLimitAreSet()
+            throws Exception {
+        
+        radiologyOrderSearchCriteria = new RadiologyOrderSearchCriteria.Builder().withStartIndex(20)
+                .withLimit(10)
+                .build();
+        
+        assertThat(radiologyOrderSearchCriteria.getStartIndex(), is(20));
+        assertThat(radiologyOrderSearchCriteria.getLimit(), is(10));
+        assertNull(radiologyOrderSearchCriteria.getPatient());
+        assertFalse(radiologyOrderSearchCriteria.getIncludeVoided());
+        assertNull(radiologyOrderSearchCriteria.getAccessionNumber());
+    }
+    
+    /**
+     * @see RadiologyOrderSearchCriteria.Builder#build()
+     * @verifies create a new radiology order search criteria instance with after accession number and order id if after
+     *           is set
+     */
+    @Test
+    public void build_createANewRadiologyOrderSearchCriteriaInstanceWithAfterAccessionNumberAndOrderIdIfAfterIsSet()
+            throws Exception {
+        
+        radiologyOrderSearchCriteria = new RadiologyOrderSearchCriteria.Builder().after("1", 2001)
+                .withLimit(10)
+                .build();
+        
+        assertThat(radiologyOrderSearchCriteria.getAfterAccessionNumber(), is("1"));
+        assertThat(radiologyOrderSearchCriteria.getAfterOrderId(), is(2001));
+        assertThat(radiologyOrderSearchCriteria.getLimit(), is(10));
+        assertNull(radiologyOrderSearchCriteria.getStartIndex());
+        assertNull(radiologyOrderSearchCriteria.getAccessionNumber());
+    }
+    
+    /**
+     * @see RadiologyOrderSearchCriteria.Builder#build()
+     * @verifies create a new radiology order search criteria instance with fetched associations if fetch is set
+     */
+    @Test
+    public void build_createANewRadiologyOrderSearchCriteriaInstanceWithFetchedAssociationsIfFetchIsSet() throws Exception {
+        
+        radiologyOrderSearchCriteria = new RadiologyOrderSearchCriteria.Builder().fetch("study")
+                .fetch("orderer", "study")
+                .build();
+        
+        assertThat(radiologyOrderSearchCriteria.getFetchedAssociations(), contains("study", "orderer"));
+        assertThat(new RadiologyOrderSearchCriteria.Builder().build()
+                .getFetchedAssociations(),
+            is(empty()));
+    }
 }
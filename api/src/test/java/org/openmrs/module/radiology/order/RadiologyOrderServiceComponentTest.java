@@ -19,19 +19,26 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Environment;
+import org.hibernate.stat.Statistics;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -42,6 +49,8 @@ import org.openmrs.Encounter;
 import org.openmrs.Order;
 import org.openmrs.Order.Urgency;
 import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PersonName;
 import org.openmrs.Provider;
 import org.openmrs.api.APIException;
 import org.openmrs.api.AdministrationService;
@@ -88,6 +97,8 @@ public class RadiologyOrderServiceComponentTest extends BaseModuleContextSensiti
     
     private static final int PROVIDER_ID_WITH_TWO_ASSIGNED_RADIOLOGY_ORDERS = 2;
     
+    private static final int[] PATIENT_IDS_FOR_CONCURRENT_ORDERS = { 70010, 70011, 70021, 70023, 70024 };
+    
     @Autowired
     private PatientService patientService;
     
@@ -107,6 +118,10 @@ public class RadiologyOrderServiceComponentTest extends BaseModuleContextSensiti
     @Autowired
     private RadiologyOrderService radiologyOrderService;
     
+    @Autowired
+    @Qualifier("sessionFactory")
+    private SessionFactory sessionFactory;
+    
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
     
@@ -174,10 +189,21 @@ public class RadiologyOrderServiceComponentTest extends BaseModuleContextSensiti
      * @return RadiologyOrder object that can be saved to the database
      */
     public RadiologyOrder getUnsavedRadiologyOrder() {
+        return getUnsavedRadiologyOrder(PATIENT_ID_WITH_ONLY_ONE_NON_RADIOLOGY_ORDER);
+    }
+    
+    /**
+     * Convenience method to get a RadiologyOrder object for given patient with all required values
+     * filled in but which is not yet saved in the database
+     * 
+     * @param patientId the patient id of the radiology order
+     * @return RadiologyOrder object that can be saved to the database
+     */
+    public RadiologyOrder getUnsavedRadiologyOrder(int patientId) {
         
         RadiologyOrder radiologyOrder = new RadiologyOrder();
         
-        radiologyOrder.setPatient(patientService.getPatient(PATIENT_ID_WITH_ONLY_ONE_NON_RADIOLOGY_ORDER));
+        radiologyOrder.setPatient(patientService.getPatient(patientId));
         radiologyOrder.setOrderer(providerService.getProviderByIdentifier("1"));
         radiologyOrder.setConcept(conceptService.getConcept(CONCEPT_ID_FOR_FRACTURE));
         radiologyOrder.setInstructions("CT ABDOMEN PANCREAS WITH IV CONTRAST");
@@ -233,6 +259,36 @@ public class RadiologyOrderServiceComponentTest extends BaseModuleContextSensiti
         assertNotNull(radiologyOrder.getAccessionNumber());
     }
     
+    /**
+     * @see RadiologyOrderService#placeRadiologyOrder(RadiologyOrder)
+     * @verifies store the effective start date of the radiology order
+     */
+    @Test
+    public void placeRadiologyOrder_shouldStoreTheEffectiveStartDateOfTheRadiologyOrder() throws Exception {
+        
+        RadiologyOrder radiologyOrder = radiologyOrderService.placeRadiologyOrder(getUnsavedRadiologyOrder());
+        Context.flushSession();
+        
+        try (PreparedStatement statement =
+                getConnection().prepareStatement("SELECT effective_start_date FROM radiology_order WHERE order_id = ?")) {
+            statement.setInt(1, radiologyOrder.getOrderId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertTrue(resultSet.next());
+                assertThat(resultSet.getTimestamp(1)
+                        .getTime(),
+                    is(radiologyOrder.getScheduledDate()
+                            .getTime()));
+            }
+        }
+        List<RadiologyOrder> radiologyOrders =
+                radiologyOrderService.getRadiologyOrders(new RadiologyOrderSearchCriteria.Builder()
+                        .withPatient(radiologyOrder.getPatient())
+                        .fromEffectiveStartDate(radiologyOrder.getScheduledDate())
+                        .toEffectiveStartDate(radiologyOrder.getScheduledDate())
+                        .build());
+        assertThat(radiologyOrders, hasItem(radiologyOrder));
+    }
+    
     /**
      * @see RadiologyOrderService#placeRadiologyOrder(RadiologyOrder)
      * @verifies throw illegal argument exception given null
@@ -274,6 +330,288 @@ public class RadiologyOrderServiceComponentTest extends BaseModuleContextSensiti
         radiologyOrderService.placeRadiologyOrder(radiologyOrder);
     }
     
+    /**
+     * @see RadiologyOrderService#placeRadiologyOrders(List)
+     * @verifies place all valid radiology orders with consecutive accession numbers
+     */
+    @Test
+    public void placeRadiologyOrders_shouldPlaceAllValidRadiologyOrdersWithConsecutiveAccessionNumbers() throws Exception {
+        
+        List<RadiologyOrder> radiologyOrders = Arrays.asList(getUnsavedRadiologyOrder(70010),
+            getUnsavedRadiologyOrder(70011), getUnsavedRadiologyOrder(70010));
+        
+        List<RadiologyOrderPlacementResult> results = radiologyOrderService.placeRadiologyOrders(radiologyOrders);
+        
+        assertThat(results.size(), is(3));
+        final long firstAccessionNumber = Long.parseLong(results.get(0)
+                .getRadiologyOrder()
+                .getAccessionNumber());
+        for (int i = 0; i < results.size(); i++) {
+            RadiologyOrderPlacementResult result = results.get(i);
+            assertThat(result.getStatus(), is(RadiologyOrderPlacementResult.Status.PLACED));
+            assertThat(result.getMessage(), is(nullValue()));
+            assertThat(result.getRadiologyOrder(), is(radiologyOrders.get(i)));
+            assertNotNull(result.getRadiologyOrder()
+                    .getOrderId());
+            assertNotNull(result.getRadiologyOrder()
+                    .getStudy()
+                    .getStudyId());
+            assertThat(result.getRadiologyOrder()
+                    .getAccessionNumber(),
+                is(Long.toString(firstAccessionNumber + i)));
+        }
+    }
+    
+    /**
+     * @see RadiologyOrderService#placeRadiologyOrders(List)
+     * @verifies create one radiology order encounter per patient and orderer
+     */
+    @Test
+    public void placeRadiologyOrders_shouldCreateOneRadiologyOrderEncounterPerPatientAndOrderer() throws Exception {
+        
+        List<RadiologyOrderPlacementResult> results = radiologyOrderService.placeRadiologyOrders(Arrays.asList(
+            getUnsavedRadiologyOrder(70010), getUnsavedRadiologyOrder(70024), getUnsavedRadiologyOrder(70010)));
+        
+        Encounter encounter = results.get(0)
+                .getRadiologyOrder()
+                .getEncounter();
+        assertNotNull(encounter);
+        assertNotNull(encounter.getEncounterId());
+        assertThat(results.get(2)
+                .getRadiologyOrder()
+                .getEncounter(),
+            is(encounter));
+        assertThat(results.get(1)
+                .getRadiologyOrder()
+                .getEncounter(),
+            is(not(encounter)));
+        assertThat(results.get(1)
+                .getRadiologyOrder()
+                .getEncounter()
+                .getPatient()
+                .getPatientId(),
+            is(70024));
+    }
+    
+    /**
+     * @see RadiologyOrderService#placeRadiologyOrders(List)
+     * @verifies report invalid radiology orders without placing them
+     */
+    @Test
+    public void placeRadiologyOrders_shouldReportInvalidRadiologyOrdersWithoutPlacingThem() throws Exception {
+        
+        RadiologyOrder existingRadiologyOrder = radiologyOrderService.getRadiologyOrder(EXISTING_RADIOLOGY_ORDER_ID);
+        RadiologyOrder radiologyOrderWithoutStudy = getUnsavedRadiologyOrder();
+        radiologyOrderWithoutStudy.setStudy(null);
+        RadiologyOrder validRadiologyOrder = getUnsavedRadiologyOrder();
+        
+        List<RadiologyOrderPlacementResult> results = radiologyOrderService.placeRadiologyOrders(
+            Arrays.asList(null, existingRadiologyOrder, radiologyOrderWithoutStudy, validRadiologyOrder));
+        
+        assertThat(results.get(0)
+                .getStatus(),
+            is(RadiologyOrderPlacementResult.Status.INVALID));
+        assertThat(results.get(0)
+                .getMessage(),
+            is("radiologyOrder cannot be null"));
+        assertThat(results.get(1)
+                .getStatus(),
+            is(RadiologyOrderPlacementResult.Status.INVALID));
+        assertThat(results.get(1)
+                .getMessage(),
+            is("Order.cannot.edit.existing"));
+        assertThat(results.get(1)
+                .getRadiologyOrder()
+                .getAccessionNumber(),
+            is(EXISTING_RADIOLOGY_ORDER_ACCESSION_NUMBER));
+        assertThat(results.get(2)
+                .getStatus(),
+            is(RadiologyOrderPlacementResult.Status.INVALID));
+        assertThat(results.get(2)
+                .getMessage(),
+            is("radiologyOrder.study cannot be null"));
+        assertNull(radiologyOrderWithoutStudy.getOrderId());
+        assertNull(radiologyOrderWithoutStudy.getAccessionNumber());
+        assertThat(results.get(3)
+                .getStatus(),
+            is(RadiologyOrderPlacementResult.Status.PLACED));
+        assertNotNull(validRadiologyOrder.getOrderId());
+    }
+    
+    /**
+     * @see RadiologyOrderService#placeRadiologyOrders(List)
+     * @verifies place the other radiology orders of a transaction in which one radiology order fails
+     */
+    @Test
+    public void placeRadiologyOrders_shouldPlaceTheOtherRadiologyOrdersOfATransactionInWhichOneRadiologyOrderFails()
+            throws Exception {
+        
+        final List<RadiologyOrderPlacementResult> results = new ArrayList<RadiologyOrderPlacementResult>();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        // placed outside of the transaction of the test so that the radiology orders are saved in transactions of their own
+        Thread thread = new Thread(new Runnable() {
+            
+            
+            @Override
+            public void run() {
+                try {
+                    Context.openSession();
+                    Context.authenticate("admin", "test");
+                    RadiologyOrder radiologyOrderWithoutConcept = getUnsavedRadiologyOrder(70010);
+                    radiologyOrderWithoutConcept.setConcept(null);
+                    results.addAll(radiologyOrderService.placeRadiologyOrders(Arrays.asList(
+                        getUnsavedRadiologyOrder(70010), radiologyOrderWithoutConcept, getUnsavedRadiologyOrder(70024))));
+                }
+                catch (Throwable t) {
+                    failures.add(t);
+                }
+                finally {
+                    Context.closeSession();
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        
+        assertThat(failures, is(empty()));
+        assertThat(results.size(), is(3));
+        assertThat(results.get(0)
+                .getStatus(),
+            is(RadiologyOrderPlacementResult.Status.PLACED));
+        assertThat(results.get(1)
+                .getStatus(),
+            is(RadiologyOrderPlacementResult.Status.FAILED));
+        assertNull(results.get(1)
+                .getRadiologyOrder()
+                .getOrderId());
+        assertThat(results.get(2)
+                .getStatus(),
+            is(RadiologyOrderPlacementResult.Status.PLACED));
+        for (int i : new int[] { 0, 2 }) {
+            RadiologyOrder radiologyOrder = radiologyOrderService.getRadiologyOrderByUuid(results.get(i)
+                    .getRadiologyOrder()
+                    .getUuid());
+            assertNotNull(radiologyOrder);
+            assertThat(radiologyOrder.getAccessionNumber(), is(results.get(i)
+                    .getRadiologyOrder()
+                    .getAccessionNumber()));
+            assertNotNull(radiologyOrder.getEncounter());
+            assertNotNull(radiologyOrder.getStudy()
+                    .getStudyId());
+        }
+    }
+    
+    /**
+     * @see RadiologyOrderService#placeRadiologyOrders(List)
+     * @verifies throw illegal argument exception given null
+     */
+    @Test
+    public void placeRadiologyOrders_shouldThrowIllegalArgumentExceptionGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("radiologyOrders cannot be null");
+        radiologyOrderService.placeRadiologyOrders(null);
+    }
+    
+    /**
+     * @see RadiologyOrderService#placeRadiologyOrder(RadiologyOrder)
+     * @verifies place radiology orders for many patients concurrently
+     */
+    @Test
+    public void placeRadiologyOrder_shouldPlaceRadiologyOrdersForManyPatientsConcurrently() throws Exception {
+        
+        final int threadCount = 10;
+        final int ordersPerPatient = 10;
+        
+        Set<String> accessionNumbers = placeRadiologyOrdersConcurrently(threadCount, ordersPerPatient);
+        
+        assertThat(accessionNumbers.size(), is(PATIENT_IDS_FOR_CONCURRENT_ORDERS.length * ordersPerPatient));
+        for (int patientId : PATIENT_IDS_FOR_CONCURRENT_ORDERS) {
+            Patient patient = patientService.getPatient(patientId);
+            assertThat(radiologyOrderService.getRadiologyOrders(new RadiologyOrderSearchCriteria.Builder()
+                    .withPatient(patient)
+                    .build())
+                    .size(),
+                Matchers.greaterThanOrEqualTo(ordersPerPatient));
+        }
+    }
+    
+    /**
+     * @see RadiologyOrderService#placeRadiologyOrder(RadiologyOrder)
+     * @verifies reject a radiology order with the accession number of another radiology order
+     */
+    @Test
+    public void placeRadiologyOrder_shouldRejectARadiologyOrderWithTheAccessionNumberOfAnotherRadiologyOrder()
+            throws Exception {
+        
+        RadiologyOrder radiologyOrder = radiologyOrderService.placeRadiologyOrder(getUnsavedRadiologyOrder());
+        Context.flushSession();
+        
+        try (PreparedStatement statement =
+                getConnection().prepareStatement("UPDATE radiology_order SET accession_number = ? WHERE order_id = ?")) {
+            statement.setString(1, EXISTING_RADIOLOGY_ORDER_ACCESSION_NUMBER);
+            statement.setInt(2, radiologyOrder.getOrderId());
+            
+            expectedException.expect(SQLException.class);
+            statement.executeUpdate();
+        }
+    }
+    
+    /**
+     * Places {@code ordersPerPatient} radiology orders for each of {@code PATIENT_IDS_FOR_CONCURRENT_ORDERS} on
+     * {@code threadCount} threads.
+     * 
+     * @param threadCount the number of threads placing radiology orders
+     * @param ordersPerPatient the number of radiology orders placed per patient
+     * @return the accession numbers of the placed radiology orders
+     */
+    private Set<String> placeRadiologyOrdersConcurrently(int threadCount, int ordersPerPatient)
+            throws Exception {
+        
+        final ConcurrentLinkedQueue<Integer> patientIds = new ConcurrentLinkedQueue<Integer>();
+        for (int i = 0; i < ordersPerPatient; i++) {
+            for (int patientId : PATIENT_IDS_FOR_CONCURRENT_ORDERS) {
+                patientIds.add(patientId);
+            }
+        }
+        final Set<String> accessionNumbers = Collections.synchronizedSet(new HashSet<String>());
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(new Thread(new Runnable() {
+                
+                
+                @Override
+                public void run() {
+                    try {
+                        Context.openSession();
+                        Context.authenticate("admin", "test");
+                        Integer patientId;
+                        while ((patientId = patientIds.poll()) != null) {
+                            final RadiologyOrder radiologyOrder = getUnsavedRadiologyOrder(patientId);
+                            accessionNumbers.add(radiologyOrderService.placeRadiologyOrder(radiologyOrder)
+                                    .getAccessionNumber());
+                        }
+                    }
+                    catch (Throwable t) {
+                        failures.add(t);
+                    }
+                    finally {
+                        Context.closeSession();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(failures, is(empty()));
+        return accessionNumbers;
+    }
+    
     /**
      * @see AccessionNumberGenerator#getNewAccessionNumber()
      * @verifies always return a unique accession number when called multiple times
@@ -313,6 +651,34 @@ public class RadiologyOrderServiceComponentTest extends BaseModuleContextSensiti
         Assert.assertEquals(N, uniqueAccessionNumbers.size());
     }
     
+    /**
+     * @see RadiologyOrderService#getNextAccessionNumberSeedSequenceBlock(int)
+     * @verifies return the first accession number seed of the reserved block
+     */
+    @Test
+    public void getNextAccessionNumberSeedSequenceBlock_shouldReturnTheFirstAccessionNumberSeedOfTheReservedBlock()
+            throws Exception {
+        
+        Long firstBlock = radiologyOrderService.getNextAccessionNumberSeedSequenceBlock(20);
+        Long secondBlock = radiologyOrderService.getNextAccessionNumberSeedSequenceBlock(20);
+        
+        assertThat(secondBlock - firstBlock, is(20L));
+        assertThat(radiologyOrderService.getNextAccessionNumberSeedSequenceValue() - secondBlock, is(20L));
+    }
+    
+    /**
+     * @see RadiologyOrderService#getNextAccessionNumberSeedSequenceBlock(int)
+     * @verifies throw illegal argument exception if given block size is smaller than one
+     */
+    @Test
+    public void getNextAccessionNumberSeedSequenceBlock_shouldThrowIllegalArgumentExceptionIfGivenBlockSizeIsSmallerThanOne()
+            throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("blockSize must be greater than 0");
+        radiologyOrderService.getNextAccessionNumberSeedSequenceBlock(0);
+    }
+    
     /**
      * @see RadiologyOrderService#discontinueRadiologyOrder(RadiologyOrder,Provider,String)
      * @verifies create discontinuation order which discontinues given radiology order that is not
@@ -824,6 +1190,99 @@ public class RadiologyOrderServiceComponentTest extends BaseModuleContextSensiti
             is(2006));
     }
     
+    /**
+     * @see RadiologyOrderService#getRadiologyOrders(RadiologyOrderSearchCriteria)
+     * @verifies return the page of radiology orders defined by start index and limit
+     */
+    @Test
+    public void getRadiologyOrders_shouldReturnThePageOfRadiologyOrdersDefinedByStartIndexAndLimit() throws Exception {
+        
+        List<RadiologyOrder> allRadiologyOrders = radiologyOrderService.getRadiologyOrders(
+            new RadiologyOrderSearchCriteria.Builder().withUrgency(Urgency.STAT)
+                    .build());
+        assertThat(allRadiologyOrders.size(), is(5));
+        
+        RadiologyOrderSearchCriteria radiologyOrderSearchCriteria =
+                new RadiologyOrderSearchCriteria.Builder().withUrgency(Urgency.STAT)
+                        .withStartIndex(1)
+                        .withLimit(2)
+                        .build();
+        
+        List<RadiologyOrder> radiologyOrders = radiologyOrderService.getRadiologyOrders(radiologyOrderSearchCriteria);
+        assertThat(radiologyOrders.size(), is(2));
+        assertThat(radiologyOrders.get(0), is(allRadiologyOrders.get(1)));
+        assertThat(radiologyOrders.get(1), is(allRadiologyOrders.get(2)));
+    }
+    
+    /**
+     * @see RadiologyOrderService#getRadiologyOrders(RadiologyOrderSearchCriteria)
+     * @verifies return the radiology orders after given accession number and order id if after is set
+     */
+    @Test
+    public void getRadiologyOrders_shouldReturnTheRadiologyOrdersAfterGivenAccessionNumberAndOrderIdIfAfterIsSet()
+            throws Exception {
+        
+        List<RadiologyOrder> allRadiologyOrders = radiologyOrderService.getRadiologyOrders(
+            new RadiologyOrderSearchCriteria.Builder().withUrgency(Urgency.STAT)
+                    .build());
+        assertThat(allRadiologyOrders.size(), is(5));
+        
+        List<RadiologyOrder> continuedRadiologyOrders = new ArrayList<RadiologyOrder>();
+        RadiologyOrder last = null;
+        List<RadiologyOrder> page;
+        do {
+            RadiologyOrderSearchCriteria.Builder builder = new RadiologyOrderSearchCriteria.Builder().withUrgency(Urgency.STAT)
+                    .withLimit(2);
+            if (last != null) {
+                builder.after(last.getAccessionNumber(), last.getOrderId());
+            }
+            page = radiologyOrderService.getRadiologyOrders(builder.build());
+            continuedRadiologyOrders.addAll(page);
+            if (!page.isEmpty()) {
+                last = page.get(page.size() - 1);
+            }
+        } while (page.size() == 2);
+        
+        assertThat(continuedRadiologyOrders, is(allRadiologyOrders));
+    }
+    
+    /**
+     * @see RadiologyOrderService#getRadiologyOrders(RadiologyOrderSearchCriteria)
+     * @verifies fetch the associations of the fetch plan with the same number of statements for any page size
+     */
+    @Test
+    public void getRadiologyOrders_shouldFetchTheAssociationsOfTheFetchPlanWithTheSameNumberOfStatementsForAnyPageSize()
+            throws Exception {
+        
+        Statistics statistics = sessionFactory.getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            Context.clearSession();
+            statistics.clear();
+            List<RadiologyOrder> smallPage = radiologyOrderService.getRadiologyOrders(
+                new RadiologyOrderSearchCriteria.Builder().withLimit(1)
+                        .fetch("study")
+                        .build());
+            long smallPageStatements = statistics.getPrepareStatementCount();
+            
+            Context.clearSession();
+            statistics.clear();
+            List<RadiologyOrder> largePage = radiologyOrderService.getRadiologyOrders(
+                new RadiologyOrderSearchCriteria.Builder().withLimit(10)
+                        .fetch("study")
+                        .build());
+            long largePageStatements = statistics.getPrepareStatementCount();
+            
+            assertThat(smallPage.size(), is(1));
+            assertThat(largePage.size(), is(Matchers.greaterThan(5)));
+            assertThat(largePageStatements, is(smallPageStatements));
+        }
+        finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+    
     /**
      * @see RadiologyOrderService#getRadiologyOrders(RadiologyOrderSearchCriteria)
      * @verifies throw illegal argument exception if given null
@@ -835,4 +1294,249 @@ public class RadiologyOrderServiceComponentTest extends BaseModuleContextSensiti
         expectedException.expectMessage("radiologyOrderSearchCriteria cannot be null");
         radiologyOrderService.getRadiologyOrders(null);
     }
+    
+    /**
+     * @see RadiologyOrderService#getRadiologyOrdersCount(RadiologyOrderSearchCriteria)
+     * @verifies return the number of radiology orders matching given criteria ignoring start index and limit
+     */
+    @Test
+    public void getRadiologyOrdersCount_shouldReturnTheNumberOfRadiologyOrdersMatchingGivenCriteriaIgnoringStartIndexAndLimit()
+            throws Exception {
+        
+        RadiologyOrderSearchCriteria radiologyOrderSearchCriteria =
+                new RadiologyOrderSearchCriteria.Builder().withUrgency(Urgency.STAT)
+                        .withStartIndex(1)
+                        .withLimit(2)
+                        .build();
+        
+        assertThat(radiologyOrderService.getRadiologyOrdersCount(radiologyOrderSearchCriteria), is(5L));
+    }
+    
+    /**
+     * @see RadiologyOrderService#getRadiologyOrdersCount(RadiologyOrderSearchCriteria)
+     * @verifies throw illegal argument exception if given null
+     */
+    @Test
+    public void getRadiologyOrdersCount_shouldThrowIllegalArgumentExceptionIfGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("radiologyOrderSearchCriteria cannot be null");
+        radiologyOrderService.getRadiologyOrdersCount(null);
+    }
+    
+    /**
+     * @see RadiologyOrderService#getRadiologyOrderWorklist(RadiologyOrderSearchCriteria)
+     * @verifies return the worklist items of the radiology orders matching given criteria
+     */
+    @Test
+    public void getRadiologyOrderWorklist_shouldReturnTheWorklistItemsOfTheRadiologyOrdersMatchingGivenCriteria()
+            throws Exception {
+        
+        RadiologyOrderSearchCriteria radiologyOrderSearchCriteria =
+                new RadiologyOrderSearchCriteria.Builder().withUrgency(Urgency.STAT)
+                        .build();
+        List<RadiologyOrder> radiologyOrders = radiologyOrderService.getRadiologyOrders(radiologyOrderSearchCriteria);
+        
+        List<RadiologyOrderWorklistItem> worklist =
+                radiologyOrderService.getRadiologyOrderWorklist(radiologyOrderSearchCriteria);
+        
+        assertThat(worklist.size(), is(radiologyOrders.size()));
+        for (int i = 0; i < worklist.size(); i++) {
+            assertThat(worklist.get(i)
+                    .getUuid(),
+                is(radiologyOrders.get(i)
+                        .getUuid()));
+            assertThat(worklist.get(i)
+                    .getAccessionNumber(),
+                is(radiologyOrders.get(i)
+                        .getAccessionNumber()));
+            assertThat(worklist.get(i)
+                    .getUrgency(),
+                is(Urgency.STAT.name()));
+        }
+    }
+    
+    /**
+     * @see RadiologyOrderService#getRadiologyOrderWorklist(RadiologyOrderSearchCriteria)
+     * @verifies return the patient procedure and orderer names and the study and report status
+     */
+    @Test
+    public void getRadiologyOrderWorklist_shouldReturnThePatientProcedureAndOrdererNamesAndTheStudyAndReportStatus()
+            throws Exception {
+        
+        List<RadiologyOrderWorklistItem> worklist = radiologyOrderService.getRadiologyOrderWorklist(
+            new RadiologyOrderSearchCriteria.Builder().withAccessionNumber(EXISTING_RADIOLOGY_ORDER_ACCESSION_NUMBER)
+                    .build());
+        
+        assertThat(worklist.size(), is(1));
+        RadiologyOrderWorklistItem worklistItem = worklist.get(0);
+        assertThat(worklistItem.getOrderId(), is(EXISTING_RADIOLOGY_ORDER_ID));
+        assertThat(worklistItem.getUuid(), is(EXISTING_RADIOLOGY_ORDER_UUID));
+        assertThat(worklistItem.getPatientUuid(), is("5631b434-78aa-102b-91a0-001e378eb67e"));
+        assertThat(worklistItem.getPatientName(), is("John Francis Doe"));
+        assertThat(worklistItem.getPatientIdentifier(), is("4321"));
+        assertThat(worklistItem.getProcedure(), is("FRACTURE"));
+        assertThat(worklistItem.getUrgency(), is(Urgency.ROUTINE.name()));
+        assertThat(worklistItem.getOrderer(), is("Radiology Technician"));
+        assertThat(worklistItem.getInstructions(), is("CT ABDOMEN PANCREAS WITH IV CONTRAST"));
+        assertThat(worklistItem.getPerformedStatus(), is(PerformedProcedureStepStatus.IN_PROGRESS.name()));
+        assertThat(worklistItem.getReportStatus(), is(nullValue()));
+    }
+    
+    /**
+     * @see RadiologyOrderService#getRadiologyOrderWorklist(RadiologyOrderSearchCriteria)
+     * @verifies return one worklist item per radiology order if the patient has several preferred names
+     */
+    @Test
+    public void getRadiologyOrderWorklist_shouldReturnOneWorklistItemPerRadiologyOrderIfThePatientHasSeveralPreferredNames()
+            throws Exception {
+        
+        Patient patient = radiologyOrderService.getRadiologyOrder(EXISTING_RADIOLOGY_ORDER_ID)
+                .getPatient();
+        PersonName personName = new PersonName("Jonathan", null, "Doe");
+        personName.setPreferred(true);
+        personName.setPerson(patient);
+        PatientIdentifier existingPatientIdentifier = patient.getPatientIdentifier();
+        PatientIdentifier patientIdentifier = new PatientIdentifier("5432",
+                existingPatientIdentifier.getIdentifierType(), existingPatientIdentifier.getLocation());
+        patientIdentifier.setPreferred(true);
+        patientIdentifier.setPatient(patient);
+        sessionFactory.getCurrentSession()
+                .save(personName);
+        sessionFactory.getCurrentSession()
+                .save(patientIdentifier);
+        sessionFactory.getCurrentSession()
+                .flush();
+        
+        List<RadiologyOrderWorklistItem> worklist = radiologyOrderService.getRadiologyOrderWorklist(
+            new RadiologyOrderSearchCriteria.Builder().withAccessionNumber(EXISTING_RADIOLOGY_ORDER_ACCESSION_NUMBER)
+                    .build());
+        
+        assertThat(worklist.size(), is(1));
+        assertThat(worklist.get(0)
+                .getPatientName(),
+            is("John Francis Doe"));
+        assertThat(worklist.get(0)
+                .getPatientIdentifier(),
+            is("4321"));
+    }
+    
+    /**
+     * @see RadiologyOrderService#getRadiologyOrderWorklist(RadiologyOrderSearchCriteria)
+     * @verifies return the page of worklist items defined by start index and limit
+     */
+    @Test
+    public void getRadiologyOrderWorklist_shouldReturnThePageOfWorklistItemsDefinedByStartIndexAndLimit() throws Exception {
+        
+        List<RadiologyOrderWorklistItem> worklist = radiologyOrderService.getRadiologyOrderWorklist(
+            new RadiologyOrderSearchCriteria.Builder().withUrgency(Urgency.STAT)
+                    .build());
+        
+        List<RadiologyOrderWorklistItem> page = radiologyOrderService.getRadiologyOrderWorklist(
+            new RadiologyOrderSearchCriteria.Builder().withUrgency(Urgency.STAT)
+                    .withStartIndex(1)
+                    .withLimit(2)
+                    .build());
+        
+        assertThat(page.size(), is(2));
+        assertThat(page.get(0)
+                .getUuid(),
+            is(worklist.get(1)
+                    .getUuid()));
+        assertThat(page.get(1)
+                .getUuid(),
+            is(worklist.get(2)
+                    .getUuid()));
+    }
+    
+    /**
+     * @see RadiologyOrderService#getRadiologyOrderWorklist(RadiologyOrderSearchCriteria)
+     * @verifies throw illegal argument exception if given null
+     */
+    @Test
+    public void getRadiologyOrderWorklist_shouldThrowIllegalArgumentExceptionIfGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("radiologyOrderSearchCriteria cannot be null");
+        radiologyOrderService.getRadiologyOrderWorklist(null);
+    }
+    
+    /**
+     * Collects the export entries it is given.
+     */
+    private static class CollectingRadiologyOrderExportWriter implements RadiologyOrderExportWriter {
+        
+        
+        private final List<RadiologyOrderExportEntry> radiologyOrderExportEntries =
+                new ArrayList<RadiologyOrderExportEntry>();
+        
+        @Override
+        public void write(RadiologyOrderExportEntry radiologyOrderExportEntry) {
+            radiologyOrderExportEntries.add(radiologyOrderExportEntry);
+        }
+    }
+    
+    /**
+     * @see RadiologyOrderService#exportRadiologyOrders(Date, RadiologyOrderExportWriter)
+     * @verifies export all radiology orders with their study and active report
+     */
+    @Test
+    public void exportRadiologyOrders_shouldExportAllRadiologyOrdersWithTheirStudyAndActiveReport() throws Exception {
+        
+        CollectingRadiologyOrderExportWriter writer = new CollectingRadiologyOrderExportWriter();
+        
+        long exported = radiologyOrderService.exportRadiologyOrders(null, writer);
+        
+        assertThat(exported, is(14L));
+        assertThat(writer.radiologyOrderExportEntries.size(), is(14));
+        RadiologyOrder radiologyOrder = radiologyOrderService.getRadiologyOrder(EXISTING_RADIOLOGY_ORDER_ID);
+        RadiologyOrderExportEntry radiologyOrderExportEntry = writer.radiologyOrderExportEntries.get(0);
+        assertThat(radiologyOrderExportEntry.getOrderUuid(), is(radiologyOrder.getUuid()));
+        assertThat(radiologyOrderExportEntry.getAccessionNumber(), is(radiologyOrder.getAccessionNumber()));
+        assertThat(radiologyOrderExportEntry.getPatientUuid(), is(radiologyOrder.getPatient()
+                .getUuid()));
+        assertThat(radiologyOrderExportEntry.getUrgency(), is(radiologyOrder.getUrgency()
+                .name()));
+        assertThat(radiologyOrderExportEntry.getStudyInstanceUid(), is(radiologyOrder.getStudy()
+                .getStudyInstanceUid()));
+        assertThat(radiologyOrderExportEntry.getPerformedStatus(), is(radiologyOrder.getStudy()
+                .getPerformedStatus()
+                .name()));
+        assertNull(radiologyOrderExportEntry.getReportUuid());
+    }
+    
+    /**
+     * @see RadiologyOrderService#exportRadiologyOrders(Date, RadiologyOrderExportWriter)
+     * @verifies only export radiology orders created or changed at or after since if since is given
+     */
+    @Test
+    public void exportRadiologyOrders_shouldOnlyExportRadiologyOrdersCreatedOrChangedAtOrAfterSinceIfSinceIsGiven()
+            throws Exception {
+        
+        CollectingRadiologyOrderExportWriter writer = new CollectingRadiologyOrderExportWriter();
+        
+        long exported =
+                radiologyOrderService.exportRadiologyOrders(new SimpleDateFormat("yyyy-MM-dd").parse("2016-05-05"), writer);
+        
+        assertThat(exported, is(3L));
+        assertThat(writer.radiologyOrderExportEntries,
+            hasItem(Matchers.<RadiologyOrderExportEntry> hasProperty("accessionNumber", is("8"))));
+        assertThat(writer.radiologyOrderExportEntries,
+            hasItem(Matchers.<RadiologyOrderExportEntry> hasProperty("accessionNumber", is("11"))));
+        assertThat(writer.radiologyOrderExportEntries,
+            hasItem(Matchers.<RadiologyOrderExportEntry> hasProperty("accessionNumber", is("14"))));
+    }
+    
+    /**
+     * @see RadiologyOrderService#exportRadiologyOrders(Date, RadiologyOrderExportWriter)
+     * @verifies throw illegal argument exception if given radiology order export writer is null
+     */
+    @Test
+    public void exportRadiologyOrders_shouldThrowIllegalArgumentExceptionIfGivenRadiologyOrderExportWriterIsNull()
+            throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("radiologyOrderExportWriter cannot be null");
+        radiologyOrderService.exportRadiologyOrders(null, null);
+    }
 }
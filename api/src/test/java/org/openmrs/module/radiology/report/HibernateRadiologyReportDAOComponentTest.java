@@ -0,0 +1,284 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.openmrs.api.APIException;
+import org.openmrs.module.radiology.order.RadiologyOrderService;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests {@link HibernateRadiologyReportDAO}.
+ */
+public class HibernateRadiologyReportDAOComponentTest extends BaseModuleContextSensitiveTest {
+    
+    
+    private static final String TEST_DATASET =
+            "org/openmrs/module/radiology/include/RadiologyReportServiceComponentTestDataset.xml";
+    
+    private static final int RADIOLOGY_ORDER_WITH_STUDY_WITHOUT_RADIOLOGY_REPORT = 2005;
+    
+    private static final int RADIOLOGY_ORDER_WITH_STUDY_AND_DRAFT_RADIOLOGY_REPORT = 2006;
+    
+    private static final int RADIOLOGY_ORDER_WITH_STUDY_AND_COMPLETED_RADIOLOGY_REPORT = 2007;
+    
+    private static final int RADIOLOGY_ORDER_WITH_STUDY_AND_VOIDED_RADIOLOGY_REPORT = 2008;
+    
+    @Autowired
+    private SessionFactory sessionFactory;
+    
+    @Autowired
+    private RadiologyOrderService radiologyOrderService;
+    
+    private HibernateRadiologyReportDAO hibernateRadiologyReportDAO;
+    
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+    
+    @Before
+    public void setUp() throws Exception {
+        
+        executeDataSet(TEST_DATASET);
+        hibernateRadiologyReportDAO = new HibernateRadiologyReportDAO();
+        hibernateRadiologyReportDAO.setSessionFactory(sessionFactory);
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#getActiveRadiologyReportStatusByRadiologyOrder(org.openmrs.module.radiology.order.RadiologyOrder)
+     * @verifies return draft if given radiology order has a claimed radiology report
+     */
+    @Test
+    public void getActiveRadiologyReportStatusByRadiologyOrder_shouldReturnDraftIfGivenRadiologyOrderHasAClaimedRadiologyReport()
+            throws Exception {
+        
+        assertThat(hibernateRadiologyReportDAO.getActiveRadiologyReportStatusByRadiologyOrder(
+            radiologyOrderService.getRadiologyOrder(RADIOLOGY_ORDER_WITH_STUDY_AND_DRAFT_RADIOLOGY_REPORT)),
+            is(RadiologyReportStatus.DRAFT));
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#getActiveRadiologyReportStatusByRadiologyOrder(org.openmrs.module.radiology.order.RadiologyOrder)
+     * @verifies return completed if given radiology order has a completed radiology report
+     */
+    @Test
+    public void
+            getActiveRadiologyReportStatusByRadiologyOrder_shouldReturnCompletedIfGivenRadiologyOrderHasACompletedRadiologyReport()
+                    throws Exception {
+        
+        assertThat(hibernateRadiologyReportDAO.getActiveRadiologyReportStatusByRadiologyOrder(
+            radiologyOrderService.getRadiologyOrder(RADIOLOGY_ORDER_WITH_STUDY_AND_COMPLETED_RADIOLOGY_REPORT)),
+            is(RadiologyReportStatus.COMPLETED));
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#getActiveRadiologyReportStatusByRadiologyOrder(org.openmrs.module.radiology.order.RadiologyOrder)
+     * @verifies return null if given radiology order is only associated with a voided report
+     */
+    @Test
+    public void
+            getActiveRadiologyReportStatusByRadiologyOrder_shouldReturnNullIfGivenRadiologyOrderIsOnlyAssociatedWithAVoidedReport()
+                    throws Exception {
+        
+        assertThat(hibernateRadiologyReportDAO.getActiveRadiologyReportStatusByRadiologyOrder(
+            radiologyOrderService.getRadiologyOrder(RADIOLOGY_ORDER_WITH_STUDY_AND_VOIDED_RADIOLOGY_REPORT)),
+            is(nullValue()));
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#getActiveRadiologyReportStatusByRadiologyOrder(org.openmrs.module.radiology.order.RadiologyOrder)
+     * @verifies return null if given radiology order has no radiology report
+     */
+    @Test
+    public void getActiveRadiologyReportStatusByRadiologyOrder_shouldReturnNullIfGivenRadiologyOrderHasNoRadiologyReport()
+            throws Exception {
+        
+        assertThat(hibernateRadiologyReportDAO.getActiveRadiologyReportStatusByRadiologyOrder(
+            radiologyOrderService.getRadiologyOrder(RADIOLOGY_ORDER_WITH_STUDY_WITHOUT_RADIOLOGY_REPORT)),
+            is(nullValue()));
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#createRadiologyReport(RadiologyReport)
+     * @verifies save given radiology report
+     */
+    @Test
+    public void createRadiologyReport_shouldSaveGivenRadiologyReport() throws Exception {
+        
+        RadiologyReport radiologyReport = new RadiologyReport(
+                radiologyOrderService.getRadiologyOrder(RADIOLOGY_ORDER_WITH_STUDY_WITHOUT_RADIOLOGY_REPORT));
+        
+        hibernateRadiologyReportDAO.createRadiologyReport(radiologyReport);
+        
+        assertNotNull(radiologyReport.getReportId());
+        assertThat(hibernateRadiologyReportDAO.getActiveRadiologyReportStatusByRadiologyOrder(
+            radiologyOrderService.getRadiologyOrder(RADIOLOGY_ORDER_WITH_STUDY_WITHOUT_RADIOLOGY_REPORT)),
+            is(RadiologyReportStatus.DRAFT));
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#createRadiologyReport(RadiologyReport)
+     * @verifies save given radiology report if the other radiology reports of its radiology order are voided
+     */
+    @Test
+    public void createRadiologyReport_shouldSaveGivenRadiologyReportIfTheOtherRadiologyReportsOfItsRadiologyOrderAreVoided()
+            throws Exception {
+        
+        RadiologyReport radiologyReport = new RadiologyReport(
+                radiologyOrderService.getRadiologyOrder(RADIOLOGY_ORDER_WITH_STUDY_AND_VOIDED_RADIOLOGY_REPORT));
+        
+        hibernateRadiologyReportDAO.createRadiologyReport(radiologyReport);
+        
+        assertNotNull(radiologyReport.getReportId());
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#createRadiologyReport(RadiologyReport)
+     * @verifies throw api exception if the radiology order of given radiology report already has an active report
+     */
+    @Test
+    public void
+            createRadiologyReport_shouldThrowApiExceptionIfTheRadiologyOrderOfGivenRadiologyReportAlreadyHasAnActiveReport()
+                    throws Exception {
+        
+        // a claim which passed the checks of the service on another node while the radiology order was claimed here
+        RadiologyReport radiologyReport = new RadiologyReport(
+                radiologyOrderService.getRadiologyOrder(RADIOLOGY_ORDER_WITH_STUDY_AND_DRAFT_RADIOLOGY_REPORT));
+        
+        expectedException.expect(APIException.class);
+        expectedException.expectMessage("radiology.RadiologyReport.cannot.create.already.claimed");
+        hibernateRadiologyReportDAO.createRadiologyReport(radiologyReport);
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#getRadiologyReports(RadiologyReportSearchCriteria, java.util.Collection)
+     * @verifies return the radiology reports matching given criteria and report ids
+     */
+    @Test
+    public void getRadiologyReports_shouldReturnTheRadiologyReportsMatchingGivenCriteriaAndReportIds() throws Exception {
+        
+        assertThat(getReportIds(hibernateRadiologyReportDAO.getRadiologyReports(
+            new RadiologyReportSearchCriteria.Builder().includeVoided()
+                    .build(),
+            Arrays.asList(4, 3, 1))), is(Arrays.asList(1, 3, 4)));
+        assertThat(getReportIds(hibernateRadiologyReportDAO.getRadiologyReports(
+            new RadiologyReportSearchCriteria.Builder().build(), Arrays.asList(4, 3, 1))), is(Arrays.asList(1, 4)));
+        assertThat(hibernateRadiologyReportDAO.getRadiologyReports(new RadiologyReportSearchCriteria.Builder().build(),
+            new ArrayList<Integer>())
+                .size(),
+            is(0));
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#getRadiologyReports(RadiologyReportSearchCriteria, java.util.Collection)
+     * @verifies ignore the start index limit and continuation of given criteria
+     */
+    @Test
+    public void getRadiologyReports_shouldIgnoreTheStartIndexLimitAndContinuationOfGivenCriteria() throws Exception {
+        
+        final RadiologyReport firstRadiologyReport = hibernateRadiologyReportDAO.getRadiologyReport(1);
+        
+        assertThat(getReportIds(hibernateRadiologyReportDAO.getRadiologyReports(
+            new RadiologyReportSearchCriteria.Builder().withStartIndex(1)
+                    .withLimit(1)
+                    .after(firstRadiologyReport.getDate(), firstRadiologyReport.getReportId())
+                    .build(),
+            Arrays.asList(4, 2, 1))), is(Arrays.asList(1, 2, 4)));
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#getRadiologyReportsCount(RadiologyReportSearchCriteria, java.util.Collection)
+     * @verifies return the number of radiology reports matching given criteria and report ids
+     */
+    @Test
+    public void getRadiologyReportsCount_shouldReturnTheNumberOfRadiologyReportsMatchingGivenCriteriaAndReportIds()
+            throws Exception {
+        
+        assertThat(hibernateRadiologyReportDAO.getRadiologyReportsCount(
+            new RadiologyReportSearchCriteria.Builder().includeVoided()
+                    .build(),
+            Arrays.asList(1, 2, 3)), is(3L));
+        assertThat(hibernateRadiologyReportDAO.getRadiologyReportsCount(
+            new RadiologyReportSearchCriteria.Builder().withStatus(RadiologyReportStatus.COMPLETED)
+                    .build(),
+            Arrays.asList(1, 2, 3)), is(1L));
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#getStoredRadiologyReportDate(Integer)
+     * @verifies return the report date of the radiology report as stored in the database
+     */
+    @Test
+    public void getStoredRadiologyReportDate_shouldReturnTheReportDateOfTheRadiologyReportAsStoredInTheDatabase()
+            throws Exception {
+        
+        final RadiologyReport radiologyReport = hibernateRadiologyReportDAO.getRadiologyReport(4);
+        final Date date = new Date();
+        radiologyReport.setDate(date);
+        hibernateRadiologyReportDAO.saveRadiologyReport(radiologyReport);
+        
+        assertThat(hibernateRadiologyReportDAO.getStoredRadiologyReportDate(4)
+                .getTime(),
+            is(date.getTime()));
+        assertThat(hibernateRadiologyReportDAO.getStoredRadiologyReportDate(1000), is(nullValue()));
+    }
+    
+    /**
+     * @see HibernateRadiologyReportDAO#getCompletedRadiologyReportBodies(RadiologyReportDAO.RadiologyReportBodyConsumer)
+     * @verifies hand the report id and body of all completed radiology reports to given consumer
+     */
+    @Test
+    public void getCompletedRadiologyReportBodies_shouldHandTheReportIdAndBodyOfAllCompletedRadiologyReportsToGivenConsumer()
+            throws Exception {
+        
+        final Map<Integer, String> bodies = new LinkedHashMap<>();
+        final Map<Integer, Date> dates = new LinkedHashMap<>();
+        
+        final long read = hibernateRadiologyReportDAO.getCompletedRadiologyReportBodies((reportId, date, body) -> {
+            dates.put(reportId, date);
+            bodies.put(reportId, body);
+        });
+        
+        assertThat(read, is(2L));
+        assertThat(new ArrayList<>(bodies.keySet()), is(Arrays.asList(2, 4)));
+        assertThat(bodies.get(2), is("some diagnosis"));
+        assertThat(bodies.get(4), is("<p>Pulmonary nodule in the right upper lobe</p>"));
+        assertThat(dates.get(4)
+                .getTime(),
+            is(hibernateRadiologyReportDAO.getRadiologyReport(4)
+                    .getDate()
+                    .getTime()));
+    }
+    
+    private static List<Integer> getReportIds(List<RadiologyReport> radiologyReports) {
+        
+        final List<Integer> result = new ArrayList<>();
+        for (RadiologyReport radiologyReport : radiologyReports) {
+            result.add(radiologyReport.getReportId());
+        }
+        return result;
+    }
+}
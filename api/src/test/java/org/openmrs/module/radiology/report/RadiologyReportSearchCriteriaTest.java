@@ -9,6 +9,8 @@
  */
 package org.openmrs.module.radiology.report;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -124,4 +126,93 @@ public class RadiologyReportSearchCriteriaTest {
         assertNull(radiologyReportSearchCriteria.getFromDate());
         assertNull(radiologyReportSearchCriteria.getPrincipalResultsInterpreter());
     }
+    
+    /**
+     * @see RadiologyReportSearchCriteria.Builder#build()
+     * @verifies create a new radiology report search criteria instance with start index and limit if start index and limit are set
+     */
+    @Test
+    public void build_createANewRadiologyReportSearchCriteriaInstanceWithStartIndexAndLimitIfStartIndexAndLimitAreSet()
+            throws Exception {
+        
+        radiologyReportSearchCriteria = new RadiologyReportSearchCriteria.Builder().withStartIndex(20)
+                .withLimit(10)
+                .build();
+        
+        assertThat(radiologyReportSearchCriteria.getStartIndex(), is(20));
+        assertThat(radiologyReportSearchCriteria.getLimit(), is(10));
+        assertFalse(radiologyReportSearchCriteria.getIncludeVoided());
+        assertFalse(radiologyReportSearchCriteria.getExcludeBody());
+        assertNull(radiologyReportSearchCriteria.getStatus());
+    }
+    
+    /**
+     * @see RadiologyReportSearchCriteria.Builder#build()
+     * @verifies create a new radiology report search criteria instance with exclude body set to true if body should be excluded
+     */
+    @Test
+    public void build_createANewRadiologyReportSearchCriteriaInstanceWithExcludeBodySetToTrueIfBodyShouldBeExcluded()
+            throws Exception {
+        
+        radiologyReportSearchCriteria = new RadiologyReportSearchCriteria.Builder().excludeBody()
+                .build();
+        
+        assertTrue(radiologyReportSearchCriteria.getExcludeBody());
+        assertFalse(radiologyReportSearchCriteria.getIncludeVoided());
+        assertNull(radiologyReportSearchCriteria.getStartIndex());
+        assertNull(radiologyReportSearchCriteria.getLimit());
+    }
+    
+    /**
+     * @see RadiologyReportSearchCriteria.Builder#build()
+     * @verifies create a new radiology report search criteria instance with after date and report id if after is set
+     */
+    @Test
+    public void build_createANewRadiologyReportSearchCriteriaInstanceWithAfterDateAndReportIdIfAfterIsSet()
+            throws Exception {
+        
+        Date date = new Date();
+        radiologyReportSearchCriteria = new RadiologyReportSearchCriteria.Builder().after(date, 1)
+                .build();
+        
+        assertThat(radiologyReportSearchCriteria.getAfterDate(), is(date));
+        assertThat(radiologyReportSearchCriteria.getAfterReportId(), is(1));
+        assertNull(radiologyReportSearchCriteria.getStartIndex());
+        assertNull(radiologyReportSearchCriteria.getFromDate());
+        assertNull(radiologyReportSearchCriteria.getToDate());
+    }
+    
+    /**
+     * @see RadiologyReportSearchCriteria.Builder#build()
+     * @verifies create a new radiology report search criteria instance with fetched associations if fetch is set
+     */
+    @Test
+    public void build_createANewRadiologyReportSearchCriteriaInstanceWithFetchedAssociationsIfFetchIsSet()
+            throws Exception {
+        
+        radiologyReportSearchCriteria = new RadiologyReportSearchCriteria.Builder().fetch("radiologyOrder")
+                .fetch("principalResultsInterpreter", "radiologyOrder")
+                .build();
+        
+        assertThat(radiologyReportSearchCriteria.getFetchedAssociations(),
+            contains("radiologyOrder", "principalResultsInterpreter"));
+        assertThat(new RadiologyReportSearchCriteria.Builder().build()
+                .getFetchedAssociations(),
+            is(empty()));
+    }
+    
+    /**
+     * @see RadiologyReportSearchCriteria.Builder#build()
+     * @verifies create a new radiology report search criteria instance with query if query is set
+     */
+    @Test
+    public void build_createANewRadiologyReportSearchCriteriaInstanceWithQueryIfQueryIsSet() throws Exception {
+        
+        radiologyReportSearchCriteria = new RadiologyReportSearchCriteria.Builder().withQuery("pulmonary embolism")
+                .build();
+        
+        assertThat(radiologyReportSearchCriteria.getQuery(), is("pulmonary embolism"));
+        assertNull(new RadiologyReportSearchCriteria.Builder().build()
+                .getQuery());
+    }
 }
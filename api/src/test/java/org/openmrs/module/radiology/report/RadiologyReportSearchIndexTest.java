@@ -0,0 +1,579 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.module.radiology.RadiologyProperties;
+import org.openmrs.module.radiology.report.RadiologyReportSearchIndex.SearchHit;
+
+/**
+ * Tests {@link RadiologyReportSearchIndex}.
+ */
+public class RadiologyReportSearchIndexTest {
+    
+    
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+    
+    private File home;
+    
+    private File indexDirectory;
+    
+    private RadiologyReportSearchIndex radiologyReportSearchIndex;
+    
+    @Before
+    public void setUp() throws Exception {
+        
+        home = temporaryFolder.newFolder("report_index");
+        indexDirectory = new File(home, RadiologyReportSearchIndex.INDEX_DIRECTORY_NAME);
+        RadiologyProperties radiologyProperties = mock(RadiologyProperties.class);
+        when(radiologyProperties.getReportIndexHome()).thenReturn(home);
+        radiologyReportSearchIndex = new RadiologyReportSearchIndex();
+        radiologyReportSearchIndex.setRadiologyProperties(radiologyProperties);
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#add(Integer, Date, String)
+     * @verifies make the report searchable by the words of its body without html
+     */
+    @Test
+    public void add_shouldMakeTheReportSearchableByTheWordsOfItsBodyWithoutHtml() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(), "<p>No <b>pulmonary</b> embolism.</p>");
+        
+        assertThat(search("Pulmonary"), is(Arrays.asList(1)));
+        assertTrue(search("b").isEmpty());
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#add(Integer, Date, String)
+     * @verifies keep added reports after the index is opened again
+     */
+    @Test
+    public void add_shouldKeepAddedReportsAfterTheIndexIsOpenedAgain() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(2000), "<p>No pulmonary embolism.</p>");
+        radiologyReportSearchIndex.add(2, new Date(1000), "<p>Pulmonary nodule in the right upper lobe.</p>");
+        
+        radiologyReportSearchIndex.close();
+        
+        assertThat(search("pulmonary"), is(Arrays.asList(2, 1)));
+        assertThat(radiologyReportSearchIndex.getSegmentCount(), is(0));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#add(Integer, Date, String)
+     * @verifies write a segment once the flush threshold is reached
+     */
+    @Test
+    public void add_shouldWriteASegmentOnceTheFlushThresholdIsReached() throws Exception {
+        
+        for (int reportId = 1; reportId <= RadiologyReportSearchIndex.FLUSH_THRESHOLD; reportId++) {
+            radiologyReportSearchIndex.add(reportId, new Date(reportId), "<p>No acute findings.</p>");
+        }
+        
+        assertThat(radiologyReportSearchIndex.getSegmentCount(), is(1));
+        assertThat(new File(indexDirectory, "journal").length(), is(0L));
+        radiologyReportSearchIndex.close();
+        assertThat(search("acute").size(), is(RadiologyReportSearchIndex.FLUSH_THRESHOLD));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#add(Integer, Date, String)
+     * @verifies throw illegal argument exception if given report id is null
+     */
+    @Test
+    public void add_shouldThrowIllegalArgumentExceptionIfGivenReportIdIsNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("reportId cannot be null");
+        radiologyReportSearchIndex.add(null, new Date(), "<p>No acute findings.</p>");
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#addWithoutJournal(Integer, Date, String)
+     * @verifies make the report searchable once flushed
+     */
+    @Test
+    public void addWithoutJournal_shouldMakeTheReportSearchableOnceFlushed() throws Exception {
+        
+        radiologyReportSearchIndex.addWithoutJournal(1, new Date(1000), "<p>No pulmonary embolism.</p>");
+        radiologyReportSearchIndex.addWithoutJournal(2, new Date(2000), "<p>Pulmonary nodule.</p>");
+        assertThat(new File(indexDirectory, "journal").length(), is(0L));
+        
+        radiologyReportSearchIndex.flush();
+        radiologyReportSearchIndex.close();
+        
+        assertThat(search("pulmonary"), is(Arrays.asList(1, 2)));
+        assertThat(radiologyReportSearchIndex.getSegmentCount(), is(1));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#addWithoutJournal(Integer, Date, String)
+     * @verifies throw illegal argument exception if given report id is null
+     */
+    @Test
+    public void addWithoutJournal_shouldThrowIllegalArgumentExceptionIfGivenReportIdIsNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("reportId cannot be null");
+        radiologyReportSearchIndex.addWithoutJournal(null, new Date(), "<p>No acute findings.</p>");
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#flush()
+     * @verifies merge the segments of a size tier once it holds the merge factor of segments
+     */
+    @Test
+    public void flush_shouldMergeTheSegmentsOfASizeTierOnceItHoldsTheMergeFactorOfSegments() throws Exception {
+        
+        addSegments(1, RadiologyReportSearchIndex.MERGE_FACTOR - 1);
+        assertThat(radiologyReportSearchIndex.getSegmentCount(), is(RadiologyReportSearchIndex.MERGE_FACTOR - 1));
+        
+        addSegments(RadiologyReportSearchIndex.MERGE_FACTOR, 1);
+        
+        assertThat(radiologyReportSearchIndex.getSegmentCount(), is(1));
+        assertThat(indexDirectory.list().length, is(2));
+        radiologyReportSearchIndex.close();
+        assertThat(search("pulmonary").size(), is(RadiologyReportSearchIndex.MERGE_FACTOR));
+        assertThat(search("nodule"), is(Arrays.asList(2, 4, 6, 8, 10)));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#flush()
+     * @verifies not merge segments of different size tiers
+     */
+    @Test
+    public void flush_shouldNotMergeSegmentsOfDifferentSizeTiers() throws Exception {
+        
+        addSegments(1, RadiologyReportSearchIndex.MERGE_FACTOR);
+        
+        addSegments(RadiologyReportSearchIndex.MERGE_FACTOR + 1, RadiologyReportSearchIndex.MERGE_FACTOR - 1);
+        
+        // the merged segment is in the next tier, so it is not merged again with the segments of one report
+        assertThat(radiologyReportSearchIndex.getSegmentCount(), is(RadiologyReportSearchIndex.MERGE_FACTOR));
+        assertThat(search("pulmonary").size(), is(2 * RadiologyReportSearchIndex.MERGE_FACTOR - 1));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#search(String, Date, Date, SearchHit, int)
+     * @verifies return the reports containing all words of given query
+     */
+    @Test
+    public void search_shouldReturnTheReportsContainingAllWordsOfGivenQuery() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(1000), "<p>No pulmonary embolism.</p>");
+        radiologyReportSearchIndex.add(2, new Date(2000), "<p>Pulmonary nodule.</p>");
+        
+        assertThat(search("pulmonary embolism"), is(Arrays.asList(1)));
+        assertTrue(search("embolism nodule").isEmpty());
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#search(String, Date, Date, SearchHit, int)
+     * @verifies return the reports containing words starting with the words of given query
+     */
+    @Test
+    public void search_shouldReturnTheReportsContainingWordsStartingWithTheWordsOfGivenQuery() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(1000), "<p>No pulmonary embolism.</p>");
+        radiologyReportSearchIndex.add(2, new Date(2000), "<p>Pulmonary nodule.</p>");
+        
+        assertThat(search("pulm"), is(Arrays.asList(1, 2)));
+        assertThat(search("pulm emb"), is(Arrays.asList(1)));
+        assertTrue(search("pulmonaryx").isEmpty());
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#search(String, Date, Date, SearchHit, int)
+     * @verifies return the reports of all segments and the journal
+     */
+    @Test
+    public void search_shouldReturnTheReportsOfAllSegmentsAndTheJournal() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(1000), "<p>Pulmonary embolism.</p>");
+        radiologyReportSearchIndex.flush();
+        radiologyReportSearchIndex.add(2, new Date(2000), "<p>Pulmonary nodule.</p>");
+        radiologyReportSearchIndex.flush();
+        radiologyReportSearchIndex.add(3, new Date(3000), "<p>Pulmonary edema.</p>");
+        
+        assertThat(radiologyReportSearchIndex.getSegmentCount(), is(2));
+        assertThat(search("pulmonary"), is(Arrays.asList(1, 2, 3)));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#search(String, Date, Date, SearchHit, int)
+     * @verifies return the reports in the order of report date and report id
+     */
+    @Test
+    public void search_shouldReturnTheReportsInTheOrderOfReportDateAndReportId() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(3000), "<p>Pulmonary embolism.</p>");
+        radiologyReportSearchIndex.add(2, new Date(1000), "<p>Pulmonary nodule.</p>");
+        radiologyReportSearchIndex.flush();
+        radiologyReportSearchIndex.add(3, new Date(1000), "<p>Pulmonary edema.</p>");
+        radiologyReportSearchIndex.add(4, null, "<p>Pulmonary fibrosis.</p>");
+        
+        assertThat(search("pulmonary"), is(Arrays.asList(4, 2, 3, 1)));
+        List<SearchHit> hits = radiologyReportSearchIndex.search("pulmonary", null, null, null, 4);
+        assertThat(hits.get(0)
+                .getDate(),
+            is(nullValue()));
+        assertThat(hits.get(1)
+                .getDate(),
+            is(new Date(1000)));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#search(String, Date, Date, SearchHit, int)
+     * @verifies return the reports with report date between given from and to date
+     */
+    @Test
+    public void search_shouldReturnTheReportsWithReportDateBetweenGivenFromAndToDate() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(1000), "<p>Pulmonary embolism.</p>");
+        radiologyReportSearchIndex.add(2, new Date(2000), "<p>Pulmonary nodule.</p>");
+        radiologyReportSearchIndex.flush();
+        radiologyReportSearchIndex.add(3, new Date(3000), "<p>Pulmonary edema.</p>");
+        radiologyReportSearchIndex.add(4, null, "<p>Pulmonary fibrosis.</p>");
+        
+        assertThat(getReportIds(radiologyReportSearchIndex.search("pulmonary", new Date(2000), new Date(3000), null, 10)),
+            is(Arrays.asList(2, 3)));
+        assertThat(getReportIds(radiologyReportSearchIndex.search("pulmonary", null, new Date(1000), null, 10)),
+            is(Arrays.asList(1)));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#search(String, Date, Date, SearchHit, int)
+     * @verifies return at most limit reports after given hit
+     */
+    @Test
+    public void search_shouldReturnAtMostLimitReportsAfterGivenHit() throws Exception {
+        
+        for (int reportId = 1; reportId <= 5; reportId++) {
+            radiologyReportSearchIndex.add(reportId, new Date(reportId * 1000), "<p>Pulmonary nodule.</p>");
+            if (reportId % 2 == 0) {
+                radiologyReportSearchIndex.flush();
+            }
+        }
+        
+        List<SearchHit> firstPage = radiologyReportSearchIndex.search("nodule", null, null, null, 2);
+        assertThat(getReportIds(firstPage), is(Arrays.asList(1, 2)));
+        List<SearchHit> secondPage = radiologyReportSearchIndex.search("nodule", null, null, firstPage.get(1), 2);
+        assertThat(getReportIds(secondPage), is(Arrays.asList(3, 4)));
+        assertThat(getReportIds(radiologyReportSearchIndex.search("nodule", null, null, secondPage.get(1), 2)),
+            is(Arrays.asList(5)));
+        final SearchHit third = new SearchHit(3, new Date(3000));
+        assertThat(getReportIds(radiologyReportSearchIndex.search("nodule", null, null, third, 2)), is(Arrays.asList(4, 5)));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#search(String, Date, Date, SearchHit, int)
+     * @verifies return an empty list if given query contains no words
+     */
+    @Test
+    public void search_shouldReturnAnEmptyListIfGivenQueryContainsNoWords() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(), "<p>No acute findings.</p>");
+        
+        assertTrue(search(" - ").isEmpty());
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#search(String, Date, Date, SearchHit, int)
+     * @verifies throw illegal argument exception if given null
+     */
+    @Test
+    public void search_shouldThrowIllegalArgumentExceptionIfGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("query cannot be null");
+        radiologyReportSearchIndex.search(null, null, null, null, 10);
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#search(String, Date, Date, SearchHit, int)
+     * @verifies throw illegal argument exception if given limit is not positive
+     */
+    @Test
+    public void search_shouldThrowIllegalArgumentExceptionIfGivenLimitIsNotPositive() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("limit must be positive");
+        radiologyReportSearchIndex.search("nodule", null, null, null, 0);
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#count(String, Date, Date)
+     * @verifies return the number of reports containing all words of given query
+     */
+    @Test
+    public void count_shouldReturnTheNumberOfReportsContainingAllWordsOfGivenQuery() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(1000), "<p>No pulmonary embolism.</p>");
+        radiologyReportSearchIndex.flush();
+        radiologyReportSearchIndex.add(2, new Date(2000), "<p>Pulmonary nodule.</p>");
+        radiologyReportSearchIndex.add(3, new Date(3000), "<p>Pulmonary edema.</p>");
+        
+        assertThat(radiologyReportSearchIndex.count("pulm", null, null), is(3L));
+        assertThat(radiologyReportSearchIndex.count("pulmonary", new Date(2000), null), is(2L));
+        assertThat(radiologyReportSearchIndex.count("embolism nodule", null, null), is(0L));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#count(String, Date, Date)
+     * @verifies count a report found in a segment and the journal once
+     */
+    @Test
+    public void count_shouldCountAReportFoundInASegmentAndTheJournalOnce() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(1000), "<p>Pulmonary nodule.</p>");
+        File journal = new File(indexDirectory, "journal");
+        File journalBeforeFlush = temporaryFolder.newFile();
+        Files.copy(journal.toPath(), journalBeforeFlush.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        radiologyReportSearchIndex.flush();
+        radiologyReportSearchIndex.close();
+        // as if the application stopped after writing the segment but before emptying the journal
+        Files.copy(journalBeforeFlush.toPath(), journal.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        
+        assertThat(radiologyReportSearchIndex.count("nodule", null, null), is(1L));
+        assertThat(search("nodule"), is(Arrays.asList(1)));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#count(String, Date, Date)
+     * @verifies throw illegal argument exception if given null
+     */
+    @Test
+    public void count_shouldThrowIllegalArgumentExceptionIfGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("query cannot be null");
+        radiologyReportSearchIndex.count(null, null, null);
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#clear()
+     * @verifies remove all reports and delete the files of the index
+     */
+    @Test
+    public void clear_shouldRemoveAllReportsAndDeleteTheFilesOfTheIndex() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(), "<p>Pulmonary embolism.</p>");
+        radiologyReportSearchIndex.flush();
+        radiologyReportSearchIndex.add(2, new Date(), "<p>Pulmonary nodule.</p>");
+        
+        radiologyReportSearchIndex.clear();
+        
+        assertThat(indexDirectory.list().length, is(0));
+        assertThat(radiologyReportSearchIndex.isEmpty(), is(true));
+        assertTrue(search("pulmonary").isEmpty());
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#rebuild(RadiologyReportSearchIndex.ReportSource)
+     * @verifies replace the reports of the index with the reports of given source
+     */
+    @Test
+    public void rebuild_shouldReplaceTheReportsOfTheIndexWithTheReportsOfGivenSource() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(1000), "<p>Pulmonary embolism.</p>");
+        
+        long rebuilt = radiologyReportSearchIndex.rebuild(consumer -> {
+            consumer.accept(2, new Date(2000), "<p>Pulmonary nodule.</p>");
+            consumer.accept(3, new Date(3000), "<p>Pulmonary edema.</p>");
+            return 2;
+        });
+        
+        assertThat(rebuilt, is(2L));
+        assertThat(search("pulmonary"), is(Arrays.asList(2, 3)));
+        assertThat(home.list(), is(new String[] { RadiologyReportSearchIndex.INDEX_DIRECTORY_NAME }));
+        radiologyReportSearchIndex.close();
+        assertThat(search("pulmonary"), is(Arrays.asList(2, 3)));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#rebuild(RadiologyReportSearchIndex.ReportSource)
+     * @verifies keep the previous index until all reports of given source are added
+     */
+    @Test
+    public void rebuild_shouldKeepThePreviousIndexUntilAllReportsOfGivenSourceAreAdded() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(1000), "<p>Pulmonary embolism.</p>");
+        
+        radiologyReportSearchIndex.rebuild(consumer -> {
+            for (int reportId = 2; reportId <= RadiologyReportSearchIndex.FLUSH_THRESHOLD + 1; reportId++) {
+                consumer.accept(reportId, new Date(reportId), "<p>Pulmonary nodule.</p>");
+            }
+            assertThat(search("pulmonary"), is(Arrays.asList(1)));
+            return RadiologyReportSearchIndex.FLUSH_THRESHOLD;
+        });
+        
+        assertThat(search("embolism").size(), is(0));
+        assertThat(search("nodule").size(), is(RadiologyReportSearchIndex.FLUSH_THRESHOLD));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#rebuild(RadiologyReportSearchIndex.ReportSource)
+     * @verifies keep the previous index if given source fails
+     */
+    @Test
+    public void rebuild_shouldKeepThePreviousIndexIfGivenSourceFails() throws Exception {
+        
+        radiologyReportSearchIndex.add(1, new Date(1000), "<p>Pulmonary embolism.</p>");
+        
+        try {
+            radiologyReportSearchIndex.rebuild(consumer -> {
+                consumer.accept(2, new Date(2000), "<p>Pulmonary nodule.</p>");
+                throw new IOException("database connection lost");
+            });
+            fail("expected the rebuild to fail");
+        }
+        catch (IOException e) {
+            assertThat(e.getMessage(), is("database connection lost"));
+        }
+        
+        assertThat(search("pulmonary"), is(Arrays.asList(1)));
+        assertThat(home.list(), is(new String[] { RadiologyReportSearchIndex.INDEX_DIRECTORY_NAME }));
+        radiologyReportSearchIndex.close();
+        assertThat(search("pulmonary"), is(Arrays.asList(1)));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#rebuild(RadiologyReportSearchIndex.ReportSource)
+     * @verifies add reports added while rebuilding to the rebuilt index
+     */
+    @Test
+    public void rebuild_shouldAddReportsAddedWhileRebuildingToTheRebuiltIndex() throws Exception {
+        
+        radiologyReportSearchIndex.rebuild(consumer -> {
+            consumer.accept(1, new Date(1000), "<p>Pulmonary embolism.</p>");
+            // completed after the source read the reports
+            radiologyReportSearchIndex.add(2, new Date(2000), "<p>Pulmonary nodule.</p>");
+            return 1;
+        });
+        
+        assertThat(search("pulmonary"), is(Arrays.asList(1, 2)));
+        radiologyReportSearchIndex.close();
+        assertThat(search("pulmonary"), is(Arrays.asList(1, 2)));
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#getSnippet(String, String)
+     * @verifies return the text around the first word matching the query
+     */
+    @Test
+    public void getSnippet_shouldReturnTheTextAroundTheFirstWordMatchingTheQuery() throws Exception {
+        
+        String snippet = RadiologyReportSearchIndex.getSnippet(getLongBody(), "embol");
+        
+        assertThat(snippet, startsWith("..."));
+        assertThat(snippet, endsWith("..."));
+        assertTrue(snippet.contains("Embolism"));
+        assertTrue(snippet.length() <= RadiologyReportSearchIndex.SNIPPET_LENGTH);
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#getSnippet(String, String)
+     * @verifies return the beginning of the text if no word matches the query
+     */
+    @Test
+    public void getSnippet_shouldReturnTheBeginningOfTheTextIfNoWordMatchesTheQuery() throws Exception {
+        
+        String snippet = RadiologyReportSearchIndex.getSnippet(getLongBody(), "nodule");
+        
+        assertThat(snippet, startsWith("Finding0 "));
+        assertThat(snippet, endsWith("..."));
+        assertTrue(snippet.length() <= RadiologyReportSearchIndex.SNIPPET_LENGTH);
+    }
+    
+    /**
+     * @see RadiologyReportSearchIndex#getSnippet(String, String)
+     * @verifies return the whole text if it is short
+     */
+    @Test
+    public void getSnippet_shouldReturnTheWholeTextIfItIsShort() throws Exception {
+        
+        assertThat(RadiologyReportSearchIndex.getSnippet("<p>No <b>pulmonary</b> embolism.</p>", "embolism"),
+            is("No pulmonary embolism."));
+        assertThat(RadiologyReportSearchIndex.getSnippet(null, "embolism"), is(""));
+    }
+    
+    private List<Integer> search(String query) throws Exception {
+        
+        return getReportIds(radiologyReportSearchIndex.search(query, null, null, null, Integer.MAX_VALUE));
+    }
+    
+    private static List<Integer> getReportIds(List<SearchHit> hits) {
+        
+        List<Integer> result = new ArrayList<>();
+        for (SearchHit hit : hits) {
+            result.add(hit.getReportId());
+        }
+        return result;
+    }
+    
+    /**
+     * Adds given number of reports each flushed into a segment of its own, the reports with an even id are about a
+     * pulmonary nodule the others about a pulmonary embolism.
+     */
+    private void addSegments(int firstReportId, int count) throws Exception {
+        
+        for (int reportId = firstReportId; reportId < firstReportId + count; reportId++) {
+            final String body = reportId % 2 == 0 ? "<p>Pulmonary nodule.</p>" : "<p>Pulmonary embolism.</p>";
+            radiologyReportSearchIndex.add(reportId, new Date(reportId * 1000), body);
+            radiologyReportSearchIndex.flush();
+        }
+    }
+    
+    private static String getLongBody() {
+        
+        StringBuilder body = new StringBuilder("<p>");
+        for (int i = 0; i < 50; i++) {
+            body.append("Finding")
+                    .append(i)
+                    .append(' ');
+        }
+        body.append("<b>Embolism</b> of the right pulmonary artery. ");
+        for (int i = 0; i < 50; i++) {
+            body.append("Impression")
+                    .append(i)
+                    .append(' ');
+        }
+        return body.append("</p>")
+                .toString();
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.openmrs.module.radiology.util.StripedLock;
+
+/**
+ * Measures how long 50 radiologists take to claim, draft and complete the reports of distinct radiology orders once
+ * report changes are only serialized per radiology order, while the former {@code synchronized} service let one
+ * radiologist at a time change any report.
+ * <p>
+ * Not part of the test run since wall-clock timings depend on the machine, run its main method by hand instead.
+ * </p>
+ */
+public class RadiologyReportServiceBenchmark {
+    
+    
+    private static final int RADIOLOGIST_COUNT = 50;
+    
+    private static final int ORDER_LOCK_STRIPES = 64;
+    
+    /**
+     * Time spent in the database by each of creating, saving a draft of and completing a report.
+     */
+    private static final long STEP_MILLIS = 3;
+    
+    /**
+     * Simulates a step of a radiologist working on the report of a radiology order.
+     */
+    private interface ReportService {
+        
+        
+        void change(int orderId);
+    }
+    
+    /**
+     * Changes reports like the former service whose create, draft and complete methods were {@code synchronized}.
+     */
+    private static class SynchronizedReportService implements ReportService {
+        
+        
+        @Override
+        public synchronized void change(int orderId) {
+            sleep(STEP_MILLIS);
+        }
+    }
+    
+    /**
+     * Changes reports holding only the lock of the stripe of the radiology order.
+     */
+    private static class StripedReportService implements ReportService {
+        
+        
+        private final StripedLock orderLocks = new StripedLock(ORDER_LOCK_STRIPES);
+        
+        @Override
+        public void change(int orderId) {
+            final Lock orderLock = orderLocks.get(orderId);
+            orderLock.lock();
+            try {
+                sleep(STEP_MILLIS);
+            }
+            finally {
+                orderLock.unlock();
+            }
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        
+        final double synchronizedMillis = measureMillis(new SynchronizedReportService());
+        final double stripedMillis = measureMillis(new StripedReportService());
+        System.out.println(String.format(
+            "%d radiologists on distinct orders: synchronized %.0f ms, striped per order %.0f ms, speedup %.1fx",
+            RADIOLOGIST_COUNT, synchronizedMillis, stripedMillis, synchronizedMillis / stripedMillis));
+    }
+    
+    /**
+     * Lets each radiologist create, save a draft of and complete the report of their own radiology order.
+     *
+     * @return the milliseconds until all reports are completed
+     */
+    private static double measureMillis(ReportService reportService) throws Exception {
+        
+        final ExecutorService executorService = Executors.newFixedThreadPool(RADIOLOGIST_COUNT);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < RADIOLOGIST_COUNT; i++) {
+            final int orderId = i;
+            futures.add(executorService.submit(() -> {
+                start.await();
+                // create, save draft, complete
+                reportService.change(orderId);
+                reportService.change(orderId);
+                reportService.change(orderId);
+                return null;
+            }));
+        }
+        final long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+        return elapsedNanos / 1e6;
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+        }
+    }
+}
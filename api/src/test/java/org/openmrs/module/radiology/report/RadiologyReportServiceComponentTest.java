@@ -18,8 +18,11 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
@@ -30,9 +33,12 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.openmrs.Provider;
 import org.openmrs.api.APIException;
+import org.openmrs.api.AdministrationService;
 import org.openmrs.api.ProviderService;
+import org.openmrs.module.radiology.RadiologyConstants;
 import org.openmrs.module.radiology.dicom.code.PerformedProcedureStepStatus;
 import org.openmrs.module.radiology.order.RadiologyOrder;
 import org.openmrs.module.radiology.order.RadiologyOrderService;
@@ -64,6 +70,8 @@ public class RadiologyReportServiceComponentTest extends BaseModuleContextSensit
     
     private static final int VOIDED_RADIOLOGY_REPORT = 3;
     
+    private static final int COMPLETED_RADIOLOGY_REPORT_WITH_PULMONARY_NODULE = 4;
+    
     private static final int RADIOLOGY_ORDER_WITH_STUDY_WITHOUT_RADIOLOGY_REPORT = 2005;
     
     private static final int RADIOLOGY_ORDER_WITH_STUDY_AND_DRAFT_RADIOLOGY_REPORT = 2006;
@@ -87,9 +95,18 @@ public class RadiologyReportServiceComponentTest extends BaseModuleContextSensit
     @Autowired
     private RadiologyReportService radiologyReportService;
     
+    @Autowired
+    private AdministrationService administrationService;
+    
+    @Autowired
+    private RadiologyReportSearchIndex radiologyReportSearchIndex;
+    
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
     
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
     /**
      * Overriding following method is necessary to enable MVCC which is disabled by default in DB h2
      * used for the component tests. This prevents following exception:
@@ -113,6 +130,45 @@ public class RadiologyReportServiceComponentTest extends BaseModuleContextSensit
         executeDataSet(TEST_DATASET);
     }
     
+    /**
+     * Sets up the global property defining the report index directory using junits temporary folder, so that every
+     * test starts with an empty index.
+     */
+    private void setUpReportIndexHome() throws Exception {
+        
+        File indexFolder = temporaryFolder.newFolder("report_index");
+        administrationService.setGlobalProperty(RadiologyConstants.GP_REPORT_INDEX_DIR, indexFolder.getAbsolutePath());
+    }
+    
+    private List<Integer> getReportIdsMatching(String query) {
+        
+        return getReportIds(radiologyReportService.getRadiologyReports(new RadiologyReportSearchCriteria.Builder()
+                .withQuery(query)
+                .build()));
+    }
+    
+    private static List<Integer> getReportIds(List<RadiologyReport> radiologyReports) {
+        
+        List<Integer> result = new ArrayList<>();
+        for (RadiologyReport radiologyReport : radiologyReports) {
+            result.add(radiologyReport.getReportId());
+        }
+        return result;
+    }
+    
+    /**
+     * Adds both completed radiology reports of the test dataset to the search index with the same body.
+     */
+    private void addCompletedRadiologyReportsToSearchIndex() throws Exception {
+        
+        setUpReportIndexHome();
+        for (int reportId : Arrays.asList(COMPLETED_RADIOLOGY_REPORT, COMPLETED_RADIOLOGY_REPORT_WITH_PULMONARY_NODULE)) {
+            radiologyReportSearchIndex.add(reportId, radiologyReportService.getRadiologyReport(reportId)
+                    .getDate(),
+                "<p>Pulmonary nodule</p>");
+        }
+    }
+    
     /**
      * @see RadiologyReportService#createRadiologyReport(RadiologyOrder)
      * @verifies create a radiology order with report status claimed given a completed radiology
@@ -918,6 +974,77 @@ public class RadiologyReportServiceComponentTest extends BaseModuleContextSensit
         assertTrue(radiologyReports.isEmpty());
     }
     
+    /**
+     * @see RadiologyReportService#getRadiologyReports(RadiologyReportSearchCriteria)
+     * @verifies return the page of radiology reports defined by start index and limit
+     */
+    @Test
+    public void getRadiologyReports_shouldReturnThePageOfRadiologyReportsDefinedByStartIndexAndLimit() throws Exception {
+        
+        RadiologyReportSearchCriteria radiologyReportSearchCriteria =
+                new RadiologyReportSearchCriteria.Builder().withStartIndex(1)
+                        .withLimit(1)
+                        .build();
+        
+        List<RadiologyReport> radiologyReports = radiologyReportService.getRadiologyReports(radiologyReportSearchCriteria);
+        assertThat(radiologyReports.size(), is(1));
+        assertThat(radiologyReports.get(0)
+                .getReportId(),
+            is(COMPLETED_RADIOLOGY_REPORT));
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReports(RadiologyReportSearchCriteria)
+     * @verifies return radiology reports without body if exclude body is set
+     */
+    @Test
+    public void getRadiologyReports_shouldReturnRadiologyReportsWithoutBodyIfExcludeBodyIsSet() throws Exception {
+        
+        RadiologyReportSearchCriteria radiologyReportSearchCriteria =
+                new RadiologyReportSearchCriteria.Builder().includeVoided()
+                        .excludeBody()
+                        .build();
+        
+        List<RadiologyReport> radiologyReports = radiologyReportService.getRadiologyReports(radiologyReportSearchCriteria);
+        assertThat(radiologyReports.size(), is(4));
+        for (RadiologyReport radiologyReport : radiologyReports) {
+            assertNull(radiologyReport.getBody());
+            assertNotNull(radiologyReport.getReportId());
+            assertNotNull(radiologyReport.getUuid());
+            assertNotNull(radiologyReport.getRadiologyOrder());
+            assertNotNull(radiologyReport.getStatus());
+            assertNotNull(radiologyReport.getCreator());
+            assertNotNull(radiologyReport.getDateCreated());
+        }
+        assertThat(radiologyReports,
+            hasItem(Matchers.<RadiologyReport> hasProperty("uuid", is(RADIOLOGY_REPORT_UUID_OF_VOIDED))));
+        assertThat(radiologyReports, hasItem(Matchers.<RadiologyReport> hasProperty("voided", is(true))));
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReports(RadiologyReportSearchCriteria)
+     * @verifies return the radiology reports after given report date and report id if after is set
+     */
+    @Test
+    public void getRadiologyReports_shouldReturnTheRadiologyReportsAfterGivenReportDateAndReportIdIfAfterIsSet()
+            throws Exception {
+        
+        RadiologyReport completedRadiologyReport = radiologyReportService.getRadiologyReport(COMPLETED_RADIOLOGY_REPORT);
+        RadiologyReportSearchCriteria radiologyReportSearchCriteria =
+                new RadiologyReportSearchCriteria.Builder().includeVoided()
+                        .after(completedRadiologyReport.getDate(), completedRadiologyReport.getReportId())
+                        .build();
+        
+        List<RadiologyReport> radiologyReports = radiologyReportService.getRadiologyReports(radiologyReportSearchCriteria);
+        assertThat(radiologyReports.size(), is(2));
+        assertThat(radiologyReports.get(0)
+                .getReportId(),
+            is(VOIDED_RADIOLOGY_REPORT));
+        assertThat(radiologyReports.get(1)
+                .getReportId(),
+            is(4));
+    }
+    
     /**
      * @see RadiologyReportService#getRadiologyReports(RadiologyReportSearchCriteria)
      * @verifies throw illegal argument exception if given null
@@ -929,4 +1056,273 @@ public class RadiologyReportServiceComponentTest extends BaseModuleContextSensit
         expectedException.expectMessage("radiologyReportSearchCriteria cannot be null");
         radiologyReportService.getRadiologyReports(null);
     }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReports(RadiologyReportSearchCriteria)
+     * @verifies return the completed radiology reports whose body contains all words of the query if query is set
+     */
+    @Test
+    public void getRadiologyReports_shouldReturnTheCompletedRadiologyReportsWhoseBodyContainsAllWordsOfTheQueryIfQueryIsSet()
+            throws Exception {
+        
+        setUpReportIndexHome();
+        radiologyReportService.rebuildRadiologyReportSearchIndex();
+        
+        assertThat(getReportIdsMatching("pulm nodule"), is(Arrays.asList(COMPLETED_RADIOLOGY_REPORT_WITH_PULMONARY_NODULE)));
+        // the draft and the voided radiology report with the same body are not indexed
+        assertThat(getReportIdsMatching("Diagnosis"), is(Arrays.asList(COMPLETED_RADIOLOGY_REPORT)));
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReports(RadiologyReportSearchCriteria)
+     * @verifies return empty list if no radiology report body contains all words of the query
+     */
+    @Test
+    public void getRadiologyReports_shouldReturnEmptyListIfNoRadiologyReportBodyContainsAllWordsOfTheQuery()
+            throws Exception {
+        
+        setUpReportIndexHome();
+        radiologyReportService.rebuildRadiologyReportSearchIndex();
+        
+        assertTrue(getReportIdsMatching("pulmonary diagnosis").isEmpty());
+        assertTrue(getReportIdsMatching("embolism").isEmpty());
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReports(RadiologyReportSearchCriteria)
+     * @verifies return the page of radiology reports matching the query defined by start index and limit
+     */
+    @Test
+    public void getRadiologyReports_shouldReturnThePageOfRadiologyReportsMatchingTheQueryDefinedByStartIndexAndLimit()
+            throws Exception {
+        
+        addCompletedRadiologyReportsToSearchIndex();
+        
+        assertThat(getReportIds(radiologyReportService.getRadiologyReports(new RadiologyReportSearchCriteria.Builder()
+                .withQuery("pulmonary")
+                .withLimit(1)
+                .build())),
+            is(Arrays.asList(COMPLETED_RADIOLOGY_REPORT)));
+        assertThat(getReportIds(radiologyReportService.getRadiologyReports(new RadiologyReportSearchCriteria.Builder()
+                .withQuery("pulmonary")
+                .withStartIndex(1)
+                .withLimit(1)
+                .build())),
+            is(Arrays.asList(COMPLETED_RADIOLOGY_REPORT_WITH_PULMONARY_NODULE)));
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReports(RadiologyReportSearchCriteria)
+     * @verifies return the radiology reports matching the query after given report date and report id if after is set
+     */
+    @Test
+    public void
+            getRadiologyReports_shouldReturnTheRadiologyReportsMatchingTheQueryAfterGivenReportDateAndReportIdIfAfterIsSet()
+                    throws Exception {
+        
+        addCompletedRadiologyReportsToSearchIndex();
+        RadiologyReport completedRadiologyReport = radiologyReportService.getRadiologyReport(COMPLETED_RADIOLOGY_REPORT);
+        
+        assertThat(getReportIds(radiologyReportService.getRadiologyReports(new RadiologyReportSearchCriteria.Builder()
+                .withQuery("pulmonary")
+                .after(completedRadiologyReport.getDate(), completedRadiologyReport.getReportId())
+                .build())),
+            is(Arrays.asList(COMPLETED_RADIOLOGY_REPORT_WITH_PULMONARY_NODULE)));
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReports(RadiologyReportSearchCriteria)
+     * @verifies return the radiology reports matching the query for given principal results interpreter
+     */
+    @Test
+    public void getRadiologyReports_shouldReturnTheRadiologyReportsMatchingTheQueryForGivenPrincipalResultsInterpreter()
+            throws Exception {
+        
+        addCompletedRadiologyReportsToSearchIndex();
+        
+        assertThat(getReportIds(radiologyReportService.getRadiologyReports(new RadiologyReportSearchCriteria.Builder()
+                .withQuery("pulmonary")
+                .withPrincipalResultsInterpreter(providerService.getProviderByUuid(PROVIDER_WITH_RADIOLOGY_REPORTS))
+                .withLimit(1)
+                .build())),
+            is(Arrays.asList(COMPLETED_RADIOLOGY_REPORT)));
+        assertTrue(radiologyReportService.getRadiologyReports(new RadiologyReportSearchCriteria.Builder()
+                .withQuery("pulmonary")
+                .withPrincipalResultsInterpreter(providerService.getProviderByUuid(PROVIDER_WITHOUT_RADIOLOGY_REPORTS))
+                .build())
+                .isEmpty());
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReportsCount(RadiologyReportSearchCriteria)
+     * @verifies count the radiology reports matching the query for given principal results interpreter
+     */
+    @Test
+    public void getRadiologyReportsCount_shouldCountTheRadiologyReportsMatchingTheQueryForGivenPrincipalResultsInterpreter()
+            throws Exception {
+        
+        addCompletedRadiologyReportsToSearchIndex();
+        
+        assertThat(radiologyReportService.getRadiologyReportsCount(new RadiologyReportSearchCriteria.Builder()
+                .withQuery("pulmonary")
+                .withPrincipalResultsInterpreter(providerService.getProviderByUuid(PROVIDER_WITH_RADIOLOGY_REPORTS))
+                .build()),
+            is(2L));
+        assertThat(radiologyReportService.getRadiologyReportsCount(new RadiologyReportSearchCriteria.Builder()
+                .withQuery("pulmonary")
+                .withPrincipalResultsInterpreter(providerService.getProviderByUuid(PROVIDER_WITHOUT_RADIOLOGY_REPORTS))
+                .build()),
+            is(0L));
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReportsCount(RadiologyReportSearchCriteria)
+     * @verifies return the number of radiology reports matching given criteria ignoring start index and limit
+     */
+    @Test
+    public void getRadiologyReportsCount_shouldReturnTheNumberOfRadiologyReportsMatchingGivenCriteriaIgnoringStartIndexAndLimit()
+            throws Exception {
+        
+        RadiologyReportSearchCriteria radiologyReportSearchCriteria =
+                new RadiologyReportSearchCriteria.Builder().withStartIndex(1)
+                        .withLimit(1)
+                        .build();
+        
+        assertThat(radiologyReportService.getRadiologyReportsCount(radiologyReportSearchCriteria), is(3L));
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReportsCount(RadiologyReportSearchCriteria)
+     * @verifies return the number of completed radiology reports whose body contains all words of the query
+     */
+    @Test
+    public void getRadiologyReportsCount_shouldReturnTheNumberOfCompletedRadiologyReportsWhoseBodyContainsAllWordsOfTheQuery()
+            throws Exception {
+        
+        setUpReportIndexHome();
+        radiologyReportService.rebuildRadiologyReportSearchIndex();
+        
+        assertThat(radiologyReportService.getRadiologyReportsCount(new RadiologyReportSearchCriteria.Builder()
+                .withQuery("pulmonary nodule")
+                .build()),
+            is(1L));
+        assertThat(radiologyReportService.getRadiologyReportsCount(new RadiologyReportSearchCriteria.Builder()
+                .withQuery("pulmonary diagnosis")
+                .build()),
+            is(0L));
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReportsCount(RadiologyReportSearchCriteria)
+     * @verifies throw illegal argument exception if given null
+     */
+    @Test
+    public void getRadiologyReportsCount_shouldThrowIllegalArgumentExceptionIfGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("radiologyReportSearchCriteria cannot be null");
+        radiologyReportService.getRadiologyReportsCount(null);
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReportSnippet(RadiologyReport, String)
+     * @verifies return the text of the body around the first word matching given query
+     */
+    @Test
+    public void getRadiologyReportSnippet_shouldReturnTheTextOfTheBodyAroundTheFirstWordMatchingGivenQuery()
+            throws Exception {
+        
+        RadiologyReport radiologyReport =
+                radiologyReportService.getRadiologyReport(COMPLETED_RADIOLOGY_REPORT_WITH_PULMONARY_NODULE);
+        
+        assertThat(radiologyReportService.getRadiologyReportSnippet(radiologyReport, "nodule"),
+            is("Pulmonary nodule in the right upper lobe"));
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReportSnippet(RadiologyReport, String)
+     * @verifies throw illegal argument exception if given radiology report is null
+     */
+    @Test
+    public void getRadiologyReportSnippet_shouldThrowIllegalArgumentExceptionIfGivenRadiologyReportIsNull()
+            throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("radiologyReport cannot be null");
+        radiologyReportService.getRadiologyReportSnippet(null, "nodule");
+    }
+    
+    /**
+     * @see RadiologyReportService#getRadiologyReportSnippet(RadiologyReport, String)
+     * @verifies throw illegal argument exception if given query is null
+     */
+    @Test
+    public void getRadiologyReportSnippet_shouldThrowIllegalArgumentExceptionIfGivenQueryIsNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("query cannot be null");
+        radiologyReportService.getRadiologyReportSnippet(
+            radiologyReportService.getRadiologyReport(COMPLETED_RADIOLOGY_REPORT_WITH_PULMONARY_NODULE), null);
+    }
+    
+    /**
+     * @see RadiologyReportService#openRadiologyReportSearchIndex()
+     * @verifies build the index from all completed radiology reports if there is no index
+     */
+    @Test
+    public void openRadiologyReportSearchIndex_shouldBuildTheIndexFromAllCompletedRadiologyReportsIfThereIsNoIndex()
+            throws Exception {
+        
+        setUpReportIndexHome();
+        
+        radiologyReportService.openRadiologyReportSearchIndex();
+        
+        assertThat(getReportIdsMatching("nodule"), is(Arrays.asList(COMPLETED_RADIOLOGY_REPORT_WITH_PULMONARY_NODULE)));
+    }
+    
+    /**
+     * @see RadiologyReportService#openRadiologyReportSearchIndex()
+     * @verifies keep an existing index
+     */
+    @Test
+    public void openRadiologyReportSearchIndex_shouldKeepAnExistingIndex() throws Exception {
+        
+        setUpReportIndexHome();
+        radiologyReportSearchIndex.add(DRAFT_RADIOLOGY_REPORT, null, "<p>Fracture of the right tibia</p>");
+        
+        radiologyReportService.openRadiologyReportSearchIndex();
+        
+        assertThat(getReportIdsMatching("fracture"), is(Arrays.asList(DRAFT_RADIOLOGY_REPORT)));
+        assertTrue(getReportIdsMatching("nodule").isEmpty());
+    }
+    
+    /**
+     * @see RadiologyReportService#rebuildRadiologyReportSearchIndex()
+     * @verifies index the body of all completed radiology reports
+     */
+    @Test
+    public void rebuildRadiologyReportSearchIndex_shouldIndexTheBodyOfAllCompletedRadiologyReports() throws Exception {
+        
+        setUpReportIndexHome();
+        
+        assertThat(radiologyReportService.rebuildRadiologyReportSearchIndex(), is(2L));
+        
+        assertThat(getReportIdsMatching("nodule"), is(Arrays.asList(COMPLETED_RADIOLOGY_REPORT_WITH_PULMONARY_NODULE)));
+        assertThat(getReportIdsMatching("some"), is(Arrays.asList(COMPLETED_RADIOLOGY_REPORT)));
+    }
+    
+    /**
+     * @see RadiologyReportService#rebuildRadiologyReportSearchIndex()
+     * @verifies remove reports indexed before
+     */
+    @Test
+    public void rebuildRadiologyReportSearchIndex_shouldRemoveReportsIndexedBefore() throws Exception {
+        
+        setUpReportIndexHome();
+        radiologyReportSearchIndex.add(DRAFT_RADIOLOGY_REPORT, null, "<p>Fracture of the right tibia</p>");
+        
+        radiologyReportService.rebuildRadiologyReportSearchIndex();
+        
+        assertTrue(getReportIdsMatching("fracture").isEmpty());
+    }
 }
@@ -0,0 +1,250 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.openmrs.api.APIException;
+import org.openmrs.module.radiology.dicom.code.PerformedProcedureStepStatus;
+import org.openmrs.module.radiology.order.RadiologyOrder;
+import org.openmrs.module.radiology.report.RadiologyReportSearchIndex.SearchHit;
+import org.openmrs.module.radiology.study.RadiologyStudy;
+import org.openmrs.test.BaseContextMockTest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests {@link RadiologyReportServiceImpl}.
+ */
+public class RadiologyReportServiceImplTest extends BaseContextMockTest {
+    
+    
+    private static final int RADIOLOGIST_COUNT = 10;
+    
+    @Mock
+    private RadiologyReportDAO radiologyReportDAO;
+    
+    @Mock
+    private RadiologyReportSearchIndex radiologyReportSearchIndex;
+    
+    @InjectMocks
+    private RadiologyReportServiceImpl radiologyReportServiceImpl = new RadiologyReportServiceImpl();
+    
+    /**
+     * Runs given work like the transaction proxy of the service would, releasing the locks held until transaction
+     * completion once the work is done.
+     */
+    private static <T> T inTransaction(Callable<T> work) throws Exception {
+        
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            return work.call();
+        }
+        finally {
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    private static RadiologyOrder getCompletedRadiologyOrder(int orderId) {
+        
+        final RadiologyOrder radiologyOrder = new RadiologyOrder();
+        radiologyOrder.setOrderId(orderId);
+        final RadiologyStudy radiologyStudy = new RadiologyStudy();
+        radiologyStudy.setPerformedStatus(PerformedProcedureStepStatus.COMPLETED);
+        radiologyOrder.setStudy(radiologyStudy);
+        return radiologyOrder;
+    }
+    
+    /**
+     * @see RadiologyReportServiceImpl#createRadiologyReport(RadiologyOrder)
+     * @verifies let only one of concurrent claims on the same radiology order succeed
+     */
+    @Test
+    public void createRadiologyReport_shouldLetOnlyOneOfConcurrentClaimsOnTheSameRadiologyOrderSucceed() throws Exception {
+        
+        final RadiologyOrder radiologyOrder = getCompletedRadiologyOrder(1);
+        final AtomicReference<RadiologyReport> claimedRadiologyReport = new AtomicReference<>();
+        when(radiologyReportDAO.getActiveRadiologyReportStatusByRadiologyOrder(radiologyOrder))
+                .thenAnswer(invocation -> claimedRadiologyReport.get() == null ? null : RadiologyReportStatus.DRAFT);
+        when(radiologyReportDAO.createRadiologyReport(any(RadiologyReport.class))).thenAnswer(invocation -> {
+            final RadiologyReport radiologyReport = (RadiologyReport) invocation.getArguments()[0];
+            claimedRadiologyReport.set(radiologyReport);
+            return radiologyReport;
+        });
+        
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger claims = new AtomicInteger();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> radiologists = new ArrayList<>();
+        for (int i = 0; i < RADIOLOGIST_COUNT; i++) {
+            radiologists.add(new Thread(() -> {
+                try {
+                    start.await();
+                    inTransaction(() -> radiologyReportServiceImpl.createRadiologyReport(radiologyOrder));
+                    claims.incrementAndGet();
+                }
+                catch (APIException e) {
+                    // expected for all but one radiologist since the order is already claimed
+                    if (!"radiology.RadiologyReport.cannot.create.already.claimed".equals(e.getMessage())) {
+                        failures.add(e);
+                    }
+                }
+                catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+        for (Thread radiologist : radiologists) {
+            radiologist.start();
+        }
+        start.countDown();
+        for (Thread radiologist : radiologists) {
+            radiologist.join();
+        }
+        
+        assertThat(failures, is(empty()));
+        assertThat(claims.get(), is(1));
+        verify(radiologyReportDAO, times(1)).createRadiologyReport(any(RadiologyReport.class));
+    }
+    
+    /**
+     * @see RadiologyReportServiceImpl#saveRadiologyReport(RadiologyReport)
+     * @verifies add the completed radiology report to the search index once the transaction commits
+     */
+    @Test
+    public void saveRadiologyReport_shouldAddTheCompletedRadiologyReportToTheSearchIndexOnceTheTransactionCommits()
+            throws Exception {
+        
+        final RadiologyReport radiologyReport = new RadiologyReport(getCompletedRadiologyOrder(1));
+        radiologyReport.setId(1);
+        radiologyReport.setBody("<p>no acute findings</p>");
+        final Date storedDate = new Date(0);
+        when(radiologyReportDAO.saveRadiologyReport(radiologyReport)).thenReturn(radiologyReport);
+        when(radiologyReportDAO.getStoredRadiologyReportDate(1)).thenReturn(storedDate);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            radiologyReportServiceImpl.saveRadiologyReport(radiologyReport);
+            verifyZeroInteractions(radiologyReportSearchIndex);
+            
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        
+        verify(radiologyReportSearchIndex).add(1, storedDate, "<p>no acute findings</p>");
+    }
+    
+    /**
+     * @see RadiologyReportServiceImpl#getRadiologyReports(RadiologyReportSearchCriteria)
+     * @verifies look up only the report ids of the requested page in the database if query is set
+     */
+    @Test
+    public void getRadiologyReports_shouldLookUpOnlyTheReportIdsOfTheRequestedPageInTheDatabaseIfQueryIsSet()
+            throws Exception {
+        
+        final RadiologyReportSearchCriteria radiologyReportSearchCriteria =
+                new RadiologyReportSearchCriteria.Builder().withQuery("nodule")
+                        .withLimit(3)
+                        .build();
+        when(radiologyReportSearchIndex.search("nodule", null, null, null, 3))
+                .thenReturn(getSearchHits(5, 8, 9));
+        when(radiologyReportDAO.getRadiologyReports(radiologyReportSearchCriteria, Arrays.asList(5, 8, 9)))
+                .thenReturn(getRadiologyReports(5, 8, 9));
+        
+        assertThat(getReportIds(radiologyReportServiceImpl.getRadiologyReports(radiologyReportSearchCriteria)),
+            is(Arrays.asList(5, 8, 9)));
+        verify(radiologyReportDAO).getRadiologyReports(radiologyReportSearchCriteria, Arrays.asList(5, 8, 9));
+        verifyNoMoreInteractions(radiologyReportDAO);
+    }
+    
+    /**
+     * @see RadiologyReportServiceImpl#getRadiologyReports(RadiologyReportSearchCriteria)
+     * @verifies look up the report ids following the page if the database left out some of them
+     */
+    @Test
+    public void getRadiologyReports_shouldLookUpTheReportIdsFollowingThePageIfTheDatabaseLeftOutSomeOfThem()
+            throws Exception {
+        
+        final RadiologyReportSearchCriteria radiologyReportSearchCriteria =
+                new RadiologyReportSearchCriteria.Builder().withQuery("nodule")
+                        .withLimit(3)
+                        .build();
+        final List<SearchHit> firstHits = getSearchHits(5, 8, 9);
+        when(radiologyReportSearchIndex.search("nodule", null, null, null, 3)).thenReturn(firstHits);
+        when(radiologyReportSearchIndex.search("nodule", null, null, firstHits.get(2), 1))
+                .thenReturn(getSearchHits(12));
+        // the database leaves out report 8, for example because of another principal results interpreter
+        when(radiologyReportDAO.getRadiologyReports(radiologyReportSearchCriteria, Arrays.asList(5, 8, 9)))
+                .thenReturn(getRadiologyReports(5, 9));
+        when(radiologyReportDAO.getRadiologyReports(radiologyReportSearchCriteria, Arrays.asList(12)))
+                .thenReturn(getRadiologyReports(12));
+        
+        assertThat(getReportIds(radiologyReportServiceImpl.getRadiologyReports(radiologyReportSearchCriteria)),
+            is(Arrays.asList(5, 9, 12)));
+    }
+    
+    private static List<SearchHit> getSearchHits(Integer... reportIds) {
+        
+        final List<SearchHit> result = new ArrayList<>();
+        for (Integer reportId : reportIds) {
+            result.add(new SearchHit(reportId, new Date(reportId)));
+        }
+        return result;
+    }
+    
+    private static List<RadiologyReport> getRadiologyReports(Integer... reportIds) {
+        
+        final List<RadiologyReport> result = new ArrayList<>();
+        for (Integer reportId : reportIds) {
+            final RadiologyReport radiologyReport = new RadiologyReport();
+            radiologyReport.setId(reportId);
+            result.add(radiologyReport);
+        }
+        return result;
+    }
+    
+    private static List<Integer> getReportIds(List<RadiologyReport> radiologyReports) {
+        
+        final List<Integer> result = new ArrayList<>();
+        for (RadiologyReport radiologyReport : radiologyReports) {
+            result.add(radiologyReport.getReportId());
+        }
+        return result;
+    }
+}
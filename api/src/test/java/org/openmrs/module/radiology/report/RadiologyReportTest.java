@@ -10,6 +10,7 @@
 package org.openmrs.module.radiology.report;
 
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 
 import java.util.Calendar;
@@ -105,4 +106,26 @@ public class RadiologyReportTest {
         expectedException.expectMessage("radiologyOrder cannot be null");
         radiologyReport = new RadiologyReport(null);
     }
+    
+    /**
+     * @see RadiologyReport#getActiveOrderId()
+     * @verifies return the order id of the radiology order if not voided
+     */
+    @Test
+    public void getActiveOrderId_shouldReturnTheOrderIdOfTheRadiologyOrderIfNotVoided() throws Exception {
+        
+        assertThat(radiologyReport.getActiveOrderId(), is(1));
+    }
+    
+    /**
+     * @see RadiologyReport#getActiveOrderId()
+     * @verifies return null if voided
+     */
+    @Test
+    public void getActiveOrderId_shouldReturnNullIfVoided() throws Exception {
+        
+        radiologyReport.setVoided(true);
+        
+        assertNull(radiologyReport.getActiveOrderId());
+    }
 }
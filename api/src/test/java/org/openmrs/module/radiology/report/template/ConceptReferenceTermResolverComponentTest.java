@@ -0,0 +1,106 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.ConceptReferenceTerm;
+import org.openmrs.api.ConceptService;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests {@link ConceptReferenceTermResolver}.
+ */
+public class ConceptReferenceTermResolverComponentTest extends BaseModuleContextSensitiveTest {
+    
+    
+    private static final String TEST_DATASET =
+            "org/openmrs/module/radiology/include/ConceptReferenceTermResolverComponentTestDataset.xml";
+    
+    @Autowired
+    private ConceptService conceptService;
+    
+    @Autowired
+    private MrrtReportTemplateDAO mrrtReportTemplateDAO;
+    
+    private ConceptReferenceTermResolver conceptReferenceTermResolver;
+    
+    @Before
+    public void setUp() throws Exception {
+        
+        executeDataSet(TEST_DATASET);
+        conceptReferenceTermResolver =
+                new ConceptReferenceTermResolver(conceptService.getAllConceptSources(false), mrrtReportTemplateDAO);
+    }
+    
+    /**
+     * @see ConceptReferenceTermResolver#addTerm(String,String)
+     * @verifies ignore case when searching for a matching concept source
+     */
+    @Test
+    public void addTerm_shouldIgnoreCaseWhenSearchingForAMatchingConceptSource() throws Exception {
+        
+        conceptReferenceTermResolver.addTerm("radlex", "RID10321");
+        
+        Set<ConceptReferenceTerm> referenceTerms = conceptReferenceTermResolver.resolve();
+        
+        assertThat(referenceTerms, containsInAnyOrder(conceptService.getConceptReferenceTerm(1)));
+    }
+    
+    /**
+     * @see ConceptReferenceTermResolver#addTerm(String,String)
+     * @verifies skip terms of concept sources which do not exist
+     */
+    @Test
+    public void addTerm_shouldSkipTermsOfConceptSourcesWhichDoNotExist() throws Exception {
+        
+        conceptReferenceTermResolver.addTerm("NOT A CONCEPT SOURCE", "RID10321");
+        
+        assertThat(conceptReferenceTermResolver.resolve(), is(empty()));
+    }
+    
+    /**
+     * @see ConceptReferenceTermResolver#resolve()
+     * @verifies return the concept reference terms matching the added terms
+     */
+    @Test
+    public void resolve_shouldReturnTheConceptReferenceTermsMatchingTheAddedTerms() throws Exception {
+        
+        conceptReferenceTermResolver.addTerm("RADLEX", "RID10321");
+        conceptReferenceTermResolver.addTerm("RADLEX", "RID56");
+        conceptReferenceTermResolver.addTerm("RADLEX", "RID56");
+        conceptReferenceTermResolver.addTerm("RADLEX", "RID99999");
+        conceptReferenceTermResolver.addTerm("LOINC", "RID56");
+        
+        Set<ConceptReferenceTerm> referenceTerms = conceptReferenceTermResolver.resolve();
+        
+        assertThat(referenceTerms,
+            containsInAnyOrder(conceptService.getConceptReferenceTerm(1), conceptService.getConceptReferenceTerm(2),
+                conceptService.getConceptReferenceTerm(4)));
+    }
+    
+    /**
+     * @see ConceptReferenceTermResolver#resolve()
+     * @verifies return an empty set if no terms were added
+     */
+    @Test
+    public void resolve_shouldReturnAnEmptySetIfNoTermsWereAdded() throws Exception {
+        
+        assertThat(conceptReferenceTermResolver.resolve(), is(empty()));
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.module.radiology.RadiologyProperties;
+
+/**
+ * Tests {@link MrrtReportTemplateFileStore}.
+ */
+public class MrrtReportTemplateFileStoreTest {
+    
+    
+    private static final byte[] CONTENT = "<html><body><p>Sample Template</p></body></html>"
+            .getBytes(StandardCharsets.UTF_8);
+    
+    private static final String CONTENT_HASH = "8b339329e49acf78abba80a8431ea953b40126b7ec205bc64c7ebf59deff6b32";
+    
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    private File home;
+    
+    private MrrtReportTemplateFileStore mrrtReportTemplateFileStore;
+    
+    @Before
+    public void setUp() throws Exception {
+        
+        home = temporaryFolder.newFolder("mrrt_templates");
+        RadiologyProperties radiologyProperties = mock(RadiologyProperties.class);
+        when(radiologyProperties.getReportTemplateHome()).thenReturn(home);
+        mrrtReportTemplateFileStore = new MrrtReportTemplateFileStore();
+        mrrtReportTemplateFileStore.setRadiologyProperties(radiologyProperties);
+    }
+    
+    /**
+     * @see MrrtReportTemplateFileStore#store(byte[])
+     * @verifies store content in file named by the hex encoded sha-256 of the content
+     */
+    @Test
+    public void store_shouldStoreContentInFileNamedByTheHexEncodedSha256OfTheContent() throws Exception {
+        
+        Path stored = mrrtReportTemplateFileStore.store(CONTENT);
+        
+        assertThat(stored.getFileName()
+                .toString(),
+            is(CONTENT_HASH));
+        assertThat(stored.getParent(), is(home.toPath()
+                .toAbsolutePath()));
+        assertThat(Files.readAllBytes(stored), is(CONTENT));
+    }
+    
+    /**
+     * @see MrrtReportTemplateFileStore#store(byte[])
+     * @verifies store identical content once
+     */
+    @Test
+    public void store_shouldStoreIdenticalContentOnce() throws Exception {
+        
+        Path first = mrrtReportTemplateFileStore.store(CONTENT);
+        Path second = mrrtReportTemplateFileStore.store(CONTENT.clone());
+        
+        assertThat(second, is(first));
+        assertThat(home.list().length, is(1));
+    }
+    
+    /**
+     * @see MrrtReportTemplateFileStore#store(byte[])
+     * @verifies not leave a temporary file behind
+     */
+    @Test
+    public void store_shouldNotLeaveATemporaryFileBehind() throws Exception {
+        
+        Path stored = mrrtReportTemplateFileStore.store(CONTENT);
+        
+        assertThat(home.list(), is(new String[] { stored.getFileName()
+                .toString() }));
+    }
+    
+    /**
+     * @see MrrtReportTemplateFileStore#read(Path)
+     * @verifies return the content of given file
+     */
+    @Test
+    public void read_shouldReturnTheContentOfGivenFile() throws Exception {
+        
+        Path stored = mrrtReportTemplateFileStore.store(CONTENT);
+        
+        ByteBuffer content = mrrtReportTemplateFileStore.read(stored);
+        
+        assertThat(content.isReadOnly(), is(true));
+        assertThat(StandardCharsets.UTF_8.decode(content)
+                .toString(),
+            is(new String(CONTENT, StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * @see MrrtReportTemplateFileStore#isStored(Path)
+     * @verifies return true for path of stored file
+     */
+    @Test
+    public void isStored_shouldReturnTrueForPathOfStoredFile() throws Exception {
+        
+        Path stored = mrrtReportTemplateFileStore.store(CONTENT);
+        
+        assertThat(mrrtReportTemplateFileStore.isStored(stored), is(true));
+    }
+    
+    /**
+     * @see MrrtReportTemplateFileStore#isStored(Path)
+     * @verifies return false for path not named by a content hash or outside of the report template home
+     */
+    @Test
+    public void isStored_shouldReturnFalseForPathNotNamedByAContentHashOrOutsideOfTheReportTemplateHome()
+            throws Exception {
+        
+        assertThat(mrrtReportTemplateFileStore.isStored(home.toPath()
+                .resolve("59273e52-33b1-4fcb-8c1f-9b670bb11259")),
+            is(false));
+        assertThat(mrrtReportTemplateFileStore.isStored(temporaryFolder.getRoot()
+                .toPath()
+                .resolve(CONTENT_HASH)),
+            is(false));
+    }
+    
+    /**
+     * @see MrrtReportTemplateFileStore#getStoredFiles()
+     * @verifies return only files named by a content hash
+     */
+    @Test
+    public void getStoredFiles_shouldReturnOnlyFilesNamedByAContentHash() throws Exception {
+        
+        Path stored = mrrtReportTemplateFileStore.store(CONTENT);
+        new File(home, "59273e52-33b1-4fcb-8c1f-9b670bb11259").createNewFile();
+        
+        assertThat(mrrtReportTemplateFileStore.getStoredFiles(), contains(stored));
+    }
+    
+    /**
+     * @see MrrtReportTemplateFileStore#deleteTemporaryFiles()
+     * @verifies delete temporary files and keep stored files
+     */
+    @Test
+    public void deleteTemporaryFiles_shouldDeleteTemporaryFilesAndKeepStoredFiles() throws Exception {
+        
+        Path stored = mrrtReportTemplateFileStore.store(CONTENT);
+        new File(home, ".mrrt-123456789.tmp").createNewFile();
+        
+        assertThat(mrrtReportTemplateFileStore.deleteTemporaryFiles(), is(1));
+        assertThat(home.list(), is(new String[] { stored.getFileName()
+                .toString() }));
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests {@link MrrtReportTemplateHtmlBodyCache}.
+ */
+public class MrrtReportTemplateHtmlBodyCacheTest {
+    
+    
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+    
+    /**
+     * @see MrrtReportTemplateHtmlBodyCache#MrrtReportTemplateHtmlBodyCache(long)
+     * @verifies throw illegal argument exception if given maximum size is smaller than zero
+     */
+    @Test
+    public void MrrtReportTemplateHtmlBodyCache_shouldThrowIllegalArgumentExceptionIfGivenMaximumSizeIsSmallerThanZero()
+            throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("maximumSize cannot be negative");
+        new MrrtReportTemplateHtmlBodyCache(-1);
+    }
+    
+    /**
+     * @see MrrtReportTemplateHtmlBodyCache#get(Integer,long,long)
+     * @verifies return html body put for same template id last modified and length
+     */
+    @Test
+    public void get_shouldReturnHtmlBodyPutForSameTemplateIdLastModifiedAndLength() throws Exception {
+        
+        MrrtReportTemplateHtmlBodyCache cache = new MrrtReportTemplateHtmlBodyCache();
+        cache.put(1, 1000L, 20L, "<p>one</p>");
+        
+        assertThat(cache.get(1, 1000L, 20L), is("<p>one</p>"));
+        assertThat(cache.get(2, 1000L, 20L), is(nullValue()));
+    }
+    
+    /**
+     * @see MrrtReportTemplateHtmlBodyCache#get(Integer,long,long)
+     * @verifies return null if template file was modified since html body was put
+     */
+    @Test
+    public void get_shouldReturnNullIfTemplateFileWasModifiedSinceHtmlBodyWasPut() throws Exception {
+        
+        MrrtReportTemplateHtmlBodyCache cache = new MrrtReportTemplateHtmlBodyCache();
+        cache.put(1, 1000L, 20L, "<p>one</p>");
+        
+        assertThat(cache.get(1, 2000L, 20L), is(nullValue()));
+        assertThat(cache.get(1, 1000L, 21L), is(nullValue()));
+    }
+    
+    /**
+     * @see MrrtReportTemplateHtmlBodyCache#get(Integer,long,long)
+     * @verifies count hits and misses
+     */
+    @Test
+    public void get_shouldCountHitsAndMisses() throws Exception {
+        
+        MrrtReportTemplateHtmlBodyCache cache = new MrrtReportTemplateHtmlBodyCache();
+        cache.get(1, 1000L, 20L);
+        cache.put(1, 1000L, 20L, "<p>one</p>");
+        cache.get(1, 1000L, 20L);
+        cache.get(1, 1000L, 20L);
+        
+        assertThat(cache.getHitCount(), is(2L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+    
+    /**
+     * @see MrrtReportTemplateHtmlBodyCache#put(Integer,long,long,String)
+     * @verifies evict least recently used html bodies if maximum size is exceeded
+     */
+    @Test
+    public void put_shouldEvictLeastRecentlyUsedHtmlBodiesIfMaximumSizeIsExceeded() throws Exception {
+        
+        MrrtReportTemplateHtmlBodyCache cache = new MrrtReportTemplateHtmlBodyCache(20);
+        cache.put(1, 0L, 0L, "<p>one</p>");
+        cache.put(2, 0L, 0L, "<p>two</p>");
+        cache.get(1, 0L, 0L);
+        
+        cache.put(3, 0L, 0L, "<p>six</p>");
+        
+        assertThat(cache.get(1, 0L, 0L), is("<p>one</p>"));
+        assertThat(cache.get(2, 0L, 0L), is(nullValue()));
+        assertThat(cache.get(3, 0L, 0L), is("<p>six</p>"));
+        assertThat(cache.getEntryCount(), is(2));
+        assertThat(cache.getSize(), is(20L));
+        assertThat(cache.getEvictionCount(), is(1L));
+    }
+    
+    /**
+     * @see MrrtReportTemplateHtmlBodyCache#put(Integer,long,long,String)
+     * @verifies not cache html body larger than maximum size
+     */
+    @Test
+    public void put_shouldNotCacheHtmlBodyLargerThanMaximumSize() throws Exception {
+        
+        MrrtReportTemplateHtmlBodyCache cache = new MrrtReportTemplateHtmlBodyCache(5);
+        cache.put(1, 0L, 0L, "<p>one</p>");
+        
+        assertThat(cache.get(1, 0L, 0L), is(nullValue()));
+        assertThat(cache.getEntryCount(), is(0));
+        assertThat(cache.getSize(), is(0L));
+    }
+    
+    /**
+     * @see MrrtReportTemplateHtmlBodyCache#invalidate(Integer)
+     * @verifies remove html body of given template id
+     */
+    @Test
+    public void invalidate_shouldRemoveHtmlBodyOfGivenTemplateId() throws Exception {
+        
+        MrrtReportTemplateHtmlBodyCache cache = new MrrtReportTemplateHtmlBodyCache();
+        cache.put(1, 0L, 0L, "<p>one</p>");
+        cache.put(2, 0L, 0L, "<p>two</p>");
+        
+        cache.invalidate(1);
+        
+        assertThat(cache.get(1, 0L, 0L), is(nullValue()));
+        assertThat(cache.get(2, 0L, 0L), is("<p>two</p>"));
+        assertThat(cache.getSize(), is(10L));
+    }
+}
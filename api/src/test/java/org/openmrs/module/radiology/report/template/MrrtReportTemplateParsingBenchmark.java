@@ -0,0 +1,169 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import com.sun.management.ThreadMXBean;
+
+import org.apache.commons.io.IOUtils;
+import org.jsoup.Jsoup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Measures latency and allocation of parsing and validating the valid mrrt report templates of the test resources
+ * into their metadata and term codes with one XML parse, versus the former pipeline which parsed a template with jsoup
+ * for the meta tags, again with the schema validator, again with jsoup for the parser and finally the serialized
+ * script element with a new {@code DocumentBuilder}.
+ * <p>
+ * Resolving the term codes to concept reference terms is left out since it needs the database and is the same in both
+ * pipelines.
+ * </p>
+ * <p>
+ * Not part of the test run since wall-clock timings depend on the machine, run its main method by hand instead.
+ * </p>
+ */
+public class MrrtReportTemplateParsingBenchmark {
+    
+    
+    private static final String TEMPLATE_DIRECTORY = "mrrttemplates/ihe/connectathon/2015/";
+    
+    private static final String[] TEMPLATES = { "CTChestAbdomen.html", "CTChestAbdomen-schemeIsInLowerCase.html",
+            "CTChestAbdomen-missingReferenceTermsForTemplateAttributesTermElements.html" };
+    
+    private static final int WARMUP_ROUNDS = 200;
+    
+    private static final int ROUNDS = 1000;
+    
+    /**
+     * Parses and validates a template, returning the meta tag contents and term codes it read.
+     */
+    private interface Pipeline {
+        
+        
+        List<String> parse(String template) throws Exception;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        
+        final XsdMrrtReportTemplateValidator validator = new XsdMrrtReportTemplateValidator();
+        validator.setMetaTagsValidationEngine(new MetaTagsValidationEngine());
+        final List<String> templates = new ArrayList<>();
+        for (String template : TEMPLATES) {
+            try (InputStream in = MrrtReportTemplateParsingBenchmark.class.getClassLoader()
+                    .getResourceAsStream(TEMPLATE_DIRECTORY + template)) {
+                templates.add(IOUtils.toString(in, "UTF-8"));
+            }
+        }
+        
+        final Pipeline threeParses = template -> parseThrice(validator, template);
+        final Pipeline singleParse = template -> parseOnce(validator, template);
+        measure("three parses", threeParses, templates);
+        measure("single parse", singleParse, templates);
+    }
+    
+    /**
+     * Runs given pipeline {@code ROUNDS} times over all templates and prints the average latency and allocation of
+     * parsing one template.
+     */
+    private static void measure(String name, Pipeline pipeline, List<String> templates) throws Exception {
+        
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (String template : templates) {
+                pipeline.parse(template);
+            }
+        }
+        final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread()
+                .getId();
+        final long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            for (String template : templates) {
+                pipeline.parse(template);
+            }
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        final long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - startBytes;
+        final int parses = ROUNDS * templates.size();
+        System.out.println(String.format("%s: %.0f microseconds/template, %.0f KiB allocated/template", name,
+            elapsedNanos / 1e3 / parses, allocatedBytes / 1024.0 / parses));
+    }
+    
+    /**
+     * Parses a template like the former validator and parser did, against the shared schema so that only the
+     * parsing differs.
+     */
+    private static List<String> parseThrice(XsdMrrtReportTemplateValidator validator, String template)
+            throws Exception {
+        
+        final org.jsoup.nodes.Document validatedDocument = Jsoup.parse(template, "");
+        validator.getMetaTagsValidationEngine()
+                .run(validatedDocument.getElementsByTag("meta"))
+                .assertOk();
+        try (InputStream in = IOUtils.toInputStream(template, "UTF-8")) {
+            validator.getSchema()
+                    .newValidator()
+                    .validate(new StreamSource(in));
+        }
+        
+        final List<String> result = new ArrayList<>();
+        final org.jsoup.nodes.Document parsedDocument = Jsoup.parse(template, "");
+        for (org.jsoup.nodes.Element metaTag : parsedDocument.getElementsByTag("meta")) {
+            result.add(metaTag.attr("content"));
+        }
+        final String script = parsedDocument.getElementsByTag("script")
+                .get(0)
+                .toString();
+        try (InputStream in = new ByteArrayInputStream(script.getBytes())) {
+            final Document scriptDocument = DocumentBuilderFactory.newInstance()
+                    .newDocumentBuilder()
+                    .parse(in);
+            scriptDocument.getDocumentElement()
+                    .normalize();
+            addTermCodes(result, scriptDocument.getElementsByTagName("term"));
+        }
+        return result;
+    }
+    
+    /**
+     * Parses a template like {@link DefaultMrrtReportTemplateFileParser#parse(String)} does now.
+     */
+    private static List<String> parseOnce(XsdMrrtReportTemplateValidator validator, String template) throws Exception {
+        
+        final Document document = validator.parseAndValidate(template);
+        final List<String> result = new ArrayList<>();
+        final NodeList metaTags = document.getElementsByTagName("meta");
+        for (int i = 0; i < metaTags.getLength(); i++) {
+            result.add(((Element) metaTags.item(i)).getAttribute("content"));
+        }
+        addTermCodes(result, ((Element) document.getElementsByTagName("script")
+                .item(0)).getElementsByTagName("term"));
+        return result;
+    }
+    
+    private static void addTermCodes(List<String> result, NodeList terms) {
+        
+        for (int i = 0; i < terms.getLength(); i++) {
+            final Element codeElement = (Element) ((Element) terms.item(i)).getElementsByTagName("code")
+                    .item(0);
+            result.add(codeElement.getAttribute("scheme") + ":" + codeElement.getAttribute("value"));
+        }
+    }
+}
@@ -61,4 +61,16 @@ public class MrrtReportTemplateSearchCriteriaTest {
                 .build();
         assertThat(mrrtReportTemplateSearchCriteria.getLicense(), is(license));
     }
+    
+    /**
+     * @see MrrtReportTemplateSearchCriteria.Builder#build()
+     * @verifies create an mrrt report template search criteria instance with query if query is set
+     */
+    @Test
+    public void build_shouldCreateAnMrrtReportTemplateSearchCriteriaInstanceWithQueryIfQueryIsSet() throws Exception {
+        String query = "chest rid10321";
+        mrrtReportTemplateSearchCriteria = new MrrtReportTemplateSearchCriteria.Builder().withQuery(query)
+                .build();
+        assertThat(mrrtReportTemplateSearchCriteria.getQuery(), is(query));
+    }
 }
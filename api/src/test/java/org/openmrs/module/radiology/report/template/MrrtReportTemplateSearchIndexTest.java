@@ -0,0 +1,246 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.openmrs.ConceptReferenceTerm;
+
+/**
+ * Tests {@link MrrtReportTemplateSearchIndex}.
+ */
+public class MrrtReportTemplateSearchIndexTest {
+    
+    
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+    
+    private static MrrtReportTemplate newTemplate(Integer templateId, String title, String description) {
+        
+        MrrtReportTemplate template = new MrrtReportTemplate();
+        template.setTemplateId(templateId);
+        template.setDcTermsTitle(title);
+        template.setDcTermsDescription(description);
+        template.setDcTermsPublisher("IHE CAT Publisher");
+        template.setDcTermsLicense("General Public License");
+        return template;
+    }
+    
+    private static MrrtReportTemplateSearchIndex newIndex(MrrtReportTemplate... templates) {
+        
+        MrrtReportTemplateSearchIndex index = new MrrtReportTemplateSearchIndex();
+        index.rebuild(Arrays.asList(templates));
+        return index;
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#rebuild(java.util.Collection)
+     * @verifies index given templates and mark the index as built
+     */
+    @Test
+    public void rebuild_shouldIndexGivenTemplatesAndMarkTheIndexAsBuilt() throws Exception {
+        
+        MrrtReportTemplateSearchIndex index = new MrrtReportTemplateSearchIndex();
+        assertThat(index.isBuilt(), is(false));
+        
+        index.rebuild(Arrays.asList(newTemplate(1, "CT Chest", null), newTemplate(2, "MR Brain", null)));
+        
+        assertThat(index.isBuilt(), is(true));
+        assertThat(index.getTemplateCount(), is(2));
+        assertThat(index.search("chest"), is(Arrays.asList(1)));
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#rebuild(java.util.Collection)
+     * @verifies remove templates indexed before
+     */
+    @Test
+    public void rebuild_shouldRemoveTemplatesIndexedBefore() throws Exception {
+        
+        MrrtReportTemplateSearchIndex index = newIndex(newTemplate(1, "CT Chest", null));
+        
+        index.rebuild(Arrays.asList(newTemplate(2, "MR Brain", null)));
+        
+        assertThat(index.getTemplateCount(), is(1));
+        assertTrue(index.search("chest")
+                .isEmpty());
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#rebuild(java.util.Collection)
+     * @verifies throw illegal argument exception if given null
+     */
+    @Test
+    public void rebuild_shouldThrowIllegalArgumentExceptionIfGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("templates cannot be null");
+        new MrrtReportTemplateSearchIndex().rebuild(null);
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#add(MrrtReportTemplate)
+     * @verifies replace the words of a template indexed before
+     */
+    @Test
+    public void add_shouldReplaceTheWordsOfATemplateIndexedBefore() throws Exception {
+        
+        MrrtReportTemplateSearchIndex index = newIndex(newTemplate(1, "CT Chest", null));
+        
+        index.add(newTemplate(1, "CT Abdomen", null));
+        
+        assertThat(index.getTemplateCount(), is(1));
+        assertTrue(index.search("chest")
+                .isEmpty());
+        assertThat(index.search("abdomen"), is(Arrays.asList(1)));
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#add(MrrtReportTemplate)
+     * @verifies ignore given template if the index was not built
+     */
+    @Test
+    public void add_shouldIgnoreGivenTemplateIfTheIndexWasNotBuilt() throws Exception {
+        
+        MrrtReportTemplateSearchIndex index = new MrrtReportTemplateSearchIndex();
+        
+        index.add(newTemplate(1, "CT Chest", null));
+        
+        assertThat(index.getTemplateCount(), is(0));
+        assertThat(index.isBuilt(), is(false));
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#add(MrrtReportTemplate)
+     * @verifies throw illegal argument exception if given null
+     */
+    @Test
+    public void add_shouldThrowIllegalArgumentExceptionIfGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("template cannot be null");
+        new MrrtReportTemplateSearchIndex().add(null);
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#remove(Integer)
+     * @verifies remove the template with given id
+     */
+    @Test
+    public void remove_shouldRemoveTheTemplateWithGivenId() throws Exception {
+        
+        MrrtReportTemplateSearchIndex index = newIndex(newTemplate(1, "CT Chest", null), newTemplate(2, "CT Brain", null));
+        
+        index.remove(1);
+        
+        assertThat(index.getTemplateCount(), is(1));
+        assertThat(index.search("ct"), is(Arrays.asList(2)));
+        assertTrue(index.search("chest")
+                .isEmpty());
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#search(String)
+     * @verifies return the templates containing all words of given query
+     */
+    @Test
+    public void search_shouldReturnTheTemplatesContainingAllWordsOfGivenQuery() throws Exception {
+        
+        MrrtReportTemplateSearchIndex index = newIndex(newTemplate(1, "CT Chest Pulmonary Embolism", null),
+            newTemplate(2, "CT Cardiac Bypass Graft", null), newTemplate(3, "MR Chest", null));
+        
+        assertThat(index.search("CT chest"), is(Arrays.asList(1)));
+        assertThat(index.search("chest"), is(Arrays.asList(1, 3)));
+        assertTrue(index.search("chest graft")
+                .isEmpty());
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#search(String)
+     * @verifies return the templates containing words starting with the words of given query
+     */
+    @Test
+    public void search_shouldReturnTheTemplatesContainingWordsStartingWithTheWordsOfGivenQuery() throws Exception {
+        
+        MrrtReportTemplateSearchIndex index = newIndex(newTemplate(1, "CT Chest Pulmonary Embolism", null),
+            newTemplate(2, "CT Cardiac Bypass Graft", null));
+        
+        assertThat(index.search("pulm emb"), is(Arrays.asList(1)));
+        assertThat(index.search("c"), is(Arrays.asList(1, 2)));
+        assertTrue(index.search("pulmonaryx")
+                .isEmpty());
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#search(String)
+     * @verifies rank exact matches and matches in the title first
+     */
+    @Test
+    public void search_shouldRankExactMatchesAndMatchesInTheTitleFirst() throws Exception {
+        
+        MrrtReportTemplateSearchIndex index = newIndex(newTemplate(1, "Chest", "Lung imaging"),
+            newTemplate(2, "Lung", "Chest imaging"), newTemplate(3, "Lungs", null));
+        
+        assertThat(index.search("lung"), is(Arrays.asList(2, 1, 3)));
+        assertThat(index.search("chest"), is(Arrays.asList(1, 2)));
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#search(String)
+     * @verifies match the code and name of concept reference terms
+     */
+    @Test
+    public void search_shouldMatchTheCodeAndNameOfConceptReferenceTerms() throws Exception {
+        
+        ConceptReferenceTerm term = new ConceptReferenceTerm();
+        term.setCode("RID10321");
+        term.setName("computed tomography");
+        MrrtReportTemplate template = newTemplate(1, "Chest", null);
+        template.setTerms(new HashSet<>(Collections.singletonList(term)));
+        MrrtReportTemplateSearchIndex index = newIndex(template, newTemplate(2, "Brain", null));
+        
+        assertThat(index.search("rid10321"), is(Arrays.asList(1)));
+        assertThat(index.search("tomography"), is(Arrays.asList(1)));
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#search(String)
+     * @verifies return an empty list if given query contains no words
+     */
+    @Test
+    public void search_shouldReturnAnEmptyListIfGivenQueryContainsNoWords() throws Exception {
+        
+        MrrtReportTemplateSearchIndex index = newIndex(newTemplate(1, "CT Chest", null));
+        
+        assertTrue(index.search(" - ")
+                .isEmpty());
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchIndex#search(String)
+     * @verifies throw illegal argument exception if given null
+     */
+    @Test
+    public void search_shouldThrowIllegalArgumentExceptionIfGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("query cannot be null");
+        new MrrtReportTemplateSearchIndex().search(null);
+    }
+}
@@ -20,12 +20,20 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -34,16 +42,20 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.hibernate.SessionFactory;
 import org.openmrs.ConceptReferenceTerm;
 import org.openmrs.ConceptSource;
 import org.openmrs.api.APIException;
 import org.openmrs.api.AdministrationService;
 import org.openmrs.api.context.Context;
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
 import org.openmrs.module.radiology.RadiologyConstants;
 import org.openmrs.module.radiology.RadiologyProperties;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Tests {@code MrrtReportTemplateService}.
@@ -67,6 +79,13 @@ public class MrrtReportTemplateServiceComponentTest extends BaseModuleContextSen
     @Autowired
     private MrrtReportTemplateFileParser parser;
     
+    @Autowired
+    @Qualifier("sessionFactory")
+    private SessionFactory sessionFactory;
+    
+    @Autowired
+    private MrrtReportTemplateSearchIndex mrrtReportTemplateSearchIndex;
+    
     private static final String TEST_DATASET =
             "org/openmrs/module/radiology/include/MrrtReportTemplateServiceComponentTestDataset.xml";
     
@@ -95,8 +114,15 @@ public class MrrtReportTemplateServiceComponentTest extends BaseModuleContextSen
     @Autowired
     private MrrtReportTemplateService mrrtReportTemplateService;
     
+    @Autowired
+    private MrrtReportTemplateHtmlBodyCache mrrtReportTemplateHtmlBodyCache;
+    
     @Before
     public void setUp() throws Exception {
+        // datasets are inserted without hibernate which can therefore not invalidate cached query results
+        sessionFactory.getCache()
+                .evictQueryRegions();
+        mrrtReportTemplateSearchIndex.clear();
         executeDataSet(TEST_DATASET);
     }
     
@@ -138,6 +164,16 @@ public class MrrtReportTemplateServiceComponentTest extends BaseModuleContextSen
         return content;
     }
     
+    /**
+     * Run the callbacks registered for the commit of the transaction of the test, which is rolled back instead.
+     */
+    private void runAfterCommitCallbacks() {
+        
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+    }
+    
     /**
      * Sets up the global property defining the MRRT template directory using junits temporary folder.
      *
@@ -250,10 +286,10 @@ public class MrrtReportTemplateServiceComponentTest extends BaseModuleContextSen
     
     /**
     * @see MrrtReportTemplateService#purgeMrrtReportTemplate(MrrtReportTemplate)
-    * @verifies delete report template from database and also delete template file from the system
+    * @verifies delete report template from database and keep its file until the transaction commits
     */
     @Test
-    public void purgeMrrtReportTemplate_shouldDeleteReportTemplateFromDatabaseAndAlsoDeleteTemplateFileFromTheSystem()
+    public void purgeMrrtReportTemplate_shouldDeleteReportTemplateFromDatabaseAndKeepItsFileUntilTheTransactionCommits()
             throws Exception {
         
         setUpTemporaryFolder();
@@ -271,7 +307,7 @@ public class MrrtReportTemplateServiceComponentTest extends BaseModuleContextSen
         assertThat(savedFile.exists(), is(true));
         mrrtReportTemplateService.purgeMrrtReportTemplate(saved);
         assertNull(mrrtReportTemplateService.getMrrtReportTemplate(saved.getId()));
-        assertThat(savedFile.exists(), is(false));
+        assertThat(savedFile.exists(), is(true));
     }
     
     /**
@@ -287,15 +323,85 @@ public class MrrtReportTemplateServiceComponentTest extends BaseModuleContextSen
     
     /**
      * @see MrrtReportTemplateService#purgeMrrtReportTemplate(MrrtReportTemplate)
-     * @verifies catch file not found exception when the file been deleted is missing
+     * @verifies remove the cached body content of the template
      */
     @Test
-    public void purgeMrrtReportTemplate_shouldCatchFileNotFoundExceptionWhenTheFileBeenDeletedIsMissing() {
+    public void purgeMrrtReportTemplate_shouldRemoveTheCachedBodyContentOfTheTemplate() throws Exception {
+        
+        MrrtReportTemplate template = mrrtReportTemplateService.getMrrtReportTemplate(EXISTING_TEMPLATE_ID);
+        mrrtReportTemplateHtmlBodyCache.put(EXISTING_TEMPLATE_ID, 0, 0, "<p>Sample Template</p>");
         
-        MrrtReportTemplate template = mrrtReportTemplateService.getMrrtReportTemplate(1);
-        assertNotNull(template);
-        assertThat(new File(template.getPath()).exists(), is(false));
         mrrtReportTemplateService.purgeMrrtReportTemplate(template);
+        
+        assertNull(mrrtReportTemplateHtmlBodyCache.get(EXISTING_TEMPLATE_ID, 0, 0));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#reconcileMrrtReportTemplateFiles()
+     * @verifies move template files not in the store into the store
+     */
+    @Test
+    public void reconcileMrrtReportTemplateFiles_shouldMoveTemplateFilesNotInTheStoreIntoTheStore() throws Exception {
+        
+        setUpTemporaryFolder();
+        String content = getFileContent("mrrttemplates/ihe/connectathon/2015/CTChestAbdomen.html");
+        File legacyFile = new File(radiologyProperties.getReportTemplateHome(), java.util.UUID.randomUUID()
+                .toString());
+        FileUtils.writeStringToFile(legacyFile, content, StandardCharsets.UTF_8);
+        MrrtReportTemplate template = mrrtReportTemplateService.getMrrtReportTemplate(EXISTING_TEMPLATE_ID);
+        template.setPath(legacyFile.getAbsolutePath());
+        
+        mrrtReportTemplateService.reconcileMrrtReportTemplateFiles();
+        
+        Path stored = Paths.get(mrrtReportTemplateService.getMrrtReportTemplate(EXISTING_TEMPLATE_ID)
+                .getPath());
+        assertThat(stored.getFileName()
+                .toString(),
+            is(MrrtReportTemplateFileStore.hash(content.getBytes(StandardCharsets.UTF_8))));
+        assertThat(new String(Files.readAllBytes(stored), StandardCharsets.UTF_8), is(content));
+        assertThat(legacyFile.exists(), is(false));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#reconcileMrrtReportTemplateFiles()
+     * @verifies delete stored files not referenced by any template
+     */
+    @Test
+    public void reconcileMrrtReportTemplateFiles_shouldDeleteStoredFilesNotReferencedByAnyTemplate() throws Exception {
+        
+        setUpTemporaryFolder();
+        File templateHome = radiologyProperties.getReportTemplateHome();
+        String content = "<html><body><p>Sample Template</p></body></html>";
+        File storedFile = new File(templateHome, MrrtReportTemplateFileStore.hash(content.getBytes(StandardCharsets.UTF_8)));
+        FileUtils.writeStringToFile(storedFile, content, StandardCharsets.UTF_8);
+        File temporaryFile = new File(templateHome, ".mrrt-123456789.tmp");
+        temporaryFile.createNewFile();
+        File otherFile = new File(templateHome, "README");
+        otherFile.createNewFile();
+        
+        mrrtReportTemplateService.reconcileMrrtReportTemplateFiles();
+        
+        assertThat(storedFile.exists(), is(false));
+        assertThat(temporaryFile.exists(), is(false));
+        assertThat(otherFile.exists(), is(true));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#reconcileMrrtReportTemplateFiles()
+     * @verifies keep templates whose file is missing
+     */
+    @Test
+    public void reconcileMrrtReportTemplateFiles_shouldKeepTemplatesWhoseFileIsMissing() throws Exception {
+        
+        setUpTemporaryFolder();
+        MrrtReportTemplate template = mrrtReportTemplateService.getMrrtReportTemplate(EXISTING_TEMPLATE_ID);
+        assertThat(new File(template.getPath()).exists(), is(false));
+        
+        mrrtReportTemplateService.reconcileMrrtReportTemplateFiles();
+        
+        assertThat(mrrtReportTemplateService.getMrrtReportTemplate(EXISTING_TEMPLATE_ID)
+                .getPath(),
+            is("test/test1.html"));
     }
     
     /**
@@ -368,6 +474,25 @@ public class MrrtReportTemplateServiceComponentTest extends BaseModuleContextSen
         assertTrue(FileUtils.contentEquals(getFile(sourcePath), templatePath.getAbsoluteFile()));
     }
     
+    /**
+     * @see MrrtReportTemplateService#importMrrtReportTemplate(String)
+     * @verifies store the template file named by the sha-256 of its content
+     */
+    @Test
+    public void importMrrtReportTemplate_shouldStoreTheTemplateFileNamedByTheSha256OfItsContent() throws Exception {
+        
+        setUpTemporaryFolder();
+        String template = getFileContent("mrrttemplates/ihe/connectathon/2015/CTChestAbdomen.html");
+        
+        MrrtReportTemplate saved = mrrtReportTemplateService.importMrrtReportTemplate(template);
+        
+        assertThat(new File(saved.getPath()).getName(),
+            is(MrrtReportTemplateFileStore.hash(template.getBytes(StandardCharsets.UTF_8))));
+        assertThat(radiologyProperties.getReportTemplateHome()
+                .list().length,
+            is(1));
+    }
+    
     /**
      * @verifies not create an mrrt report template in the database and store the template as file if given template is invalid
      * @see MrrtReportTemplateService#importMrrtReportTemplate(String)
@@ -386,6 +511,178 @@ public class MrrtReportTemplateServiceComponentTest extends BaseModuleContextSen
         mrrtReportTemplateService.importMrrtReportTemplate(template);
     }
     
+    /**
+     * Create a ZIP archive containing given files.
+     *
+     * @param files the names and contents of the files alternating
+     * @return the ZIP archive
+     */
+    private InputStream createArchive(String... files) throws IOException {
+        
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(archive, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < files.length; i += 2) {
+                zipOutputStream.putNextEntry(new ZipEntry(files[i]));
+                zipOutputStream.write(files[i + 1].getBytes(StandardCharsets.UTF_8));
+                zipOutputStream.closeEntry();
+            }
+        }
+        return new ByteArrayInputStream(archive.toByteArray());
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#importMrrtReportTemplates(InputStream)
+     * @verifies import all valid templates of given archive
+     */
+    @Test
+    public void importMrrtReportTemplates_shouldImportAllValidTemplatesOfGivenArchive() throws Exception {
+        
+        setUpTemporaryFolder();
+        String template = getFileContent("mrrttemplates/ihe/connectathon/2015/CTChestAbdomen.html");
+        
+        List<MrrtReportTemplateImportResult> results = mrrtReportTemplateService.importMrrtReportTemplates(
+            createArchive("CTChestAbdomen.html", template, "other/CTChestAbdomen3.html",
+                template.replace(TEMPLATE_IDENTIFIER, "identifier3")));
+        
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0)
+                .getFileName(),
+            is("CTChestAbdomen.html"));
+        assertThat(results.get(0)
+                .getStatus(),
+            is(MrrtReportTemplateImportResult.Status.IMPORTED));
+        assertThat(results.get(1)
+                .getFileName(),
+            is("other/CTChestAbdomen3.html"));
+        assertThat(results.get(1)
+                .getStatus(),
+            is(MrrtReportTemplateImportResult.Status.IMPORTED));
+        MrrtReportTemplate saved = mrrtReportTemplateService.getMrrtReportTemplateByIdentifier("identifier3");
+        assertNotNull(saved);
+        assertThat(saved.getTemplateId(), is(results.get(1)
+                .getTemplate()
+                .getTemplateId()));
+        assertThat(FileUtils.readFileToString(new File(saved.getPath()), StandardCharsets.UTF_8),
+            is(template.replace(TEMPLATE_IDENTIFIER, "identifier3")));
+        assertNotNull(mrrtReportTemplateService.getMrrtReportTemplateByIdentifier(TEMPLATE_IDENTIFIER));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#importMrrtReportTemplates(InputStream)
+     * @verifies report invalid templates without importing them
+     */
+    @Test
+    public void importMrrtReportTemplates_shouldReportInvalidTemplatesWithoutImportingThem() throws Exception {
+        
+        setUpTemporaryFolder();
+        String invalidTemplate = getFileContent(
+            "mrrttemplates/ihe/connectathon/2015/invalidMrrtReportTemplate-noMetaElementWithCharsetAttribute.html");
+        
+        List<MrrtReportTemplateImportResult> results =
+                mrrtReportTemplateService.importMrrtReportTemplates(createArchive("invalid.html", invalidTemplate,
+                    "CTChestAbdomen.html", getFileContent("mrrttemplates/ihe/connectathon/2015/CTChestAbdomen.html")));
+        
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0)
+                .getStatus(),
+            is(MrrtReportTemplateImportResult.Status.INVALID));
+        assertThat(results.get(0)
+                .getValidationErrors()
+                .isEmpty(),
+            is(false));
+        assertNull(results.get(0)
+                .getTemplate());
+        assertThat(results.get(1)
+                .getStatus(),
+            is(MrrtReportTemplateImportResult.Status.IMPORTED));
+        assertThat(radiologyProperties.getReportTemplateHome()
+                .listFiles().length,
+            is(1));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#importMrrtReportTemplates(InputStream)
+     * @verifies report templates with a dcterms identifier occurring earlier in the archive as duplicate
+     */
+    @Test
+    public void importMrrtReportTemplates_shouldReportTemplatesWithADctermsIdentifierOccurringEarlierInTheArchiveAsDuplicate()
+            throws Exception {
+        
+        setUpTemporaryFolder();
+        String template = getFileContent("mrrttemplates/ihe/connectathon/2015/CTChestAbdomen.html");
+        
+        List<MrrtReportTemplateImportResult> results = mrrtReportTemplateService
+                .importMrrtReportTemplates(createArchive("first.html", template, "second.html", template));
+        
+        assertThat(results.get(0)
+                .getStatus(),
+            is(MrrtReportTemplateImportResult.Status.IMPORTED));
+        assertThat(results.get(1)
+                .getStatus(),
+            is(MrrtReportTemplateImportResult.Status.DUPLICATE));
+        assertThat(radiologyProperties.getReportTemplateHome()
+                .listFiles().length,
+            is(1));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#importMrrtReportTemplates(InputStream)
+     * @verifies report templates with a dcterms identifier of an existing template as duplicate
+     */
+    @Test
+    public void importMrrtReportTemplates_shouldReportTemplatesWithADctermsIdentifierOfAnExistingTemplateAsDuplicate()
+            throws Exception {
+        
+        setUpTemporaryFolder();
+        String template = getFileContent("mrrttemplates/ihe/connectathon/2015/CTChestAbdomen.html");
+        
+        List<MrrtReportTemplateImportResult> results = mrrtReportTemplateService
+                .importMrrtReportTemplates(createArchive("existing.html", template.replace(TEMPLATE_IDENTIFIER, "identifier1")));
+        
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0)
+                .getStatus(),
+            is(MrrtReportTemplateImportResult.Status.DUPLICATE));
+        assertThat(radiologyProperties.getReportTemplateHome()
+                .listFiles().length,
+            is(0));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#importMrrtReportTemplates(InputStream)
+     * @verifies throw the failure of a batch if called within a transaction
+     */
+    @Test
+    public void importMrrtReportTemplates_shouldThrowTheFailureOfABatchIfCalledWithinATransaction() throws Exception {
+        
+        // component tests run within a transaction
+        setUpTemporaryFolder();
+        String template = getFileContent("mrrttemplates/ihe/connectathon/2015/CTChestAbdomen.html");
+        String blockedTemplate = template.replace(TEMPLATE_IDENTIFIER, "identifier3");
+        // a directory where the template file is to be stored makes storing the batch fail
+        File blocked = new File(radiologyProperties.getReportTemplateHome(),
+                MrrtReportTemplateFileStore.hash(blockedTemplate.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(blocked.mkdir());
+        assertTrue(new File(blocked, "blocker").createNewFile());
+        
+        expectedException.expect(APIException.class);
+        expectedException.expectMessage("Failed to store template file of blocked.html");
+        mrrtReportTemplateService
+                .importMrrtReportTemplates(createArchive("CTChestAbdomen.html", template, "blocked.html", blockedTemplate));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#importMrrtReportTemplates(InputStream)
+     * @verifies throw illegal argument exception if given null
+     */
+    @Test
+    public void importMrrtReportTemplates_shouldThrowIllegalArgumentExceptionIfGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("archive cannot be null");
+        mrrtReportTemplateService.importMrrtReportTemplates(null);
+    }
+    
     /**
     * @see MrrtReportTemplateService#getMrrtReportTemplates(MrrtReportTemplateSearchCriteria)
     * @verifies return all mrrt report templates that match given title search query if title is specified
@@ -533,6 +830,206 @@ public class MrrtReportTemplateServiceComponentTest extends BaseModuleContextSen
         assertTrue(templates.isEmpty());
     }
     
+    /**
+     * @see MrrtReportTemplateService#getMrrtReportTemplates(MrrtReportTemplateSearchCriteria)
+     * @verifies not return a template purged after an earlier call
+     */
+    @Test
+    public void getMrrtReportTemplates_shouldNotReturnATemplatePurgedAfterAnEarlierCall() throws Exception {
+        
+        MrrtReportTemplateSearchCriteria searchCriteria =
+                new MrrtReportTemplateSearchCriteria.Builder().withTitle(EXISTING_TEMPLATE_TITLE)
+                        .build();
+        List<MrrtReportTemplate> templates = mrrtReportTemplateService.getMrrtReportTemplates(searchCriteria);
+        assertThat(templates.size(), is(2));
+        MrrtReportTemplate purged = templates.get(0);
+        
+        mrrtReportTemplateService.purgeMrrtReportTemplate(purged);
+        
+        templates = mrrtReportTemplateService.getMrrtReportTemplates(searchCriteria);
+        assertThat(templates.size(), is(1));
+        assertThat(templates.get(0)
+                .getUuid()
+                .equals(purged.getUuid()),
+            is(false));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#getMrrtReportTemplates(MrrtReportTemplateSearchCriteria)
+     * @verifies return mrrt report templates matching all words of given query most relevant first
+     */
+    @Test
+    public void getMrrtReportTemplates_shouldReturnMrrtReportTemplatesMatchingAllWordsOfGivenQueryMostRelevantFirst()
+            throws Exception {
+        
+        MrrtReportTemplate template = new MrrtReportTemplate();
+        template.setDcTermsTitle("MR Knee");
+        template.setDcTermsDescription("chest follow up");
+        template.setDcTermsIdentifier("identifier3");
+        template.setPath("test/test3.html");
+        mrrtReportTemplateService.saveMrrtReportTemplate(template);
+        
+        List<MrrtReportTemplate> templates = mrrtReportTemplateService
+                .getMrrtReportTemplates(new MrrtReportTemplateSearchCriteria.Builder().withQuery("chest")
+                        .build());
+        assertThat(templates.size(), is(2));
+        assertThat(templates.get(0)
+                .getUuid(),
+            is(UUID_FOR_TEMPLATE_ONE));
+        assertThat(templates.get(1)
+                .getDcTermsTitle(),
+            is("MR Knee"));
+        
+        templates = mrrtReportTemplateService
+                .getMrrtReportTemplates(new MrrtReportTemplateSearchCriteria.Builder().withQuery("CT Pulmonary")
+                        .build());
+        assertThat(templates.size(), is(1));
+        assertThat(templates.get(0)
+                .getUuid(),
+            is(UUID_FOR_TEMPLATE_ONE));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#getMrrtReportTemplates(MrrtReportTemplateSearchCriteria)
+     * @verifies return mrrt report templates containing words starting with the words of given query
+     */
+    @Test
+    public void getMrrtReportTemplates_shouldReturnMrrtReportTemplatesContainingWordsStartingWithTheWordsOfGivenQuery()
+            throws Exception {
+        
+        List<MrrtReportTemplate> templates = mrrtReportTemplateService
+                .getMrrtReportTemplates(new MrrtReportTemplateSearchCriteria.Builder().withQuery("pulm emb")
+                        .build());
+        assertThat(templates.size(), is(1));
+        assertThat(templates.get(0)
+                .getUuid(),
+            is(UUID_FOR_TEMPLATE_ONE));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#getMrrtReportTemplates(MrrtReportTemplateSearchCriteria)
+     * @verifies return mrrt report templates whose concept reference terms match given query
+     */
+    @Test
+    public void getMrrtReportTemplates_shouldReturnMrrtReportTemplatesWhoseConceptReferenceTermsMatchGivenQuery()
+            throws Exception {
+        
+        List<MrrtReportTemplate> templates = mrrtReportTemplateService
+                .getMrrtReportTemplates(new MrrtReportTemplateSearchCriteria.Builder().withQuery("RID10321")
+                        .build());
+        assertThat(templates.size(), is(1));
+        assertThat(templates.get(0)
+                .getUuid(),
+            is(UUID_FOR_TEMPLATE_ONE));
+        
+        templates = mrrtReportTemplateService
+                .getMrrtReportTemplates(new MrrtReportTemplateSearchCriteria.Builder().withQuery("radlex")
+                        .build());
+        assertThat(templates.size(), is(1));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#getMrrtReportTemplates(MrrtReportTemplateSearchCriteria)
+     * @verifies return mrrt report templates matching given query and the other criteria
+     */
+    @Test
+    public void getMrrtReportTemplates_shouldReturnMrrtReportTemplatesMatchingGivenQueryAndTheOtherCriteria()
+            throws Exception {
+        
+        List<MrrtReportTemplate> templates = mrrtReportTemplateService
+                .getMrrtReportTemplates(new MrrtReportTemplateSearchCriteria.Builder().withQuery("ct")
+                        .withLicense("general")
+                        .build());
+        assertThat(templates.size(), is(1));
+        assertThat(templates.get(0)
+                .getUuid(),
+            is(UUID_FOR_TEMPLATE_TWO));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#getMrrtReportTemplates(MrrtReportTemplateSearchCriteria)
+     * @verifies return mrrt report templates saved after the search index was built once committed
+     */
+    @Test
+    public void getMrrtReportTemplates_shouldReturnMrrtReportTemplatesSavedAfterTheSearchIndexWasBuiltOnceCommitted()
+            throws Exception {
+        
+        MrrtReportTemplateSearchCriteria searchCriteria = new MrrtReportTemplateSearchCriteria.Builder().withQuery("knee")
+                .build();
+        assertTrue(mrrtReportTemplateService.getMrrtReportTemplates(searchCriteria)
+                .isEmpty());
+        
+        MrrtReportTemplate template = new MrrtReportTemplate();
+        template.setDcTermsTitle("MR Knee");
+        template.setDcTermsIdentifier("identifier3");
+        template.setPath("test/test3.html");
+        mrrtReportTemplateService.saveMrrtReportTemplate(template);
+        assertTrue(mrrtReportTemplateService.getMrrtReportTemplates(searchCriteria)
+                .isEmpty());
+        
+        runAfterCommitCallbacks();
+        
+        List<MrrtReportTemplate> templates = mrrtReportTemplateService.getMrrtReportTemplates(searchCriteria);
+        assertThat(templates.size(), is(1));
+        assertThat(templates.get(0)
+                .getUuid(),
+            is(template.getUuid()));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#getMrrtReportTemplates(MrrtReportTemplateSearchCriteria)
+     * @verifies not return mrrt report templates purged after the search index was built
+     */
+    @Test
+    public void getMrrtReportTemplates_shouldNotReturnMrrtReportTemplatesPurgedAfterTheSearchIndexWasBuilt()
+            throws Exception {
+        
+        MrrtReportTemplateSearchCriteria searchCriteria =
+                new MrrtReportTemplateSearchCriteria.Builder().withQuery("embolism")
+                        .build();
+        assertThat(mrrtReportTemplateService.getMrrtReportTemplates(searchCriteria)
+                .size(), is(1));
+        
+        mrrtReportTemplateService
+                .purgeMrrtReportTemplate(mrrtReportTemplateService.getMrrtReportTemplateByUuid(UUID_FOR_TEMPLATE_ONE));
+        
+        assertTrue(mrrtReportTemplateService.getMrrtReportTemplates(searchCriteria)
+                .isEmpty());
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#rebuildMrrtReportTemplateSearchIndex()
+     * @verifies index all mrrt report templates
+     */
+    @Test
+    public void rebuildMrrtReportTemplateSearchIndex_shouldIndexAllMrrtReportTemplates() throws Exception {
+        
+        mrrtReportTemplateService.rebuildMrrtReportTemplateSearchIndex();
+        
+        assertThat(mrrtReportTemplateSearchIndex.isBuilt(), is(true));
+        assertThat(mrrtReportTemplateSearchIndex.getTemplateCount(), is(2));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#getMrrtReportTemplateCacheStatistics()
+     * @verifies return the statistics of the template, terms and query cache regions
+     */
+    @Test
+    public void getMrrtReportTemplateCacheStatistics_shouldReturnTheStatisticsOfTheTemplateTermsAndQueryCacheRegions()
+            throws Exception {
+        
+        mrrtReportTemplateService.getMrrtReportTemplate(EXISTING_TEMPLATE_ID);
+        
+        List<RadiologyCacheStatistics> cacheStatistics = mrrtReportTemplateService.getMrrtReportTemplateCacheStatistics();
+        assertThat(cacheStatistics.size(), is(3));
+        assertThat(cacheStatistics.get(0)
+                .getRegion(), is(MrrtReportTemplate.class.getName()));
+        assertThat(cacheStatistics.get(1)
+                .getRegion(), is(MrrtReportTemplate.class.getName() + ".terms"));
+        assertThat(cacheStatistics.get(2)
+                .getRegion(), is(MrrtReportTemplate.class.getName() + ".queries"));
+    }
+    
     /**
     * @see MrrtReportTemplateService#getMrrtReportTemplateHtmlBody(MrrtReportTemplate)
     * @verifies return the body content of the mrrt report template file
@@ -549,6 +1046,57 @@ public class MrrtReportTemplateServiceComponentTest extends BaseModuleContextSen
         assertThat(bodyContentReturned, is("<p>Sample Template</p>"));
     }
     
+    /**
+     * @see MrrtReportTemplateService#getMrrtReportTemplateHtmlBody(MrrtReportTemplate)
+     * @verifies return the cached body content if the template file was not modified
+     */
+    @Test
+    public void getMrrtReportTemplateHtmlBody_shouldReturnTheCachedBodyContentIfTheTemplateFileWasNotModified()
+            throws Exception {
+        
+        File tmpTemplateFile = temporaryFolder.newFile();
+        FileUtils.writeStringToFile(tmpTemplateFile,
+            "<html>" + "<head><title>Sample Template</title></head>" + "<body><p>Sample Template</p></body>" + "</html>");
+        MrrtReportTemplate mockTemplate = mock(MrrtReportTemplate.class);
+        when(mockTemplate.getTemplateId()).thenReturn(NON_EXISTING_TEMPLATE_ID);
+        when(mockTemplate.getPath()).thenReturn(tmpTemplateFile.getAbsolutePath());
+        mrrtReportTemplateHtmlBodyCache.invalidate(NON_EXISTING_TEMPLATE_ID);
+        
+        String firstBodyContent = mrrtReportTemplateService.getMrrtReportTemplateHtmlBody(mockTemplate);
+        long hitCount = mrrtReportTemplateHtmlBodyCache.getHitCount();
+        String secondBodyContent = mrrtReportTemplateService.getMrrtReportTemplateHtmlBody(mockTemplate);
+        
+        assertThat(firstBodyContent, is("<p>Sample Template</p>"));
+        assertThat(secondBodyContent, is(firstBodyContent));
+        assertThat(mrrtReportTemplateHtmlBodyCache.getHitCount(), is(hitCount + 1));
+    }
+    
+    /**
+     * @see MrrtReportTemplateService#getMrrtReportTemplateHtmlBody(MrrtReportTemplate)
+     * @verifies return the body content of the modified template file if the template file was modified
+     */
+    @Test
+    public void
+            getMrrtReportTemplateHtmlBody_shouldReturnTheBodyContentOfTheModifiedTemplateFileIfTheTemplateFileWasModified()
+                    throws Exception {
+        
+        File tmpTemplateFile = temporaryFolder.newFile();
+        FileUtils.writeStringToFile(tmpTemplateFile,
+            "<html>" + "<head><title>Sample Template</title></head>" + "<body><p>Sample Template</p></body>" + "</html>");
+        MrrtReportTemplate mockTemplate = mock(MrrtReportTemplate.class);
+        when(mockTemplate.getTemplateId()).thenReturn(NON_EXISTING_TEMPLATE_ID);
+        when(mockTemplate.getPath()).thenReturn(tmpTemplateFile.getAbsolutePath());
+        mrrtReportTemplateHtmlBodyCache.invalidate(NON_EXISTING_TEMPLATE_ID);
+        assertThat(mrrtReportTemplateService.getMrrtReportTemplateHtmlBody(mockTemplate), is("<p>Sample Template</p>"));
+        
+        long lastModified = tmpTemplateFile.lastModified();
+        FileUtils.writeStringToFile(tmpTemplateFile,
+            "<html>" + "<head><title>Sample Template</title></head>" + "<body><p>Changed Template</p></body>" + "</html>");
+        tmpTemplateFile.setLastModified(lastModified + 1000);
+        
+        assertThat(mrrtReportTemplateService.getMrrtReportTemplateHtmlBody(mockTemplate), is("<p>Changed Template</p>"));
+    }
+    
     /**
     * @see MrrtReportTemplateService#getMrrtReportTemplateHtmlBody(MrrtReportTemplate)
     * @verifies throw illegal argument exception if given null
@@ -0,0 +1,135 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.openmrs.test.BaseContextMockTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests {@link MrrtReportTemplateServiceImpl}.
+ */
+public class MrrtReportTemplateServiceImplTest extends BaseContextMockTest {
+    
+    
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    @Mock
+    private MrrtReportTemplateDAO mrrtReportTemplateDAO;
+    
+    @Mock
+    private MrrtReportTemplateHtmlBodyCache mrrtReportTemplateHtmlBodyCache;
+    
+    @Mock
+    private MrrtReportTemplateSearchIndex mrrtReportTemplateSearchIndex;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    @InjectMocks
+    private MrrtReportTemplateServiceImpl mrrtReportTemplateServiceImpl = new MrrtReportTemplateServiceImpl();
+    
+    private MrrtReportTemplate getMrrtReportTemplate(File templateFile) {
+        
+        final MrrtReportTemplate template = new MrrtReportTemplate();
+        template.setTemplateId(1);
+        template.setPath(templateFile.getAbsolutePath());
+        return template;
+    }
+    
+    /**
+     * Run the callbacks registered for the commit of the current transaction and end it.
+     */
+    private static void commit() {
+        
+        try {
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    /**
+     * @see MrrtReportTemplateServiceImpl#purgeMrrtReportTemplate(MrrtReportTemplate)
+     * @verifies delete the template file once the transaction commits
+     */
+    @Test
+    public void purgeMrrtReportTemplate_shouldDeleteTheTemplateFileOnceTheTransactionCommits() throws Exception {
+        
+        final File templateFile = temporaryFolder.newFile();
+        final MrrtReportTemplate template = getMrrtReportTemplate(templateFile);
+        when(mrrtReportTemplateDAO.getMrrtReportTemplateCountByPath(template.getPath())).thenReturn(0L);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        mrrtReportTemplateServiceImpl.purgeMrrtReportTemplate(template);
+        assertThat(templateFile.exists(), is(true));
+        verifyZeroInteractions(mrrtReportTemplateSearchIndex);
+        commit();
+        
+        assertThat(templateFile.exists(), is(false));
+        verify(mrrtReportTemplateSearchIndex).remove(1);
+    }
+    
+    /**
+     * @see MrrtReportTemplateServiceImpl#purgeMrrtReportTemplate(MrrtReportTemplate)
+     * @verifies catch file not found exception when the file been deleted is missing
+     */
+    @Test
+    public void purgeMrrtReportTemplate_shouldCatchFileNotFoundExceptionWhenTheFileBeenDeletedIsMissing() throws Exception {
+        
+        final File templateFile = new File(temporaryFolder.getRoot(), "missing");
+        final MrrtReportTemplate template = getMrrtReportTemplate(templateFile);
+        when(mrrtReportTemplateDAO.getMrrtReportTemplateCountByPath(template.getPath())).thenReturn(0L);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        mrrtReportTemplateServiceImpl.purgeMrrtReportTemplate(template);
+        commit();
+        
+        assertThat(templateFile.exists(), is(false));
+    }
+    
+    /**
+     * @see MrrtReportTemplateServiceImpl#purgeMrrtReportTemplate(MrrtReportTemplate)
+     * @verifies not delete template file still referenced by another template
+     */
+    @Test
+    public void purgeMrrtReportTemplate_shouldNotDeleteTemplateFileStillReferencedByAnotherTemplate() throws Exception {
+        
+        final File templateFile = temporaryFolder.newFile();
+        final MrrtReportTemplate template = getMrrtReportTemplate(templateFile);
+        // another template refers to the file when the purge is committed
+        when(mrrtReportTemplateDAO.getMrrtReportTemplateCountByPath(template.getPath())).thenReturn(1L);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        mrrtReportTemplateServiceImpl.purgeMrrtReportTemplate(template);
+        commit();
+        
+        assertThat(templateFile.exists(), is(true));
+    }
+}
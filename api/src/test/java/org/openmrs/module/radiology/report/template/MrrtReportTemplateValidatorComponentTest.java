@@ -17,6 +17,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
@@ -24,6 +30,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.openmrs.api.APIException;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.w3c.dom.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -88,6 +95,37 @@ public class MrrtReportTemplateValidatorComponentTest extends BaseModuleContextS
         validator.validate(templateContent);
     }
     
+    /**
+     * @see MrrtReportTemplateValidator#validate(String)
+     * @verifies pass if valid templates are validated concurrently
+     */
+    @Test
+    public void validate_shouldPassIfValidTemplatesAreValidatedConcurrently() throws Exception {
+        
+        String templateContent = getFileContent("mrrttemplates/ihe/connectathon/2015/CTChestAbdomen.html");
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Void>> validations = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                validations.add(executorService.submit(new Callable<Void>() {
+                    
+                    
+                    @Override
+                    public Void call() throws Exception {
+                        validator.validate(templateContent);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> validation : validations) {
+                validation.get();
+            }
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+    
     /**
      * @see MrrtReportTemplateValidator#validate(String)
      * @verifies throw api exception if template does not have an html element
@@ -407,4 +445,37 @@ public class MrrtReportTemplateValidatorComponentTest extends BaseModuleContextS
                 is(4));
         }
     }
+    
+    /**
+     * @see MrrtReportTemplateValidator#parseAndValidate(String)
+     * @verifies return the parsed document if template follows mrrt standards
+     */
+    @Test
+    public void parseAndValidate_shouldReturnTheParsedDocumentIfTemplateFollowsMrrtStandards() throws Exception {
+        
+        String templateContent = getFileContent("mrrttemplates/ihe/connectathon/2015/CTChestAbdomen.html");
+        
+        Document document = validator.parseAndValidate(templateContent);
+        
+        assertThat(document.getDocumentElement()
+                .getTagName(),
+            is("html"));
+        assertThat(document.getElementsByTagName("meta")
+                .getLength(),
+            is(11));
+        assertThat(document.getElementsByTagName("term")
+                .getLength(),
+            is(3));
+    }
+    
+    /**
+     * @see MrrtReportTemplateValidator#parseAndValidate(String)
+     * @verifies throw api exception if template is not well formed
+     */
+    @Test
+    public void parseAndValidate_shouldThrowApiExceptionIfTemplateIsNotWellFormed() throws Exception {
+        
+        expectedException.expect(APIException.class);
+        validator.parseAndValidate("<html><head><title>CT Chest-Abdomen</title></html>");
+    }
 }
@@ -0,0 +1,103 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import java.io.InputStream;
+import java.net.URL;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.apache.commons.io.IOUtils;
+import org.w3c.dom.Document;
+
+/**
+ * Measures validating an mrrt report template against the schema shared by {@link XsdMrrtReportTemplateValidator}
+ * versus compiling the schema on every validation as the validator formerly did.
+ * <p>
+ * Not part of the test run since wall-clock timings depend on the machine, run its main method by hand instead.
+ * </p>
+ */
+public class XsdMrrtReportTemplateValidatorBenchmark {
+    
+    
+    private static final String TEMPLATE = "mrrttemplates/ihe/connectathon/2015/CTChestAbdomen.html";
+    
+    private static final String SCHEMA = "MrrtReportTemplateSchema.xsd";
+    
+    private static final int WARMUP_VALIDATIONS = 200;
+    
+    private static final int VALIDATIONS = 1000;
+    
+    /**
+     * Gets the schema a template is validated against.
+     */
+    private interface SchemaSource {
+        
+        
+        Schema get() throws Exception;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        
+        final XsdMrrtReportTemplateValidator validator = new XsdMrrtReportTemplateValidator();
+        validator.setMetaTagsValidationEngine(new MetaTagsValidationEngine());
+        final String template;
+        try (InputStream in = XsdMrrtReportTemplateValidatorBenchmark.class.getClassLoader()
+                .getResourceAsStream(TEMPLATE)) {
+            template = IOUtils.toString(in, "UTF-8");
+        }
+        final Document document = validator.parseAndValidate(template);
+        
+        final double perCallMicros = measureMicrosPerValidation(document,
+            XsdMrrtReportTemplateValidatorBenchmark::compileSchema);
+        final double sharedMicros = measureMicrosPerValidation(document, validator::getSchema);
+        System.out.println(String.format(
+            "microseconds/validation: schema compiled per call %.0f, shared schema %.0f, speedup %.1fx", perCallMicros,
+            sharedMicros, perCallMicros / sharedMicros));
+    }
+    
+    /**
+     * Validates given document {@code VALIDATIONS} times against the schema from given source.
+     *
+     * @return the average microseconds of one validation
+     */
+    private static double measureMicrosPerValidation(Document document, SchemaSource schemaSource) throws Exception {
+        
+        for (int i = 0; i < WARMUP_VALIDATIONS; i++) {
+            schemaSource.get()
+                    .newValidator()
+                    .validate(new DOMSource(document));
+        }
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < VALIDATIONS; i++) {
+            schemaSource.get()
+                    .newValidator()
+                    .validate(new DOMSource(document));
+        }
+        return (System.nanoTime() - startNanos) / 1e3 / VALIDATIONS;
+    }
+    
+    /**
+     * Compiles the schema like the validator formerly did on every validation.
+     */
+    private static Schema compileSchema() throws Exception {
+        
+        final URL schemaUrl = XsdMrrtReportTemplateValidatorBenchmark.class.getClassLoader()
+                .getResource(SCHEMA);
+        try (InputStream in = schemaUrl.openStream()) {
+            return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+                    .newSchema(new StreamSource(in, schemaUrl.toExternalForm()));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.report.template;
+
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import javax.xml.validation.Schema;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link XsdMrrtReportTemplateValidator}.
+ */
+public class XsdMrrtReportTemplateValidatorTest {
+    
+    
+    /**
+     * @see XsdMrrtReportTemplateValidator#getSchema()
+     * @verifies return the same schema on every call
+     */
+    @Test
+    public void getSchema_shouldReturnTheSameSchemaOnEveryCall() throws Exception {
+        
+        XsdMrrtReportTemplateValidator xsdMrrtReportTemplateValidator = new XsdMrrtReportTemplateValidator();
+        
+        Schema schema = xsdMrrtReportTemplateValidator.getSchema();
+        
+        assertThat(schema, notNullValue());
+        assertThat(xsdMrrtReportTemplateValidator.getSchema(), sameInstance(schema));
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.util;
+
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomPreconditionFailedException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+
+/**
+ * Tests {@link EmptyQueryResultPrecondition}.
+ */
+public class EmptyQueryResultPreconditionComponentTest extends BaseModuleContextSensitiveTest {
+    
+    
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+    
+    private Database database;
+    
+    private EmptyQueryResultPrecondition emptyQueryResultPrecondition = new EmptyQueryResultPrecondition();
+    
+    @Before
+    public void setUp() throws Exception {
+        
+        database = DatabaseFactory.getInstance()
+                .findCorrectDatabaseImplementation(new JdbcConnection(getConnection()));
+        emptyQueryResultPrecondition.setMessage("Users");
+    }
+    
+    /**
+     * @see EmptyQueryResultPrecondition#check(Database)
+     * @verifies pass if the query returns no rows
+     */
+    @Test
+    public void check_shouldPassIfTheQueryReturnsNoRows() throws Exception {
+        
+        emptyQueryResultPrecondition.setSql("select user_id from users where user_id < 0");
+        
+        emptyQueryResultPrecondition.check(database);
+    }
+    
+    /**
+     * @see EmptyQueryResultPrecondition#check(Database)
+     * @verifies fail listing the first column of the rows the query returned
+     */
+    @Test
+    public void check_shouldFailListingTheFirstColumnOfTheRowsTheQueryReturned() throws Exception {
+        
+        emptyQueryResultPrecondition.setSql("select user_id, username from users where user_id = 1");
+        
+        expectedException.expect(CustomPreconditionFailedException.class);
+        expectedException.expectMessage("Users: 1");
+        emptyQueryResultPrecondition.check(database);
+    }
+}
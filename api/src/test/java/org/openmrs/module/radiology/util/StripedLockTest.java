@@ -0,0 +1,186 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests {@link StripedLock}.
+ */
+public class StripedLockTest {
+    
+    
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+    
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    /**
+     * Tries to acquire given lock from another thread.
+     * 
+     * @return true if given lock could be acquired from another thread
+     */
+    private static boolean isLockAvailableToOtherThreads(final Lock lock) throws Exception {
+        
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            return executorService.submit(new Callable<Boolean>() {
+                
+                
+                @Override
+                public Boolean call() throws Exception {
+                    if (lock.tryLock()) {
+                        lock.unlock();
+                        return true;
+                    }
+                    return false;
+                }
+            })
+                    .get();
+        }
+        finally {
+            executorService.shutdown();
+        }
+    }
+    
+    /**
+     * @see StripedLock#StripedLock(int)
+     * @verifies throw illegal argument exception if given stripe count is smaller than one
+     */
+    @Test
+    public void StripedLock_shouldThrowIllegalArgumentExceptionIfGivenStripeCountIsSmallerThanOne() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("stripeCount must be greater than 0");
+        new StripedLock(0);
+    }
+    
+    /**
+     * @see StripedLock#get(Object)
+     * @verifies return the same lock for equal keys
+     */
+    @Test
+    public void get_shouldReturnTheSameLockForEqualKeys() throws Exception {
+        
+        StripedLock stripedLock = new StripedLock(16);
+        
+        for (int i = -100; i < 100; i++) {
+            assertThat(stripedLock.get(new Integer(i)), is(sameInstance(stripedLock.get(new Integer(i)))));
+        }
+        assertThat(stripedLock.get("1.2.3"), is(sameInstance(stripedLock.get(new String("1.2.3")))));
+    }
+    
+    /**
+     * @see StripedLock#get(Object)
+     * @verifies return a lock for null
+     */
+    @Test
+    public void get_shouldReturnALockForNull() throws Exception {
+        
+        StripedLock stripedLock = new StripedLock(16);
+        
+        assertThat(stripedLock.get(null), is(notNullValue()));
+        assertThat(stripedLock.get(null), is(sameInstance(stripedLock.get(null))));
+    }
+    
+    /**
+     * @see StripedLock#lockUntilTransactionCompletion(Object)
+     * @verifies hold the lock until the current transaction completes
+     */
+    @Test
+    public void lockUntilTransactionCompletion_shouldHoldTheLockUntilTheCurrentTransactionCompletes() throws Exception {
+        
+        StripedLock stripedLock = new StripedLock(16);
+        TransactionSynchronizationManager.initSynchronization();
+        
+        stripedLock.lockUntilTransactionCompletion(42);
+        
+        assertThat(isLockAvailableToOtherThreads(stripedLock.get(42)), is(false));
+        
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        
+        assertThat(isLockAvailableToOtherThreads(stripedLock.get(42)), is(true));
+    }
+    
+    /**
+     * @see StripedLock#lockUntilTransactionCompletion(Object)
+     * @verifies throw illegal state exception if no transaction synchronization is active
+     */
+    @Test
+    public void lockUntilTransactionCompletion_shouldThrowIllegalStateExceptionIfNoTransactionSynchronizationIsActive()
+            throws Exception {
+        
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("lockUntilTransactionCompletion requires an active transaction");
+        new StripedLock(16).lockUntilTransactionCompletion(42);
+    }
+    
+    /**
+     * @see StripedLock#lockAllUntilTransactionCompletion(Collection)
+     * @verifies hold the locks of all given keys until the current transaction completes
+     */
+    @Test
+    public void lockAllUntilTransactionCompletion_shouldHoldTheLocksOfAllGivenKeysUntilTheCurrentTransactionCompletes()
+            throws Exception {
+        
+        StripedLock stripedLock = new StripedLock(16);
+        TransactionSynchronizationManager.initSynchronization();
+        
+        stripedLock.lockAllUntilTransactionCompletion(Arrays.asList(42, 7, 42, 58, null));
+        
+        for (Object key : Arrays.asList(42, 7, 58, null)) {
+            assertThat(isLockAvailableToOtherThreads(stripedLock.get(key)), is(false));
+        }
+        
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        
+        for (Object key : Arrays.asList(42, 7, 58, null)) {
+            assertThat(isLockAvailableToOtherThreads(stripedLock.get(key)), is(true));
+        }
+    }
+    
+    /**
+     * @see StripedLock#lockAllUntilTransactionCompletion(Collection)
+     * @verifies throw illegal state exception if no transaction synchronization is active
+     */
+    @Test
+    public void lockAllUntilTransactionCompletion_shouldThrowIllegalStateExceptionIfNoTransactionSynchronizationIsActive()
+            throws Exception {
+        
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("lockAllUntilTransactionCompletion requires an active transaction");
+        new StripedLock(16).lockAllUntilTransactionCompletion(Arrays.asList(42));
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link Words}.
+ */
+public class WordsTest {
+    
+    
+    /**
+     * @see Words#tokenize(String)
+     * @verifies return the distinct lower case words of given text in the order they occur
+     */
+    @Test
+    public void tokenize_shouldReturnTheDistinctLowerCaseWordsOfGivenTextInTheOrderTheyOccur() throws Exception {
+        
+        assertThat(Words.tokenize("CT Thorax: thorax, Lungenembolie 2x!"),
+            contains("ct", "thorax", "lungenembolie", "2x"));
+    }
+    
+    /**
+     * @see Words#tokenize(String)
+     * @verifies return an empty set if given null
+     */
+    @Test
+    public void tokenize_shouldReturnAnEmptySetIfGivenNull() throws Exception {
+        
+        assertTrue(Words.tokenize(null)
+                .isEmpty());
+    }
+}
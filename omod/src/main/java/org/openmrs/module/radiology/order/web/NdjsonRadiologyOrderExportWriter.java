@@ -0,0 +1,150 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order.web;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.openmrs.module.radiology.order.RadiologyOrderExportEntry;
+import org.openmrs.module.radiology.order.RadiologyOrderExportWriter;
+
+/**
+ * Writes {@link RadiologyOrderExportEntry}'s as newline delimited JSON, one JSON object per line, through a fixed size
+ * buffer so that exports of any size run in constant memory.
+ */
+public class NdjsonRadiologyOrderExportWriter implements RadiologyOrderExportWriter {
+    
+    
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+    
+    private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+    
+    private final Writer writer;
+    
+    private final DateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+    
+    private boolean firstProperty;
+    
+    /**
+     * Creates a new instance of {@link NdjsonRadiologyOrderExportWriter}.
+     *
+     * @param outputStream the output stream to write UTF-8 encoded newline delimited JSON to
+     */
+    public NdjsonRadiologyOrderExportWriter(OutputStream outputStream) {
+        
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * @see RadiologyOrderExportWriter#write(RadiologyOrderExportEntry)
+     * @should write given export entry as one json object followed by a newline
+     * @should leave out properties which are null
+     * @should escape quotes backslashes and control characters
+     */
+    @Override
+    public void write(RadiologyOrderExportEntry radiologyOrderExportEntry) throws IOException {
+        
+        firstProperty = true;
+        writer.write('{');
+        writeProperty("orderUuid", radiologyOrderExportEntry.getOrderUuid());
+        writeProperty("orderNumber", radiologyOrderExportEntry.getOrderNumber());
+        writeProperty("accessionNumber", radiologyOrderExportEntry.getAccessionNumber());
+        writeProperty("patientUuid", radiologyOrderExportEntry.getPatientUuid());
+        writeProperty("urgency", radiologyOrderExportEntry.getUrgency());
+        writeProperty("dateActivated", radiologyOrderExportEntry.getDateActivated());
+        writeProperty("scheduledDate", radiologyOrderExportEntry.getScheduledDate());
+        writeProperty("dateStopped", radiologyOrderExportEntry.getDateStopped());
+        if (radiologyOrderExportEntry.getVoided() != null) {
+            writeName("voided");
+            writer.write(radiologyOrderExportEntry.getVoided()
+                    .toString());
+        }
+        writeProperty("studyInstanceUid", radiologyOrderExportEntry.getStudyInstanceUid());
+        writeProperty("performedStatus", radiologyOrderExportEntry.getPerformedStatus());
+        writeProperty("reportUuid", radiologyOrderExportEntry.getReportUuid());
+        writeProperty("reportStatus", radiologyOrderExportEntry.getReportStatus());
+        writeProperty("reportDate", radiologyOrderExportEntry.getReportDate());
+        writer.write("}\n");
+    }
+    
+    /**
+     * Flush the buffered export entries to the output stream.
+     *
+     * @throws IOException if the export entries cannot be written
+     */
+    public void flush() throws IOException {
+        
+        writer.flush();
+    }
+    
+    private void writeProperty(String name, Date value) throws IOException {
+        
+        if (value != null) {
+            writeProperty(name, dateFormat.format(value));
+        }
+    }
+    
+    private void writeProperty(String name, String value) throws IOException {
+        
+        if (value != null) {
+            writeName(name);
+            writeString(value);
+        }
+    }
+    
+    private void writeName(String name) throws IOException {
+        
+        if (!firstProperty) {
+            writer.write(',');
+        }
+        firstProperty = false;
+        writeString(name);
+        writer.write(':');
+    }
+    
+    private void writeString(String value) throws IOException {
+        
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order.web.resource;
+
+import org.openmrs.module.radiology.order.RadiologyOrderWorklistItem;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.annotation.Resource;
+import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
+import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs2_0.RestConstants2_0;
+
+/**
+ * {@link Resource} for {@link RadiologyOrderWorklistItem}, supporting searches only.
+ * <p>
+ * Lists radiology orders as flat worklist items for the radiology dashboards, which are read in one query instead of
+ * converting each radiology order and its referenced patient, concept and orderer.
+ * </p>
+ */
+@Resource(name = RestConstants.VERSION_1 + "/radiologyorderworklist", supportedClass = RadiologyOrderWorklistItem.class,
+        supportedOpenmrsVersions = { "2.0.*" })
+public class RadiologyOrderWorklistItemResource extends DelegatingCrudResource<RadiologyOrderWorklistItem> {
+    
+    
+    /**
+     * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
+     * @should return default representation given instance of defaultrepresentation
+     * @should return full representation given instance of fullrepresentation
+     * @should return null for representation other then default or full
+     */
+    @Override
+    public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
+        if (rep instanceof DefaultRepresentation || rep instanceof FullRepresentation) {
+            final DelegatingResourceDescription description = new DelegatingResourceDescription();
+            description.addProperty("uuid");
+            description.addProperty("accessionNumber");
+            description.addProperty("patientUuid");
+            description.addProperty("patientName");
+            description.addProperty("patientIdentifier");
+            description.addProperty("procedure");
+            description.addProperty("urgency");
+            description.addProperty("scheduledDate");
+            description.addProperty("dateActivated");
+            description.addProperty("dateStopped");
+            description.addProperty("orderer");
+            description.addProperty("orderReason");
+            description.addProperty("orderReasonNonCoded");
+            description.addProperty("instructions");
+            description.addProperty("performedStatus");
+            description.addProperty("reportStatus");
+            return description;
+        } else {
+            return null;
+        }
+    }
+    
+    /**
+     * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
+     * @should return supported resource version
+     */
+    @Override
+    public String getResourceVersion() {
+        
+        return RestConstants2_0.RESOURCE_VERSION;
+    }
+    
+    /**
+     * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getByUniqueId(java.lang.String)
+     * @should throw ResourceDoesNotSupportOperationException
+     */
+    @Override
+    public RadiologyOrderWorklistItem getByUniqueId(String uniqueId) {
+        
+        throw new ResourceDoesNotSupportOperationException();
+    }
+    
+    /**
+     * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#newDelegate()
+     * @should throw ResourceDoesNotSupportOperationException
+     */
+    @Override
+    public RadiologyOrderWorklistItem newDelegate() throws ResourceDoesNotSupportOperationException {
+        
+        throw new ResourceDoesNotSupportOperationException();
+    }
+    
+    /**
+     * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceHandler#save(java.lang.Object)
+     * @should throw ResourceDoesNotSupportOperationException
+     */
+    @Override
+    public RadiologyOrderWorklistItem save(RadiologyOrderWorklistItem delegate)
+            throws ResourceDoesNotSupportOperationException {
+        
+        throw new ResourceDoesNotSupportOperationException();
+    }
+    
+    /**
+     * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#delete(java.lang.Object,
+     *      java.lang.String, org.openmrs.module.webservices.rest.web.RequestContext)
+     * @should throw ResourceDoesNotSupportOperationException
+     */
+    @Override
+    protected void delete(RadiologyOrderWorklistItem delegate, String reason, RequestContext context)
+            throws ResourceDoesNotSupportOperationException {
+        
+        throw new ResourceDoesNotSupportOperationException();
+    }
+    
+    /**
+     * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#purge(java.lang.Object,
+     *      org.openmrs.module.webservices.rest.web.RequestContext)
+     * @should throw ResourceDoesNotSupportOperationException
+     */
+    @Override
+    public void purge(RadiologyOrderWorklistItem delegate, RequestContext context)
+            throws ResourceDoesNotSupportOperationException {
+        
+        throw new ResourceDoesNotSupportOperationException();
+    }
+}
@@ -20,6 +20,9 @@ import org.openmrs.api.context.Context;
 import org.openmrs.module.radiology.order.RadiologyOrder;
 import org.openmrs.module.radiology.order.RadiologyOrderSearchCriteria;
 import org.openmrs.module.radiology.order.RadiologyOrderService;
+import org.openmrs.module.radiology.order.web.resource.RadiologyOrderResource;
+import org.openmrs.module.radiology.web.ContinuationPaged;
+import org.openmrs.module.radiology.web.ContinuationToken;
 import org.openmrs.module.webservices.rest.web.ConversionUtil;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
@@ -29,7 +32,6 @@ import org.openmrs.module.webservices.rest.web.resource.api.SearchConfig;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchQuery;
 import org.openmrs.module.webservices.rest.web.resource.impl.EmptySearchResult;
-import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
 import org.openmrs.module.webservices.rest.web.response.ResponseException;
 import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_9.PatientResource1_9;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -60,7 +62,7 @@ public class RadiologyOrderSearchHandler implements SearchHandler {
     SearchQuery searchQuery = new SearchQuery.Builder("Allows you to search for RadiologyOrder's by patient and urgency")
             .withOptionalParameters(REQUEST_PARAM_ACCESSION_NUMBER, REQUEST_PARAM_PATIENT,
                 REQUEST_PARAM_EFFECTIVE_START_DATE_FROM, REQUEST_PARAM_EFFECTIVE_START_DATE_TO, REQUEST_PARAM_URGENCY,
-                REQUEST_PARAM_TOTAL_COUNT)
+                REQUEST_PARAM_TOTAL_COUNT, ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN)
             .build();
     
     private final SearchConfig searchConfig =
@@ -91,10 +93,47 @@ public class RadiologyOrderSearchHandler implements SearchHandler {
      * @should throw illegal argument exception if urgency doesn't exist
      * @should return all radiology orders matching the search query and totalCount if
      *         requested
+     * @should return the page of radiology orders defined by start index and limit
+     * @should return the page of radiology orders after given continuation token and the token of the next page
+     * @should throw illegal argument exception if continuation token is invalid
      */
     @Override
     public PageableResult search(RequestContext context) throws ResponseException {
         
+        final RadiologyOrderSearchCriteria.Builder radiologyOrderSearchCriteriaBuilder =
+                newRadiologyOrderSearchCriteriaBuilder(context);
+        if (radiologyOrderSearchCriteriaBuilder == null) {
+            return new EmptySearchResult();
+        }
+        final RadiologyOrderSearchCriteria radiologyOrderSearchCriteria =
+                radiologyOrderSearchCriteriaBuilder.fetch(RadiologyOrderResource.getFetchPlan(context.getRepresentation()))
+                        .build();
+        
+        final List<RadiologyOrder> result = radiologyOrderService.getRadiologyOrders(radiologyOrderSearchCriteria);
+        
+        if (result.isEmpty()) {
+            return new EmptySearchResult();
+        }
+        // one more than the limit is fetched to find out if there are more results
+        final boolean hasMoreResults = result.size() > context.getLimit();
+        final List<RadiologyOrder> page = hasMoreResults ? result.subList(0, context.getLimit()) : result;
+        final Long totalCount =
+                context.getIncludeTotalCount() ? radiologyOrderService.getRadiologyOrdersCount(radiologyOrderSearchCriteria)
+                        : null;
+        final RadiologyOrder lastRadiologyOrder = page.get(page.size() - 1);
+        return new ContinuationPaged<RadiologyOrder>(context, page, hasMoreResults, totalCount,
+                new ContinuationToken(lastRadiologyOrder.getAccessionNumber(), lastRadiologyOrder.getOrderId()));
+    }
+    
+    /**
+     * Create a builder of the search criteria given in the request of given context, paging one more than the limit
+     * to find out if there are more results.
+     * 
+     * @param context the request context
+     * @return the builder of the search criteria given in the request, null if the requested patient cannot be found
+     */
+    static RadiologyOrderSearchCriteria.Builder newRadiologyOrderSearchCriteriaBuilder(RequestContext context) {
+        
         final String patientUuid = context.getRequest()
                 .getParameter(REQUEST_PARAM_PATIENT);
         Patient patient = null;
@@ -102,7 +141,7 @@ public class RadiologyOrderSearchHandler implements SearchHandler {
             patient = ((PatientResource1_9) Context.getService(RestService.class)
                     .getResourceBySupportedClass(Patient.class)).getByUniqueId(patientUuid);
             if (patient == null) {
-                return new EmptySearchResult();
+                return null;
             }
         }
         
@@ -130,19 +169,19 @@ public class RadiologyOrderSearchHandler implements SearchHandler {
         final String accessionNumber = context.getRequest()
                 .getParameter(REQUEST_PARAM_ACCESSION_NUMBER);
         
-        final RadiologyOrderSearchCriteria radiologyOrderSearchCriteria =
-                new RadiologyOrderSearchCriteria.Builder().withAccessionNumber(accessionNumber)
-                        .withPatient(patient)
-                        .fromEffectiveStartDate(fromEffectiveStartDate)
-                        .toEffectiveStartDate(toEffectiveStartDate)
-                        .withUrgency(urgency)
-                        .build();
-        
-        final List<RadiologyOrder> result = radiologyOrderService.getRadiologyOrders(radiologyOrderSearchCriteria);
-        
-        if (result.isEmpty()) {
-            return new EmptySearchResult();
+        final RadiologyOrderSearchCriteria.Builder radiologyOrderSearchCriteriaBuilder =
+                new RadiologyOrderSearchCriteria.Builder();
+        final ContinuationToken continuationToken = ContinuationPaged.getContinuationToken(context);
+        if (continuationToken == null) {
+            radiologyOrderSearchCriteriaBuilder.withStartIndex(context.getStartIndex());
+        } else {
+            radiologyOrderSearchCriteriaBuilder.after(continuationToken.getSortKey(), continuationToken.getId());
         }
-        return new NeedsPaging<RadiologyOrder>(result, context);
+        return radiologyOrderSearchCriteriaBuilder.withAccessionNumber(accessionNumber)
+                .withPatient(patient)
+                .fromEffectiveStartDate(fromEffectiveStartDate)
+                .toEffectiveStartDate(toEffectiveStartDate)
+                .withUrgency(urgency)
+                .withLimit(context.getLimit() + 1);
     }
 }
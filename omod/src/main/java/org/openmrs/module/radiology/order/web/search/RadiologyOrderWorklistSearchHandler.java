@@ -0,0 +1,98 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order.web.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.openmrs.module.radiology.order.RadiologyOrderSearchCriteria;
+import org.openmrs.module.radiology.order.RadiologyOrderService;
+import org.openmrs.module.radiology.order.RadiologyOrderWorklistItem;
+import org.openmrs.module.radiology.web.ContinuationPaged;
+import org.openmrs.module.radiology.web.ContinuationToken;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.resource.api.PageableResult;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchConfig;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchQuery;
+import org.openmrs.module.webservices.rest.web.resource.impl.EmptySearchResult;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Find the worklist items of RadiologyOrder's that match the specified search phrase, taking the same parameters as
+ * {@link RadiologyOrderSearchHandler}.
+ */
+@Component
+public class RadiologyOrderWorklistSearchHandler implements SearchHandler {
+    
+    
+    @Autowired
+    RadiologyOrderService radiologyOrderService;
+    
+    SearchQuery searchQuery = new SearchQuery.Builder(
+            "Allows you to search for the worklist items of RadiologyOrder's by patient and urgency")
+                    .withOptionalParameters(RadiologyOrderSearchHandler.REQUEST_PARAM_ACCESSION_NUMBER,
+                        RadiologyOrderSearchHandler.REQUEST_PARAM_PATIENT,
+                        RadiologyOrderSearchHandler.REQUEST_PARAM_EFFECTIVE_START_DATE_FROM,
+                        RadiologyOrderSearchHandler.REQUEST_PARAM_EFFECTIVE_START_DATE_TO,
+                        RadiologyOrderSearchHandler.REQUEST_PARAM_URGENCY,
+                        RadiologyOrderSearchHandler.REQUEST_PARAM_TOTAL_COUNT,
+                        ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN)
+                    .build();
+    
+    private final SearchConfig searchConfig = new SearchConfig("default",
+            RestConstants.VERSION_1 + "/radiologyorderworklist", Arrays.asList("2.0.*"), searchQuery);
+    
+    /**
+     * @see org.openmrs.module.webservices.rest.web.resource.api.SearchHandler#getSearchConfig()
+     */
+    @Override
+    public SearchConfig getSearchConfig() {
+        
+        return this.searchConfig;
+    }
+    
+    /**
+     * @see org.openmrs.module.webservices.rest.web.resource.api.SearchHandler#search(RequestContext)
+     * @should return the worklist items of all radiology orders for given patient
+     * @should return empty search result if patient cannot be found
+     * @should return the worklist items of all radiology orders for given urgency and totalCount if requested
+     * @should return the page of worklist items after given continuation token and the token of the next page
+     */
+    @Override
+    public PageableResult search(RequestContext context) throws ResponseException {
+        
+        final RadiologyOrderSearchCriteria.Builder radiologyOrderSearchCriteriaBuilder =
+                RadiologyOrderSearchHandler.newRadiologyOrderSearchCriteriaBuilder(context);
+        if (radiologyOrderSearchCriteriaBuilder == null) {
+            return new EmptySearchResult();
+        }
+        final RadiologyOrderSearchCriteria radiologyOrderSearchCriteria = radiologyOrderSearchCriteriaBuilder.build();
+        
+        final List<RadiologyOrderWorklistItem> result =
+                radiologyOrderService.getRadiologyOrderWorklist(radiologyOrderSearchCriteria);
+        
+        if (result.isEmpty()) {
+            return new EmptySearchResult();
+        }
+        // one more than the limit is fetched to find out if there are more results
+        final boolean hasMoreResults = result.size() > context.getLimit();
+        final List<RadiologyOrderWorklistItem> page = hasMoreResults ? result.subList(0, context.getLimit()) : result;
+        final Long totalCount =
+                context.getIncludeTotalCount() ? radiologyOrderService.getRadiologyOrdersCount(radiologyOrderSearchCriteria)
+                        : null;
+        final RadiologyOrderWorklistItem lastWorklistItem = page.get(page.size() - 1);
+        return new ContinuationPaged<RadiologyOrderWorklistItem>(context, page, hasMoreResults, totalCount,
+                new ContinuationToken(lastWorklistItem.getAccessionNumber(), lastWorklistItem.getOrderId()));
+    }
+}
@@ -9,13 +9,22 @@
  */
 package org.openmrs.module.radiology.report.web.resource;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.ArrayUtils;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.radiology.report.RadiologyReport;
 import org.openmrs.module.radiology.report.RadiologyReportService;
+import org.openmrs.module.radiology.web.RepresentationProperties;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.annotation.PropertyGetter;
 import org.openmrs.module.webservices.rest.web.annotation.Resource;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.Representation;
@@ -32,6 +41,60 @@ import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs2_0.RestCons
 public class RadiologyReportResource extends DataDelegatingCrudResource<RadiologyReport> {
     
     
+    private static final String[] REF_FETCH_PLAN = { "radiologyOrder", "radiologyOrder.study" };
+    
+    private static final String[] DEFAULT_FETCH_PLAN = { "radiologyOrder", "radiologyOrder.study",
+            "radiologyOrder.concept", "principalResultsInterpreter", "principalResultsInterpreter.person" };
+    
+    private static final String[] FULL_FETCH_PLAN =
+            ArrayUtils.addAll(DEFAULT_FETCH_PLAN, "creator", "changedBy", "voidedBy");
+    
+    private static final Map<String, String[]> FETCH_PLAN_BY_PROPERTY = new HashMap<>();
+    
+    static {
+        FETCH_PLAN_BY_PROPERTY.put("radiologyOrder",
+            new String[] { "radiologyOrder", "radiologyOrder.study", "radiologyOrder.concept" });
+        FETCH_PLAN_BY_PROPERTY.put("principalResultsInterpreter",
+            new String[] { "principalResultsInterpreter", "principalResultsInterpreter.person" });
+        FETCH_PLAN_BY_PROPERTY.put("display", REF_FETCH_PLAN);
+        FETCH_PLAN_BY_PROPERTY.put("auditInfo", new String[] { "creator", "changedBy", "voidedBy" });
+    }
+    
+    /**
+     * Get the associations of {@link RadiologyReport}'s which are loaded to convert them to given representation.
+     * <p>
+     * Searches fetch these associations together with the radiology reports, so converting a page of radiology reports
+     * does not load them with one select per radiology report.
+     * </p>
+     *
+     * @param representation the representation the radiology reports are converted to
+     * @return the paths of the associations to fetch starting at the radiology report
+     * @should return the associations of the default representation given instance of defaultrepresentation
+     * @should return the associations of the full representation given instance of fullrepresentation
+     * @should return the associations of the requested properties given instance of customrepresentation
+     * @should return the associations of the ref representation given any other representation
+     * @should let searches load the associations of each representation without further statements
+     */
+    public static String[] getFetchPlan(Representation representation) {
+        
+        if (representation instanceof DefaultRepresentation) {
+            return DEFAULT_FETCH_PLAN.clone();
+        } else if (representation instanceof FullRepresentation) {
+            return FULL_FETCH_PLAN.clone();
+        } else if (representation instanceof CustomRepresentation) {
+            final Set<String> result = new LinkedHashSet<>();
+            for (String propertyName : RepresentationProperties
+                    .getPropertyNames((CustomRepresentation) representation)) {
+                if (FETCH_PLAN_BY_PROPERTY.containsKey(propertyName)) {
+                    Collections.addAll(result, FETCH_PLAN_BY_PROPERTY.get(propertyName));
+                }
+            }
+            return result.toArray(new String[result.size()]);
+        } else {
+            return REF_FETCH_PLAN.clone();
+        }
+    }
+    
     /**
      * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
      * @should return default representation given instance of defaultrepresentation
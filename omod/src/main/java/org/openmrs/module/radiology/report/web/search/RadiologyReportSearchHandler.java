@@ -9,6 +9,7 @@
  */
 package org.openmrs.module.radiology.report.web.search;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -20,16 +21,24 @@ import org.openmrs.module.radiology.report.RadiologyReport;
 import org.openmrs.module.radiology.report.RadiologyReportSearchCriteria;
 import org.openmrs.module.radiology.report.RadiologyReportService;
 import org.openmrs.module.radiology.report.RadiologyReportStatus;
+import org.openmrs.module.radiology.report.web.resource.RadiologyReportResource;
+import org.openmrs.module.radiology.web.ContinuationPaged;
+import org.openmrs.module.radiology.web.ContinuationToken;
+import org.openmrs.module.radiology.web.RepresentationProperties;
+import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.web.ConversionUtil;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.api.RestService;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.RefRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.api.Converter;
 import org.openmrs.module.webservices.rest.web.resource.api.PageableResult;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchConfig;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchQuery;
 import org.openmrs.module.webservices.rest.web.resource.impl.EmptySearchResult;
-import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
 import org.openmrs.module.webservices.rest.web.response.ResponseException;
 import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_9.ProviderResource1_9;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -54,14 +63,16 @@ public class RadiologyReportSearchHandler implements SearchHandler {
     
     public static final String REQUEST_PARAM_TOTAL_COUNT = "totalCount";
     
+    public static final String REQUEST_PARAM_QUERY = "q";
+    
     @Autowired
     RadiologyReportService radiologyReportService;
     
     SearchQuery searchQuery = new SearchQuery.Builder(
-            "Allows you to search for RadiologyReport's by from date, to date and principal results interpreter")
+            "Allows you to search for RadiologyReport's by from date, to date, principal results interpreter and body")
                     .withOptionalParameters(RestConstants.REQUEST_PROPERTY_FOR_INCLUDE_ALL, REQUEST_PARAM_DATE_FROM,
                         REQUEST_PARAM_DATE_TO, REQUEST_PARAM_PRINCIPAL_RESULT_INTERPRETER, REQUEST_PARAM_STATUS,
-                        REQUEST_PARAM_TOTAL_COUNT)
+                        REQUEST_PARAM_TOTAL_COUNT, REQUEST_PARAM_QUERY, ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN)
                     .build();
     
     private final SearchConfig searchConfig =
@@ -91,6 +102,11 @@ public class RadiologyReportSearchHandler implements SearchHandler {
      * @should return empty search result if no report exists for given status
      * @should throw illegal argument exception if report status doesn't exist
      * @should return all radiology reports matching the search query and totalCount if requested
+     * @should return the page of radiology reports defined by start index and limit
+     * @should return the page of radiology reports after given continuation token and the token of the next page
+     * @should return radiology reports without body if a custom representation without body is requested
+     * @should return all completed radiology reports whose body contains all words of the query and their snippets
+     * @should return empty search result if no completed report body contains all words of the query
      */
     @Override
     public PageableResult search(RequestContext context) throws ResponseException {
@@ -127,15 +143,32 @@ public class RadiologyReportSearchHandler implements SearchHandler {
             status = RadiologyReportStatus.valueOf(statusString);
         }
         
+        final String query = context.getRequest()
+                .getParameter(REQUEST_PARAM_QUERY);
+        
         RadiologyReportSearchCriteria.Builder radiologyReportSearchCriteriaBuilder =
                 new RadiologyReportSearchCriteria.Builder();
         if (context.getIncludeAll()) {
             radiologyReportSearchCriteriaBuilder.includeVoided();
         }
+        if (StringUtils.isNotBlank(query)) {
+            // the body is needed for the snippets even if it is not represented
+            radiologyReportSearchCriteriaBuilder.withQuery(query);
+        } else if (!isBodyRepresented(context.getRepresentation())) {
+            radiologyReportSearchCriteriaBuilder.excludeBody();
+        }
+        final ContinuationToken continuationToken = ContinuationPaged.getContinuationToken(context);
+        if (continuationToken == null) {
+            radiologyReportSearchCriteriaBuilder.withStartIndex(context.getStartIndex());
+        } else {
+            radiologyReportSearchCriteriaBuilder.after(toReportDate(continuationToken.getSortKey()), continuationToken.getId());
+        }
         RadiologyReportSearchCriteria radiologyReportSearchCriteria = radiologyReportSearchCriteriaBuilder.fromDate(fromDate)
                 .toDate(toDate)
                 .withPrincipalResultsInterpreter(principalResultsInterpreter)
                 .withStatus(status)
+                .withLimit(context.getLimit() + 1)
+                .fetch(RadiologyReportResource.getFetchPlan(context.getRepresentation()))
                 .build();
         
         final List<RadiologyReport> result = radiologyReportService.getRadiologyReports(radiologyReportSearchCriteria);
@@ -143,6 +176,106 @@ public class RadiologyReportSearchHandler implements SearchHandler {
         if (result.isEmpty()) {
             return new EmptySearchResult();
         }
-        return new NeedsPaging<RadiologyReport>(result, context);
+        // one more than the limit is fetched to find out if there are more results
+        final boolean hasMoreResults = result.size() > context.getLimit();
+        final List<RadiologyReport> page = hasMoreResults ? result.subList(0, context.getLimit()) : result;
+        final Long totalCount =
+                context.getIncludeTotalCount() ? radiologyReportService.getRadiologyReportsCount(radiologyReportSearchCriteria)
+                        : null;
+        final RadiologyReport lastRadiologyReport = page.get(page.size() - 1);
+        final ContinuationToken nextContinuationToken =
+                new ContinuationToken(toSortKey(lastRadiologyReport.getDate()), lastRadiologyReport.getReportId());
+        if (StringUtils.isBlank(query)) {
+            return new ContinuationPaged<RadiologyReport>(context, page, hasMoreResults, totalCount, nextContinuationToken);
+        }
+        final List<String> snippets = new ArrayList<>(page.size());
+        for (RadiologyReport radiologyReport : page) {
+            snippets.add(radiologyReportService.getRadiologyReportSnippet(radiologyReport, query));
+        }
+        return new SnippetContinuationPaged(context, page, hasMoreResults, totalCount, nextContinuationToken, snippets);
+    }
+    
+    /**
+     * Page of radiology reports found by the words of their body which adds the snippet of the body matching the query
+     * to each radiology report.
+     */
+    private static class SnippetContinuationPaged extends ContinuationPaged<RadiologyReport> {
+        
+        
+        private final List<String> snippets;
+        
+        SnippetContinuationPaged(RequestContext context, List<RadiologyReport> results, boolean hasMoreResults,
+                Long totalCount, ContinuationToken nextContinuationToken, List<String> snippets) {
+            
+            super(context, results, hasMoreResults, totalCount, nextContinuationToken);
+            this.snippets = snippets;
+        }
+        
+        /**
+         * @see org.openmrs.module.radiology.web.ContinuationPaged#toSimpleObject(Converter)
+         */
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        @Override
+        public SimpleObject toSimpleObject(Converter preferredConverter) throws ResponseException {
+            
+            final SimpleObject result = super.toSimpleObject(preferredConverter);
+            final List<Object> results = (List<Object>) result.get("results");
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i) instanceof SimpleObject) {
+                    ((SimpleObject) results.get(i)).add("snippet", snippets.get(i));
+                }
+            }
+            return result;
+        }
+    }
+    
+    /**
+     * Convert given report date to the sort key of a continuation token.
+     * 
+     * @param date the report date
+     * @return the sort key of given report date, null if given null
+     */
+    private static String toSortKey(Date date) {
+        
+        return date == null ? null : String.valueOf(date.getTime());
+    }
+    
+    /**
+     * Convert given sort key of a continuation token to a report date.
+     * 
+     * @param sortKey the sort key
+     * @return the report date of given sort key, null if given null
+     * @throws IllegalArgumentException if given sort key is not a report date
+     */
+    private static Date toReportDate(String sortKey) {
+        
+        if (sortKey == null) {
+            return null;
+        }
+        try {
+            return new Date(Long.parseLong(sortKey));
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("continuationToken is invalid", e);
+        }
+    }
+    
+    /**
+     * Check if given representation renders the body of a radiology report. Only the default and full representations
+     * and custom representations asking for the body do, so list views can leave out the body.
+     * 
+     * @param representation the representation requested
+     * @return true if given representation renders the body of a radiology report
+     */
+    private static boolean isBodyRepresented(Representation representation) {
+        
+        if (representation instanceof RefRepresentation) {
+            return false;
+        }
+        if (representation instanceof CustomRepresentation) {
+            return RepresentationProperties.getPropertyNames((CustomRepresentation) representation)
+                    .contains("body");
+        }
+        return true;
     }
 }
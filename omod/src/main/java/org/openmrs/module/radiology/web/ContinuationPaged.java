@@ -0,0 +1,83 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.web;
+
+import java.util.List;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.resource.api.Converter;
+import org.openmrs.module.webservices.rest.web.resource.impl.AlreadyPaged;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+
+/**
+ * Page of results which hands out a {@link ContinuationToken} pointing at its last result if there are more results.
+ * <p>
+ * Clients pass the token back as {@link #REQUEST_PARAM_CONTINUATION_TOKEN} to fetch the next page. Pages fetched that
+ * way leave out the start index based links, since the start index is not used to find them.
+ * </p>
+ */
+public class ContinuationPaged<T> extends AlreadyPaged<T> {
+    
+    
+    public static final String REQUEST_PARAM_CONTINUATION_TOKEN = "continuationToken";
+    
+    private final RequestContext context;
+    
+    private final ContinuationToken nextContinuationToken;
+    
+    /**
+     * Creates a new instance of {@link ContinuationPaged}.
+     *
+     * @param context the request context
+     * @param results the page of results
+     * @param hasMoreResults true if there are results after the page
+     * @param totalCount the total number of results, null if not requested
+     * @param nextContinuationToken the token pointing at the last result of the page, null if there are no more results
+     */
+    public ContinuationPaged(RequestContext context, List<T> results, boolean hasMoreResults, Long totalCount,
+            ContinuationToken nextContinuationToken) {
+        
+        super(context, results, hasMoreResults, totalCount);
+        this.context = context;
+        this.nextContinuationToken = hasMoreResults ? nextContinuationToken : null;
+    }
+    
+    /**
+     * Get the continuation token given in the request.
+     *
+     * @param context the request context
+     * @return the continuation token given in the request, null if none was given
+     * @throws IllegalArgumentException if the continuation token given in the request is invalid
+     */
+    public static ContinuationToken getContinuationToken(RequestContext context) {
+        
+        final String token = context.getRequest()
+                .getParameter(REQUEST_PARAM_CONTINUATION_TOKEN);
+        return token == null || token.isEmpty() ? null : ContinuationToken.parse(token);
+    }
+    
+    /**
+     * @see org.openmrs.module.webservices.rest.web.resource.impl.BasePageableResult#toSimpleObject(Converter)
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Override
+    public SimpleObject toSimpleObject(Converter preferredConverter) throws ResponseException {
+        
+        final SimpleObject result = super.toSimpleObject(preferredConverter);
+        if (getContinuationToken(context) != null) {
+            result.remove("links");
+        }
+        if (nextContinuationToken != null) {
+            result.add(REQUEST_PARAM_CONTINUATION_TOKEN, nextContinuationToken.toString());
+        }
+        return result;
+    }
+}
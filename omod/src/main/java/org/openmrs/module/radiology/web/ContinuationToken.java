@@ -0,0 +1,110 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.web;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque token pointing at the last result of a page, made up of the sort key and the id of that result.
+ * <p>
+ * Searches continuing after a token seek to the next page through the index on sort key and id instead of skipping
+ * all previous results, so every page costs the same.
+ * </p>
+ */
+public final class ContinuationToken {
+    
+    
+    private static final String SEPARATOR = ":";
+    
+    private final String sortKey;
+    
+    private final Integer id;
+    
+    /**
+     * Creates a new instance of {@link ContinuationToken}.
+     *
+     * @param sortKey the sort key of the last result, may be null
+     * @param id the id of the last result
+     * @throws IllegalArgumentException if given id is null
+     */
+    public ContinuationToken(String sortKey, Integer id) {
+        
+        if (id == null) {
+            throw new IllegalArgumentException("id cannot be null");
+        }
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+    
+    /**
+     * Parse a continuation token as created by {@link #toString()}.
+     *
+     * @param token the continuation token to parse
+     * @return the continuation token
+     * @throws IllegalArgumentException if given token is null or not a valid continuation token
+     * @should return the continuation token with sort key and id encoded in given token
+     * @should return the continuation token without sort key encoded in given token
+     * @should throw illegal argument exception if given token is not a valid continuation token
+     * @should throw illegal argument exception if given null
+     */
+    public static ContinuationToken parse(String token) {
+        
+        if (token == null) {
+            throw new IllegalArgumentException("continuationToken cannot be null");
+        }
+        final String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder()
+                    .decode(token), StandardCharsets.UTF_8);
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("continuationToken is invalid", e);
+        }
+        final int separatorIndex = decoded.indexOf(SEPARATOR);
+        final String idString = separatorIndex < 0 ? decoded : decoded.substring(0, separatorIndex);
+        final String sortKey = separatorIndex < 0 ? null : decoded.substring(separatorIndex + 1);
+        try {
+            return new ContinuationToken(sortKey, Integer.valueOf(idString));
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("continuationToken is invalid", e);
+        }
+    }
+    
+    /**
+     * @return the sort key of the last result, null if it has none
+     */
+    public String getSortKey() {
+        
+        return sortKey;
+    }
+    
+    /**
+     * @return the id of the last result
+     */
+    public Integer getId() {
+        
+        return id;
+    }
+    
+    /**
+     * @return the opaque URL safe representation of this continuation token
+     * @should return a token which parses to an equal sort key and id
+     */
+    @Override
+    public String toString() {
+        
+        final String decoded = sortKey == null ? String.valueOf(id) : id + SEPARATOR + sortKey;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -9,10 +9,29 @@
  */
 package org.openmrs.module.radiology.web;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
+import org.openmrs.module.radiology.modality.RadiologyModalityService;
+import org.openmrs.module.radiology.order.RadiologyOrderService;
+import org.openmrs.module.radiology.order.web.NdjsonRadiologyOrderExportWriter;
+import org.openmrs.module.radiology.report.template.MrrtReportTemplateService;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceController;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 /**
  * Controller for Radiology Rest Services.
@@ -24,6 +43,21 @@ public class RadiologyRestController extends MainResourceController {
     
     public static final String RADIOLOGY_REST_NAMESPACE = "/radiology";
     
+    public static final String EXPORT_PATH = "/export";
+    
+    public static final String CACHE_STATISTICS_PATH = "/cachestatistics";
+    
+    public static final String REQUEST_PARAM_SINCE = "since";
+    
+    @Autowired
+    private RadiologyOrderService radiologyOrderService;
+    
+    @Autowired
+    private RadiologyModalityService radiologyModalityService;
+    
+    @Autowired
+    private MrrtReportTemplateService mrrtReportTemplateService;
+    
     /**
      * @see org.openmrs.module.webservices.rest.web.v1_0.controller.BaseRestController#getNamespace()
      */
@@ -31,4 +65,52 @@ public class RadiologyRestController extends MainResourceController {
     public String getNamespace() {
         return RestConstants.VERSION_1 + RADIOLOGY_REST_NAMESPACE;
     }
+    
+    /**
+     * Stream all radiology orders together with their study and active report as newline delimited JSON, one radiology
+     * order per line ordered by order id, in constant memory.
+     * 
+     * @param since if given only export radiology orders created or changed at or after this date
+     * @param response the response the radiology orders are written to
+     * @throws IOException if the radiology orders cannot be written to the response
+     * @should write all radiology orders as newline delimited json
+     * @should only export radiology orders changed since given since
+     * @should write each radiology order to the response through a fixed size buffer
+     */
+    @RequestMapping(value = EXPORT_PATH, method = RequestMethod.GET)
+    public void exportRadiologyOrders(@RequestParam(value = REQUEST_PARAM_SINCE, required = false) String since,
+            HttpServletResponse response) throws IOException {
+        
+        final Date sinceDate = StringUtils.isBlank(since) ? null : (Date) ConversionUtil.convert(since, Date.class);
+        response.setContentType(NdjsonRadiologyOrderExportWriter.CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        final NdjsonRadiologyOrderExportWriter writer =
+                new NdjsonRadiologyOrderExportWriter(response.getOutputStream());
+        radiologyOrderService.exportRadiologyOrders(sinceDate, writer);
+        writer.flush();
+    }
+    
+    /**
+     * Get the statistics of the second-level cache regions holding radiology modalities and mrrt report templates.
+     * 
+     * @return the region, hit, miss and put count and number of cached elements of each cache region
+     * @should return the statistics of the radiology modality and mrrt report template cache regions
+     */
+    @RequestMapping(value = CACHE_STATISTICS_PATH, method = RequestMethod.GET)
+    @ResponseBody
+    public SimpleObject getCacheStatistics() {
+        
+        final List<RadiologyCacheStatistics> cacheStatistics = new ArrayList<>();
+        cacheStatistics.addAll(radiologyModalityService.getRadiologyModalityCacheStatistics());
+        cacheStatistics.addAll(mrrtReportTemplateService.getMrrtReportTemplateCacheStatistics());
+        final List<SimpleObject> results = new ArrayList<>();
+        for (RadiologyCacheStatistics regionStatistics : cacheStatistics) {
+            results.add(new SimpleObject().add("region", regionStatistics.getRegion())
+                    .add("hitCount", regionStatistics.getHitCount())
+                    .add("missCount", regionStatistics.getMissCount())
+                    .add("putCount", regionStatistics.getPutCount())
+                    .add("elementCountInMemory", regionStatistics.getElementCountInMemory()));
+        }
+        return new SimpleObject().add("results", results);
+    }
 }
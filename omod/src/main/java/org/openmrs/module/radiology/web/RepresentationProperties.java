@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.web;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
+
+/**
+ * Reads the properties requested by a {@link CustomRepresentation} so that resources can load what is represented and
+ * nothing more.
+ */
+public final class RepresentationProperties {
+    
+    
+    private RepresentationProperties() {
+        // utility class
+    }
+    
+    /**
+     * Get the names of the top level properties of given custom representation.
+     * <p>
+     * Nested representations of a property, like {@code (uuid,display)} in {@code (uuid,patient:(uuid,display))}, are
+     * not part of the result.
+     * </p>
+     *
+     * @param representation the custom representation
+     * @return the names of the top level properties in the order they are requested
+     * @throws IllegalArgumentException if given null
+     * @should return the names of the top level properties of given custom representation
+     * @should not return the properties of nested representations
+     * @should throw illegal argument exception if given null
+     */
+    public static Set<String> getPropertyNames(CustomRepresentation representation) {
+        
+        if (representation == null) {
+            throw new IllegalArgumentException("representation cannot be null");
+        }
+        String properties = representation.getRepresentation()
+                .trim();
+        if (properties.startsWith("(") && properties.endsWith(")")) {
+            properties = properties.substring(1, properties.length() - 1);
+        }
+        final Set<String> result = new LinkedHashSet<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i <= properties.length(); i++) {
+            final char c = i < properties.length() ? properties.charAt(i) : ',';
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                addPropertyName(result, properties.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return result;
+    }
+    
+    private static void addPropertyName(Set<String> propertyNames, String property) {
+        
+        final int separatorIndex = property.indexOf(':');
+        final String propertyName = (separatorIndex < 0 ? property : property.substring(0, separatorIndex)).trim();
+        if (!propertyName.isEmpty()) {
+            propertyNames.add(propertyName);
+        }
+    }
+}
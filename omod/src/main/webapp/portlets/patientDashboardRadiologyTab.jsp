@@ -73,12 +73,11 @@
                                         cache: true,
                                         dataType: "json",
                                         url: Radiology.getRestRootEndpoint()
-                                                + "/radiologyorder/",
+                                                + "/radiologyorderworklist/",
                                         data: function(data) {
                                           return {
                                             startIndex: data.start,
                                             limit: data.length,
-                                            v: "full",
                                             patient: $j("#patientUuid").val(),
                                             totalCount: true,
                                           };
@@ -126,14 +125,14 @@
                                             "responsivePriority": 11000,
                                             "render": function(data, type,
                                                     full, meta) {
-                                              return full.concept.display;
+                                              return full.procedure;
                                             }
                                           },
                                           {
                                             "name": "orderer",
                                             "render": function(data, type,
                                                     full, meta) {
-                                              return full.orderer.display;
+                                              return full.orderer;
                                             }
                                           },
                                           {
@@ -185,7 +184,7 @@
                                                     full, meta) {
                                               return Radiology.getProperty(
                                                       full,
-                                                      "orderReason.display");
+                                                      "orderReason");
                                             }
                                           },
                                           {
@@ -44,12 +44,11 @@
                                         cache: true,
                                         dataType: "json",
                                         url: Radiology.getRestRootEndpoint()
-                                                + "/radiologyorder/",
+                                                + "/radiologyorderworklist/",
                                         data: function(data) {
                                           return {
                                             startIndex: data.start,
                                             limit: data.length,
-                                            v: "full",
                                             accessionNumber: accessionNumber
                                                     .val(),
                                             patient: patientUuid.val(),
@@ -119,7 +118,9 @@
                                             "name": "patient",
                                             "render": function(data, type,
                                                     full, meta) {
-                                              return full.patient.display;
+                                              return full.patientIdentifier
+                                                      + " - "
+                                                      + full.patientName;
                                             }
                                           },
                                           {
@@ -140,7 +141,7 @@
                                             "name": "concept",
                                             "render": function(data, type,
                                                     full, meta) {
-                                              return full.concept.display;
+                                              return full.procedure;
                                             }
                                           },
                                           {
@@ -148,7 +149,7 @@
                                             "responsivePriority": 11000,
                                             "render": function(data, type,
                                                     full, meta) {
-                                              return full.orderer.display;
+                                              return full.orderer;
                                             }
                                           },
                                           {
@@ -200,7 +201,7 @@
                                                     full, meta) {
                                               return Radiology.getProperty(
                                                       full,
-                                                      "orderReason.display");
+                                                      "orderReason");
                                             }
                                           },
                                           {
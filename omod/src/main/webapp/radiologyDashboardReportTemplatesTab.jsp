@@ -197,6 +197,37 @@
         </ul>
     </div>
 </c:if>
+<c:if test="${not empty mrrtReportTemplateImportResults}" >
+    </br>
+    <div class="box">
+        <spring:message code="radiology.reportTemplates.import.archive.results.header" />
+        <table id="reportTemplatesImportResultsTable" cellspacing="0" width="100%" class="display nowrap">
+          <thead>
+            <tr>
+              <th><spring:message code="radiology.reportTemplates.import.archive.results.file" /></th>
+              <th><spring:message code="radiology.reportTemplates.import.archive.results.status" /></th>
+              <th><spring:message code="radiology.reportTemplates.import.archive.results.message" /></th>
+            </tr>
+          </thead>
+          <tbody>
+            <c:forEach items="${mrrtReportTemplateImportResults}" var="importResult">
+              <tr>
+                <td><c:out value="${importResult.fileName}" /></td>
+                <td><spring:message code="radiology.reportTemplates.import.archive.results.status.${importResult.status}" /></td>
+                <td><c:out value="${importResult.message}" />
+                  <c:if test="${not empty importResult.validationErrors}">
+                    <ul>
+                      <c:forEach items="${importResult.validationErrors}" var="validationError">
+                        <li><spring:message code="${validationError.messageCode}" text="${validationError.description}" /></li>
+                      </c:forEach>
+                    </ul>
+                  </c:if></td>
+              </tr>
+            </c:forEach>
+          </tbody>
+        </table>
+    </div>
+</c:if>
 
 <openmrs:hasPrivilege privilege="View Radiology Report Templates">
   <div id="radiologyReportTemplates">
@@ -213,6 +244,13 @@
               <input type="file" name="templateFile" size="40" /> <input type="submit" name="uploadReportTemplate"
                 value='<openmrs:message code="radiology.reportTemplates.import.popup.upload"/>' />
             </form>
+            <form id="templateArchiveAddForm" action="radiologyDashboardReportTemplatesTab.htm" method="post"
+              enctype="multipart/form-data">
+              <label><openmrs:message code="radiology.reportTemplates.import.popup.archive" /></label>
+              <input type="file" name="templateArchive" accept=".zip" size="40" /> <input type="submit"
+                name="uploadReportTemplateArchive"
+                value='<openmrs:message code="radiology.reportTemplates.import.popup.upload"/>' />
+            </form>
           </div>
           <br />
         </div>
@@ -99,7 +99,7 @@
                                           return {
                                             startIndex: data.start,
                                             limit: data.length,
-                                            v: "full",
+                                            v: "custom:(uuid,radiologyOrder:ref,date,principalResultsInterpreter:ref,status,voided,auditInfo)",
                                             fromdate: fromDate.val() === ""
                                                     ? ""
                                                     : moment(fromDate.val(),
@@ -10,6 +10,7 @@
 package org.openmrs.module.radiology.modality.web.resource;
 
 import org.apache.commons.beanutils.PropertyUtils;
+import org.hibernate.SessionFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.openmrs.module.radiology.modality.RadiologyModality;
@@ -18,6 +19,7 @@ import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResourceTest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 import java.util.List;
 import java.util.Map;
@@ -41,8 +43,15 @@ public class RadiologyModalityResourceComponentTest
     @Autowired
     RadiologyModalityService radiologyModalityService;
     
+    @Autowired
+    @Qualifier("sessionFactory")
+    private SessionFactory sessionFactory;
+    
     @Before
     public void setUp() throws Exception {
+        // datasets are inserted without hibernate which can therefore not invalidate cached query results
+        sessionFactory.getCache()
+                .evictQueryRegions();
         executeDataSet(TEST_DATASET);
     }
     
@@ -0,0 +1,96 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order.web;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.radiology.order.RadiologyOrderExportEntry;
+
+/**
+ * Tests {@link NdjsonRadiologyOrderExportWriter}.
+ */
+public class NdjsonRadiologyOrderExportWriterTest {
+    
+    
+    private ByteArrayOutputStream outputStream;
+    
+    private NdjsonRadiologyOrderExportWriter ndjsonRadiologyOrderExportWriter;
+    
+    @Before
+    public void setUp() {
+        
+        outputStream = new ByteArrayOutputStream();
+        ndjsonRadiologyOrderExportWriter = new NdjsonRadiologyOrderExportWriter(outputStream);
+    }
+    
+    private String getWritten() throws Exception {
+        
+        ndjsonRadiologyOrderExportWriter.flush();
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * @see NdjsonRadiologyOrderExportWriter#write(RadiologyOrderExportEntry)
+     * @verifies write given export entry as one json object followed by a newline
+     */
+    @Test
+    public void write_shouldWriteGivenExportEntryAsOneJsonObjectFollowedByANewline() throws Exception {
+        
+        ndjsonRadiologyOrderExportWriter.write(new RadiologyOrderExportEntry("order-uuid", "ORD-1", "1", "patient-uuid",
+                "STAT", new Date(0), null, null, false, "1.2.3", "COMPLETED", "report-uuid", "COMPLETED", null));
+        ndjsonRadiologyOrderExportWriter.write(new RadiologyOrderExportEntry("order-uuid-2", "ORD-2", "2",
+                "patient-uuid", "ROUTINE", null, null, null, true, null, null, null, null, null));
+        
+        String[] lines = getWritten().split("\n", -1);
+        assertThat(lines.length, is(3));
+        assertThat(lines[0], is("{\"orderUuid\":\"order-uuid\",\"orderNumber\":\"ORD-1\",\"accessionNumber\":\"1\","
+                + "\"patientUuid\":\"patient-uuid\",\"urgency\":\"STAT\",\"dateActivated\":\""
+                + new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").format(new Date(0)) + "\","
+                + "\"voided\":false,\"studyInstanceUid\":\"1.2.3\",\"performedStatus\":\"COMPLETED\","
+                + "\"reportUuid\":\"report-uuid\",\"reportStatus\":\"COMPLETED\"}"));
+        assertThat(lines[1], is("{\"orderUuid\":\"order-uuid-2\",\"orderNumber\":\"ORD-2\",\"accessionNumber\":\"2\","
+                + "\"patientUuid\":\"patient-uuid\",\"urgency\":\"ROUTINE\",\"voided\":true}"));
+        assertThat(lines[2], is(""));
+    }
+    
+    /**
+     * @see NdjsonRadiologyOrderExportWriter#write(RadiologyOrderExportEntry)
+     * @verifies leave out properties which are null
+     */
+    @Test
+    public void write_shouldLeaveOutPropertiesWhichAreNull() throws Exception {
+        
+        ndjsonRadiologyOrderExportWriter.write(new RadiologyOrderExportEntry(null, null, null, null, null, null, null,
+                null, null, null, null, null, null, null));
+        
+        assertThat(getWritten(), is("{}\n"));
+    }
+    
+    /**
+     * @see NdjsonRadiologyOrderExportWriter#write(RadiologyOrderExportEntry)
+     * @verifies escape quotes backslashes and control characters
+     */
+    @Test
+    public void write_shouldEscapeQuotesBackslashesAndControlCharacters() throws Exception {
+        
+        ndjsonRadiologyOrderExportWriter.write(new RadiologyOrderExportEntry(null, null, "a\"b\\c\nd\u0001", null, null,
+                null, null, null, null, null, null, null, null, null));
+        
+        assertThat(getWritten(), is("{\"accessionNumber\":\"a\\\"b\\\\c\\nd\\u0001\"}\n"));
+    }
+}
@@ -9,11 +9,28 @@
  */
 package org.openmrs.module.radiology.order.web.resource;
 
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.context.Context;
 import org.openmrs.module.radiology.order.RadiologyOrder;
+import org.openmrs.module.radiology.order.RadiologyOrderSearchCriteria;
 import org.openmrs.module.radiology.order.RadiologyOrderService;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
 import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResourceTest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 /**
  * Tests {@link RadiologyOrderResource}.
@@ -26,6 +43,10 @@ public class RadiologyOrderResourceComponentTest extends BaseDelegatingResourceT
     @Autowired
     RadiologyOrderService radiologyOrderService;
     
+    @Autowired
+    @Qualifier("sessionFactory")
+    SessionFactory sessionFactory;
+    
     @Before
     public void setUp() throws Exception {
         executeDataSet(TEST_DATASET);
@@ -110,4 +131,59 @@ public class RadiologyOrderResourceComponentTest extends BaseDelegatingResourceT
         assertPropPresent("display");
         assertPropPresent("auditInfo");
     }
+    
+    /**
+     * @see RadiologyOrderResource#getFetchPlan(Representation)
+     * @verifies let searches load the associations of each representation without further statements
+     */
+    @Test
+    public void getFetchPlan_shouldLetSearchesLoadTheAssociationsOfEachRepresentationWithoutFurtherStatements()
+            throws Exception {
+        
+        Statistics statistics = sessionFactory.getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            for (Representation representation : new Representation[] { Representation.REF, Representation.DEFAULT,
+                    Representation.FULL, new CustomRepresentation("(uuid,patient,encounter:(uuid),orderer,display)") }) {
+                String[] fetchPlan = RadiologyOrderResource.getFetchPlan(representation);
+                Context.clearSession();
+                List<RadiologyOrder> radiologyOrders = radiologyOrderService.getRadiologyOrders(
+                    new RadiologyOrderSearchCriteria.Builder().fetch(fetchPlan)
+                            .build());
+                
+                statistics.clear();
+                for (RadiologyOrder radiologyOrder : radiologyOrders) {
+                    for (String associationPath : fetchPlan) {
+                        Hibernate.initialize(getAssociation(radiologyOrder, associationPath));
+                    }
+                }
+                
+                assertThat(radiologyOrders, is(not(empty())));
+                assertThat(representation.getRepresentation(), statistics.getPrepareStatementCount(), is(0L));
+            }
+        }
+        finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+    
+    /**
+     * Get the association at given path of given radiology order.
+     * 
+     * @param radiologyOrder the radiology order
+     * @param associationPath the path of the association starting at the radiology order
+     * @return the association at given path, null if an association on the path is null
+     */
+    private static Object getAssociation(RadiologyOrder radiologyOrder, String associationPath) throws Exception {
+        
+        Object result = radiologyOrder;
+        for (String property : associationPath.split("\\.")) {
+            if (result == null) {
+                return null;
+            }
+            result = PropertyUtils.getProperty(result, property);
+        }
+        return result;
+    }
 }
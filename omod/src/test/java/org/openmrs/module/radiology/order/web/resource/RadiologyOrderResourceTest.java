@@ -198,6 +198,58 @@ public class RadiologyOrderResourceTest {
         assertThat(radiologyOrderResource.getRepresentationDescription(refRepresentation), is(nullValue()));
     }
     
+    /**
+     * @see RadiologyOrderResource#getFetchPlan(Representation)
+     * @verifies return the associations of the default representation given instance of defaultrepresentation
+     */
+    @Test
+    public void getFetchPlan_shouldReturnTheAssociationsOfTheDefaultRepresentationGivenInstanceOfDefaultrepresentation()
+            throws Exception {
+        
+        assertThat(RadiologyOrderResource.getFetchPlan(new DefaultRepresentation()),
+            is(new String[] { "study", "patient", "concept", "careSetting", "previousOrder", "encounter",
+                    "encounter.encounterType", "orderer", "orderer.person", "orderReason" }));
+    }
+    
+    /**
+     * @see RadiologyOrderResource#getFetchPlan(Representation)
+     * @verifies return the associations of the full representation given instance of fullrepresentation
+     */
+    @Test
+    public void getFetchPlan_shouldReturnTheAssociationsOfTheFullRepresentationGivenInstanceOfFullrepresentation()
+            throws Exception {
+        
+        assertThat(RadiologyOrderResource.getFetchPlan(new FullRepresentation()),
+            is(new String[] { "study", "patient", "concept", "careSetting", "previousOrder", "encounter",
+                    "encounter.encounterType", "orderer", "orderer.person", "orderReason", "creator", "voidedBy" }));
+    }
+    
+    /**
+     * @see RadiologyOrderResource#getFetchPlan(Representation)
+     * @verifies return the associations of the requested properties given instance of customrepresentation
+     */
+    @Test
+    public void getFetchPlan_shouldReturnTheAssociationsOfTheRequestedPropertiesGivenInstanceOfCustomrepresentation()
+            throws Exception {
+        
+        assertThat(
+            RadiologyOrderResource.getFetchPlan(new CustomRepresentation("(uuid,orderer:(uuid,display),display,urgency)")),
+            is(new String[] { "study", "orderer", "orderer.person", "concept" }));
+    }
+    
+    /**
+     * @see RadiologyOrderResource#getFetchPlan(Representation)
+     * @verifies return the associations of the ref representation given any other representation
+     */
+    @Test
+    public void getFetchPlan_shouldReturnTheAssociationsOfTheRefRepresentationGivenAnyOtherRepresentation()
+            throws Exception {
+        
+        assertThat(RadiologyOrderResource.getFetchPlan(new RefRepresentation()), is(new String[] { "study", "concept" }));
+        assertThat(RadiologyOrderResource.getFetchPlan(new NamedRepresentation("some")),
+            is(new String[] { "study", "concept" }));
+    }
+    
     /**
      * @see RadiologyOrderResource#getResourceVersion()
      * @verifies return supported resource version
@@ -0,0 +1,153 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order.web.resource;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.openmrs.module.radiology.order.RadiologyOrderWorklistItem;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.NamedRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.RefRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
+import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs2_0.RestConstants2_0;
+
+/**
+ * Tests {@link RadiologyOrderWorklistItemResource}.
+ */
+public class RadiologyOrderWorklistItemResourceTest {
+    
+    
+    private static final String RADIOLOGY_ORDER_UUID = "1bae735a-fca0-11e5-9e59-08002719a237";
+    
+    RadiologyOrderWorklistItemResource radiologyOrderWorklistItemResource = new RadiologyOrderWorklistItemResource();
+    
+    RadiologyOrderWorklistItem radiologyOrderWorklistItem = new RadiologyOrderWorklistItem(1, RADIOLOGY_ORDER_UUID, "1",
+            null, null, null, null, null, null, null, null, null, null, null, null, null, null);
+    
+    /**
+     * @see RadiologyOrderWorklistItemResource#getRepresentationDescription(Representation)
+     * @verifies return default representation given instance of defaultrepresentation
+     */
+    @Test
+    public void getRepresentationDescription_shouldReturnDefaultRepresentationGivenInstanceOfDefaultrepresentation()
+            throws Exception {
+        
+        DelegatingResourceDescription resourceDescription =
+                radiologyOrderWorklistItemResource.getRepresentationDescription(new DefaultRepresentation());
+        
+        assertThat(resourceDescription.getProperties()
+                .keySet(),
+            contains("uuid", "accessionNumber", "patientUuid", "patientName", "patientIdentifier", "procedure", "urgency",
+                "scheduledDate", "dateActivated", "dateStopped", "orderer", "orderReason", "orderReasonNonCoded",
+                "instructions", "performedStatus", "reportStatus"));
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistItemResource#getRepresentationDescription(Representation)
+     * @verifies return full representation given instance of fullrepresentation
+     */
+    @Test
+    public void getRepresentationDescription_shouldReturnFullRepresentationGivenInstanceOfFullrepresentation()
+            throws Exception {
+        
+        DelegatingResourceDescription resourceDescription =
+                radiologyOrderWorklistItemResource.getRepresentationDescription(new FullRepresentation());
+        
+        assertThat(resourceDescription.getProperties()
+                .keySet(),
+            contains("uuid", "accessionNumber", "patientUuid", "patientName", "patientIdentifier", "procedure", "urgency",
+                "scheduledDate", "dateActivated", "dateStopped", "orderer", "orderReason", "orderReasonNonCoded",
+                "instructions", "performedStatus", "reportStatus"));
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistItemResource#getRepresentationDescription(Representation)
+     * @verifies return null for representation other then default or full
+     */
+    @Test
+    public void getRepresentationDescription_shouldReturnNullForRepresentationOtherThenDefaultOrFull() throws Exception {
+        
+        assertThat(radiologyOrderWorklistItemResource.getRepresentationDescription(new CustomRepresentation("some")),
+            is(nullValue()));
+        assertThat(radiologyOrderWorklistItemResource.getRepresentationDescription(new NamedRepresentation("some")),
+            is(nullValue()));
+        assertThat(radiologyOrderWorklistItemResource.getRepresentationDescription(new RefRepresentation()),
+            is(nullValue()));
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistItemResource#getResourceVersion()
+     * @verifies return supported resource version
+     */
+    @Test
+    public void getResourceVersion_shouldReturnSupportedResourceVersion() throws Exception {
+        
+        assertThat(radiologyOrderWorklistItemResource.getResourceVersion(), is(RestConstants2_0.RESOURCE_VERSION));
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistItemResource#getByUniqueId(String)
+     * @verifies throw ResourceDoesNotSupportOperationException
+     */
+    @Test(expected = ResourceDoesNotSupportOperationException.class)
+    public void getByUniqueId_shouldThrowResourceDoesNotSupportOperationException() throws Exception {
+        
+        radiologyOrderWorklistItemResource.getByUniqueId(RADIOLOGY_ORDER_UUID);
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistItemResource#newDelegate()
+     * @verifies throw ResourceDoesNotSupportOperationException
+     */
+    @Test(expected = ResourceDoesNotSupportOperationException.class)
+    public void newDelegate_shouldThrowResourceDoesNotSupportOperationException() throws Exception {
+        
+        radiologyOrderWorklistItemResource.newDelegate();
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistItemResource#save(RadiologyOrderWorklistItem)
+     * @verifies throw ResourceDoesNotSupportOperationException
+     */
+    @Test(expected = ResourceDoesNotSupportOperationException.class)
+    public void save_shouldThrowResourceDoesNotSupportOperationException() throws Exception {
+        
+        radiologyOrderWorklistItemResource.save(radiologyOrderWorklistItem);
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistItemResource#delete(RadiologyOrderWorklistItem,String,RequestContext)
+     * @verifies throw ResourceDoesNotSupportOperationException
+     */
+    @Test(expected = ResourceDoesNotSupportOperationException.class)
+    public void delete_shouldThrowResourceDoesNotSupportOperationException() throws Exception {
+        
+        radiologyOrderWorklistItemResource.delete(radiologyOrderWorklistItem, "wrong order", new RequestContext());
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistItemResource#purge(RadiologyOrderWorklistItem,RequestContext)
+     * @verifies throw ResourceDoesNotSupportOperationException
+     */
+    @Test(expected = ResourceDoesNotSupportOperationException.class)
+    public void purge_shouldThrowResourceDoesNotSupportOperationException() throws Exception {
+        
+        radiologyOrderWorklistItemResource.purge(radiologyOrderWorklistItem, new RequestContext());
+    }
+}
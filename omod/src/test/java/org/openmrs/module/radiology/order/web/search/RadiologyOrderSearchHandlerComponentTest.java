@@ -10,6 +10,7 @@
 package org.openmrs.module.radiology.order.web.search;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
@@ -28,6 +29,7 @@ import org.openmrs.api.PatientService;
 import org.openmrs.module.radiology.order.RadiologyOrder;
 import org.openmrs.module.radiology.order.RadiologyOrderSearchCriteria;
 import org.openmrs.module.radiology.order.RadiologyOrderService;
+import org.openmrs.module.radiology.web.ContinuationPaged;
 import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.test.Util;
 import org.openmrs.module.webservices.rest.web.RequestContext;
@@ -478,4 +480,94 @@ public class RadiologyOrderSearchHandlerComponentTest extends MainResourceContro
         assertNotNull(resultPatientAndUrgencyWithTwoOrders);
         assertThat(PropertyUtils.getProperty(resultPatientAndUrgencyWithTwoOrders, "totalCount"), is(2));
     }
+    
+    /**
+     * @see RadiologyOrderSearchHandler#search(RequestContext)
+     * @verifies return the page of radiology orders defined by start index and limit
+     */
+    @Test
+    public void search_shouldReturnThePageOfRadiologyOrdersDefinedByStartIndexAndLimit() throws Exception {
+        
+        MockHttpServletRequest requestFirstPage = request(RequestMethod.GET, getURI());
+        requestFirstPage.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_URGENCY, Urgency.ROUTINE.toString());
+        requestFirstPage.setParameter("startIndex", "0");
+        requestFirstPage.setParameter("limit", "2");
+        requestFirstPage.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_TOTAL_COUNT, "true");
+        
+        SimpleObject resultFirstPage = deserialize(handle(requestFirstPage));
+        
+        assertNotNull(resultFirstPage);
+        List<Object> hits = (List<Object>) resultFirstPage.get("results");
+        assertThat(hits.size(), is(2));
+        assertThat(PropertyUtils.getProperty(resultFirstPage, "totalCount"), is(3));
+        assertNotNull(PropertyUtils.getProperty(resultFirstPage, "links"));
+        
+        MockHttpServletRequest requestSecondPage = request(RequestMethod.GET, getURI());
+        requestSecondPage.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_URGENCY, Urgency.ROUTINE.toString());
+        requestSecondPage.setParameter("startIndex", "2");
+        requestSecondPage.setParameter("limit", "2");
+        
+        SimpleObject resultSecondPage = deserialize(handle(requestSecondPage));
+        
+        assertNotNull(resultSecondPage);
+        hits = (List<Object>) resultSecondPage.get("results");
+        assertThat(hits.size(), is(1));
+        assertNull(PropertyUtils.getProperty(resultSecondPage, "totalCount"));
+    }
+    
+    /**
+     * @see RadiologyOrderSearchHandler#search(RequestContext)
+     * @verifies return the page of radiology orders after given continuation token and the token of the next page
+     */
+    @Test
+    public void search_shouldReturnThePageOfRadiologyOrdersAfterGivenContinuationTokenAndTheTokenOfTheNextPage()
+            throws Exception {
+        
+        MockHttpServletRequest requestFirstPage = request(RequestMethod.GET, getURI());
+        requestFirstPage.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_URGENCY, Urgency.ROUTINE.toString());
+        requestFirstPage.setParameter("limit", "2");
+        
+        SimpleObject resultFirstPage = deserialize(handle(requestFirstPage));
+        
+        assertNotNull(resultFirstPage);
+        List<Object> firstHits = (List<Object>) resultFirstPage.get("results");
+        assertThat(firstHits.size(), is(2));
+        String continuationToken =
+                (String) PropertyUtils.getProperty(resultFirstPage, ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN);
+        assertNotNull(continuationToken);
+        
+        MockHttpServletRequest requestSecondPage = request(RequestMethod.GET, getURI());
+        requestSecondPage.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_URGENCY, Urgency.ROUTINE.toString());
+        requestSecondPage.setParameter("limit", "2");
+        requestSecondPage.setParameter(ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN, continuationToken);
+        
+        SimpleObject resultSecondPage = deserialize(handle(requestSecondPage));
+        
+        assertNotNull(resultSecondPage);
+        List<Object> secondHits = (List<Object>) resultSecondPage.get("results");
+        assertThat(secondHits.size(), is(1));
+        for (Object firstHit : firstHits) {
+            assertThat(PropertyUtils.getProperty(secondHits.get(0), "uuid"),
+                is(not(PropertyUtils.getProperty(firstHit, "uuid"))));
+        }
+        assertNull(PropertyUtils.getProperty(resultSecondPage, ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN));
+        assertNull(PropertyUtils.getProperty(resultSecondPage, "links"));
+    }
+    
+    /**
+     * @see RadiologyOrderSearchHandler#search(RequestContext)
+     * @verifies throw illegal argument exception if continuation token is invalid
+     */
+    @Test
+    public void search_shouldThrowIllegalArgumentExceptionIfContinuationTokenIsInvalid() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("continuationToken is invalid");
+        
+        MockHttpServletRequest request = request(RequestMethod.GET, getURI());
+        request.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_URGENCY, Urgency.ROUTINE.toString());
+        request.setParameter(ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN, "not a token");
+        
+        deserialize(handle(request));
+    }
 }
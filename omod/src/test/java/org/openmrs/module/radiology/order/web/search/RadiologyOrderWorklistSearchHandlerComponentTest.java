@@ -0,0 +1,226 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.order.web.search;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Order.Urgency;
+import org.openmrs.module.radiology.dicom.code.PerformedProcedureStepStatus;
+import org.openmrs.module.radiology.web.ContinuationPaged;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
+import org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceControllerTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * Tests {@link RadiologyOrderWorklistSearchHandler}.
+ */
+public class RadiologyOrderWorklistSearchHandlerComponentTest extends MainResourceControllerTest {
+    
+    
+    protected static final String TEST_DATASET = "RadiologyOrderSearchHandlerComponentTestDataset.xml";
+    
+    private static final String UNKNOWN_PATIENT = "99999999-9999-9999-9999-9999999999999";
+    
+    private static final String PATIENT_WITH_TWO_ORDERS = "5631b434-78aa-102b-91a0-001e378eb67e";
+    
+    private static final String RADIOLOGY_ORDER_UUID = "1bae735a-fca0-11e5-9e59-08002719a237";
+    
+    @Before
+    public void setUp() throws Exception {
+        executeDataSet(TEST_DATASET);
+    }
+    
+    /**
+     * @see MainResourceControllerTest#getURI()
+     */
+    @Override
+    public String getURI() {
+        
+        return "radiologyorderworklist";
+    }
+    
+    /**
+     * @see MainResourceControllerTest#getAllCount()
+     */
+    @Override
+    public long getAllCount() {
+        
+        return 0;
+    }
+    
+    /**
+     * @see MainResourceControllerTest#getUuid()
+     */
+    @Override
+    public String getUuid() {
+        
+        return RADIOLOGY_ORDER_UUID;
+    }
+    
+    /**
+     * @see MainResourceControllerTest#shouldGetAll()
+     */
+    @Override
+    @Test(expected = ResourceDoesNotSupportOperationException.class)
+    public void shouldGetAll() throws Exception {
+        
+        deserialize(handle(request(RequestMethod.GET, getURI())));
+    }
+    
+    /**
+     * @see MainResourceControllerTest#shouldGetDefaultByUuid()
+     */
+    @Override
+    @Test(expected = ResourceDoesNotSupportOperationException.class)
+    public void shouldGetDefaultByUuid() throws Exception {
+        
+        super.shouldGetDefaultByUuid();
+    }
+    
+    /**
+     * @see MainResourceControllerTest#shouldGetRefByUuid()
+     */
+    @Override
+    @Test(expected = ResourceDoesNotSupportOperationException.class)
+    public void shouldGetRefByUuid() throws Exception {
+        
+        super.shouldGetRefByUuid();
+    }
+    
+    /**
+     * @see MainResourceControllerTest#shouldGetFullByUuid()
+     */
+    @Override
+    @Test(expected = ResourceDoesNotSupportOperationException.class)
+    public void shouldGetFullByUuid() throws Exception {
+        
+        super.shouldGetFullByUuid();
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistSearchHandler#search(RequestContext)
+     * @verifies return the worklist items of all radiology orders for given patient
+     */
+    @Test
+    public void search_shouldReturnTheWorklistItemsOfAllRadiologyOrdersForGivenPatient() throws Exception {
+        
+        MockHttpServletRequest request = request(RequestMethod.GET, getURI());
+        request.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_PATIENT, PATIENT_WITH_TWO_ORDERS);
+        
+        SimpleObject result = deserialize(handle(request));
+        
+        assertNotNull(result);
+        List<Object> hits = (List<Object>) result.get("results");
+        assertThat(hits.size(), is(2));
+        for (Object hit : hits) {
+            assertThat(PropertyUtils.getProperty(hit, "patientUuid"), is(PATIENT_WITH_TWO_ORDERS));
+            assertThat(PropertyUtils.getProperty(hit, "patientName"), is("John Francis Doe"));
+            assertThat(PropertyUtils.getProperty(hit, "patientIdentifier"), is("4321"));
+            assertThat(PropertyUtils.getProperty(hit, "procedure"), is("FRACTURE"));
+            assertThat(PropertyUtils.getProperty(hit, "urgency"), is(Urgency.ROUTINE.toString()));
+            assertThat(PropertyUtils.getProperty(hit, "orderer"), is("Radiology Technician"));
+            assertThat(PropertyUtils.getProperty(hit, "performedStatus"),
+                is(PerformedProcedureStepStatus.IN_PROGRESS.toString()));
+        }
+        assertThat(PropertyUtils.getProperty(hits.get(0), "accessionNumber"), is("1"));
+        assertThat(PropertyUtils.getProperty(hits.get(1), "accessionNumber"), is("2"));
+        assertNull(PropertyUtils.getProperty(result, "totalCount"));
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistSearchHandler#search(RequestContext)
+     * @verifies return empty search result if patient cannot be found
+     */
+    @Test
+    public void search_shouldReturnEmptySearchResultIfPatientCannotBeFound() throws Exception {
+        
+        MockHttpServletRequest request = request(RequestMethod.GET, getURI());
+        request.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_PATIENT, UNKNOWN_PATIENT);
+        
+        SimpleObject result = deserialize(handle(request));
+        
+        assertNotNull(result);
+        List<Object> hits = (List<Object>) result.get("results");
+        assertThat(hits.size(), is(0));
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistSearchHandler#search(RequestContext)
+     * @verifies return the worklist items of all radiology orders for given urgency and totalCount if requested
+     */
+    @Test
+    public void search_shouldReturnTheWorklistItemsOfAllRadiologyOrdersForGivenUrgencyAndTotalCountIfRequested()
+            throws Exception {
+        
+        MockHttpServletRequest request = request(RequestMethod.GET, getURI());
+        request.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_URGENCY, Urgency.ROUTINE.toString());
+        request.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_TOTAL_COUNT, "true");
+        
+        SimpleObject result = deserialize(handle(request));
+        
+        assertNotNull(result);
+        List<Object> hits = (List<Object>) result.get("results");
+        assertThat(hits.size(), is(3));
+        for (Object hit : hits) {
+            assertThat(PropertyUtils.getProperty(hit, "urgency"), is(Urgency.ROUTINE.toString()));
+        }
+        assertThat(PropertyUtils.getProperty(result, "totalCount"), is(3));
+    }
+    
+    /**
+     * @see RadiologyOrderWorklistSearchHandler#search(RequestContext)
+     * @verifies return the page of worklist items after given continuation token and the token of the next page
+     */
+    @Test
+    public void search_shouldReturnThePageOfWorklistItemsAfterGivenContinuationTokenAndTheTokenOfTheNextPage()
+            throws Exception {
+        
+        MockHttpServletRequest requestFirstPage = request(RequestMethod.GET, getURI());
+        requestFirstPage.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_URGENCY, Urgency.ROUTINE.toString());
+        requestFirstPage.setParameter("limit", "2");
+        
+        SimpleObject resultFirstPage = deserialize(handle(requestFirstPage));
+        
+        assertNotNull(resultFirstPage);
+        List<Object> firstHits = (List<Object>) resultFirstPage.get("results");
+        assertThat(firstHits.size(), is(2));
+        String continuationToken =
+                (String) PropertyUtils.getProperty(resultFirstPage, ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN);
+        assertNotNull(continuationToken);
+        
+        MockHttpServletRequest requestSecondPage = request(RequestMethod.GET, getURI());
+        requestSecondPage.setParameter(RadiologyOrderSearchHandler.REQUEST_PARAM_URGENCY, Urgency.ROUTINE.toString());
+        requestSecondPage.setParameter("limit", "2");
+        requestSecondPage.setParameter(ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN, continuationToken);
+        
+        SimpleObject resultSecondPage = deserialize(handle(requestSecondPage));
+        
+        assertNotNull(resultSecondPage);
+        List<Object> secondHits = (List<Object>) resultSecondPage.get("results");
+        assertThat(secondHits.size(), is(1));
+        for (Object firstHit : firstHits) {
+            assertThat(PropertyUtils.getProperty(secondHits.get(0), "uuid"),
+                is(not(PropertyUtils.getProperty(firstHit, "uuid"))));
+        }
+        assertNull(PropertyUtils.getProperty(resultSecondPage, ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN));
+    }
+}
@@ -12,6 +12,7 @@ package org.openmrs.module.radiology.report.template.web;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -21,6 +22,8 @@ import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -31,6 +34,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.openmrs.api.APIException;
 import org.openmrs.module.radiology.report.template.MrrtReportTemplate;
+import org.openmrs.module.radiology.report.template.MrrtReportTemplateImportResult;
 import org.openmrs.module.radiology.report.template.MrrtReportTemplateService;
 import org.openmrs.module.radiology.report.template.MrrtReportTemplateValidationException;
 import org.openmrs.module.radiology.report.template.ValidationError;
@@ -227,6 +231,99 @@ public class RadiologyDashboardReportTemplatesTabControllerTest extends BaseCont
         assertThat(errorMessage, is("Failed to import mrrtReportTemplate.html => File could not be read."));
     }
     
+    /**
+     * @see RadiologyDashboardReportTemplatesTabController#uploadReportTemplateArchive(HttpServletRequest,MultipartFile)
+     * @verifies give error message when template archive is empty
+     */
+    @Test
+    public void uploadReportTemplateArchive_shouldGiveErrorMessageWhenTemplateArchiveIsEmpty() throws Exception {
+        
+        MultipartFile emptyFile = mock(MultipartFile.class);
+        when(emptyFile.isEmpty()).thenReturn(true);
+        
+        ModelAndView modelAndView =
+                radiologyDashboardReportTemplatesTabController.uploadReportTemplateArchive(request, emptyFile);
+        
+        verifyZeroInteractions(mrrtReportTemplateService);
+        
+        assertNotNull(modelAndView);
+        assertThat(modelAndView.getViewName(),
+            is(RadiologyDashboardReportTemplatesTabController.RADIOLOGY_REPORT_TEMPLATES_TAB_VIEW));
+        String message = (String) request.getSession()
+                .getAttribute(WebConstants.OPENMRS_ERROR_ATTR);
+        assertThat(message, is("radiology.MrrtReportTemplate.archive.not.imported.empty"));
+    }
+    
+    /**
+     * @see RadiologyDashboardReportTemplatesTabController#uploadReportTemplateArchive(HttpServletRequest,MultipartFile)
+     * @verifies add import results to model and give success message when import was successful
+     */
+    @Test
+    public void uploadReportTemplateArchive_shouldAddImportResultsToModelAndGiveSuccessMessageWhenImportWasSuccessful()
+            throws Exception {
+        
+        List<MrrtReportTemplateImportResult> results = Arrays.asList(mock(MrrtReportTemplateImportResult.class));
+        when(mrrtReportTemplateService.importMrrtReportTemplates(any(InputStream.class))).thenReturn(results);
+        
+        ModelAndView modelAndView =
+                radiologyDashboardReportTemplatesTabController.uploadReportTemplateArchive(request, multipartFile);
+        
+        verify(mrrtReportTemplateService).importMrrtReportTemplates(any(InputStream.class));
+        verifyNoMoreInteractions(mrrtReportTemplateService);
+        
+        assertNotNull(modelAndView);
+        assertThat(modelAndView.getViewName(),
+            is(RadiologyDashboardReportTemplatesTabController.RADIOLOGY_REPORT_TEMPLATES_TAB_VIEW));
+        assertThat(modelAndView.getModel()
+                .get("mrrtReportTemplateImportResults"),
+            is(results));
+        String message = (String) request.getSession()
+                .getAttribute(WebConstants.OPENMRS_MSG_ATTR);
+        assertThat(message, is("radiology.MrrtReportTemplate.archive.imported"));
+    }
+    
+    /**
+     * @see RadiologyDashboardReportTemplatesTabController#uploadReportTemplateArchive(HttpServletRequest,MultipartFile)
+     * @verifies set error message in session when io exception is thrown
+     */
+    @Test
+    public void uploadReportTemplateArchive_shouldSetErrorMessageInSessionWhenIoExceptionIsThrown() throws Exception {
+        
+        when(mrrtReportTemplateService.importMrrtReportTemplates(any(InputStream.class)))
+                .thenThrow(new IOException("Unexpected end of ZLIB input stream"));
+        
+        ModelAndView modelAndView =
+                radiologyDashboardReportTemplatesTabController.uploadReportTemplateArchive(request, multipartFile);
+        
+        assertNotNull(modelAndView);
+        assertThat(modelAndView.getModel()
+                .containsKey("mrrtReportTemplateImportResults"),
+            is(false));
+        String errorMessage = (String) request.getSession()
+                .getAttribute(WebConstants.OPENMRS_ERROR_ATTR);
+        assertThat(errorMessage,
+            is("Failed to import " + multipartFile.getOriginalFilename() + " => Unexpected end of ZLIB input stream"));
+    }
+    
+    /**
+     * @see RadiologyDashboardReportTemplatesTabController#uploadReportTemplateArchive(HttpServletRequest,MultipartFile)
+     * @verifies set error message in session when api exception is thrown
+     */
+    @Test
+    public void uploadReportTemplateArchive_shouldSetErrorMessageInSessionWhenApiExceptionIsThrown() throws Exception {
+        
+        when(mrrtReportTemplateService.importMrrtReportTemplates(any(InputStream.class)))
+                .thenThrow(new APIException("Import interrupted"));
+        
+        ModelAndView modelAndView =
+                radiologyDashboardReportTemplatesTabController.uploadReportTemplateArchive(request, multipartFile);
+        
+        assertNotNull(modelAndView);
+        String errorMessage = (String) request.getSession()
+                .getAttribute(WebConstants.OPENMRS_ERROR_ATTR);
+        assertThat(errorMessage, is("Failed to import " + multipartFile.getOriginalFilename() + " => Import interrupted"));
+    }
+    
     /**
      * @see RadiologyDashboardReportTemplatesTabController#deleteMrrtReportTemplate(HttpServletRequest,
      *      org.openmrs.module.radiology.report.template.MrrtReportTemplate)
@@ -9,11 +9,13 @@
  */
 package org.openmrs.module.radiology.report.template.web.resource;
 
+import org.hibernate.SessionFactory;
 import org.junit.Before;
 import org.openmrs.module.radiology.report.template.MrrtReportTemplate;
 import org.openmrs.module.radiology.report.template.MrrtReportTemplateService;
 import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResourceTest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 /**
  * Tests {@link MrrtReportTemplateResource}
@@ -27,8 +29,15 @@ public class MrrtReportTemplateResourceComponentTest
     @Autowired
     MrrtReportTemplateService mrrtReportTemplateService;
     
+    @Autowired
+    @Qualifier("sessionFactory")
+    private SessionFactory sessionFactory;
+    
     @Before
     public void setUp() throws Exception {
+        // datasets are inserted without hibernate which can therefore not invalidate cached query results
+        sessionFactory.getCache()
+                .evictQueryRegions();
         executeDataSet(TEST_DATASET);
     }
     
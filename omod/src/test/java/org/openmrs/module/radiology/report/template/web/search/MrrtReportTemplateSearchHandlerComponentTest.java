@@ -17,9 +17,11 @@ import static org.junit.Assert.assertNull;
 import java.util.List;
 
 import org.apache.commons.beanutils.PropertyUtils;
+import org.hibernate.SessionFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.openmrs.module.radiology.report.template.MrrtReportTemplateSearchCriteria;
+import org.openmrs.module.radiology.report.template.MrrtReportTemplateSearchIndex;
 import org.openmrs.module.radiology.report.template.MrrtReportTemplateService;
 import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.web.RequestContext;
@@ -27,6 +29,7 @@ import org.openmrs.module.webservices.rest.web.representation.Representation;
 import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
 import org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceControllerTest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.web.bind.annotation.RequestMethod;
 
@@ -52,11 +55,26 @@ public class MrrtReportTemplateSearchHandlerComponentTest extends MainResourceCo
     
     private static final String NON_EXISTING_LICENSE = "Non existing license";
     
+    private static final String QUERY = "cardiac stress";
+    
+    private static final String NON_MATCHING_QUERY = "knee";
+    
     @Autowired
     MrrtReportTemplateService mrrtReportTemplateService;
     
+    @Autowired
+    @Qualifier("sessionFactory")
+    private SessionFactory sessionFactory;
+    
+    @Autowired
+    private MrrtReportTemplateSearchIndex mrrtReportTemplateSearchIndex;
+    
     @Before
     public void setUp() throws Exception {
+        // datasets are inserted without hibernate which can therefore not invalidate cached query results
+        sessionFactory.getCache()
+                .evictQueryRegions();
+        mrrtReportTemplateSearchIndex.clear();
         executeDataSet(TEST_DATASET);
     }
     
@@ -219,4 +237,48 @@ public class MrrtReportTemplateSearchHandlerComponentTest extends MainResourceCo
         List<Object> hits = (List<Object>) resultMrrtReportTemplate.get("results");
         assertThat(hits.size(), is(0));
     }
+    
+    /**
+     * @see MrrtReportTemplateSearchHandler#search(RequestContext)
+     * @verifies return all report templates that match given query most relevant first
+     */
+    @Test
+    public void search_shouldReturnAllReportTemplatesThatMatchGivenQueryMostRelevantFirst() throws Exception {
+        MockHttpServletRequest mockRequest = request(RequestMethod.GET, getURI());
+        mockRequest.setParameter(MrrtReportTemplateSearchHandler.REQUEST_PARAM_QUERY, QUERY);
+        SimpleObject resultMrrtReportTemplate = deserialize(handle(mockRequest));
+        
+        assertNotNull(resultMrrtReportTemplate);
+        List<Object> hits = (List<Object>) resultMrrtReportTemplate.get("results");
+        assertThat(hits.size(), is(1));
+        assertThat(PropertyUtils.getProperty(hits.get(0), "uuid"), is(MRRT_REPORT_TEMPLATE_UUID));
+        
+        mockRequest = request(RequestMethod.GET, getURI());
+        mockRequest.setParameter(MrrtReportTemplateSearchHandler.REQUEST_PARAM_QUERY, "mri viab");
+        resultMrrtReportTemplate = deserialize(handle(mockRequest));
+        hits = (List<Object>) resultMrrtReportTemplate.get("results");
+        MrrtReportTemplateSearchCriteria searchCriteria =
+                new MrrtReportTemplateSearchCriteria.Builder().withQuery("mri viab")
+                        .build();
+        assertThat(hits.size(), is(1));
+        assertThat(PropertyUtils.getProperty(hits.get(0), "uuid"),
+            is(mrrtReportTemplateService.getMrrtReportTemplates(searchCriteria)
+                    .get(0)
+                    .getUuid()));
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchHandler#search(RequestContext)
+     * @verifies return empty search result if no report template matches given query
+     */
+    @Test
+    public void search_shouldReturnEmptySearchResultIfNoReportTemplateMatchesGivenQuery() throws Exception {
+        MockHttpServletRequest mockRequest = request(RequestMethod.GET, getURI());
+        mockRequest.setParameter(MrrtReportTemplateSearchHandler.REQUEST_PARAM_QUERY, NON_MATCHING_QUERY);
+        SimpleObject resultMrrtReportTemplate = deserialize(handle(mockRequest));
+        
+        assertNotNull(resultMrrtReportTemplate);
+        List<Object> hits = (List<Object>) resultMrrtReportTemplate.get("results");
+        assertThat(hits.size(), is(0));
+    }
 }
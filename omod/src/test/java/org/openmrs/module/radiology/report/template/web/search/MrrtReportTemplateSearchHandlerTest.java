@@ -13,6 +13,7 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -21,6 +22,7 @@ import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.openmrs.api.context.Context;
@@ -62,6 +64,8 @@ public class MrrtReportTemplateSearchHandlerTest {
     
     private static final String NON_EXISTING_LICENSE = "Non existing license";
     
+    private static final String QUERY = "cardiac stress";
+    
     @Mock
     RestService RestService;
     
@@ -174,4 +178,35 @@ public class MrrtReportTemplateSearchHandlerTest {
         PageableResult pageableResult = mrrtReportTemplateSearchHandler.search(requestContext);
         assertThat(pageableResult, is(instanceOf(EmptySearchResult.class)));
     }
+    
+    /**
+     * @see MrrtReportTemplateSearchHandler#search(RequestContext)
+     * @verifies return all report templates that match given query most relevant first
+     */
+    @Test
+    public void search_shouldReturnAllReportTemplatesThatMatchGivenQueryMostRelevantFirst() throws Exception {
+        request.setParameter(MrrtReportTemplateSearchHandler.REQUEST_PARAM_QUERY, QUERY);
+        when(mrrtReportTemplateService.getMrrtReportTemplates(any(MrrtReportTemplateSearchCriteria.class)))
+                .thenReturn(mrrtReportTemplates);
+        
+        PageableResult pageableResult = mrrtReportTemplateSearchHandler.search(requestContext);
+        assertThat(pageableResult, is(instanceOf(NeedsPaging.class)));
+        ArgumentCaptor<MrrtReportTemplateSearchCriteria> searchCriteria =
+                ArgumentCaptor.forClass(MrrtReportTemplateSearchCriteria.class);
+        verify(mrrtReportTemplateService).getMrrtReportTemplates(searchCriteria.capture());
+        assertThat(searchCriteria.getValue()
+                .getQuery(), is(QUERY));
+    }
+    
+    /**
+     * @see MrrtReportTemplateSearchHandler#search(RequestContext)
+     * @verifies return empty search result if no report template matches given query
+     */
+    @Test
+    public void search_shouldReturnEmptySearchResultIfNoReportTemplateMatchesGivenQuery() throws Exception {
+        request.setParameter(MrrtReportTemplateSearchHandler.REQUEST_PARAM_QUERY, QUERY);
+        
+        PageableResult pageableResult = mrrtReportTemplateSearchHandler.search(requestContext);
+        assertThat(pageableResult, is(instanceOf(EmptySearchResult.class)));
+    }
 }
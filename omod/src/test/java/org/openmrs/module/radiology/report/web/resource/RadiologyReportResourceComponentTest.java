@@ -9,11 +9,28 @@
  */
 package org.openmrs.module.radiology.report.web.resource;
 
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.context.Context;
 import org.openmrs.module.radiology.report.RadiologyReport;
+import org.openmrs.module.radiology.report.RadiologyReportSearchCriteria;
 import org.openmrs.module.radiology.report.RadiologyReportService;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
 import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResourceTest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 /**
  * Tests {@link RadiologyReportResource}.
@@ -27,6 +44,10 @@ public class RadiologyReportResourceComponentTest
     @Autowired
     RadiologyReportService radiologyReportService;
     
+    @Autowired
+    @Qualifier("sessionFactory")
+    SessionFactory sessionFactory;
+    
     @Before
     public void setUp() throws Exception {
         executeDataSet(TEST_DATASET);
@@ -91,4 +112,65 @@ public class RadiologyReportResourceComponentTest
         assertPropPresent("voided");
         assertPropPresent("auditInfo");
     }
+    
+    /**
+     * @see RadiologyReportResource#getFetchPlan(Representation)
+     * @verifies let searches load the associations of each representation without further statements
+     */
+    @Test
+    public void getFetchPlan_shouldLetSearchesLoadTheAssociationsOfEachRepresentationWithoutFurtherStatements()
+            throws Exception {
+        
+        Statistics statistics = sessionFactory.getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            for (Representation representation : new Representation[] { Representation.REF, Representation.DEFAULT,
+                    Representation.FULL,
+                    new CustomRepresentation("(uuid,display,principalResultsInterpreter,auditInfo)") }) {
+                String[] fetchPlan = RadiologyReportResource.getFetchPlan(representation);
+                RadiologyReportSearchCriteria.Builder radiologyReportSearchCriteriaBuilder =
+                        new RadiologyReportSearchCriteria.Builder().fetch(fetchPlan);
+                // the search handler leaves out the body for representations without it, which loads reports differently
+                if (representation == Representation.REF || representation instanceof CustomRepresentation) {
+                    radiologyReportSearchCriteriaBuilder.excludeBody();
+                }
+                Context.clearSession();
+                List<RadiologyReport> radiologyReports =
+                        radiologyReportService.getRadiologyReports(radiologyReportSearchCriteriaBuilder.build());
+                
+                statistics.clear();
+                for (RadiologyReport radiologyReport : radiologyReports) {
+                    for (String associationPath : fetchPlan) {
+                        Hibernate.initialize(getAssociation(radiologyReport, associationPath));
+                    }
+                }
+                
+                assertThat(radiologyReports, is(not(empty())));
+                assertThat(representation.getRepresentation(), statistics.getPrepareStatementCount(), is(0L));
+            }
+        }
+        finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+    
+    /**
+     * Get the association at given path of given radiology report.
+     * 
+     * @param radiologyReport the radiology report
+     * @param associationPath the path of the association starting at the radiology report
+     * @return the association at given path, null if an association on the path is null
+     */
+    private static Object getAssociation(RadiologyReport radiologyReport, String associationPath) throws Exception {
+        
+        Object result = radiologyReport;
+        for (String property : associationPath.split("\\.")) {
+            if (result == null) {
+                return null;
+            }
+            result = PropertyUtils.getProperty(result, property);
+        }
+        return result;
+    }
 }
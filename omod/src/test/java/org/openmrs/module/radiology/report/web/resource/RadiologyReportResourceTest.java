@@ -153,6 +153,59 @@ public class RadiologyReportResourceTest {
         assertThat(radiologyReportResource.getRepresentationDescription(refRepresentation), is(nullValue()));
     }
     
+    /**
+     * @see RadiologyReportResource#getFetchPlan(Representation)
+     * @verifies return the associations of the default representation given instance of defaultrepresentation
+     */
+    @Test
+    public void getFetchPlan_shouldReturnTheAssociationsOfTheDefaultRepresentationGivenInstanceOfDefaultrepresentation()
+            throws Exception {
+        
+        assertThat(RadiologyReportResource.getFetchPlan(new DefaultRepresentation()),
+            is(new String[] { "radiologyOrder", "radiologyOrder.study", "radiologyOrder.concept",
+                    "principalResultsInterpreter", "principalResultsInterpreter.person" }));
+    }
+    
+    /**
+     * @see RadiologyReportResource#getFetchPlan(Representation)
+     * @verifies return the associations of the full representation given instance of fullrepresentation
+     */
+    @Test
+    public void getFetchPlan_shouldReturnTheAssociationsOfTheFullRepresentationGivenInstanceOfFullrepresentation()
+            throws Exception {
+        
+        assertThat(RadiologyReportResource.getFetchPlan(new FullRepresentation()),
+            is(new String[] { "radiologyOrder", "radiologyOrder.study", "radiologyOrder.concept",
+                    "principalResultsInterpreter", "principalResultsInterpreter.person", "creator", "changedBy",
+                    "voidedBy" }));
+    }
+    
+    /**
+     * @see RadiologyReportResource#getFetchPlan(Representation)
+     * @verifies return the associations of the requested properties given instance of customrepresentation
+     */
+    @Test
+    public void getFetchPlan_shouldReturnTheAssociationsOfTheRequestedPropertiesGivenInstanceOfCustomrepresentation()
+            throws Exception {
+        
+        assertThat(RadiologyReportResource.getFetchPlan(new CustomRepresentation("(uuid,status,display,auditInfo)")),
+            is(new String[] { "radiologyOrder", "radiologyOrder.study", "creator", "changedBy", "voidedBy" }));
+    }
+    
+    /**
+     * @see RadiologyReportResource#getFetchPlan(Representation)
+     * @verifies return the associations of the ref representation given any other representation
+     */
+    @Test
+    public void getFetchPlan_shouldReturnTheAssociationsOfTheRefRepresentationGivenAnyOtherRepresentation()
+            throws Exception {
+        
+        assertThat(RadiologyReportResource.getFetchPlan(new RefRepresentation()),
+            is(new String[] { "radiologyOrder", "radiologyOrder.study" }));
+        assertThat(RadiologyReportResource.getFetchPlan(new NamedRepresentation("some")),
+            is(new String[] { "radiologyOrder", "radiologyOrder.study" }));
+    }
+    
     /**
      * @see RadiologyReportResource#getResourceVersion()
      * @verifies return supported resource version
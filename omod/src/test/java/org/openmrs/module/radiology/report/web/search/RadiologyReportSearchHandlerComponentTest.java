@@ -16,20 +16,26 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.beanutils.PropertyUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.api.AdministrationService;
 import org.openmrs.api.ProviderService;
+import org.openmrs.module.radiology.RadiologyConstants;
 import org.openmrs.module.radiology.report.RadiologyReport;
 import org.openmrs.module.radiology.report.RadiologyReportSearchCriteria;
 import org.openmrs.module.radiology.report.RadiologyReportService;
 import org.openmrs.module.radiology.report.RadiologyReportStatus;
+import org.openmrs.module.radiology.web.ContinuationPaged;
 import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
@@ -62,12 +68,17 @@ public class RadiologyReportSearchHandlerComponentTest extends MainResourceContr
     
     private static final String RADIOLOGY_REPORT_UUID = "82d3fb80-e403-4b9b-982c-22161ec29811";
     
+    private static final String RADIOLOGY_REPORT_UUID_WITH_PULMONARY_NODULE = "82d3fb80-e403-4b9b-982c-22161ec29811";
+    
     @Autowired
     RadiologyReportService radiologyReportService;
     
     @Autowired
     ProviderService providerService;
     
+    @Autowired
+    AdministrationService administrationService;
+    
     DateFormat format = new SimpleDateFormat("yyyy-MM-dd");
     
     DateFormat resultFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
@@ -75,6 +86,9 @@ public class RadiologyReportSearchHandlerComponentTest extends MainResourceContr
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
     
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
     @Before
     public void setUp() throws Exception {
         
@@ -388,4 +402,148 @@ public class RadiologyReportSearchHandlerComponentTest extends MainResourceContr
         assertNotNull(resultDateRangeWithTwoReport);
         assertThat(PropertyUtils.getProperty(resultDateRangeWithTwoReport, "totalCount"), is(2));
     }
+    
+    /**
+     * @see RadiologyReportSearchHandler#search(RequestContext)
+     * @verifies return the page of radiology reports defined by start index and limit
+     */
+    @Test
+    public void search_shouldReturnThePageOfRadiologyReportsDefinedByStartIndexAndLimit() throws Exception {
+        
+        MockHttpServletRequest requestFirstPage = request(RequestMethod.GET, getURI());
+        requestFirstPage.setParameter(RadiologyReportSearchHandler.REQUEST_PARAM_DATE_FROM, DATE_BEFORE_REPORT_DATES);
+        requestFirstPage.setParameter("startIndex", "0");
+        requestFirstPage.setParameter("limit", "1");
+        requestFirstPage.setParameter(RadiologyReportSearchHandler.REQUEST_PARAM_TOTAL_COUNT, "true");
+        
+        SimpleObject resultFirstPage = deserialize(handle(requestFirstPage));
+        
+        assertNotNull(resultFirstPage);
+        List<Object> hits = (List<Object>) resultFirstPage.get("results");
+        assertThat(hits.size(), is(1));
+        assertThat(PropertyUtils.getProperty(resultFirstPage, "totalCount"), is(2));
+        
+        MockHttpServletRequest requestSecondPage = request(RequestMethod.GET, getURI());
+        requestSecondPage.setParameter(RadiologyReportSearchHandler.REQUEST_PARAM_DATE_FROM, DATE_BEFORE_REPORT_DATES);
+        requestSecondPage.setParameter("startIndex", "1");
+        requestSecondPage.setParameter("limit", "1");
+        
+        SimpleObject resultSecondPage = deserialize(handle(requestSecondPage));
+        
+        assertNotNull(resultSecondPage);
+        List<Object> secondHits = (List<Object>) resultSecondPage.get("results");
+        assertThat(secondHits.size(), is(1));
+        assertThat(PropertyUtils.getProperty(secondHits.get(0), "uuid"),
+            is(not(PropertyUtils.getProperty(hits.get(0), "uuid"))));
+        assertNull(PropertyUtils.getProperty(resultSecondPage, "totalCount"));
+    }
+    
+    /**
+     * @see RadiologyReportSearchHandler#search(RequestContext)
+     * @verifies return radiology reports without body if a custom representation without body is requested
+     */
+    @Test
+    public void search_shouldReturnRadiologyReportsWithoutBodyIfACustomRepresentationWithoutBodyIsRequested()
+            throws Exception {
+        
+        MockHttpServletRequest request = request(RequestMethod.GET, getURI());
+        request.setParameter(RadiologyReportSearchHandler.REQUEST_PARAM_DATE_FROM, DATE_BEFORE_REPORT_DATES);
+        request.setParameter("v", "custom:(uuid,status,radiologyOrder:ref,auditInfo)");
+        
+        SimpleObject result = deserialize(handle(request));
+        
+        assertNotNull(result);
+        List<Object> hits = (List<Object>) result.get("results");
+        assertThat(hits.size(), is(2));
+        for (Object hit : hits) {
+            assertNotNull(PropertyUtils.getProperty(hit, "uuid"));
+            assertNotNull(PropertyUtils.getProperty(hit, "radiologyOrder"));
+            assertNotNull(PropertyUtils.getProperty(hit, "auditInfo"));
+            assertThat(((Map<String, Object>) hit).containsKey("body"), is(false));
+        }
+    }
+    
+    /**
+     * @see RadiologyReportSearchHandler#search(RequestContext)
+     * @verifies return the page of radiology reports after given continuation token and the token of the next page
+     */
+    @Test
+    public void search_shouldReturnThePageOfRadiologyReportsAfterGivenContinuationTokenAndTheTokenOfTheNextPage()
+            throws Exception {
+        
+        MockHttpServletRequest requestFirstPage = request(RequestMethod.GET, getURI());
+        requestFirstPage.setParameter(RadiologyReportSearchHandler.REQUEST_PARAM_DATE_FROM, DATE_BEFORE_REPORT_DATES);
+        requestFirstPage.setParameter("limit", "1");
+        
+        SimpleObject resultFirstPage = deserialize(handle(requestFirstPage));
+        
+        assertNotNull(resultFirstPage);
+        List<Object> firstHits = (List<Object>) resultFirstPage.get("results");
+        assertThat(firstHits.size(), is(1));
+        String continuationToken =
+                (String) PropertyUtils.getProperty(resultFirstPage, ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN);
+        assertNotNull(continuationToken);
+        
+        MockHttpServletRequest requestSecondPage = request(RequestMethod.GET, getURI());
+        requestSecondPage.setParameter(RadiologyReportSearchHandler.REQUEST_PARAM_DATE_FROM, DATE_BEFORE_REPORT_DATES);
+        requestSecondPage.setParameter("limit", "1");
+        requestSecondPage.setParameter(ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN, continuationToken);
+        
+        SimpleObject resultSecondPage = deserialize(handle(requestSecondPage));
+        
+        assertNotNull(resultSecondPage);
+        List<Object> secondHits = (List<Object>) resultSecondPage.get("results");
+        assertThat(secondHits.size(), is(1));
+        assertThat(PropertyUtils.getProperty(secondHits.get(0), "uuid"),
+            is(not(PropertyUtils.getProperty(firstHits.get(0), "uuid"))));
+        assertNull(PropertyUtils.getProperty(resultSecondPage, ContinuationPaged.REQUEST_PARAM_CONTINUATION_TOKEN));
+    }
+    
+    /**
+     * @see RadiologyReportSearchHandler#search(RequestContext)
+     * @verifies return all completed radiology reports whose body contains all words of the query and their snippets
+     */
+    @Test
+    public void search_shouldReturnAllCompletedRadiologyReportsWhoseBodyContainsAllWordsOfTheQueryAndTheirSnippets()
+            throws Exception {
+        
+        rebuildRadiologyReportSearchIndex();
+        MockHttpServletRequest request = request(RequestMethod.GET, getURI());
+        request.setParameter(RadiologyReportSearchHandler.REQUEST_PARAM_QUERY, "pulm nodule");
+        request.setParameter("v", "custom:(uuid,status)");
+        
+        SimpleObject result = deserialize(handle(request));
+        
+        assertNotNull(result);
+        List<Object> hits = (List<Object>) result.get("results");
+        assertThat(hits.size(), is(1));
+        assertThat(PropertyUtils.getProperty(hits.get(0), "uuid"), is(RADIOLOGY_REPORT_UUID_WITH_PULMONARY_NODULE));
+        assertThat(PropertyUtils.getProperty(hits.get(0), "snippet"), is("Pulmonary nodule in the right upper lobe"));
+        assertThat(((Map<String, Object>) hits.get(0)).containsKey("body"), is(false));
+    }
+    
+    /**
+     * @see RadiologyReportSearchHandler#search(RequestContext)
+     * @verifies return empty search result if no completed report body contains all words of the query
+     */
+    @Test
+    public void search_shouldReturnEmptySearchResultIfNoCompletedReportBodyContainsAllWordsOfTheQuery() throws Exception {
+        
+        rebuildRadiologyReportSearchIndex();
+        MockHttpServletRequest request = request(RequestMethod.GET, getURI());
+        request.setParameter(RadiologyReportSearchHandler.REQUEST_PARAM_QUERY, "pulmonary fracture");
+        
+        SimpleObject result = deserialize(handle(request));
+        
+        assertNotNull(result);
+        List<Object> hits = (List<Object>) result.get("results");
+        assertThat(hits.size(), is(0));
+    }
+    
+    private void rebuildRadiologyReportSearchIndex() throws Exception {
+        
+        File indexFolder = temporaryFolder.newFolder("report_index");
+        administrationService.setGlobalProperty(RadiologyConstants.GP_REPORT_INDEX_DIR, indexFolder.getAbsolutePath());
+        radiologyReportService.rebuildRadiologyReportSearchIndex();
+    }
 }
@@ -0,0 +1,93 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.web;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests {@link ContinuationToken}.
+ */
+public class ContinuationTokenTest {
+    
+    
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+    
+    /**
+     * @see ContinuationToken#parse(String)
+     * @verifies return the continuation token with sort key and id encoded in given token
+     */
+    @Test
+    public void parse_shouldReturnTheContinuationTokenWithSortKeyAndIdEncodedInGivenToken() throws Exception {
+        
+        ContinuationToken continuationToken = ContinuationToken.parse(new ContinuationToken("1.2:3/4", 2001).toString());
+        
+        assertThat(continuationToken.getSortKey(), is("1.2:3/4"));
+        assertThat(continuationToken.getId(), is(2001));
+    }
+    
+    /**
+     * @see ContinuationToken#parse(String)
+     * @verifies return the continuation token without sort key encoded in given token
+     */
+    @Test
+    public void parse_shouldReturnTheContinuationTokenWithoutSortKeyEncodedInGivenToken() throws Exception {
+        
+        ContinuationToken continuationToken = ContinuationToken.parse(new ContinuationToken(null, 7).toString());
+        
+        assertThat(continuationToken.getSortKey(), is(nullValue()));
+        assertThat(continuationToken.getId(), is(7));
+    }
+    
+    /**
+     * @see ContinuationToken#parse(String)
+     * @verifies throw illegal argument exception if given token is not a valid continuation token
+     */
+    @Test
+    public void parse_shouldThrowIllegalArgumentExceptionIfGivenTokenIsNotAValidContinuationToken() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("continuationToken is invalid");
+        ContinuationToken.parse("not a token");
+    }
+    
+    /**
+     * @see ContinuationToken#parse(String)
+     * @verifies throw illegal argument exception if given null
+     */
+    @Test
+    public void parse_shouldThrowIllegalArgumentExceptionIfGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("continuationToken cannot be null");
+        ContinuationToken.parse(null);
+    }
+    
+    /**
+     * @see ContinuationToken#toString()
+     * @verifies return a token which parses to an equal sort key and id
+     */
+    @Test
+    public void toString_shouldReturnATokenWhichParsesToAnEqualSortKeyAndId() throws Exception {
+        
+        ContinuationToken continuationToken = new ContinuationToken("", 0);
+        
+        ContinuationToken parsed = ContinuationToken.parse(continuationToken.toString());
+        
+        assertThat(parsed.getSortKey(), is(""));
+        assertThat(parsed.getId(), is(0));
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.web;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openmrs.module.radiology.RadiologyCacheStatistics;
+import org.openmrs.module.radiology.modality.RadiologyModalityService;
+import org.openmrs.module.radiology.order.RadiologyOrderExportEntry;
+import org.openmrs.module.radiology.order.RadiologyOrderExportWriter;
+import org.openmrs.module.radiology.order.RadiologyOrderService;
+import org.openmrs.module.radiology.order.web.NdjsonRadiologyOrderExportWriter;
+import org.openmrs.module.radiology.report.template.MrrtReportTemplateService;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.test.BaseContextMockTest;
+import org.springframework.mock.web.DelegatingServletOutputStream;
+
+/**
+ * Tests {@link RadiologyRestController}.
+ */
+public class RadiologyRestControllerTest extends BaseContextMockTest {
+    
+    
+    private static final int MANY_RADIOLOGY_ORDERS = 100000;
+    
+    // the ndjson of the many radiology orders is several megabytes, the writer and encoder buffer a few kilobytes
+    private static final long MAX_BUFFERED_BYTES = 32L * 1024;
+    
+    @Mock
+    private RadiologyOrderService radiologyOrderService;
+    
+    @Mock
+    private RadiologyModalityService radiologyModalityService;
+    
+    @Mock
+    private MrrtReportTemplateService mrrtReportTemplateService;
+    
+    @InjectMocks
+    private RadiologyRestController radiologyRestController = new RadiologyRestController();
+    
+    /**
+     * Counts the bytes and lines written to it and discards them.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        
+        
+        private long bytes;
+        
+        private long lines;
+        
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+    }
+    
+    /**
+     * Answers an export with given number of synthetic radiology orders which are created one at a time, keeping track
+     * of the most bytes of ndjson produced but not yet written to given output stream before the next radiology order
+     * is created.
+     */
+    private static class SyntheticRadiologyOrderExport implements Answer<Long> {
+        
+        
+        private final int radiologyOrders;
+        
+        private final CountingOutputStream outputStream;
+        
+        private long maxBufferedBytes;
+        
+        SyntheticRadiologyOrderExport(int radiologyOrders, CountingOutputStream outputStream) {
+            this.radiologyOrders = radiologyOrders;
+            this.outputStream = outputStream;
+        }
+        
+        @Override
+        public Long answer(InvocationOnMock invocation) throws Throwable {
+            
+            final RadiologyOrderExportWriter writer = (RadiologyOrderExportWriter) invocation.getArguments()[1];
+            final ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+            final NdjsonRadiologyOrderExportWriter entryWriter = new NdjsonRadiologyOrderExportWriter(entryBytes);
+            long producedBytes = 0;
+            for (int i = 0; i < radiologyOrders; i++) {
+                final RadiologyOrderExportEntry entry =
+                        new RadiologyOrderExportEntry("0b2f6e4c-6b0e-4d0f-9f3e-" + String.format("%012d", i), "ORD-" + i,
+                                String.valueOf(i), "5631b434-78aa-102b-91a0-001e378eb67e", "ROUTINE", new Date(), null,
+                                null, false, "1.2.826.0.1.3680043.8.2186.1." + i, "COMPLETED", null, null, null);
+                if (outputStream != null) {
+                    entryBytes.reset();
+                    entryWriter.write(entry);
+                    entryWriter.flush();
+                    producedBytes += entryBytes.size();
+                }
+                writer.write(entry);
+                if (outputStream != null) {
+                    maxBufferedBytes = Math.max(maxBufferedBytes, producedBytes - outputStream.bytes);
+                }
+            }
+            return (long) radiologyOrders;
+        }
+    }
+    
+    private static HttpServletResponse getResponseWritingTo(OutputStream outputStream) throws Exception {
+        
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new DelegatingServletOutputStream(outputStream));
+        return response;
+    }
+    
+    /**
+     * @see RadiologyRestController#exportRadiologyOrders(String,HttpServletResponse)
+     * @verifies write all radiology orders as newline delimited json
+     */
+    @Test
+    public void exportRadiologyOrders_shouldWriteAllRadiologyOrdersAsNewlineDelimitedJson() throws Exception {
+        
+        when(radiologyOrderService.exportRadiologyOrders((Date) isNull(), any(RadiologyOrderExportWriter.class)))
+                .thenAnswer(new SyntheticRadiologyOrderExport(2, null));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        HttpServletResponse response = getResponseWritingTo(outputStream);
+        
+        radiologyRestController.exportRadiologyOrders(null, response);
+        
+        verify(response).setContentType(NdjsonRadiologyOrderExportWriter.CONTENT_TYPE);
+        String[] lines = new String(outputStream.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(lines[0].startsWith("{\"orderUuid\":\"0b2f6e4c-6b0e-4d0f-9f3e-000000000000\""), is(true));
+        assertThat(lines[1].startsWith("{\"orderUuid\":\"0b2f6e4c-6b0e-4d0f-9f3e-000000000001\""), is(true));
+    }
+    
+    /**
+     * @see RadiologyRestController#exportRadiologyOrders(String,HttpServletResponse)
+     * @verifies only export radiology orders changed since given since
+     */
+    @Test
+    public void exportRadiologyOrders_shouldOnlyExportRadiologyOrdersChangedSinceGivenSince() throws Exception {
+        
+        Date since = new SimpleDateFormat("yyyy-MM-dd").parse("2016-05-05");
+        
+        radiologyRestController.exportRadiologyOrders("2016-05-05", getResponseWritingTo(new ByteArrayOutputStream()));
+        
+        verify(radiologyOrderService).exportRadiologyOrders(eq(since), any(RadiologyOrderExportWriter.class));
+    }
+    
+    /**
+     * @see RadiologyRestController#exportRadiologyOrders(String,HttpServletResponse)
+     * @verifies write each radiology order to the response through a fixed size buffer
+     */
+    @Test
+    public void exportRadiologyOrders_shouldWriteEachRadiologyOrderToTheResponseThroughAFixedSizeBuffer() throws Exception {
+        
+        CountingOutputStream outputStream = new CountingOutputStream();
+        SyntheticRadiologyOrderExport export = new SyntheticRadiologyOrderExport(MANY_RADIOLOGY_ORDERS, outputStream);
+        when(radiologyOrderService.exportRadiologyOrders((Date) isNull(), any(RadiologyOrderExportWriter.class)))
+                .thenAnswer(export);
+        
+        radiologyRestController.exportRadiologyOrders(null, getResponseWritingTo(outputStream));
+        
+        assertThat(outputStream.lines, is((long) MANY_RADIOLOGY_ORDERS));
+        assertThat(outputStream.bytes, is(greaterThan(MANY_RADIOLOGY_ORDERS * 100L)));
+        assertThat(export.maxBufferedBytes, is(lessThan(MAX_BUFFERED_BYTES)));
+    }
+    
+    /**
+     * @see RadiologyRestController#getCacheStatistics()
+     * @verifies return the statistics of the radiology modality and mrrt report template cache regions
+     */
+    @Test
+    public void getCacheStatistics_shouldReturnTheStatisticsOfTheRadiologyModalityAndMrrtReportTemplateCacheRegions()
+            throws Exception {
+        
+        when(radiologyModalityService.getRadiologyModalityCacheStatistics())
+                .thenReturn(Arrays.asList(new RadiologyCacheStatistics("modality", 5, 1, 2, 3)));
+        when(mrrtReportTemplateService.getMrrtReportTemplateCacheStatistics())
+                .thenReturn(Arrays.asList(new RadiologyCacheStatistics("template", 0, 4, 4, 4),
+                    new RadiologyCacheStatistics("template.terms", 0, 0, 0, 0)));
+        
+        SimpleObject cacheStatistics = radiologyRestController.getCacheStatistics();
+        
+        List<SimpleObject> results = cacheStatistics.get("results");
+        assertThat(results.size(), is(3));
+        assertThat((String) results.get(0)
+                .get("region"), is("modality"));
+        assertThat((Long) results.get(0)
+                .get("hitCount"), is(5L));
+        assertThat((Long) results.get(0)
+                .get("missCount"), is(1L));
+        assertThat((Long) results.get(0)
+                .get("putCount"), is(2L));
+        assertThat((Long) results.get(0)
+                .get("elementCountInMemory"), is(3L));
+        assertThat((String) results.get(1)
+                .get("region"), is("template"));
+        assertThat((String) results.get(2)
+                .get("region"), is("template.terms"));
+    }
+}
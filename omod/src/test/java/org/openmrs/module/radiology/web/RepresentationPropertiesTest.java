@@ -0,0 +1,63 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.radiology.web;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
+
+/**
+ * Tests {@link RepresentationProperties}.
+ */
+public class RepresentationPropertiesTest {
+    
+    
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+    
+    /**
+     * @see RepresentationProperties#getPropertyNames(CustomRepresentation)
+     * @verifies return the names of the top level properties of given custom representation
+     */
+    @Test
+    public void getPropertyNames_shouldReturnTheNamesOfTheTopLevelPropertiesOfGivenCustomRepresentation() throws Exception {
+        
+        assertThat(RepresentationProperties.getPropertyNames(new CustomRepresentation("(uuid, display,orderer)")),
+            contains("uuid", "display", "orderer"));
+    }
+    
+    /**
+     * @see RepresentationProperties#getPropertyNames(CustomRepresentation)
+     * @verifies not return the properties of nested representations
+     */
+    @Test
+    public void getPropertyNames_shouldNotReturnThePropertiesOfNestedRepresentations() throws Exception {
+        
+        assertThat(RepresentationProperties.getPropertyNames(
+            new CustomRepresentation("(uuid,patient:(uuid,person:(gender)),concept:ref,encounter)")),
+            contains("uuid", "patient", "concept", "encounter"));
+    }
+    
+    /**
+     * @see RepresentationProperties#getPropertyNames(CustomRepresentation)
+     * @verifies throw illegal argument exception if given null
+     */
+    @Test
+    public void getPropertyNames_shouldThrowIllegalArgumentExceptionIfGivenNull() throws Exception {
+        
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("representation cannot be null");
+        RepresentationProperties.getPropertyNames(null);
+    }
+}